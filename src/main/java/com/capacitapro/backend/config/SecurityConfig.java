@@ -72,6 +72,12 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(origins);
         configuration.addAllowedMethod("*");
         configuration.addAllowedHeader("*");
+        // Cursor de paginación de los listados; nombre, ETag y rangos de los archivos descargados
+        configuration.addExposedHeader("X-Siguiente-Cursor");
+        configuration.addExposedHeader("Content-Disposition");
+        configuration.addExposedHeader("ETag");
+        configuration.addExposedHeader("Accept-Ranges");
+        configuration.addExposedHeader("Content-Range");
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L); // Cache preflight por 1 hora
 
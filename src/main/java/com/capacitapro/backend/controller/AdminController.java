@@ -1,8 +1,12 @@
 package com.capacitapro.backend.controller;
 
+import com.capacitapro.backend.dto.CertificadoResumen;
+import com.capacitapro.backend.dto.CursorFecha;
 import com.capacitapro.backend.dto.UsuarioDTO;
 import com.capacitapro.backend.entity.*;
 import com.capacitapro.backend.repository.*;
+import com.capacitapro.backend.service.EstructuraCursoService;
+import com.capacitapro.backend.service.VersionContenidoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -27,6 +31,8 @@ public class AdminController {
     private final SubmoduloRepository submoduloRepository;
     private final PasswordEncoder passwordEncoder;
     private final CertificadoRepository certificadoRepository;
+    private final EstructuraCursoService estructuraCursoService;
+    private final VersionContenidoService versionContenidoService;
 
     @GetMapping("/usuarios")
     public ResponseEntity<List<UsuarioDTO>> getAllUsuarios() {
@@ -110,6 +116,7 @@ public class AdminController {
                 .build();
         
         cursoUsuarioRepository.save(cursoUsuario);
+        versionContenidoService.cursoModificado(cursoId);
         return ResponseEntity.ok("Curso asignado exitosamente");
     }
     
@@ -125,6 +132,7 @@ public class AdminController {
                 .orElseThrow(() -> new RuntimeException("El curso no está asignado a este usuario"));
         
         cursoUsuarioRepository.delete(cursoUsuario);
+        versionContenidoService.cursoModificado(cursoId);
         return ResponseEntity.ok("Curso desasignado exitosamente");
     }
     
@@ -243,6 +251,8 @@ public class AdminController {
             }
         }
         
+        estructuraCursoService.invalidar(cursoId);
+        
         java.util.Map<String, Object> response = new java.util.HashMap<>();
         response.put("message", "Módulos guardados exitosamente");
         return ResponseEntity.ok(response);
@@ -265,24 +275,34 @@ public class AdminController {
     }
     
     @GetMapping("/certificados")
-    public ResponseEntity<List<java.util.Map<String, Object>>> getCertificados() {
+    public ResponseEntity<List<java.util.Map<String, Object>>> getCertificados(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "200") int limite) {
         try {
-            List<Certificado> certificados = certificadoRepository.findAll();
+            int tamano = Math.max(1, Math.min(limite, 500));
+            List<CertificadoResumen> certificados = certificadoRepository.listarResumen(CursorFecha.parse(cursor), tamano);
             
             List<java.util.Map<String, Object>> response = certificados.stream()
                     .map(cert -> {
                         java.util.Map<String, Object> certData = new java.util.HashMap<>();
-                        certData.put("id", cert.getId());
-                        certData.put("codigoVerificacion", cert.getCodigoVerificacion());
-                        certData.put("fechaGeneracion", cert.getFechaGeneracion());
-                        certData.put("activo", cert.getActivo());
-                        certData.put("usuario", cert.getUsuario().getNombre());
-                        certData.put("curso", cert.getCurso().getTitulo());
+                        certData.put("id", cert.id());
+                        certData.put("codigoVerificacion", cert.codigoVerificacion());
+                        certData.put("fechaGeneracion", cert.fechaGeneracion());
+                        certData.put("activo", cert.activo());
+                        certData.put("usuario", cert.nombreUsuario());
+                        certData.put("curso", cert.nombreCurso());
                         return certData;
                     })
                     .collect(java.util.stream.Collectors.toList());
             
-            return ResponseEntity.ok(response);
+            // Página llena: puede haber más, se pide con este cursor
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+            if (certificados.size() == tamano) {
+                builder.header("X-Siguiente-Cursor", certificados.get(certificados.size() - 1).cursor().toString());
+            }
+            return builder.body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.ok(new java.util.ArrayList<>());
         }
@@ -1,17 +1,34 @@
 package com.capacitapro.backend.controller;
 
+import com.capacitapro.backend.dto.ArchivoCertificado;
 import com.capacitapro.backend.dto.CertificadoDTO;
+import com.capacitapro.backend.dto.CertificadoResumen;
+import com.capacitapro.backend.dto.CursorFecha;
 import com.capacitapro.backend.entity.*;
 import com.capacitapro.backend.repository.*;
+import com.capacitapro.backend.service.CertificadoRenderService;
 import com.capacitapro.backend.service.CertificadoService;
+import com.capacitapro.backend.service.EmisionMasivaService;
+import com.capacitapro.backend.service.ExportacionCertificadosService;
+import com.capacitapro.backend.service.VerificacionCertificadoService;
+import com.capacitapro.backend.service.MigracionPdfService;
+import com.capacitapro.backend.service.ProcesadorCursoCompletadoService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,11 +40,24 @@ public class CertificadoController {
 
     private static final Logger log = LoggerFactory.getLogger(CertificadoController.class);
 
+    // Tamaño máximo de página de los listados y cabecera con el cursor de la página siguiente
+    private static final int LIMITE_MAXIMO = 500;
+    private static final String CABECERA_SIGUIENTE_CURSOR = "X-Siguiente-Cursor";
+
+    // Un PDF con un ETag dado no cambia nunca: solo el navegador del usuario lo guarda, sin revalidar
+    private static final String CACHE_PDF = "private, max-age=31536000, immutable";
+
     private final CertificadoRepository certificadoRepo;
     private final UsuarioRepository usuarioRepo;
     private final CertificadoService certificadoService;
     private final CursoRepository cursoRepository;
     private final CertificadoRepository certificadoRepository;
+    private final MigracionPdfService migracionPdfService;
+    private final CertificadoRenderService certificadoRenderService;
+    private final EmisionMasivaService emisionMasivaService;
+    private final VerificacionCertificadoService verificacionCertificadoService;
+    private final ExportacionCertificadosService exportacionCertificadosService;
+    private final ProcesadorCursoCompletadoService procesadorCursoCompletadoService;
 
     private Usuario getUsuarioAutenticado(Authentication authentication) {
         String correo = authentication.getName();
@@ -36,7 +66,10 @@ public class CertificadoController {
     }
 
     @GetMapping("/admin/todos")
-    public ResponseEntity<List<Map<String, Object>>> getTodosCertificados(Authentication authentication) {
+    public ResponseEntity<List<Map<String, Object>>> getTodosCertificados(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "200") int limite,
+            Authentication authentication) {
         try {
             if (authentication == null || !authentication.isAuthenticated()) {
                 log.warn("Usuario no autenticado en getTodosCertificados");
@@ -52,23 +85,26 @@ public class CertificadoController {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
             
-            List<Certificado> certificados = certificadoRepo.findAll();
+            int tamano = limitar(limite);
+            List<CertificadoResumen> certificados = certificadoRepo.listarResumen(CursorFecha.parse(cursor), tamano);
             
             List<Map<String, Object>> response = new ArrayList<>();
             
-            for (Certificado cert : certificados) {
+            for (CertificadoResumen cert : certificados) {
                 Map<String, Object> certData = new HashMap<>();
-                certData.put("id", cert.getId());
-                certData.put("codigoVerificacion", cert.getCodigoVerificacion());
-                certData.put("fechaGeneracion", cert.getFechaGeneracion());
-                certData.put("activo", cert.getActivo());
-                certData.put("nombreUsuario", cert.getUsuario().getNombre());
-                certData.put("nombreCurso", cert.getCurso().getTitulo());
+                certData.put("id", cert.id());
+                certData.put("codigoVerificacion", cert.codigoVerificacion());
+                certData.put("fechaGeneracion", cert.fechaGeneracion());
+                certData.put("activo", cert.activo());
+                certData.put("nombreUsuario", cert.nombreUsuario());
+                certData.put("nombreCurso", cert.nombreCurso());
                 response.add(certData);
             }
             
-            return ResponseEntity.ok(response);
+            return conSiguienteCursor(certificados, tamano).body(response);
             
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Error obteniendo todos los certificados", e);
             e.printStackTrace();
@@ -77,32 +113,38 @@ public class CertificadoController {
     }
     
     @GetMapping("/mis-certificados")
-    public ResponseEntity<List<Map<String, Object>>> getMisCertificados(Authentication authentication) {
+    public ResponseEntity<List<Map<String, Object>>> getMisCertificados(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "200") int limite,
+            Authentication authentication) {
         try {
             Usuario usuario = getUsuarioAutenticado(authentication);
             
-            List<Object[]> certificadosData = certificadoRepo
-                    .findCertificadosSinPdfByUsuario(usuario);
+            int tamano = limitar(limite);
+            List<CertificadoResumen> certificados = certificadoRepo
+                    .listarResumenUsuario(usuario.getId(), CursorFecha.parse(cursor), tamano);
             
             List<Map<String, Object>> response = new ArrayList<>();
             
-            for (Object[] data : certificadosData) {
+            for (CertificadoResumen cert : certificados) {
                 Map<String, Object> certData = new HashMap<>();
-                certData.put("id", data[0]);
-                certData.put("codigoVerificacion", data[1]);
-                certData.put("fechaGeneracion", data[2]);
+                certData.put("id", cert.id());
+                certData.put("codigoVerificacion", cert.codigoVerificacion());
+                certData.put("fechaGeneracion", cert.fechaGeneracion());
                 
                 Map<String, Object> cursoData = new HashMap<>();
-                cursoData.put("id", data[4]);
-                cursoData.put("titulo", data[5]);
-                cursoData.put("descripcion", data[6] != null ? data[6] : "");
+                cursoData.put("id", cert.cursoId());
+                cursoData.put("titulo", cert.nombreCurso());
+                cursoData.put("descripcion", cert.descripcionCurso() != null ? cert.descripcionCurso() : "");
                 
                 certData.put("curso", cursoData);
                 response.add(certData);
             }
             
-            return ResponseEntity.ok(response);
+            return conSiguienteCursor(certificados, tamano).body(response);
             
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Error obteniendo certificados", e);
             e.printStackTrace();
@@ -110,6 +152,19 @@ public class CertificadoController {
         }
     }
     
+    private int limitar(int limite) {
+        return Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+    }
+    
+    // Si la página vino llena puede haber más: el cliente pide la siguiente con este cursor
+    private ResponseEntity.BodyBuilder conSiguienteCursor(List<CertificadoResumen> pagina, int limite) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (pagina.size() == limite) {
+            builder.header(CABECERA_SIGUIENTE_CURSOR, pagina.get(pagina.size() - 1).cursor().toString());
+        }
+        return builder;
+    }
+    
     @PostMapping("/generar/{cursoId}")
     public ResponseEntity<Map<String, Object>> generarCertificado(
             @PathVariable Long cursoId,
@@ -167,6 +222,7 @@ public class CertificadoController {
                 certificado.setActivo(true);
                 
                 certificado = certificadoRepository.save(certificado);
+                verificacionCertificadoService.registrarEmitido(certificado.getCodigoVerificacion());
                 
                 Map<String, Object> response = new HashMap<>();
                 response.put("success", true);
@@ -185,39 +241,26 @@ public class CertificadoController {
     }
 
     @GetMapping("/descargar/{certificadoId}")
-    public ResponseEntity<byte[]> descargarCertificado(
+    public ResponseEntity<Resource> descargarCertificado(
             @PathVariable Long certificadoId,
-            Authentication authentication) {
+            Authentication authentication,
+            WebRequest request) {
         
         try {
             Usuario usuario = getUsuarioAutenticado(authentication);
-            
-            Certificado certificado = certificadoRepo.findById(certificadoId)
-                    .orElseThrow(() -> new RuntimeException("Certificado no encontrado"));
-            
-            // Verificar que el certificado pertenece al usuario
-            if (!certificado.getUsuario().getId().equals(usuario.getId())) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-            }
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", 
-                "certificado_" + certificado.getCodigoVerificacion() + ".pdf");
-            
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(certificado.getArchivoPdf());
+            return descargar(certificadoId, usuario, request);
                     
         } catch (Exception e) {
+            log.warn("No se pudo descargar el certificado {}: {}", certificadoId, e.getMessage());
             return ResponseEntity.notFound().build();
         }
     }
     
     @GetMapping("/{certificadoId}/descargar")
-    public ResponseEntity<byte[]> descargarCertificadoAdmin(
+    public ResponseEntity<Resource> descargarCertificadoAdmin(
             @PathVariable Long certificadoId,
-            Authentication authentication) {
+            Authentication authentication,
+            WebRequest request) {
         
         try {
             Usuario usuario = getUsuarioAutenticado(authentication);
@@ -227,23 +270,203 @@ public class CertificadoController {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
             
-            Certificado certificado = certificadoRepo.findById(certificadoId)
-                    .orElseThrow(() -> new RuntimeException("Certificado no encontrado"));
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", 
-                "certificado_" + certificado.getCodigoVerificacion() + ".pdf");
-            
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(certificado.getArchivoPdf());
+            return descargar(certificadoId, usuario, request);
                     
         } catch (Exception e) {
+            log.warn("No se pudo descargar el certificado {}: {}", certificadoId, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    // El ETag sale del digest del almacén, que identifica un contenido que nunca cambia:
+    // una revalidación se responde con 304 sin abrir el archivo ni renderizar
+    private ResponseEntity<Resource> descargar(Long certificadoId, Usuario usuario, WebRequest request) throws IOException {
+        Optional<String> identificador = certificadoService.identificadorDescarga(certificadoId, usuario);
+        if (identificador.isPresent() && request.checkNotModified(etag(identificador.get()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag(identificador.get()))
+                    .header(HttpHeaders.CACHE_CONTROL, CACHE_PDF)
+                    .build();
+        }
+        return respuestaPdf(certificadoService.descargarCertificado(certificadoId, usuario), request);
+    }
+    
+    // El archivo se copia del disco a la respuesta por bloques, sin cargarlo entero en memoria.
+    // Con un FileSystemResource Spring atiende solo las cabeceras Range (206 y multipart/byteranges);
+    // la longitud la calcula el conversor para que coincida con el rango enviado
+    private ResponseEntity<Resource> respuestaPdf(ArchivoCertificado archivo, WebRequest request) throws IOException {
+        String etag = etag(archivo.getIdentificador());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment", archivo.getNombreArchivo());
+        headers.setETag(etag);
+        headers.set(HttpHeaders.CACHE_CONTROL, CACHE_PDF);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        
+        Resource recurso = archivo.getRecurso();
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (request.getHeader(HttpHeaders.RANGE) != null && ifRange != null && !ifRange.equals(etag)) {
+            // If-Range de otra versión (o una fecha, que no se usa aquí): se envía el archivo completo.
+            // Un InputStreamResource no pasa por el soporte de rangos de Spring
+            if (archivo.getTamano() > 0) {
+                headers.setContentLength(archivo.getTamano());
+            }
+            recurso = new InputStreamResource(recurso.getInputStream());
+        }
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(recurso);
+    }
+    
+    private static String etag(String identificador) {
+        return "\"" + identificador + "\"";
+    }
+    
+    @PostMapping("/admin/migrar-pdfs")
+    public ResponseEntity<Map<String, Object>> migrarPdfs(Authentication authentication) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        if (!"ADMIN".equals(usuario.getRol())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        int movidos = migracionPdfService.migrarLote();
+        Map<String, Object> response = new HashMap<>(migracionPdfService.estado());
+        response.put("movidosEnEsteLote", movidos);
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/admin/migracion-pdfs")
+    public ResponseEntity<Map<String, Object>> estadoMigracionPdfs(Authentication authentication) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        if (!"ADMIN".equals(usuario.getRol())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(migracionPdfService.estado());
+    }
+    
+    @GetMapping("/admin/render-cache")
+    public ResponseEntity<Map<String, Object>> estadoRenderCache(Authentication authentication) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        if (!"ADMIN".equals(usuario.getRol())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(certificadoRenderService.estadisticas());
+    }
+    
+    // ZIP con los PDFs y un manifiesto CSV; se escribe a la respuesta a medida que se leen las filas
+    @GetMapping("/admin/export.zip")
+    public ResponseEntity<StreamingResponseBody> exportarCertificados(
+            @RequestParam(required = false) Long cursoId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            Authentication authentication) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        if (!"ADMIN".equals(usuario.getRol())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (desde != null && hasta != null && desde.isAfter(hasta)) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        StreamingResponseBody cuerpo = salida ->
+                exportacionCertificadosService.exportarZip(usuario, cursoId, desde, hasta, salida);
+        
+        String nombre = "certificados_" + LocalDate.now() + ".zip";
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + nombre + "\"")
+                .body(cuerpo);
+    }
+    
+    @PostMapping("/admin/curso/{cursoId}/emision-masiva")
+    public ResponseEntity<Map<String, Object>> iniciarEmisionMasiva(
+            @PathVariable Long cursoId,
+            Authentication authentication) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        if (!"ADMIN".equals(usuario.getRol())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(emisionMasivaService.iniciar(cursoId, usuario));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/admin/curso/{cursoId}/emision-masiva")
+    public ResponseEntity<Map<String, Object>> estadoEmisionMasiva(
+            @PathVariable Long cursoId,
+            Authentication authentication) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        if (!"ADMIN".equals(usuario.getRol())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        try {
+            return ResponseEntity.ok(emisionMasivaService.estado(cursoId, usuario));
+        } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
     
+    @GetMapping("/admin/emisiones-masivas")
+    public ResponseEntity<List<Map<String, Object>>> getEmisionesMasivas(Authentication authentication) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        if (!"ADMIN".equals(usuario.getRol())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(emisionMasivaService.trabajos(usuario));
+    }
+    
+    // Público: lo usan los empleadores al escanear el código del certificado
+    @GetMapping("/verificar/{codigoVerificacion}")
+    public ResponseEntity<Map<String, Object>> verificarCertificado(@PathVariable String codigoVerificacion) {
+        return verificacionCertificadoService.verificar(codigoVerificacion)
+                .map(v -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("valido", true);
+                    response.put("codigoVerificacion", v.codigoVerificacion());
+                    response.put("nombreUsuario", v.nombreUsuario());
+                    response.put("nombreCurso", v.nombreCurso());
+                    response.put("empresa", v.empresa());
+                    response.put("fechaGeneracion", v.fechaGeneracion().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
+                    return ResponseEntity.ok(response);
+                })
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("valido", false)));
+    }
+    
+    @GetMapping("/admin/verificacion-cache")
+    public ResponseEntity<Map<String, Object>> estadoVerificacionCache(Authentication authentication) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        if (!"ADMIN".equals(usuario.getRol())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(verificacionCertificadoService.estadisticas());
+    }
+    
+    @GetMapping("/admin/cursos-completados")
+    public ResponseEntity<Map<String, Object>> estadoCursosCompletados(Authentication authentication) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        if (!"ADMIN".equals(usuario.getRol())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(procesadorCursoCompletadoService.estadisticas());
+    }
+    
+    @PostMapping("/admin/cursos-completados/reintentar")
+    public ResponseEntity<Map<String, Object>> reintentarCursosCompletados(Authentication authentication) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        if (!"ADMIN".equals(usuario.getRol())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("reintentados", procesadorCursoCompletadoService.reintentarFallidos());
+        return ResponseEntity.ok(response);
+    }
+    
     @PutMapping("/admin/{certificadoId}/revocar")
     public ResponseEntity<String> revocarCertificado(
             @PathVariable Long certificadoId,
@@ -257,11 +480,8 @@ public class CertificadoController {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
             
-            Certificado certificado = certificadoRepo.findById(certificadoId)
-                    .orElseThrow(() -> new RuntimeException("Certificado no encontrado"));
-            
-            certificado.setActivo(false);
-            certificadoRepo.save(certificado);
+            // El servicio también saca el código de la caché de verificación
+            certificadoService.revocarCertificado(certificadoId, usuario);
             
             return ResponseEntity.ok("Certificado revocado exitosamente");
             
@@ -295,19 +515,19 @@ public class CertificadoController {
         try {
             Usuario usuario = getUsuarioAutenticado(authentication);
             
-            List<Certificado> certificados = certificadoRepo
-                    .findByUsuarioAndActivoTrueOrderByFechaGeneracionDesc(usuario);
+            List<CertificadoResumen> certificados = certificadoRepo
+                    .listarResumenUsuario(usuario.getId(), null, LIMITE_MAXIMO);
             
             Map<String, Object> debug = new HashMap<>();
             debug.put("usuario", usuario.getNombre());
-            debug.put("totalCertificados", certificados.size());
+            debug.put("totalCertificados", certificadoRepo.countActivosByUsuarioId(usuario.getId()));
             debug.put("certificados", certificados.stream().map(cert -> {
                 Map<String, Object> certData = new HashMap<>();
-                certData.put("id", cert.getId());
-                certData.put("codigoVerificacion", cert.getCodigoVerificacion());
-                certData.put("fechaGeneracion", cert.getFechaGeneracion());
-                certData.put("curso", cert.getCurso().getTitulo());
-                certData.put("activo", cert.getActivo());
+                certData.put("id", cert.id());
+                certData.put("codigoVerificacion", cert.codigoVerificacion());
+                certData.put("fechaGeneracion", cert.fechaGeneracion());
+                certData.put("curso", cert.nombreCurso());
+                certData.put("activo", cert.activo());
                 return certData;
             }).collect(java.util.stream.Collectors.toList()));
             
@@ -5,12 +5,15 @@ import com.capacitapro.backend.entity.Usuario;
 import com.capacitapro.backend.repository.UsuarioRepository;
 import com.capacitapro.backend.service.CursoService;
 import com.capacitapro.backend.service.CursoAdminService;
+import com.capacitapro.backend.service.VersionContenidoService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import org.slf4j.Logger;
@@ -26,6 +29,7 @@ public class CursoController {
     private final CursoService cursoService;
     private final UsuarioRepository usuarioRepository;
     private final CursoAdminService cursoAdminService;
+    private final VersionContenidoService versionContenidoService;
 
     private Usuario getUsuarioAutenticado(Authentication authentication) {
         try {
@@ -116,9 +120,18 @@ public class CursoController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CursoDTO> obtenerCurso(@PathVariable Long id, Authentication authentication) {
+    public ResponseEntity<CursoDTO> obtenerCurso(@PathVariable Long id, Authentication authentication, WebRequest request) {
         Usuario usuario = getUsuarioAutenticado(authentication);
-        return ResponseEntity.ok(cursoService.obtenerCursoPorId(id, usuario));
+        
+        // La empresa del usuario forma parte del ETag, así un 304 nunca salta la validación de permisos
+        String etag = versionContenidoService.etagCurso(id, usuario.getEmpresa() != null ? usuario.getEmpresa().getId() : null);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(cursoService.obtenerCursoPorId(id, usuario));
     }
 
     @PostMapping
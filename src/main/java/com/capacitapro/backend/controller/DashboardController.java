@@ -87,12 +87,12 @@ public class DashboardController {
             
             // Obtener últimos certificados emitidos
             try {
-                certificadoRepository.findTop5ByOrderByFechaGeneracionDesc().forEach(cert -> {
+                certificadoRepository.listarResumen(null, 5).forEach(cert -> {
                     Map<String, Object> activity = new HashMap<>();
-                    activity.put("user", cert.getUsuario().getNombre());
+                    activity.put("user", cert.nombreUsuario());
                     activity.put("action", "obtuvo certificado en");
-                    activity.put("course", cert.getCurso().getTitulo());
-                    activity.put("time", "hace " + getTimeAgo(cert.getFechaGeneracion()));
+                    activity.put("course", cert.nombreCurso());
+                    activity.put("time", "hace " + getTimeAgo(cert.fechaGeneracion()));
                     activities.add(activity);
                 });
             } catch (Exception e) {
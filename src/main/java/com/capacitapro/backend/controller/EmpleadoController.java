@@ -1,5 +1,6 @@
 package com.capacitapro.backend.controller;
 
+import com.capacitapro.backend.dto.CertificadoResumen;
 import com.capacitapro.backend.entity.*;
 import com.capacitapro.backend.repository.*;
 import lombok.RequiredArgsConstructor;
@@ -76,18 +77,19 @@ public class EmpleadoController {
             }
             
             // Certificados obtenidos recientemente
-            List<Certificado> certificadosRecientes = certificadoRepo
-                    .findByUsuarioAndActivoTrueOrderByFechaGeneracionDesc(usuario).stream()
-                    .filter(cert -> cert.getFechaGeneracion().isAfter(
+            // Solo se muestran 5 notificaciones, así que bastan los 5 certificados más recientes
+            List<CertificadoResumen> certificadosRecientes = certificadoRepo
+                    .listarResumenUsuario(usuario.getId(), null, 5).stream()
+                    .filter(cert -> cert.fechaGeneracion().isAfter(
                         java.time.LocalDateTime.now().minusDays(7)))
                     .collect(Collectors.toList());
             
-            for (Certificado cert : certificadosRecientes) {
+            for (CertificadoResumen cert : certificadosRecientes) {
                 Map<String, Object> notif = new HashMap<>();
                 notif.put("tipo", "certificado_obtenido");
                 notif.put("titulo", "¡Certificado obtenido!");
-                notif.put("mensaje", "Has obtenido el certificado del curso: " + cert.getCurso().getTitulo());
-                notif.put("fecha", cert.getFechaGeneracion());
+                notif.put("mensaje", "Has obtenido el certificado del curso: " + cert.nombreCurso());
+                notif.put("fecha", cert.fechaGeneracion());
                 notificaciones.add(notif);
             }
             
@@ -3,22 +3,39 @@ package com.capacitapro.backend.controller;
 import com.capacitapro.backend.dto.*;
 import com.capacitapro.backend.entity.*;
 import com.capacitapro.backend.repository.*;
+import com.capacitapro.backend.service.ClaveRespuestasService;
+import com.capacitapro.backend.service.CuestionarioEvaluacionService;
+import com.capacitapro.backend.service.EstructuraCursoService;
 import com.capacitapro.backend.service.EvaluacionService;
+import com.capacitapro.backend.service.ImportacionPreguntasService;
+import com.capacitapro.backend.service.IntentoEvaluacionService;
 import com.capacitapro.backend.service.CertificadoService;
 import com.capacitapro.backend.service.ProgresoService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import com.capacitapro.backend.util.SecurityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,6 +47,9 @@ public class EvaluacionController {
 
     private static final Logger log = LoggerFactory.getLogger(EvaluacionController.class);
 
+    // Tamaño máximo de página de la cola de revisión
+    private static final int LIMITE_REVISION = 200;
+
     private final EvaluacionService evaluacionService;
     private final UsuarioRepository usuarioRepository;
     private final EvaluacionRepository evaluacionRepo;
@@ -40,6 +60,12 @@ public class EvaluacionController {
     private final EvaluacionUsuarioRepository evaluacionUsuarioRepo;
     private final CertificadoService certificadoService;
     private final ProgresoService progresoService;
+    private final EstructuraCursoService estructuraCursoService;
+    private final ClaveRespuestasService claveRespuestasService;
+    private final CuestionarioEvaluacionService cuestionarioEvaluacionService;
+    private final ImportacionPreguntasService importacionPreguntasService;
+    private final IntentoEvaluacionService intentoEvaluacionService;
+    private final ObjectMapper objectMapper;
 
     private Usuario getUsuarioAutenticado(Authentication authentication) {
         String correo = authentication.getName();
@@ -136,9 +162,31 @@ public class EvaluacionController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<EvaluacionDTO> obtenerEvaluacion(@PathVariable Long id, Authentication authentication) {
+    public ResponseEntity<?> obtenerEvaluacion(@PathVariable Long id, Authentication authentication, WebRequest request) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        
+        // Quien rinde la evaluación recibe los bytes ya serializados, sin las respuestas correctas
+        if (!"ADMIN".equals(usuario.getRol()) && !"INSTRUCTOR".equals(usuario.getRol())) {
+            CuestionarioSerializado cuestionario;
+            try {
+                cuestionario = cuestionarioEvaluacionService.obtener(id);
+            } catch (RuntimeException e) {
+                return ResponseEntity.notFound().build();
+            }
+            if (usuario.getEmpresa() == null || !usuario.getEmpresa().getId().equals(cuestionario.empresaId())) {
+                return ResponseEntity.notFound().build();
+            }
+            if (request.checkNotModified(cuestionario.etag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cuestionario.etag()).build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(cuestionario.etag())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(cuestionario.json());
+        }
+        
         try {
-            Usuario usuario = getUsuarioAutenticado(authentication);
             EvaluacionDTO evaluacion = evaluacionService.obtenerPorId(id, usuario);
             return ResponseEntity.ok(evaluacion);
         } catch (Exception e) {
@@ -228,6 +276,8 @@ public class EvaluacionController {
                 }
             }
             
+            claveRespuestasService.invalidar(evaluacionId);
+            cuestionarioEvaluacionService.invalidar(evaluacionId);
             return ResponseEntity.ok("Preguntas actualizadas exitosamente para evaluación: " + evaluacionId);
             
         } catch (Exception e) {
@@ -259,6 +309,7 @@ public class EvaluacionController {
             evaluacion.setCurso(curso);
             
             evaluacion = evaluacionRepo.save(evaluacion);
+            estructuraCursoService.invalidar(cursoId);
             log.debug("Evaluación guardada con ID: {}", evaluacion.getId());
             
             // Guardar preguntas
@@ -321,6 +372,9 @@ public class EvaluacionController {
                 }
             }
             
+            // Cada pregunta se guardó por separado: una corrección concurrente pudo compilar una clave incompleta
+            claveRespuestasService.invalidar(evaluacion.getId());
+            cuestionarioEvaluacionService.invalidar(evaluacion.getId());
             return ResponseEntity.ok("Test creado exitosamente con ID: " + evaluacion.getId());
             
         } catch (Exception e) {
@@ -341,6 +395,51 @@ public class EvaluacionController {
         return ResponseEntity.status(HttpStatus.CREATED).body(nuevaPregunta);
     }
 
+    // Banco de preguntas en JSON: la misma forma que PreguntaDTO, en una lista
+    @PostMapping(value = "/{evaluacionId}/preguntas/importar", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> importarPreguntas(
+            @PathVariable Long evaluacionId,
+            @RequestBody List<PreguntaDTO> preguntas,
+            Authentication authentication
+    ) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        return respuestaImportacion(importacionPreguntasService.importar(evaluacionId, preguntas, usuario));
+    }
+    
+    // Banco de preguntas como archivo: .json o .csv (ver ImportacionPreguntasService para las columnas)
+    @PostMapping(value = "/{evaluacionId}/preguntas/importar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Map<String, Object>> importarPreguntasArchivo(
+            @PathVariable Long evaluacionId,
+            @RequestParam("archivo") MultipartFile archivo,
+            Authentication authentication
+    ) throws IOException {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        String nombre = archivo.getOriginalFilename() != null ? archivo.getOriginalFilename().toLowerCase() : "";
+        
+        ResultadoImportacion resultado;
+        if (nombre.endsWith(".json")) {
+            List<PreguntaDTO> preguntas = objectMapper.readValue(archivo.getInputStream(), new TypeReference<List<PreguntaDTO>>() {});
+            resultado = importacionPreguntasService.importar(evaluacionId, preguntas, usuario);
+        } else {
+            try (Reader csv = new InputStreamReader(archivo.getInputStream(), StandardCharsets.UTF_8)) {
+                resultado = importacionPreguntasService.importarCsv(evaluacionId, csv, usuario);
+            }
+        }
+        return respuestaImportacion(resultado);
+    }
+    
+    // Con errores no se importó nada: se devuelven todos, por fila, para corregir el archivo de una vez
+    private ResponseEntity<Map<String, Object>> respuestaImportacion(ResultadoImportacion resultado) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("preguntasImportadas", resultado.preguntas());
+        response.put("respuestasImportadas", resultado.respuestas());
+        response.put("errores", resultado.errores());
+        response.put("duracionMs", resultado.duracionMs());
+        return resultado.exitoso()
+                ? ResponseEntity.status(HttpStatus.CREATED).body(response)
+                : ResponseEntity.badRequest().body(response);
+    }
+
     // REMOVIDO: Test endpoint no debe existir en producción
     
     @PostMapping("/{evaluacionId}/responder-empleado")
@@ -351,9 +450,7 @@ public class EvaluacionController {
         try {
             log.info("Guardando respuesta para evaluación ID: {}", evaluacionId);
             
-            // Obtener evaluación
-            Evaluacion evaluacion = evaluacionRepo.findById(evaluacionId)
-                    .orElseThrow(() -> new RuntimeException("Evaluación no encontrada"));
+            ClaveRespuestas clave = claveRespuestasService.obtener(evaluacionId);
             
             // Crear usuario temporal para prueba (usar el primer usuario empleado)
             Usuario usuarioTemp = usuarioRepository.findAll().stream()
@@ -369,36 +466,13 @@ public class EvaluacionController {
             Map<String, Object> respuestasMap = (Map<String, Object>) request.get("respuestas");
             
             // Calcular puntaje real
-            int puntajeObtenido = 0;
-            int puntajeMaximo = 0;
-            
-            for (Pregunta pregunta : evaluacion.getPreguntas()) {
-                puntajeMaximo += pregunta.getPuntaje();
-                
-                String preguntaIdStr = pregunta.getId().toString();
-                if (respuestasMap != null && respuestasMap.containsKey(preguntaIdStr)) {
-                    Object respuestaObj = respuestasMap.get(preguntaIdStr);
-                    
-                    if ("texto".equals(pregunta.getTipo())) {
-                        // Para preguntas de texto, dar puntos completos por ahora
-                        puntajeObtenido += pregunta.getPuntaje();
-                    } else {
-                        try {
-                            Long respuestaSeleccionadaId = Long.parseLong(respuestaObj.toString());
-                            Respuesta respuestaSeleccionada = respuestaRepo.findById(respuestaSeleccionadaId).orElse(null);
-                            if (respuestaSeleccionada != null && respuestaSeleccionada.getEsCorrecta()) {
-                                puntajeObtenido += pregunta.getPuntaje();
-                            }
-                        } catch (NumberFormatException e) {
-                            System.err.println("Error parseando respuesta: " + respuestaObj);
-                        }
-                    }
-                }
-            }
+            int puntajeObtenido = clave.calificar(respuestasPorPregunta(respuestasMap));
+            int puntajeMaximo = clave.getPuntajeMaximo();
             
             // Calcular porcentaje y aprobación
-            int porcentaje = puntajeMaximo > 0 ? (puntajeObtenido * 100) / puntajeMaximo : 0;
-            boolean aprobado = porcentaje >= evaluacion.getNotaMinima();
+            int porcentaje = clave.porcentaje(puntajeObtenido);
+            boolean aprobado = clave.aprobado(puntajeObtenido);
+            Evaluacion evaluacion = evaluacionRepo.getReferenceById(evaluacionId);
             
             // Guardar resultado en base de datos
             EvaluacionUsuario evaluacionUsuario = EvaluacionUsuario.builder()
@@ -407,11 +481,11 @@ public class EvaluacionController {
                     .puntajeObtenido(puntajeObtenido)
                     .puntajeMaximo(puntajeMaximo)
                     .aprobado(aprobado)
-                    .intentos(1)
+                    .pendienteRevision(!aprobado && clave.tieneAbiertas())
                     .fechaRealizacion(java.time.LocalDateTime.now())
                     .build();
             
-            evaluacionUsuarioRepo.save(evaluacionUsuario);
+            intentoEvaluacionService.registrar(evaluacionUsuario);
             
             log.info("Resultado guardado - Usuario: {}, Puntaje: {}/{}, Aprobado: {}", 
                      usuarioTemp.getNombre(), puntajeObtenido, puntajeMaximo, aprobado);
@@ -421,7 +495,7 @@ public class EvaluacionController {
             response.put("puntuacion", porcentaje);
             response.put("puntajeObtenido", puntajeObtenido);
             response.put("puntajeMaximo", puntajeMaximo);
-            response.put("notaMinima", evaluacion.getNotaMinima());
+            response.put("notaMinima", clave.getNotaMinima());
             
             return ResponseEntity.ok(response);
             
@@ -453,21 +527,9 @@ public class EvaluacionController {
                 throw new RuntimeException("Error de autenticación: " + e.getMessage());
             }
             
-            // Obtener evaluación
-            Evaluacion evaluacion = evaluacionRepo.findById(evaluacionId)
-                    .orElseThrow(() -> new RuntimeException("Evaluación no encontrada con ID: " + evaluacionId));
-            
-            log.info("Evaluación encontrada: {}", evaluacion.getTitulo());
-            
-            // Verificar si ya respondió (permitir múltiples intentos por ahora)
-            boolean yaRespondio = evaluacionUsuarioRepo.existsByEvaluacionAndUsuario(evaluacion, usuario);
-            if (yaRespondio) {
-                log.warn("Usuario {} ya respondió la evaluación {}, eliminando respuesta anterior", 
-                        usuario.getNombre(), evaluacionId);
-                // Eliminar respuesta anterior para permitir nuevo intento
-                List<EvaluacionUsuario> respuestasAnteriores = evaluacionUsuarioRepo.findByEvaluacionAndUsuario(evaluacion, usuario);
-                evaluacionUsuarioRepo.deleteAll(respuestasAnteriores);
-            }
+            // Clave compilada en caché: la corrección no consulta preguntas ni respuestas
+            ClaveRespuestas clave = claveRespuestasService.obtener(evaluacionId);
+            Evaluacion evaluacion = evaluacionRepo.getReferenceById(evaluacionId);
             
             @SuppressWarnings("unchecked")
             Map<String, Object> respuestasMap = (Map<String, Object>) request.get("respuestas");
@@ -479,47 +541,14 @@ public class EvaluacionController {
             }
             
             // Calcular puntaje
-            int puntajeObtenido = 0;
-            int puntajeMaximo = 0;
+            log.info("Número de preguntas en evaluación: {}", clave.getCantidadPreguntas());
             
-            log.info("Número de preguntas en evaluación: {}", evaluacion.getPreguntas().size());
-            
-            for (Pregunta pregunta : evaluacion.getPreguntas()) {
-                puntajeMaximo += pregunta.getPuntaje();
-                
-                String preguntaIdStr = pregunta.getId().toString();
-                log.debug("Procesando pregunta ID: {} - Tipo: {}", pregunta.getId(), pregunta.getTipo());
-                
-                if (respuestasMap.containsKey(preguntaIdStr)) {
-                    Object respuestaObj = respuestasMap.get(preguntaIdStr);
-                    log.debug("Respuesta para pregunta {}: {}", preguntaIdStr, respuestaObj);
-                    
-                    if ("texto".equals(pregunta.getTipo())) {
-                        // Para preguntas de texto, siempre dar puntos (simplificado)
-                        puntajeObtenido += pregunta.getPuntaje();
-                        log.debug("Pregunta de texto - Puntos otorgados: {}", pregunta.getPuntaje());
-                    } else {
-                        try {
-                            Long respuestaSeleccionadaId = Long.parseLong(respuestaObj.toString());
-                            Respuesta respuestaSeleccionada = respuestaRepo.findById(respuestaSeleccionadaId).orElse(null);
-                            if (respuestaSeleccionada != null && respuestaSeleccionada.getEsCorrecta()) {
-                                puntajeObtenido += pregunta.getPuntaje();
-                                log.debug("Respuesta correcta - Puntos otorgados: {}", pregunta.getPuntaje());
-                            } else {
-                                log.debug("Respuesta incorrecta - Sin puntos");
-                            }
-                        } catch (NumberFormatException e) {
-                            log.error("Error parseando respuesta: {}", respuestaObj, e);
-                        }
-                    }
-                } else {
-                    log.warn("No se encontró respuesta para pregunta ID: {}", preguntaIdStr);
-                }
-            }
+            int puntajeObtenido = clave.calificar(respuestasPorPregunta(respuestasMap));
+            int puntajeMaximo = clave.getPuntajeMaximo();
             
             // Calcular porcentaje y aprobación
-            int porcentaje = puntajeMaximo > 0 ? (puntajeObtenido * 100) / puntajeMaximo : 0;
-            boolean aprobado = porcentaje >= evaluacion.getNotaMinima();
+            int porcentaje = clave.porcentaje(puntajeObtenido);
+            boolean aprobado = clave.aprobado(puntajeObtenido);
             
             // Guardar resultado en base de datos
             EvaluacionUsuario evaluacionUsuario = EvaluacionUsuario.builder()
@@ -528,27 +557,30 @@ public class EvaluacionController {
                     .puntajeObtenido(puntajeObtenido)
                     .puntajeMaximo(puntajeMaximo)
                     .aprobado(aprobado)
-                    .intentos(1)
+                    .pendienteRevision(!aprobado && clave.tieneAbiertas())
                     .fechaRealizacion(java.time.LocalDateTime.now())
                     .build();
             
-            evaluacionUsuarioRepo.save(evaluacionUsuario);
+            // Los intentos anteriores se conservan: este se agrega con el número siguiente
+            evaluacionUsuario = intentoEvaluacionService.registrar(evaluacionUsuario);
+            log.info("Intento {} del usuario {} en la evaluación {}", 
+                    evaluacionUsuario.getIntentos(), usuario.getNombre(), evaluacionId);
             
             log.info("=== RESULTADO CALCULADO ===");
             log.info("Puntaje obtenido: {}/{}", puntajeObtenido, puntajeMaximo);
             log.info("Porcentaje: {}%", porcentaje);
-            log.info("Nota mínima: {}%", evaluacion.getNotaMinima());
+            log.info("Nota mínima: {}%", clave.getNotaMinima());
             log.info("Aprobado: {}", aprobado);
             
             // Si aprobó la evaluación, actualizar progreso y verificar si puede generar certificado
             if (aprobado) {
                 try {
-                    // Actualizar progreso del curso
-                    progresoService.actualizarProgresoCurso(evaluacion.getCurso().getId(), usuario);
+                    // Actualizar contadores y progreso del curso
+                    progresoService.registrarResultadoEvaluacion(clave.getCursoId(), usuario);
                     
                     // Verificar si puede generar certificado
-                    if (progresoService.puedeGenerarCertificado(evaluacion.getCurso().getId(), usuario)) {
-                        CertificadoDTO certificado = certificadoService.generarCertificado(evaluacion.getCurso().getId(), usuario);
+                    if (progresoService.puedeGenerarCertificado(clave.getCursoId(), usuario)) {
+                        CertificadoDTO certificado = certificadoService.generarCertificado(clave.getCursoId(), usuario);
                         log.info("Certificado generado automáticamente con ID: {}", certificado.getId());
                     }
                 } catch (Exception e) {
@@ -562,7 +594,7 @@ public class EvaluacionController {
             response.put("puntuacion", porcentaje);
             response.put("puntajeObtenido", puntajeObtenido);
             response.put("puntajeMaximo", puntajeMaximo);
-            response.put("notaMinima", evaluacion.getNotaMinima());
+            response.put("notaMinima", clave.getNotaMinima());
             
             return ResponseEntity.ok(response);
             
@@ -578,8 +610,27 @@ public class EvaluacionController {
         }
     }
 
+    // Respuestas del cliente por id de pregunta; las claves que no son ids se ignoran
+    private Map<Long, String> respuestasPorPregunta(Map<String, Object> respuestasMap) {
+        Map<Long, String> respuestas = new HashMap<>();
+        if (respuestasMap == null) {
+            return respuestas;
+        }
+        respuestasMap.forEach((preguntaId, valor) -> {
+            try {
+                // Una pregunta de texto presente sin valor cuenta como respondida
+                respuestas.put(Long.parseLong(preguntaId.trim()), valor != null ? valor.toString() : "");
+            } catch (NumberFormatException e) {
+                log.warn("Id de pregunta inválido en la respuesta: {}", preguntaId);
+            }
+        });
+        return respuestas;
+    }
+
     @GetMapping("/pendientes-revision")
     public ResponseEntity<List<Map<String, Object>>> getEvaluacionesPendientesRevision(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limite,
             Authentication authentication
     ) {
         try {
@@ -590,40 +641,50 @@ public class EvaluacionController {
                 throw new RuntimeException("No tienes permisos para revisar evaluaciones");
             }
             
-            // Buscar evaluaciones con preguntas de texto que no están aprobadas
-            List<EvaluacionUsuario> pendientes = evaluacionUsuarioRepo.findAll().stream()
-                    .filter(eu -> !eu.getAprobado() && 
-                                 eu.getEvaluacion().getPreguntas().stream()
-                                   .anyMatch(p -> "texto".equals(p.getTipo())))
-                    .collect(java.util.stream.Collectors.toList());
+            // Cola de la empresa del revisor, de la más antigua a la más reciente
+            int tamano = Math.max(1, Math.min(limite, LIMITE_REVISION));
+            List<RevisionPendiente> pendientes = evaluacionUsuarioRepo
+                    .listarRevisionPendiente(usuario.getEmpresa().getId(), CursorFecha.parse(cursor), tamano);
+            
+            // Enunciados de texto de todas las evaluaciones de la página en una sola consulta
+            Map<Long, List<String>> enunciadosPorEvaluacion = new HashMap<>();
+            if (!pendientes.isEmpty()) {
+                Set<Long> evaluacionIds = pendientes.stream().map(RevisionPendiente::evaluacionId).collect(Collectors.toSet());
+                for (Object[] fila : preguntaRepo.findEnunciadosTextoByEvaluacionIds(evaluacionIds)) {
+                    enunciadosPorEvaluacion.computeIfAbsent((Long) fila[0], id -> new java.util.ArrayList<>()).add((String) fila[1]);
+                }
+            }
             
             List<Map<String, Object>> response = new java.util.ArrayList<>();
-            for (EvaluacionUsuario resultado : pendientes) {
+            for (RevisionPendiente resultado : pendientes) {
                 Map<String, Object> data = new HashMap<>();
-                data.put("id", resultado.getId());
-                data.put("nombreUsuario", resultado.getUsuario().getNombre());
-                data.put("tituloEvaluacion", resultado.getEvaluacion().getTitulo());
-                data.put("nombreCurso", resultado.getEvaluacion().getCurso().getTitulo());
-                data.put("fechaRealizacion", resultado.getFechaRealizacion());
-                data.put("puntajeObtenido", resultado.getPuntajeObtenido());
-                data.put("puntajeMaximo", resultado.getPuntajeMaximo());
+                data.put("id", resultado.id());
+                data.put("nombreUsuario", resultado.nombreUsuario());
+                data.put("tituloEvaluacion", resultado.tituloEvaluacion());
+                data.put("nombreCurso", resultado.nombreCurso());
+                data.put("fechaRealizacion", resultado.fechaRealizacion());
+                data.put("puntajeObtenido", resultado.puntajeObtenido());
+                data.put("puntajeMaximo", resultado.puntajeMaximo());
                 
                 // Agregar respuestas de texto
                 List<Map<String, Object>> respuestas = new java.util.ArrayList<>();
-                for (Pregunta pregunta : resultado.getEvaluacion().getPreguntas()) {
-                    if ("texto".equals(pregunta.getTipo())) {
-                        Map<String, Object> respuesta = new HashMap<>();
-                        respuesta.put("pregunta", pregunta.getEnunciado());
-                        respuesta.put("respuestaTexto", "Respuesta del usuario"); // Aquí iría la respuesta real
-                        respuestas.add(respuesta);
-                    }
+                for (String enunciado : enunciadosPorEvaluacion.getOrDefault(resultado.evaluacionId(), List.of())) {
+                    Map<String, Object> respuesta = new HashMap<>();
+                    respuesta.put("pregunta", enunciado);
+                    respuesta.put("respuestaTexto", "Respuesta del usuario"); // Aquí iría la respuesta real
+                    respuestas.add(respuesta);
                 }
                 data.put("respuestas", respuestas);
                 
                 response.add(data);
             }
             
-            return ResponseEntity.ok(response);
+            // Página llena: puede haber más, el cliente pide la siguiente con este cursor
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+            if (pendientes.size() == tamano) {
+                builder.header("X-Siguiente-Cursor", pendientes.get(pendientes.size() - 1).cursor().toString());
+            }
+            return builder.body(response);
             
         } catch (Exception e) {
             log.error("Error obteniendo evaluaciones pendientes", e);
@@ -651,8 +712,11 @@ public class EvaluacionController {
             
             evaluacionUsuario.setAprobado(true);
             evaluacionUsuario.setPuntajeObtenido(puntajeManual != null ? puntajeManual : evaluacionUsuario.getPuntajeMaximo());
+            evaluacionUsuario.setPendienteRevision(false);
             
-            evaluacionUsuarioRepo.save(evaluacionUsuario);
+            intentoEvaluacionService.actualizar(evaluacionUsuario);
+            progresoService.registrarResultadoEvaluacion(
+                    evaluacionUsuario.getEvaluacion().getCurso().getId(), evaluacionUsuario.getUsuario());
             
             return ResponseEntity.ok("Evaluación aprobada exitosamente");
             
@@ -678,9 +742,12 @@ public class EvaluacionController {
                     .orElseThrow(() -> new RuntimeException("Evaluación no encontrada"));
             
             evaluacionUsuario.setAprobado(false);
+            evaluacionUsuario.setPendienteRevision(false);
             // Aquí se podría agregar un campo de comentarios
             
-            evaluacionUsuarioRepo.save(evaluacionUsuario);
+            intentoEvaluacionService.actualizar(evaluacionUsuario);
+            progresoService.registrarResultadoEvaluacion(
+                    evaluacionUsuario.getEvaluacion().getCurso().getId(), evaluacionUsuario.getUsuario());
             
             return ResponseEntity.ok("Evaluación rechazada");
             
@@ -720,6 +787,7 @@ public class EvaluacionController {
                 data.put("aprobado", resultado.getAprobado());
                 data.put("fechaRealizacion", resultado.getFechaRealizacion());
                 data.put("intentos", resultado.getIntentos());
+                data.put("mejorIntento", Boolean.TRUE.equals(resultado.getMejorIntento()));
                 response.add(data);
             }
             
@@ -737,6 +805,24 @@ public class EvaluacionController {
         evaluacionService.eliminarEvaluacion(id, usuario);
         return ResponseEntity.noContent().build();
     }
+    
+    @GetMapping("/admin/cache-claves")
+    public ResponseEntity<Map<String, Object>> estadisticasCacheClaves(Authentication authentication) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        if (!"ADMIN".equals(usuario.getRol())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(claveRespuestasService.estadisticas());
+    }
+    
+    @GetMapping("/admin/cache-cuestionarios")
+    public ResponseEntity<Map<String, Object>> estadisticasCacheCuestionarios(Authentication authentication) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        if (!"ADMIN".equals(usuario.getRol())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(cuestionarioEvaluacionService.estadisticas());
+    }
 
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<String> handleRuntimeException(RuntimeException e) {
@@ -2,11 +2,16 @@ package com.capacitapro.backend.controller;
 
 import com.capacitapro.backend.entity.*;
 import com.capacitapro.backend.repository.*;
+import com.capacitapro.backend.service.EstructuraCursoService;
+import com.capacitapro.backend.service.VersionContenidoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -25,10 +30,18 @@ public class ModuloController {
     private final ModuloRepository moduloRepository;
     private final CursoRepository cursoRepository;
     private final SubmoduloRepository submoduloRepository;
+    private final EstructuraCursoService estructuraCursoService;
+    private final VersionContenidoService versionContenidoService;
 
     @GetMapping("/curso/{cursoId}")
     // @PreAuthorize("hasRole('ADMIN') or hasRole('INSTRUCTOR')")
-    public ResponseEntity<List<Map<String, Object>>> getModulosByCurso(@PathVariable Long cursoId) {
+    public ResponseEntity<List<Map<String, Object>>> getModulosByCurso(@PathVariable Long cursoId, WebRequest request) {
+        // Toda edición de módulos o submódulos pasa por estructuraCursoService.invalidar, que cambia la versión
+        String etag = versionContenidoService.etagCurso(cursoId, null);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        
         Curso curso = cursoRepository.findById(cursoId)
                 .orElseThrow(() -> new RuntimeException("Curso no encontrado"));
         
@@ -38,7 +51,10 @@ public class ModuloController {
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
         
-        return ResponseEntity.ok(modulosDTO);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(modulosDTO);
     }
 
     @PostMapping("/curso/{cursoId}")
@@ -55,6 +71,7 @@ public class ModuloController {
                 .build();
         
         Modulo savedModulo = moduloRepository.save(modulo);
+        estructuraCursoService.invalidar(cursoId);
         return ResponseEntity.ok(convertToDTO(savedModulo));
     }
 
@@ -70,6 +87,7 @@ public class ModuloController {
         }
         
         Modulo updatedModulo = moduloRepository.save(modulo);
+        estructuraCursoService.invalidar(modulo.getCurso().getId());
         return ResponseEntity.ok(convertToDTO(updatedModulo));
     }
 
@@ -80,6 +98,7 @@ public class ModuloController {
                 .orElseThrow(() -> new RuntimeException("Módulo no encontrado"));
         
         moduloRepository.delete(modulo);
+        estructuraCursoService.invalidar(modulo.getCurso().getId());
         return ResponseEntity.ok().build();
     }
 
@@ -1,13 +1,36 @@
 package com.capacitapro.backend.controller;
 
+import com.capacitapro.backend.dto.EstadoVideoProgreso;
+import com.capacitapro.backend.dto.EstructuraCurso.EvaluacionEstructura;
+import com.capacitapro.backend.dto.ProgresoDTO;
+import com.capacitapro.backend.dto.EstructuraCurso.ModuloEstructura;
+import com.capacitapro.backend.dto.EstructuraCurso.SubmoduloEstructura;
 import com.capacitapro.backend.entity.*;
+import com.capacitapro.backend.event.ProgresoActualizadoEvent;
 import com.capacitapro.backend.repository.*;
+import com.capacitapro.backend.service.AccesoSecuencialService;
 import com.capacitapro.backend.service.CertificadoService;
+import com.capacitapro.backend.service.EstructuraCursoService;
+import com.capacitapro.backend.service.IntentoEvaluacionService;
+import com.capacitapro.backend.service.ProgresoContadorService;
+import com.capacitapro.backend.service.ProgresoLecturaService;
+import com.capacitapro.backend.service.ProgresoStreamService;
+import com.capacitapro.backend.service.RecalculoProgresoService;
+import com.capacitapro.backend.service.VersionContenidoService;
+import com.capacitapro.backend.service.VideoProgresoService;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -32,8 +55,18 @@ public class ModuloProgresoController {
     private final SubmoduloProgresoRepository submoduloProgresoRepo;
     private final EvaluacionRepository evaluacionRepo;
     private final EvaluacionUsuarioRepository evaluacionUsuarioRepo;
+    private final IntentoEvaluacionService intentoEvaluacionService;
     private final CertificadoService certificadoService;
     private final com.capacitapro.backend.service.ProgresoService progresoService;
+    private final ProgresoLecturaService progresoLecturaService;
+    private final ProgresoContadorService progresoContadorService;
+    private final EstructuraCursoService estructuraCursoService;
+    private final VideoProgresoService videoProgresoService;
+    private final RecalculoProgresoService recalculoProgresoService;
+    private final AccesoSecuencialService accesoSecuencialService;
+    private final ProgresoStreamService progresoStreamService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VersionContenidoService versionContenidoService;
 
     private Usuario getUsuarioAutenticado(Authentication authentication) {
         String correo = authentication.getName();
@@ -44,230 +77,25 @@ public class ModuloProgresoController {
     @GetMapping("/curso/{cursoId}")
     public ResponseEntity<Map<String, Object>> getProgresoCurso(
             @PathVariable Long cursoId,
-            Authentication authentication) {
+            Authentication authentication,
+            WebRequest request) {
         
         try {
             Usuario usuario = getUsuarioAutenticado(authentication);
             
-            // Obtener módulos del curso
-            List<Modulo> modulos = moduloRepo.findActivosByCursoIdOrderByOrden(cursoId);
-            
-            // Si no hay módulos, devolver respuesta vacía pero válida
-            if (modulos.isEmpty()) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("cursoId", cursoId);
-                response.put("totalModulos", 0);
-                response.put("modulosCompletados", 0);
-                response.put("progresoGeneral", 0);
-                response.put("modulos", new ArrayList<>());
-                return ResponseEntity.ok(response);
-            }
-            
-            // Obtener progreso de cada módulo
-            List<Map<String, Object>> modulosProgreso = new ArrayList<>();
-            
-            for (Modulo modulo : modulos) {
-                try {
-                    ModuloProgreso progreso = moduloProgresoRepo
-                            .findByUsuarioAndModulo(usuario, modulo)
-                            .orElse(null);
-                    
-                    // Obtener submódulos de forma segura
-                    List<Submodulo> submodulos = new ArrayList<>();
-                    try {
-                        submodulos = submoduloRepo.findByModuloIdOrderByOrdenAsc(modulo.getId());
-                    } catch (Exception e) {
-                        System.err.println("Error obteniendo submódulos: " + e.getMessage());
-                    }
-                    
-                    Map<String, Object> moduloData = new HashMap<>();
-                    moduloData.put("id", modulo.getId());
-                    moduloData.put("titulo", modulo.getTitulo() != null ? modulo.getTitulo() : "Módulo sin título");
-                    moduloData.put("descripcion", modulo.getContenido() != null ? modulo.getContenido() : "");
-                    moduloData.put("orden", modulo.getOrden() != null ? modulo.getOrden() : 0);
-                    moduloData.put("completado", progreso != null && progreso.getCompletado() != null ? progreso.getCompletado() : false);
-                    moduloData.put("porcentajeProgreso", progreso != null && progreso.getPorcentajeProgreso() != null ? progreso.getPorcentajeProgreso() : 0);
-                    moduloData.put("fechaInicio", progreso != null ? progreso.getFechaInicio() : null);
-                    moduloData.put("fechaCompletado", progreso != null ? progreso.getFechaCompletado() : null);
-                    moduloData.put("totalSubmodulos", submodulos.size());
-                    
-                    // Agregar submódulos de forma segura
-                    List<Map<String, Object>> submodulosData = new ArrayList<>();
-                    for (Submodulo sub : submodulos) {
-                        try {
-                            Map<String, Object> subData = new HashMap<>();
-                            subData.put("id", sub.getId());
-                            subData.put("titulo", sub.getTitulo() != null ? sub.getTitulo() : "Sin título");
-                            subData.put("tipo", sub.getTipo() != null ? sub.getTipo() : "TEXTO");
-                            subData.put("contenido", sub.getContenido() != null ? sub.getContenido() : "");
-                            subData.put("orden", sub.getOrden() != null ? sub.getOrden() : 0);
-                            
-                            // Verificar si el submódulo está completado (manejar duplicados)
-                            boolean completado = false;
-                            try {
-                                Optional<SubmoduloProgreso> subProgreso = submoduloProgresoRepo.findByUsuarioAndSubmodulo(usuario, sub);
-                                completado = subProgreso.isPresent() && Boolean.TRUE.equals(subProgreso.get().getCompletado());
-                            } catch (Exception e) {
-                                // Si hay duplicados, buscar si alguno está completado
-                                List<SubmoduloProgreso> duplicados = submoduloProgresoRepo.findAllByUsuarioAndSubmodulo(usuario, sub);
-                                completado = duplicados.stream().anyMatch(sp -> Boolean.TRUE.equals(sp.getCompletado()));
-                                System.err.println("Duplicados encontrados para submódulo " + sub.getId() + ": " + duplicados.size());
-                            }
-                            subData.put("completado", completado);
-                            
-                            submodulosData.add(subData);
-                        } catch (Exception e) {
-                            System.err.println("Error procesando submódulo: " + e.getMessage());
-                        }
-                    }
-                    
-                    // Agregar evaluaciones del módulo como submódulos
-                    try {
-                        List<Evaluacion> evaluaciones = evaluacionRepo.findByModuloIdAndActivoTrue(modulo.getId());
-                        
-                        for (Evaluacion eval : evaluaciones) {
-                            Map<String, Object> evalData = new HashMap<>();
-                            evalData.put("id", "eval_" + eval.getId()); // ID único para evaluaciones
-                            evalData.put("titulo", "Evaluación: " + eval.getTitulo());
-                            evalData.put("tipo", "EVALUACION");
-                            evalData.put("contenido", eval.getId().toString()); // ID de la evaluación
-                            evalData.put("orden", submodulos.size() + evaluaciones.indexOf(eval) + 1); // Al final
-                            evalData.put("evaluacionId", eval.getId());
-                            evalData.put("descripcion", eval.getDescripcion());
-                            evalData.put("notaMinima", eval.getNotaMinima());
-                            
-                            // Verificar si la evaluación está aprobada
-                            boolean evaluacionAprobada = evaluacionUsuarioRepo.findByUsuarioAndEvaluacion(usuario, eval)
-                                    .map(eu -> Boolean.TRUE.equals(eu.getAprobado()))
-                                    .orElse(false);
-                            evalData.put("completado", evaluacionAprobada);
-                            
-                            submodulosData.add(evalData);
-                        }
-                        
-                        // También buscar evaluaciones por curso si no hay por módulo
-                        if (evaluaciones.isEmpty()) {
-                            List<Evaluacion> evaluacionesCurso = evaluacionRepo.findActivasByCursoId(modulo.getCurso().getId());
-                            
-                            for (Evaluacion eval : evaluacionesCurso) {
-                                Map<String, Object> evalData = new HashMap<>();
-                                evalData.put("id", "eval_" + eval.getId());
-                                evalData.put("titulo", "Evaluación: " + eval.getTitulo());
-                                evalData.put("tipo", "EVALUACION");
-                                evalData.put("contenido", eval.getId().toString());
-                                evalData.put("orden", submodulos.size() + evaluacionesCurso.indexOf(eval) + 1);
-                                evalData.put("evaluacionId", eval.getId());
-                                evalData.put("descripcion", eval.getDescripcion());
-                                evalData.put("notaMinima", eval.getNotaMinima());
-                                
-                                // Verificar si la evaluación está aprobada
-                                boolean evaluacionAprobada = evaluacionUsuarioRepo.findByUsuarioAndEvaluacion(usuario, eval)
-                                        .map(eu -> Boolean.TRUE.equals(eu.getAprobado()))
-                                        .orElse(false);
-                                evalData.put("completado", evaluacionAprobada);
-                                
-                                submodulosData.add(evalData);
-                            }
-                        }
-                    } catch (Exception e) {
-                        System.err.println("Error procesando evaluaciones: " + e.getMessage());
-                        e.printStackTrace();
-                    }
-                    
-                    moduloData.put("submodulos", submodulosData);
-                    modulosProgreso.add(moduloData);
-                    
-                } catch (Exception e) {
-                    System.err.println("Error procesando módulo: " + e.getMessage());
-                }
-            }
-            
-            // Calcular progreso general del curso - CORREGIDO
-            System.out.println("=== CALCULANDO PROGRESO GENERAL DEL CURSO ===");
-            int modulosCompletados = 0;
-            int totalElementosCurso = 0;
-            int elementosCompletadosCurso = 0;
-            
-            for (Modulo m : modulos) {
-                try {
-                    // Contar elementos del módulo
-                    List<Submodulo> subsModulo = submoduloRepo.findByModuloIdOrderByOrdenAsc(m.getId());
-                    List<Evaluacion> evalsModulo = evaluacionRepo.findByModuloIdAndActivoTrue(m.getId());
-                    
-                    // TAMBIÉN buscar evaluaciones del curso (que aparecen como submódulos en frontend)
-                    List<Evaluacion> evalsCurso = evaluacionRepo.findActivasByCursoId(m.getCurso().getId());
-                    
-                    // Combinar evaluaciones del módulo y del curso
-                    List<Evaluacion> todasEvals = new java.util.ArrayList<>(evalsModulo);
-                    for (Evaluacion evalCurso : evalsCurso) {
-                        // Evitar duplicados si una evaluación está en ambos
-                        if (!todasEvals.stream().anyMatch(e -> e.getId().equals(evalCurso.getId()))) {
-                            todasEvals.add(evalCurso);
-                        }
-                    }
-                    
-                    int elementosModulo = subsModulo.size() + todasEvals.size();
-                    System.out.println("DEBUG: Módulo " + m.getId() + " - Submódulos: " + subsModulo.size() + ", Evals módulo: " + evalsModulo.size() + ", Evals curso: " + evalsCurso.size() + ", Total evals: " + todasEvals.size());
-                    totalElementosCurso += elementosModulo;
-                    
-                    // Contar elementos completados
-                    Long subsCompletados = submoduloProgresoRepo.countCompletadosByUsuarioAndModulo(usuario, m);
-                    long evalsAprobadas = todasEvals.stream()
-                            .filter(e -> evaluacionUsuarioRepo.findByUsuarioAndEvaluacion(usuario, e)
-                                    .map(eu -> Boolean.TRUE.equals(eu.getAprobado()))
-                                    .orElse(false))
-                            .count();
-                    
-                    // CORREGIR: Limitar elementos completados al máximo posible
-                    int elementosCompletadosModulo = Math.min(
-                        subsCompletados.intValue() + (int) evalsAprobadas, 
-                        elementosModulo
-                    );
-                    elementosCompletadosCurso += elementosCompletadosModulo;
-                    
-                    System.out.println("Módulo " + m.getId() + ": " + elementosCompletadosModulo + "/" + elementosModulo + " elementos");
-                    System.out.println("  - Submódulos completados (original): " + subsCompletados);
-                    System.out.println("  - Evaluaciones aprobadas: " + evalsAprobadas);
-                    System.out.println("  - Total submódulos: " + subsModulo.size());
-                    System.out.println("  - Total evaluaciones: " + todasEvals.size());
-                    System.out.println("  - Evaluaciones del módulo: " + evalsModulo.size());
-                    System.out.println("  - Evaluaciones del curso: " + evalsCurso.size());
-                    
-                    // Solo contar módulo como completado si TODOS sus elementos están completados
-                    if (elementosModulo > 0 && elementosCompletadosModulo >= elementosModulo) {
-                        modulosCompletados++;
-                        System.out.println("Módulo " + m.getId() + " COMPLETADO");
-                    } else {
-                        System.out.println("Módulo " + m.getId() + " NO completado - faltan " + (elementosModulo - elementosCompletadosModulo) + " elementos");
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error calculando progreso módulo " + m.getId() + ": " + e.getMessage());
-                }
-            }
-            
-            int progresoGeneral = totalElementosCurso > 0 ? (elementosCompletadosCurso * 100) / totalElementosCurso : 0;
-            // LIMITAR progreso máximo a 100%
-            progresoGeneral = Math.min(progresoGeneral, 100);
-            
-            System.out.println("PROGRESO GENERAL: " + elementosCompletadosCurso + "/" + totalElementosCurso + " = " + progresoGeneral + "%");
-            System.out.println("MÓDULOS COMPLETADOS: " + modulosCompletados + "/" + modulos.size());
-            
-            if (elementosCompletadosCurso > totalElementosCurso) {
-                System.out.println("WARNING: Hay duplicados en la BD - elementos completados > total");
+            // La versión se lee antes de armar la respuesta: si cambia en medio, el cliente solo vuelve a pedirla
+            String etag = versionContenidoService.etagProgreso(usuario.getId(), cursoId);
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
             }
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("cursoId", cursoId);
-            response.put("totalModulos", modulos.size());
-            response.put("modulosCompletados", modulosCompletados);
-            response.put("progresoGeneral", progresoGeneral);
-            response.put("modulos", modulosProgreso);
-            
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(progresoLecturaService.obtenerProgresoCurso(cursoId, usuario));
             
         } catch (Exception e) {
-            System.err.println("Error obteniendo progreso: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error obteniendo progreso del curso {}", SecurityUtils.sanitizeId(cursoId), e);
             
             // Devolver respuesta de error pero válida
             Map<String, Object> errorResponse = new HashMap<>();
@@ -282,6 +110,21 @@ public class ModuloProgresoController {
         }
     }
     
+    // Cambios de progreso en vivo (submódulo, módulo, porcentaje del curso, certificado) en lugar de repetir el GET anterior
+    @GetMapping(value = "/curso/{cursoId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamProgresoCurso(
+            @PathVariable Long cursoId,
+            Authentication authentication) {
+        
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        if (cursoUsuarioRepo.findByCursoIdAndUsuarioId(cursoId, usuario.getId()).isEmpty()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        int porcentaje = progresoContadorService.obtener(cursoId, usuario).getPorcentajeProgreso();
+        return ResponseEntity.ok(progresoStreamService.suscribir(usuario.getId(), cursoId, porcentaje));
+    }
+    
     @PostMapping("/modulo/{moduloId}/iniciar")
     public ResponseEntity<String> iniciarModulo(
             @PathVariable Long moduloId,
@@ -304,6 +147,7 @@ public class ModuloProgresoController {
             }
             
             moduloProgresoRepo.save(progreso);
+            versionContenidoService.progresoModificado(usuario.getId(), modulo.getCurso().getId());
             
             return ResponseEntity.ok("Módulo iniciado");
             
@@ -323,17 +167,14 @@ public class ModuloProgresoController {
             Modulo modulo = moduloRepo.findById(moduloId)
                     .orElseThrow(() -> new RuntimeException("Módulo no encontrado"));
             
-            List<Submodulo> todosSubmodulos = submoduloRepo.findByModuloIdOrderByOrdenAsc(modulo.getId());
-            List<Evaluacion> evaluacionesModulo = evaluacionRepo.findByModuloIdAndActivoTrue(modulo.getId());
+            ModuloEstructura estructura = estructuraModulo(modulo);
+            List<Long> evaluacionesModulo = estructura.evaluaciones().stream().map(EvaluacionEstructura::id).collect(Collectors.toList());
             
             Long submodulosCompletados = submoduloProgresoRepo.countCompletadosByUsuarioAndModulo(usuario, modulo);
-            long evaluacionesAprobadas = evaluacionesModulo.stream()
-                    .filter(e -> evaluacionUsuarioRepo.findByUsuarioAndEvaluacion(usuario, e)
-                            .map(eu -> Boolean.TRUE.equals(eu.getAprobado()))
-                            .orElse(false))
-                    .count();
+            long evaluacionesAprobadas = evaluacionesModulo.isEmpty() ? 0 :
+                    evaluacionUsuarioRepo.findEvaluacionIdsAprobadas(usuario, evaluacionesModulo).size();
             
-            int totalElementos = todosSubmodulos.size() + evaluacionesModulo.size();
+            int totalElementos = estructura.submodulos().size() + evaluacionesModulo.size();
             int elementosCompletados = submodulosCompletados.intValue() + (int) evaluacionesAprobadas;
             
             boolean completable = (elementosCompletados >= totalElementos) && (totalElementos > 0);
@@ -374,25 +215,23 @@ public class ModuloProgresoController {
                             .build());
             
             // Verificar si realmente se puede completar el módulo
-            List<Submodulo> todosSubmodulos = submoduloRepo.findByModuloIdOrderByOrdenAsc(modulo.getId());
-            List<Evaluacion> evaluacionesModulo = evaluacionRepo.findByModuloIdAndActivoTrue(modulo.getId());
+            ModuloEstructura estructura = estructuraModulo(modulo);
+            List<Long> evaluacionesModulo = estructura.evaluaciones().stream().map(EvaluacionEstructura::id).collect(Collectors.toList());
             
             Long submodulosCompletados = submoduloProgresoRepo.countCompletadosByUsuarioAndModulo(usuario, modulo);
-            long evaluacionesAprobadas = evaluacionesModulo.stream()
-                    .filter(e -> evaluacionUsuarioRepo.findByUsuarioAndEvaluacion(usuario, e)
-                            .map(eu -> Boolean.TRUE.equals(eu.getAprobado()))
-                            .orElse(false))
-                    .count();
+            long evaluacionesAprobadas = evaluacionesModulo.isEmpty() ? 0 :
+                    evaluacionUsuarioRepo.findEvaluacionIdsAprobadas(usuario, evaluacionesModulo).size();
             
-            int totalElementos = todosSubmodulos.size() + evaluacionesModulo.size();
+            int totalElementos = estructura.submodulos().size() + evaluacionesModulo.size();
             int elementosCompletados = submodulosCompletados.intValue() + (int) evaluacionesAprobadas;
             
             if (elementosCompletados >= totalElementos && totalElementos > 0) {
                 progreso.marcarCompletado();
                 moduloProgresoRepo.save(progreso);
+                versionContenidoService.progresoModificado(usuario.getId(), modulo.getCurso().getId());
                 
-                // Actualizar progreso del curso
-                actualizarProgresoCurso(modulo.getCurso().getId(), usuario);
+                // Recalcular el progreso del curso en segundo plano, después del commit
+                recalculoProgresoService.encolar(modulo.getCurso().getId(), usuario.getId());
                 
                 return ResponseEntity.ok("Módulo completado");
             } else {
@@ -432,79 +271,20 @@ public class ModuloProgresoController {
             Modulo modulo = submodulo.getModulo();
             
             // Verificar que se puede acceder a este submódulo (orden secuencial)
-            if (!puedeAccederSubmodulo(usuario, submodulo)) {
+            if (!accesoSecuencialService.puedeAcceder(usuario, submodulo)) {
                 System.err.println("ACCESO DENEGADO: Usuario " + usuario.getNombre() + " intentó acceder a submódulo " + submodulo.getId() + " sin completar anteriores");
                 return ResponseEntity.badRequest().body("Debe completar los submódulos anteriores primero");
             }
             
             System.out.println("ACCESO PERMITIDO: Usuario " + usuario.getNombre() + " puede acceder a submódulo " + submodulo.getId());
             
-            // Limpiar duplicados antes de procesar
-            limpiarDuplicadosSubmoduloProgreso(usuario, modulo);
-            
-            // Verificar si el submódulo ya fue marcado como visto (manejar duplicados)
-            Optional<SubmoduloProgreso> submoduloProgresoOpt;
-            try {
-                submoduloProgresoOpt = submoduloProgresoRepo.findByUsuarioAndSubmodulo(usuario, submodulo);
-            } catch (Exception e) {
-                // Limpiar duplicados y obtener el único registro
-                List<SubmoduloProgreso> duplicados = submoduloProgresoRepo.findAllByUsuarioAndSubmodulo(usuario, submodulo);
-                if (!duplicados.isEmpty()) {
-                    SubmoduloProgreso aMantener = duplicados.stream()
-                            .filter(sp -> Boolean.TRUE.equals(sp.getCompletado()))
-                            .findFirst()
-                            .orElse(duplicados.get(duplicados.size() - 1));
-                    
-                    for (SubmoduloProgreso sp : duplicados) {
-                        if (!sp.getId().equals(aMantener.getId())) {
-                            try {
-                                submoduloProgresoRepo.deleteById(sp.getId());
-                            } catch (Exception deleteEx) {
-                                System.err.println("Error eliminando duplicado en marcar visto: " + deleteEx.getMessage());
-                            }
-                        }
-                    }
-                    
-                    submoduloProgresoOpt = Optional.of(aMantener);
-                } else {
-                    submoduloProgresoOpt = Optional.empty();
-                }
-            }
-            
-            if (submoduloProgresoOpt.isPresent() && Boolean.TRUE.equals(submoduloProgresoOpt.get().getCompletado())) {
+            // Upsert atómico: solo la llamada que deja el submódulo completado sigue adelante
+            boolean completadoAhora = submoduloProgresoRepo.marcarCompletado(usuario.getId(), submodulo.getId(), 100) == 1;
+            if (!completadoAhora) {
                 System.out.println("DUPLICADO EVITADO: Submódulo " + submoduloId + " ya completado por usuario " + usuario.getNombre());
                 return ResponseEntity.ok("Submódulo ya completado anteriormente");
             }
-            
-            // Marcar submódulo como completado
-            SubmoduloProgreso submoduloProgreso;
-            if (submoduloProgresoOpt.isPresent()) {
-                submoduloProgreso = submoduloProgresoOpt.get();
-            } else {
-                submoduloProgreso = SubmoduloProgreso.builder()
-                        .usuario(usuario)
-                        .submodulo(submodulo)
-                        .fechaInicio(LocalDateTime.now())
-                        .completado(false)
-                        .porcentajeProgreso(0)
-                        .build();
-            }
-            
-            submoduloProgreso.setCompletado(true);
-            submoduloProgreso.setPorcentajeProgreso(100);
-            submoduloProgreso.setFechaCompletado(LocalDateTime.now());
-            
-            System.out.println("GUARDANDO PROGRESO SUBMÓDULO:");
-            System.out.println("  - ID: " + submoduloProgreso.getId());
-            System.out.println("  - Usuario: " + submoduloProgreso.getUsuario().getNombre());
-            System.out.println("  - Submódulo: " + submoduloProgreso.getSubmodulo().getTitulo());
-            System.out.println("  - Completado: " + submoduloProgreso.getCompletado());
-            System.out.println("  - Porcentaje: " + submoduloProgreso.getPorcentajeProgreso());
-            
-            SubmoduloProgreso saved = submoduloProgresoRepo.save(submoduloProgreso);
-            submoduloProgresoRepo.flush(); // Forzar escritura inmediata a BD
-            System.out.println("PROGRESO GUARDADO CON ID: " + saved.getId());
-            System.out.println("FLUSH EJECUTADO - Datos escritos a BD");
+            log.debug("Progreso de submódulo guardado: usuario {}, submódulo {}", usuario.getId(), submodulo.getId());
             
             // Obtener o crear progreso del módulo
             ModuloProgreso progreso = moduloProgresoRepo
@@ -528,14 +308,21 @@ public class ModuloProgresoController {
             }
             
             // Recalcular progreso basado en elementos completados
+            boolean moduloYaCompletado = Boolean.TRUE.equals(progreso.getCompletado());
             recalcularProgresoModulo(modulo, usuario, progreso);
+            accesoSecuencialService.registrarCompletado(usuario, progreso, submodulo.getId());
             
             moduloProgresoRepo.save(progreso);
             moduloProgresoRepo.flush(); // Forzar escritura del módulo
             System.out.println("PROGRESO MÓDULO GUARDADO Y FLUSHED");
             
-            // Actualizar progreso del curso
-            actualizarProgresoCurso(modulo.getCurso().getId(), usuario);
+            // Contadores de la inscripción: un elemento más y, si corresponde, un módulo más
+            boolean moduloCompletadoAhora = !moduloYaCompletado && Boolean.TRUE.equals(progreso.getCompletado());
+            progresoContadorService.registrarSubmoduloCompletado(modulo.getCurso().getId(), usuario, moduloCompletadoAhora);
+            publicarAvance(modulo, usuario, submodulo.getId(), moduloCompletadoAhora);
+            
+            // El progreso del curso se recalcula en segundo plano cuando se confirme esta transacción
+            recalculoProgresoService.encolar(modulo.getCurso().getId(), usuario.getId());
             
             return ResponseEntity.ok("Submódulo marcado como visto");
             
@@ -558,38 +345,23 @@ public class ModuloProgresoController {
             Evaluacion evaluacion = evaluacionRepo.findById(evaluacionId)
                     .orElseThrow(() -> new RuntimeException("Evaluación no encontrada"));
             
-            // Verificar si ya existe un resultado para esta evaluación
-            Optional<EvaluacionUsuario> existente = evaluacionUsuarioRepo
-                    .findByUsuarioAndEvaluacion(usuario, evaluacion);
-            
-            EvaluacionUsuario resultado;
-            if (existente.isPresent()) {
-                resultado = existente.get();
-                // Solo actualizar si el nuevo puntaje es mejor
-                if (puntajeObtenido > resultado.getPuntajeObtenido()) {
-                    resultado.setPuntajeObtenido(puntajeObtenido);
-                    resultado.setPuntajeMaximo(puntajeMaximo);
-                    resultado.setFechaRealizacion(LocalDateTime.now());
-                    resultado.calcularAprobacion();
-                }
-            } else {
-                resultado = EvaluacionUsuario.builder()
-                        .usuario(usuario)
-                        .evaluacion(evaluacion)
-                        .puntajeObtenido(puntajeObtenido)
-                        .puntajeMaximo(puntajeMaximo)
-                        .fechaRealizacion(LocalDateTime.now())
-                        .build();
-                resultado.calcularAprobacion();
-            }
+            // Cada envío es un intento nuevo; el progreso toma el mejor de todos
+            EvaluacionUsuario resultado = EvaluacionUsuario.builder()
+                    .usuario(usuario)
+                    .evaluacion(evaluacion)
+                    .puntajeObtenido(puntajeObtenido)
+                    .puntajeMaximo(puntajeMaximo)
+                    .fechaRealizacion(LocalDateTime.now())
+                    .build();
+            resultado.calcularAprobacion();
             
-            evaluacionUsuarioRepo.save(resultado);
+            intentoEvaluacionService.registrar(resultado);
             
-            // Actualizar progreso del curso
+            // Actualizar contadores y progreso del curso
             Long cursoId = evaluacion.getModulo() != null ? 
                     evaluacion.getModulo().getCurso().getId() : 
                     evaluacion.getCurso().getId();
-            actualizarProgresoCurso(cursoId, usuario);
+            progresoService.registrarResultadoEvaluacion(cursoId, usuario);
             
             double porcentaje = puntajeMaximo > 0 ? (puntajeObtenido * 100.0 / puntajeMaximo) : 0;
             String mensaje = resultado.getAprobado() ? 
@@ -731,6 +503,91 @@ public class ModuloProgresoController {
         }
     }
     
+    @GetMapping("/admin/empresa")
+    public ResponseEntity<Map<String, Object>> listarProgresoEmpresa(
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "50") int tamano,
+            Authentication authentication) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Usuario usuario = getUsuarioAutenticado(authentication);
+            if (!"ADMIN".equals(usuario.getRol())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            
+            Page<ProgresoDTO> resultado = progresoService.listarProgresoEmpresa(usuario,
+                    PageRequest.of(Math.max(pagina, 0), Math.min(Math.max(tamano, 1), 200)));
+            response.put("contenido", resultado.getContent());
+            response.put("pagina", resultado.getNumber());
+            response.put("tamano", resultado.getSize());
+            response.put("totalElementos", resultado.getTotalElements());
+            response.put("totalPaginas", resultado.getTotalPages());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error listando progreso de la empresa", e);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
+    @GetMapping("/admin/video-buffer")
+    public ResponseEntity<Map<String, Object>> estadisticasVideoBuffer(Authentication authentication) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        if (!"ADMIN".equals(usuario.getRol())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(videoProgresoService.estadisticas());
+    }
+    
+    @GetMapping("/admin/streams-progreso")
+    public ResponseEntity<Map<String, Object>> estadisticasStreamsProgreso(Authentication authentication) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        if (!"ADMIN".equals(usuario.getRol())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(progresoStreamService.estadisticas());
+    }
+    
+    @GetMapping("/admin/cola-recalculo")
+    public ResponseEntity<Map<String, Object>> estadisticasColaRecalculo(Authentication authentication) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        if (!"ADMIN".equals(usuario.getRol())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(recalculoProgresoService.estadisticas());
+    }
+    
+    @GetMapping("/admin/cache-estructura")
+    public ResponseEntity<Map<String, Object>> estadisticasCacheEstructura(Authentication authentication) {
+        Usuario usuario = getUsuarioAutenticado(authentication);
+        if (!"ADMIN".equals(usuario.getRol())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(estructuraCursoService.estadisticas());
+    }
+    
+    @PostMapping("/admin/reconstruir-contadores/{cursoId}")
+    public ResponseEntity<Map<String, Object>> reconstruirContadores(
+            @PathVariable Long cursoId,
+            Authentication authentication) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Usuario usuario = getUsuarioAutenticado(authentication);
+            if (!"ADMIN".equals(usuario.getRol())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            
+            int inscripciones = progresoContadorService.reconstruirCurso(cursoId);
+            response.put("cursoId", cursoId);
+            response.put("inscripcionesReconstruidas", inscripciones);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error reconstruyendo contadores del curso {}", SecurityUtils.sanitizeId(cursoId), e);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
     @PostMapping("/video-progreso/{submoduloId}")
     @org.springframework.transaction.annotation.Transactional
     public ResponseEntity<Map<String, Object>> actualizarProgresoVideo(
@@ -739,71 +596,46 @@ public class ModuloProgresoController {
             Authentication authentication) {
         
         try {
-            System.out.println("=== ACTUALIZANDO PROGRESO DE VIDEO ===");
-            System.out.println("SubmoduloId: " + submoduloId);
-            System.out.println("Data: " + data);
-            
             Usuario usuario = getUsuarioAutenticado(authentication);
-            Submodulo submodulo = submoduloRepo.findById(submoduloId)
-                    .orElseThrow(() -> new RuntimeException("Submódulo no encontrado"));
 
             int tiempoVisto = ((Number) data.get("tiempoVisto")).intValue();
             int duracionTotal = ((Number) data.get("duracionTotal")).intValue();
             
-            System.out.println("Tiempo visto: " + tiempoVisto + ", Duración total: " + duracionTotal);
-
-            // Obtener o crear progreso
-            SubmoduloProgreso progreso = submoduloProgresoRepo
-                    .findByUsuarioAndSubmodulo(usuario, submodulo)
-                    .orElse(SubmoduloProgreso.builder()
-                            .usuario(usuario)
-                            .submodulo(submodulo)
-                            .fechaInicio(LocalDateTime.now())
-                            .build());
-
-            // Actualizar progreso del video
-            progreso.setTiempoVisto(tiempoVisto);
-            progreso.setDuracionTotal(duracionTotal);
-            
-            // Calcular porcentaje
-            int porcentaje = duracionTotal > 0 ? (tiempoVisto * 100) / duracionTotal : 0;
-            porcentaje = Math.min(porcentaje, 100);
-            progreso.setPorcentajeProgreso(porcentaje);
-            
-            // Marcar como completado si llegó al 90% o más
-            boolean completado = porcentaje >= 90;
-            progreso.setCompletado(completado);
+            // Los latidos se acumulan en memoria; solo el que cruza el 90% se escribe de inmediato
+            EstadoVideoProgreso estado = videoProgresoService.registrarLatido(
+                    usuario.getId(), submoduloId, tiempoVisto, duracionTotal);
             
-            if (completado && progreso.getFechaCompletado() == null) {
-                progreso.setFechaCompletado(LocalDateTime.now());
+            if (estado.isCompletadoAhora()) {
+                log.debug("Video {} completado por el usuario {}: {}%", submoduloId, usuario.getId(), estado.getPorcentajeProgreso());
+                
+                // Actualizar progreso del módulo y curso
+                Submodulo submodulo = submoduloRepo.findById(submoduloId)
+                        .orElseThrow(() -> new RuntimeException("Submódulo no encontrado"));
+                Modulo modulo = submodulo.getModulo();
+                ModuloProgreso moduloProgreso = moduloProgresoRepo.findByUsuarioAndModulo(usuario, modulo)
+                        .orElse(ModuloProgreso.builder()
+                                .usuario(usuario)
+                                .modulo(modulo)
+                                .fechaInicio(LocalDateTime.now())
+                                .build());
+                boolean moduloYaCompletado = Boolean.TRUE.equals(moduloProgreso.getCompletado());
+                recalcularProgresoModulo(modulo, usuario, moduloProgreso);
+                moduloProgreso = moduloProgresoRepo.save(moduloProgreso);
+                accesoSecuencialService.registrarCompletado(usuario, moduloProgreso, submoduloId);
+                
+                boolean moduloCompletadoAhora = !moduloYaCompletado && Boolean.TRUE.equals(moduloProgreso.getCompletado());
+                progresoContadorService.registrarSubmoduloCompletado(modulo.getCurso().getId(), usuario, moduloCompletadoAhora);
+                publicarAvance(modulo, usuario, submoduloId, moduloCompletadoAhora);
+                
+                recalculoProgresoService.encolar(modulo.getCurso().getId(), usuario.getId());
             }
             
-            System.out.println("Porcentaje calculado: " + porcentaje + "%, Completado: " + completado);
-            
-            SubmoduloProgreso saved = submoduloProgresoRepo.save(progreso);
-            submoduloProgresoRepo.flush();
-            
-            System.out.println("Progreso guardado con ID: " + saved.getId());
-            
-            // Actualizar progreso del módulo y curso
-            Modulo modulo = submodulo.getModulo();
-            recalcularProgresoModulo(modulo, usuario, 
-                moduloProgresoRepo.findByUsuarioAndModulo(usuario, modulo)
-                    .orElse(ModuloProgreso.builder()
-                            .usuario(usuario)
-                            .modulo(modulo)
-                            .fechaInicio(LocalDateTime.now())
-                            .build()));
-            
-            actualizarProgresoCurso(modulo.getCurso().getId(), usuario);
-            
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("porcentajeProgreso", progreso.getPorcentajeProgreso());
-            response.put("completado", progreso.getCompletado());
-            response.put("tiempoVisto", progreso.getTiempoVisto());
+            response.put("porcentajeProgreso", estado.getPorcentajeProgreso());
+            response.put("completado", estado.getCompletado());
+            response.put("tiempoVisto", estado.getTiempoVisto());
             
-            System.out.println("Respuesta: " + response);
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
@@ -862,37 +694,32 @@ public class ModuloProgresoController {
         }
     }
     
-    private void actualizarProgresoCurso(Long cursoId, Usuario usuario) {
-        try {
-            System.out.println("=== ACTUALIZANDO PROGRESO CURSO (ModuloProgresoController) ===");
-            System.out.println("CursoId: " + cursoId + ", Usuario: " + usuario.getNombre());
-            
-            // Usar ProgresoService para mantener consistencia
-            progresoService.actualizarProgresoCurso(cursoId, usuario);
-            
-            System.out.println("Progreso del curso actualizado usando ProgresoService");
-            
-        } catch (Exception e) {
-            System.err.println("Error actualizando progreso del curso: " + e.getMessage());
-            e.printStackTrace();
+    // Los streams de progreso abiertos reciben el cambio cuando se confirma la transacción
+    private void publicarAvance(Modulo modulo, Usuario usuario, Long submoduloId, boolean moduloCompletadoAhora) {
+        Long cursoId = modulo.getCurso().getId();
+        int porcentaje = progresoContadorService.obtener(cursoId, usuario).getPorcentajeProgreso();
+        eventPublisher.publishEvent(new ProgresoActualizadoEvent(usuario.getId(), cursoId,
+                ProgresoActualizadoEvent.Tipo.SUBMODULO_COMPLETADO, submoduloId, porcentaje));
+        if (moduloCompletadoAhora) {
+            eventPublisher.publishEvent(new ProgresoActualizadoEvent(usuario.getId(), cursoId,
+                    ProgresoActualizadoEvent.Tipo.MODULO_COMPLETADO, modulo.getId(), porcentaje));
         }
     }
     
+    private ModuloEstructura estructuraModulo(Modulo modulo) {
+        return estructuraCursoService.obtener(modulo.getCurso().getId())
+                .modulo(modulo.getId())
+                .orElseThrow(() -> new RuntimeException("Módulo no encontrado o inactivo"));
+    }
+    
     private void recalcularProgresoModulo(Modulo modulo, Usuario usuario, ModuloProgreso progreso) {
         try {
-            List<Submodulo> todosSubmodulos = submoduloRepo.findByModuloIdOrderByOrdenAsc(modulo.getId());
-            List<Evaluacion> evaluacionesModulo = evaluacionRepo.findByModuloIdAndActivoTrue(modulo.getId());
-            
-            // TAMBIÉN buscar evaluaciones del curso (igual que en el cálculo general)
-            List<Evaluacion> evaluacionesCurso = evaluacionRepo.findActivasByCursoId(modulo.getCurso().getId());
-            
-            // Combinar evaluaciones evitando duplicados
-            List<Evaluacion> todasEvaluaciones = new java.util.ArrayList<>(evaluacionesModulo);
-            for (Evaluacion evalCurso : evaluacionesCurso) {
-                if (!todasEvaluaciones.stream().anyMatch(e -> e.getId().equals(evalCurso.getId()))) {
-                    todasEvaluaciones.add(evalCurso);
-                }
-            }
+            // Estructura en caché: submódulos y evaluaciones del módulo y del curso ya combinadas
+            ModuloEstructura estructura = estructuraModulo(modulo);
+            List<SubmoduloEstructura> todosSubmodulos = estructura.submodulos();
+            List<Long> todasEvaluaciones = estructura.evaluacionesCombinadas().stream()
+                    .map(EvaluacionEstructura::id)
+                    .collect(Collectors.toList());
             
             if (todosSubmodulos.isEmpty() && todasEvaluaciones.isEmpty()) {
                 progreso.setPorcentajeProgreso(0);
@@ -904,11 +731,8 @@ public class ModuloProgresoController {
             Long submodulosCompletados = submoduloProgresoRepo.countCompletadosByUsuarioAndModulo(usuario, modulo);
             
             // Contar evaluaciones aprobadas (del módulo Y del curso)
-            long evaluacionesAprobadas = todasEvaluaciones.stream()
-                    .filter(e -> evaluacionUsuarioRepo.findByUsuarioAndEvaluacion(usuario, e)
-                            .map(eu -> Boolean.TRUE.equals(eu.getAprobado()))
-                            .orElse(false))
-                    .count();
+            long evaluacionesAprobadas = todasEvaluaciones.isEmpty() ? 0 :
+                    evaluacionUsuarioRepo.findEvaluacionIdsAprobadas(usuario, todasEvaluaciones).size();
             
             int totalElementos = todosSubmodulos.size() + todasEvaluaciones.size();
             int elementosCompletados = submodulosCompletados.intValue() + (int) evaluacionesAprobadas;
@@ -917,8 +741,7 @@ public class ModuloProgresoController {
             System.out.println("Total submódulos: " + todosSubmodulos.size());
             System.out.println("Submódulos completados: " + submodulosCompletados);
             System.out.println("Total evaluaciones: " + todasEvaluaciones.size());
-            System.out.println("  - Evaluaciones del módulo: " + evaluacionesModulo.size());
-            System.out.println("  - Evaluaciones del curso: " + evaluacionesCurso.size());
+            System.out.println("  - Evaluaciones del módulo: " + estructura.evaluaciones().size());
             System.out.println("Evaluaciones aprobadas: " + evaluacionesAprobadas);
             System.out.println("Total elementos: " + totalElementos);
             System.out.println("Elementos completados: " + elementosCompletados);
@@ -965,112 +788,6 @@ public class ModuloProgresoController {
         }
     }
     
-    private void limpiarDuplicadosSubmoduloProgreso(Usuario usuario, Modulo modulo) {
-        try {
-            List<SubmoduloProgreso> progresos = submoduloProgresoRepo.findByUsuarioAndModulo(usuario, modulo);
-            Map<Long, List<SubmoduloProgreso>> agrupadosPorSubmodulo = progresos.stream()
-                    .collect(Collectors.groupingBy(sp -> sp.getSubmodulo().getId()));
-            
-            for (Map.Entry<Long, List<SubmoduloProgreso>> entry : agrupadosPorSubmodulo.entrySet()) {
-                List<SubmoduloProgreso> duplicados = entry.getValue();
-                if (duplicados.size() > 1) {
-                    System.out.println("Encontrados " + duplicados.size() + " duplicados para submódulo " + entry.getKey());
-                    
-                    // Mantener el más reciente o el completado
-                    SubmoduloProgreso aMantener = duplicados.stream()
-                            .filter(sp -> Boolean.TRUE.equals(sp.getCompletado()))
-                            .findFirst()
-                            .orElse(duplicados.get(duplicados.size() - 1));
-                    
-                    // Eliminar los demás de forma segura
-                    for (SubmoduloProgreso sp : duplicados) {
-                        if (!sp.getId().equals(aMantener.getId())) {
-                            try {
-                                System.out.println("Eliminando duplicado: " + sp.getId());
-                                submoduloProgresoRepo.deleteById(sp.getId());
-                            } catch (Exception deleteEx) {
-                                System.err.println("Error eliminando duplicado " + sp.getId() + ": " + deleteEx.getMessage());
-                                // Continuar con el siguiente
-                            }
-                        }
-                    }
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Error limpiando duplicados: " + e.getMessage());
-        }
-    }
-    
-    private boolean puedeAccederSubmodulo(Usuario usuario, Submodulo submodulo) {
-        try {
-            List<Submodulo> todosSubmodulos = submoduloRepo.findByModuloIdOrderByOrdenAsc(submodulo.getModulo().getId());
-            
-            System.out.println("=== VERIFICANDO ACCESO SECUENCIAL ===");
-            System.out.println("Usuario: " + usuario.getNombre());
-            System.out.println("Submódulo objetivo: " + submodulo.getId() + " - " + submodulo.getTitulo());
-            System.out.println("Total submódulos en módulo: " + todosSubmodulos.size());
-            
-            // El primer submódulo siempre está disponible
-            if (!todosSubmodulos.isEmpty() && todosSubmodulos.get(0).getId().equals(submodulo.getId())) {
-                System.out.println("✅ PRIMER SUBMÓDULO - Acceso permitido");
-                return true;
-            }
-            
-            // Encontrar el índice del submódulo objetivo
-            int targetIndex = -1;
-            for (int i = 0; i < todosSubmodulos.size(); i++) {
-                if (todosSubmodulos.get(i).getId().equals(submodulo.getId())) {
-                    targetIndex = i;
-                    break;
-                }
-            }
-            
-            if (targetIndex == -1) {
-                System.out.println("❌ Submódulo no encontrado en la lista");
-                return false;
-            }
-            
-            System.out.println("Submódulo está en posición: " + targetIndex);
-            
-            // Verificar que TODOS los submódulos anteriores estén completados
-            for (int i = 0; i < targetIndex; i++) {
-                Submodulo sub = todosSubmodulos.get(i);
-                System.out.println("Verificando submódulo anterior " + i + ": " + sub.getId() + " - " + sub.getTitulo());
-                
-                try {
-                    Optional<SubmoduloProgreso> progreso = submoduloProgresoRepo.findByUsuarioAndSubmodulo(usuario, sub);
-                    if (!progreso.isPresent()) {
-                        System.out.println("  ❌ No hay progreso registrado");
-                        return false;
-                    }
-                    if (!Boolean.TRUE.equals(progreso.get().getCompletado())) {
-                        System.out.println("  ❌ No está completado (" + progreso.get().getCompletado() + ")");
-                        return false;
-                    }
-                    System.out.println("  ✅ Completado correctamente");
-                } catch (Exception ex) {
-                    System.out.println("  ⚠️ Error consultando progreso, verificando duplicados...");
-                    // Si hay duplicados, verificar si alguno está completado
-                    List<SubmoduloProgreso> duplicados = submoduloProgresoRepo.findAllByUsuarioAndSubmodulo(usuario, sub);
-                    boolean completado = duplicados.stream().anyMatch(sp -> Boolean.TRUE.equals(sp.getCompletado()));
-                    System.out.println("  Duplicados encontrados: " + duplicados.size() + ", alguno completado: " + completado);
-                    if (!completado) {
-                        System.out.println("  ❌ Ningún duplicado está completado");
-                        return false;
-                    }
-                    System.out.println("  ✅ Al menos un duplicado está completado");
-                }
-            }
-            
-            System.out.println("✅ ACCESO PERMITIDO - Todos los submódulos anteriores completados");
-            return true;
-        } catch (Exception e) {
-            System.err.println("Error verificando acceso a submódulo: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
-    }
-    
     private int calcularProgresoTotal(long modulosCompletados, int totalModulos, 
                                      long evaluacionesAprobadas, int totalEvaluaciones) {
         if (totalModulos == 0 && totalEvaluaciones == 0) {
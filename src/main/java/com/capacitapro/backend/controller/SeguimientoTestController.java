@@ -1,12 +1,20 @@
 package com.capacitapro.backend.controller;
 
+import com.capacitapro.backend.dto.CursorFecha;
+import com.capacitapro.backend.dto.FiltroSeguimiento;
+import com.capacitapro.backend.dto.SeguimientoTest;
 import com.capacitapro.backend.entity.*;
 import com.capacitapro.backend.repository.*;
+import com.capacitapro.backend.service.IntentoEvaluacionService;
+import com.capacitapro.backend.service.ProgresoService;
+import com.capacitapro.backend.service.SeguimientoTestService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -17,10 +25,17 @@ import java.util.stream.Collectors;
 
 public class SeguimientoTestController {
 
+    // Tamaño máximo de página y cabecera con el cursor de la página siguiente
+    private static final int LIMITE_MAXIMO = 200;
+    private static final String CABECERA_SIGUIENTE_CURSOR = "X-Siguiente-Cursor";
+
     private final EvaluacionUsuarioRepository evaluacionUsuarioRepo;
     private final RespuestaUsuarioTextoRepository respuestaTextoRepo;
     private final UsuarioRepository usuarioRepo;
     private final CursoRepository cursoRepo;
+    private final SeguimientoTestService seguimientoTestService;
+    private final IntentoEvaluacionService intentoEvaluacionService;
+    private final ProgresoService progresoService;
 
     private Usuario getUsuarioAutenticado(Authentication authentication) {
         String correo = authentication.getName();
@@ -31,6 +46,13 @@ public class SeguimientoTestController {
     @GetMapping("/empresa/{empresaId}")
     public ResponseEntity<List<Map<String, Object>>> getSeguimientoPorEmpresa(
             @PathVariable Long empresaId,
+            @RequestParam(required = false) Long cursoId,
+            @RequestParam(required = false) Long evaluacionId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) Boolean aprobado,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limite,
             Authentication authentication) {
         
         try {
@@ -40,32 +62,40 @@ public class SeguimientoTestController {
             if (!usuario.getRol().equals("ADMIN") && !usuario.getRol().equals("INSTRUCTOR")) {
                 return ResponseEntity.status(403).build();
             }
+            // Solo el seguimiento de la propia empresa
+            if (usuario.getEmpresa() == null || !usuario.getEmpresa().getId().equals(empresaId)) {
+                return ResponseEntity.status(403).build();
+            }
+            if (desde != null && hasta != null && desde.isAfter(hasta)) {
+                return ResponseEntity.badRequest().build();
+            }
             
-            List<EvaluacionUsuario> evaluaciones = evaluacionUsuarioRepo
-                    .findByEvaluacion_Curso_Empresa_IdOrderByFechaRealizacionDesc(empresaId);
+            int tamano = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+            List<SeguimientoTest> evaluaciones = seguimientoTestService.listar(empresaId,
+                    new FiltroSeguimiento(cursoId, evaluacionId, desde, hasta, aprobado), CursorFecha.parse(cursor), tamano);
             
             List<Map<String, Object>> resultado = evaluaciones.stream().map(ev -> {
                 Map<String, Object> item = new HashMap<>();
-                item.put("id", ev.getId());
-                item.put("usuario", ev.getUsuario().getNombre());
-                item.put("correoUsuario", ev.getUsuario().getCorreo());
-                item.put("curso", ev.getEvaluacion().getCurso().getTitulo());
-                item.put("test", ev.getEvaluacion().getTitulo());
-                item.put("puntajeObtenido", ev.getPuntajeObtenido());
-                item.put("puntajeMaximo", ev.getPuntajeMaximo());
-                item.put("aprobado", ev.getAprobado());
-                item.put("fechaRealizacion", ev.getFechaRealizacion());
-                item.put("intentos", ev.getIntentos());
-                
-                // Verificar si tiene respuestas de texto pendientes
-                List<RespuestaUsuarioTexto> respuestasTexto = respuestaTextoRepo.findByEvaluacionUsuario(ev);
-                long pendientes = respuestasTexto.stream().filter(r -> !r.getRevisada()).count();
-                item.put("respuestasPendientes", pendientes);
-                
+                item.put("id", ev.id());
+                item.put("usuario", ev.usuario());
+                item.put("correoUsuario", ev.correoUsuario());
+                item.put("curso", ev.curso());
+                item.put("test", ev.test());
+                item.put("puntajeObtenido", ev.puntajeObtenido());
+                item.put("puntajeMaximo", ev.puntajeMaximo());
+                item.put("aprobado", ev.aprobado());
+                item.put("fechaRealizacion", ev.fechaRealizacion());
+                item.put("intentos", ev.intentos());
+                item.put("respuestasPendientes", ev.respuestasPendientes());
                 return item;
             }).collect(Collectors.toList());
             
-            return ResponseEntity.ok(resultado);
+            // Página llena: puede haber más, el cliente pide la siguiente con este cursor
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+            if (evaluaciones.size() == tamano) {
+                builder.header(CABECERA_SIGUIENTE_CURSOR, evaluaciones.get(evaluaciones.size() - 1).cursor().toString());
+            }
+            return builder.body(resultado);
             
         } catch (Exception e) {
             System.err.println("Error obteniendo seguimiento: " + e.getMessage());
@@ -155,6 +185,14 @@ public class SeguimientoTestController {
         evaluacionUsuario.setPuntajeObtenido(evaluacionUsuario.getPuntajeObtenido() + puntajeTexto);
         evaluacionUsuario.calcularAprobacion();
         
-        evaluacionUsuarioRepo.save(evaluacionUsuario);
+        // Sale de la cola de revisión cuando ya no le quedan respuestas de texto sin calificar
+        if (respuestasTexto.stream().allMatch(RespuestaUsuarioTexto::getRevisada)) {
+            evaluacionUsuario.setPendienteRevision(false);
+        }
+        
+        // La nueva nota puede cambiar cuál es el mejor intento y, con él, los contadores de progreso del curso
+        intentoEvaluacionService.actualizar(evaluacionUsuario);
+        progresoService.registrarResultadoEvaluacion(
+                evaluacionUsuario.getEvaluacion().getCurso().getId(), evaluacionUsuario.getUsuario());
     }
 }
@@ -0,0 +1,17 @@
+package com.capacitapro.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.core.io.Resource;
+
+// PDF de un certificado listo para enviarse; el recurso se lee del disco a medida que se escribe la respuesta.
+// El identificador es el digest del almacén: el mismo identificador siempre corresponde a los mismos bytes
+@Getter
+@AllArgsConstructor
+public class ArchivoCertificado {
+
+    private String nombreArchivo;
+    private String identificador;
+    private long tamano;
+    private Resource recurso;
+}
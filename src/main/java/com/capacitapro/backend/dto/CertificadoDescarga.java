@@ -0,0 +1,9 @@
+package com.capacitapro.backend.dto;
+
+// Lo mínimo para autorizar una descarga y calcular su ETag sin cargar la entidad ni tocar el archivo
+public record CertificadoDescarga(
+        Long usuarioId,
+        Boolean activo,
+        String pdfDigest,
+        Integer pdfVersionPlantilla) {
+}
@@ -0,0 +1,26 @@
+package com.capacitapro.backend.dto;
+
+import java.time.LocalDateTime;
+
+// Fila de un listado de certificados: solo lo que muestran las pantallas, sin el grafo de entidades.
+// La descripción del curso solo la pide el listado del propio usuario.
+public record CertificadoResumen(
+        Long id,
+        String codigoVerificacion,
+        LocalDateTime fechaGeneracion,
+        Boolean activo,
+        Long usuarioId,
+        String nombreUsuario,
+        Long cursoId,
+        String nombreCurso,
+        String descripcionCurso) {
+
+    public CertificadoResumen(Long id, String codigoVerificacion, LocalDateTime fechaGeneracion, Boolean activo,
+                              Long usuarioId, String nombreUsuario, Long cursoId, String nombreCurso) {
+        this(id, codigoVerificacion, fechaGeneracion, activo, usuarioId, nombreUsuario, cursoId, nombreCurso, null);
+    }
+
+    public CursorFecha cursor() {
+        return new CursorFecha(fechaGeneracion, id);
+    }
+}
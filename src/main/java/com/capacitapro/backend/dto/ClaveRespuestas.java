@@ -0,0 +1,125 @@
+package com.capacitapro.backend.dto;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * Clave de respuestas compilada de una evaluación: preguntas ordenadas por id con su puntaje y tipo,
+ * y los ids de las respuestas correctas en un arreglo ordenado. Calificar es una pasada en memoria,
+ * sin consultas. Solo cambia cuando se editan las preguntas, por eso se guarda en caché.
+ */
+public final class ClaveRespuestas {
+
+    private static final String TIPO_TEXTO = "texto";
+
+    @Getter private final Long evaluacionId;
+    @Getter private final Long cursoId;
+    @Getter private final Long empresaId;
+    @Getter private final int notaMinima;
+    @Getter private final int puntajeMaximo;
+
+    private final long[] preguntaIds;
+    private final int[] puntajes;
+    private final boolean[] abiertas;
+
+    // Respuestas correctas ordenadas y, en paralelo, la posición de su pregunta
+    private final long[] respuestasCorrectas;
+    private final int[] preguntaDeCorrecta;
+
+    // Una fila por respuesta; las preguntas sin respuestas llegan con respuestaId null
+    public record Fila(Long preguntaId, Integer puntaje, String tipo, Long respuestaId, Boolean esCorrecta) {
+    }
+
+    public ClaveRespuestas(Long evaluacionId, Long cursoId, Long empresaId, Integer notaMinima, List<Fila> filas) {
+        this.evaluacionId = evaluacionId;
+        this.cursoId = cursoId;
+        this.empresaId = empresaId;
+        this.notaMinima = notaMinima != null ? notaMinima : 70;
+
+        TreeMap<Long, Fila> preguntas = new TreeMap<>();
+        for (Fila fila : filas) {
+            preguntas.putIfAbsent(fila.preguntaId(), fila);
+        }
+
+        preguntaIds = new long[preguntas.size()];
+        puntajes = new int[preguntas.size()];
+        abiertas = new boolean[preguntas.size()];
+        int i = 0;
+        int maximo = 0;
+        for (Fila pregunta : preguntas.values()) {
+            preguntaIds[i] = pregunta.preguntaId();
+            puntajes[i] = pregunta.puntaje() != null ? pregunta.puntaje() : 1;
+            abiertas[i] = TIPO_TEXTO.equals(pregunta.tipo());
+            maximo += puntajes[i];
+            i++;
+        }
+        puntajeMaximo = maximo;
+
+        List<Fila> correctas = filas.stream()
+                .filter(f -> f.respuestaId() != null && Boolean.TRUE.equals(f.esCorrecta()))
+                .sorted(Comparator.comparing(Fila::respuestaId))
+                .toList();
+        respuestasCorrectas = new long[correctas.size()];
+        preguntaDeCorrecta = new int[correctas.size()];
+        for (int j = 0; j < correctas.size(); j++) {
+            respuestasCorrectas[j] = correctas.get(j).respuestaId();
+            preguntaDeCorrecta[j] = Arrays.binarySearch(preguntaIds, correctas.get(j).preguntaId());
+        }
+    }
+
+    /**
+     * Puntaje de un intento. Las respuestas van por id de pregunta: el id de la respuesta elegida o,
+     * en las preguntas de texto, lo escrito (que por ahora recibe el puntaje completo).
+     * Una respuesta solo suma si es correcta y pertenece a esa pregunta.
+     */
+    public int calificar(Map<Long, String> respuestas) {
+        int obtenido = 0;
+        for (int i = 0; i < preguntaIds.length; i++) {
+            String valor = respuestas.get(preguntaIds[i]);
+            if (valor == null) {
+                continue;
+            }
+            if (abiertas[i]) {
+                obtenido += puntajes[i];
+            } else if (esCorrecta(i, valor)) {
+                obtenido += puntajes[i];
+            }
+        }
+        return obtenido;
+    }
+
+    public int porcentaje(int puntajeObtenido) {
+        return puntajeMaximo > 0 ? (puntajeObtenido * 100) / puntajeMaximo : 0;
+    }
+
+    // Misma regla que EvaluacionUsuario.calcularAprobacion: porcentaje sin redondear contra la nota mínima
+    public boolean aprobado(int puntajeObtenido) {
+        return puntajeMaximo > 0 && puntajeObtenido * 100.0 / puntajeMaximo >= notaMinima;
+    }
+
+    public int getCantidadPreguntas() {
+        return preguntaIds.length;
+    }
+
+    // Las preguntas de texto necesitan revisión manual cuando el intento no alcanza la nota
+    public boolean tieneAbiertas() {
+        for (boolean abierta : abiertas) {
+            if (abierta) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean esCorrecta(int pregunta, String valor) {
+        long respuestaId;
+        try {
+            respuestaId = Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        int posicion = Arrays.binarySearch(respuestasCorrectas, respuestaId);
+        return posicion >= 0 && preguntaDeCorrecta[posicion] == pregunta;
+    }
+}
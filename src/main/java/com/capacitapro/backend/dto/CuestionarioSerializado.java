@@ -0,0 +1,12 @@
+package com.capacitapro.backend.dto;
+
+/**
+ * Cuestionario de una evaluación tal como lo ve el participante (sin respuestas correctas ni respuesta
+ * esperada), ya convertido a JSON. La versión cambia con cada edición de las preguntas y da el ETag.
+ */
+public record CuestionarioSerializado(Long evaluacionId, Long empresaId, long version, byte[] json) {
+
+    public String etag() {
+        return "\"q" + evaluacionId + "." + version + "\"";
+    }
+}
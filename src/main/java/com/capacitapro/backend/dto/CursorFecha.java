@@ -0,0 +1,33 @@
+package com.capacitapro.backend.dto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Posición para paginar por clave sobre (fecha, id). Viaja como texto opaco "fecha_id": la página
+ * siguiente empieza en las filas estrictamente anteriores a esta (listados de la más reciente a la
+ * más antigua) o estrictamente posteriores (colas de la más antigua a la más reciente).
+ */
+public record CursorFecha(LocalDateTime fecha, Long id) {
+
+    public static CursorFecha parse(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        int separador = texto.lastIndexOf('_');
+        if (separador <= 0) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        try {
+            return new CursorFecha(LocalDateTime.parse(texto.substring(0, separador)),
+                    Long.parseLong(texto.substring(separador + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return fecha + "_" + id;
+    }
+}
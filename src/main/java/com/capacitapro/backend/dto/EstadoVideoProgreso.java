@@ -0,0 +1,19 @@
+package com.capacitapro.backend.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EstadoVideoProgreso {
+    
+    private Long submoduloId;
+    private Integer tiempoVisto;
+    private Integer duracionTotal;
+    private Integer porcentajeProgreso;
+    private Boolean completado;
+    
+    // true solo en el latido que cruzó el umbral de completado (ya escrito en la base de datos)
+    private boolean completadoAhora;
+}
@@ -0,0 +1,150 @@
+package com.capacitapro.backend.dto;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * Instantánea inmutable de la estructura de un curso: módulos activos en orden, sus submódulos
+ * y las evaluaciones del módulo y del curso ya combinadas sin duplicados.
+ * Solo cambia cuando se edita el curso, por eso se guarda en caché.
+ */
+@Getter
+public final class EstructuraCurso {
+
+    private final Long cursoId;
+    private final List<ModuloEstructura> modulos;
+    private final List<EvaluacionEstructura> evaluacionesCurso;
+    private final Map<Long, ModuloEstructura> modulosPorId;
+    private final Set<Long> evaluacionIds;
+    private final Map<Long, Integer> posicionesSubmodulo;
+
+    public EstructuraCurso(Long cursoId, List<ModuloEstructura> modulos, List<EvaluacionEstructura> evaluacionesCurso) {
+        this.cursoId = cursoId;
+        this.modulos = List.copyOf(modulos);
+        this.evaluacionesCurso = List.copyOf(evaluacionesCurso);
+
+        Map<Long, ModuloEstructura> porId = new LinkedHashMap<>();
+        Set<Long> ids = new LinkedHashSet<>();
+        Map<Long, Integer> posiciones = new HashMap<>();
+        for (ModuloEstructura modulo : this.modulos) {
+            porId.put(modulo.id(), modulo);
+            modulo.evaluacionesCombinadas().forEach(e -> ids.add(e.id()));
+            for (int i = 0; i < modulo.submodulos().size(); i++) {
+                posiciones.put(modulo.submodulos().get(i).id(), i);
+            }
+        }
+        this.evaluacionesCurso.forEach(e -> ids.add(e.id()));
+        this.modulosPorId = Collections.unmodifiableMap(porId);
+        this.evaluacionIds = Collections.unmodifiableSet(ids);
+        this.posicionesSubmodulo = Collections.unmodifiableMap(posiciones);
+    }
+
+    public static EstructuraCurso vacia(Long cursoId) {
+        return new EstructuraCurso(cursoId, List.of(), List.of());
+    }
+
+    public boolean isVacia() {
+        return modulos.isEmpty();
+    }
+
+    public Optional<ModuloEstructura> modulo(Long moduloId) {
+        return Optional.ofNullable(modulosPorId.get(moduloId));
+    }
+
+    public List<Long> moduloIds() {
+        return List.copyOf(modulosPorId.keySet());
+    }
+
+    // Posición del submódulo dentro de su módulo, o -1 si no está activo en este curso
+    public int posicionSubmodulo(Long submoduloId) {
+        return posicionesSubmodulo.getOrDefault(submoduloId, -1);
+    }
+
+    // Elementos completados de un módulo: submódulos completados más evaluaciones combinadas aprobadas
+    public int elementosCompletados(ModuloEstructura modulo, long submodulosCompletados, Set<Long> evaluacionesAprobadas) {
+        long evalsAprobadas = modulo.evaluacionesCombinadas().stream()
+                .filter(e -> evaluacionesAprobadas.contains(e.id()))
+                .count();
+        return (int) Math.min(submodulosCompletados + evalsAprobadas, modulo.totalElementos());
+    }
+
+    /**
+     * Totales del progreso de un usuario en este curso, a partir de sus submódulos completados
+     * por módulo y de las evaluaciones que tiene aprobadas.
+     */
+    public ResumenProgreso resumir(Map<Long, Long> submodulosCompletadosPorModulo, Set<Long> evaluacionesAprobadas) {
+        int totalElementos = 0;
+        int elementosCompletados = 0;
+        int modulosCompletados = 0;
+        for (ModuloEstructura modulo : modulos) {
+            int elementosModulo = modulo.totalElementos();
+            int completadosModulo = elementosCompletados(modulo,
+                    submodulosCompletadosPorModulo.getOrDefault(modulo.id(), 0L), evaluacionesAprobadas);
+            totalElementos += elementosModulo;
+            elementosCompletados += completadosModulo;
+            if (elementosModulo > 0 && completadosModulo >= elementosModulo) {
+                modulosCompletados++;
+            }
+        }
+        
+        int aprobadasCurso = (int) evaluacionesCurso.stream()
+                .filter(e -> evaluacionesAprobadas.contains(e.id()))
+                .count();
+        
+        return ResumenProgreso.builder()
+                .totalElementos(totalElementos)
+                .elementosCompletados(elementosCompletados)
+                .totalModulos(modulos.size())
+                .modulosCompletados(modulosCompletados)
+                .totalEvaluaciones(evaluacionesCurso.size())
+                .evaluacionesAprobadas(aprobadasCurso)
+                .build();
+    }
+
+    public record ModuloEstructura(
+            Long id,
+            String titulo,
+            String contenido,
+            Integer orden,
+            List<SubmoduloEstructura> submodulos,
+            List<EvaluacionEstructura> evaluaciones,
+            List<EvaluacionEstructura> evaluacionesCombinadas) {
+
+        public ModuloEstructura {
+            submodulos = List.copyOf(submodulos);
+            evaluaciones = List.copyOf(evaluaciones);
+            evaluacionesCombinadas = List.copyOf(evaluacionesCombinadas);
+        }
+
+        // Submódulos más evaluaciones del módulo y del curso
+        public int totalElementos() {
+            return submodulos.size() + evaluacionesCombinadas.size();
+        }
+
+        // Posición del submódulo dentro del módulo, o -1 si no pertenece a él
+        public int posicionSubmodulo(Long submoduloId) {
+            for (int i = 0; i < submodulos.size(); i++) {
+                if (submodulos.get(i).id().equals(submoduloId)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Cantidad de submódulos iniciales completados sin huecos
+        public int prefijoCompletado(Set<Long> submodulosCompletados) {
+            int prefijo = 0;
+            while (prefijo < submodulos.size() && submodulosCompletados.contains(submodulos.get(prefijo).id())) {
+                prefijo++;
+            }
+            return prefijo;
+        }
+    }
+
+    public record SubmoduloEstructura(Long id, String titulo, String tipo, String contenido, Integer orden) {
+    }
+
+    public record EvaluacionEstructura(Long id, Long moduloId, String titulo, String descripcion, Integer notaMinima) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.capacitapro.backend.dto;
+
+import java.time.LocalDate;
+
+// Filtros opcionales del seguimiento de tests; null significa sin filtro. Las fechas incluyen ambos extremos
+public record FiltroSeguimiento(
+        Long cursoId,
+        Long evaluacionId,
+        LocalDate desde,
+        LocalDate hasta,
+        Boolean aprobado) {
+}
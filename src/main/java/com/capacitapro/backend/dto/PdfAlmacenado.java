@@ -0,0 +1,5 @@
+package com.capacitapro.backend.dto;
+
+// Referencia a un PDF del almacén: SHA-256 del contenido en hexadecimal y tamaño en bytes
+public record PdfAlmacenado(String digest, long tamano) {
+}
@@ -0,0 +1,19 @@
+package com.capacitapro.backend.dto;
+
+import java.util.List;
+
+// Resultado de importar un banco de preguntas: si hay errores no se insertó nada
+public record ResultadoImportacion(
+        int preguntas,
+        int respuestas,
+        List<ErrorFila> errores,
+        long duracionMs) {
+
+    // La fila es la línea del CSV o la posición (desde 1) en la lista JSON
+    public record ErrorFila(int fila, String mensaje) {
+    }
+
+    public boolean exitoso() {
+        return errores.isEmpty();
+    }
+}
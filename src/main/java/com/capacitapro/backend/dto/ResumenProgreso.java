@@ -0,0 +1,21 @@
+package com.capacitapro.backend.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResumenProgreso {
+    
+    private int totalElementos;
+    private int elementosCompletados;
+    private int totalModulos;
+    private int modulosCompletados;
+    private int totalEvaluaciones;
+    private int evaluacionesAprobadas;
+    
+    public int getPorcentajeProgreso() {
+        return totalElementos > 0 ? Math.min(elementosCompletados * 100 / totalElementos, 100) : 0;
+    }
+}
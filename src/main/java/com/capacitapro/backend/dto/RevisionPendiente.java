@@ -0,0 +1,19 @@
+package com.capacitapro.backend.dto;
+
+import java.time.LocalDateTime;
+
+// Intento en la cola de revisión manual: lo que muestra la pantalla del revisor, sin cargar entidades
+public record RevisionPendiente(
+        Long id,
+        String nombreUsuario,
+        Long evaluacionId,
+        String tituloEvaluacion,
+        String nombreCurso,
+        LocalDateTime fechaRealizacion,
+        Integer puntajeObtenido,
+        Integer puntajeMaximo) {
+
+    public CursorFecha cursor() {
+        return new CursorFecha(fechaRealizacion, id);
+    }
+}
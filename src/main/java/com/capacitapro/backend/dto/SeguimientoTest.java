@@ -0,0 +1,22 @@
+package com.capacitapro.backend.dto;
+
+import java.time.LocalDateTime;
+
+// Fila del seguimiento de tests de una empresa: el intento, sus nombres y las respuestas de texto sin revisar
+public record SeguimientoTest(
+        Long id,
+        String usuario,
+        String correoUsuario,
+        String curso,
+        String test,
+        Integer puntajeObtenido,
+        Integer puntajeMaximo,
+        Boolean aprobado,
+        LocalDateTime fechaRealizacion,
+        Integer intentos,
+        long respuestasPendientes) {
+
+    public CursorFecha cursor() {
+        return new CursorFecha(fechaRealizacion, id);
+    }
+}
@@ -0,0 +1,12 @@
+package com.capacitapro.backend.dto;
+
+import java.time.LocalDateTime;
+
+// Datos que se muestran públicamente al verificar un certificado
+public record VerificacionCertificado(
+        String codigoVerificacion,
+        String nombreUsuario,
+        String nombreCurso,
+        String empresa,
+        LocalDateTime fechaGeneracion) {
+}
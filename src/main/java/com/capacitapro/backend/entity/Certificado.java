@@ -7,6 +7,10 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_certificado_fecha", columnList = "fecha_generacion, id"),
+        @Index(name = "idx_certificado_usuario_fecha", columnList = "usuario_id, fecha_generacion, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -36,10 +40,18 @@ public class Certificado {
     
     private Boolean activo = true;
 
-    @Lob
-    @Basic(fetch = FetchType.LAZY)
-    @Column(name = "archivo_pdf")
-    private byte[] archivoPdf;
+    // El PDF vive en el almacén de PDFs; la fila solo guarda su SHA-256 y su tamaño.
+    // La columna archivo_pdf antigua la lee únicamente MigracionPdfService.
+    @Column(name = "pdf_digest", length = 64)
+    private String pdfDigest;
+    
+    @Column(name = "pdf_tamano")
+    private Long pdfTamano;
+    
+    // Versión de plantilla con la que se generó el PDF; null en los PDFs anteriores al versionado,
+    // que se conservan tal como se emitieron
+    @Column(name = "pdf_version_plantilla")
+    private Integer pdfVersionPlantilla;
     
     @PrePersist
     protected void onCreate() {
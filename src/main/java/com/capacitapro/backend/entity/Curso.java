@@ -38,6 +38,10 @@ public class Curso {
     @Column(name = "fecha_creacion")
     private LocalDateTime fechaCreacion = LocalDateTime.now();
 
+    // Versión del contenido para los ETag; solo la cambia CursoRepository.incrementarVersionContenido
+    @Column(name = "version_contenido", insertable = false, updatable = false)
+    private Long versionContenido;
+
     @PrePersist
     protected void onCreate() {
         fechaCreacion = LocalDateTime.now();
@@ -7,7 +7,9 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "curso_usuario")
+@Table(name = "curso_usuario", indexes = {
+        @Index(name = "idx_curso_usuario_usuario_curso", columnList = "usuario_id, curso_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -39,6 +41,10 @@ public class CursoUsuario {
     @Max(value = 100, message = "El progreso no puede ser mayor a 100")
     private Integer porcentajeProgreso = 0;
 
+    // Versión del progreso para los ETag; solo la cambia CursoUsuarioRepository.incrementarVersionProgreso
+    @Column(name = "version_progreso", insertable = false, updatable = false)
+    private Long versionProgreso;
+
     @PrePersist
     protected void onCreate() {
         fechaAsignacion = LocalDateTime.now();
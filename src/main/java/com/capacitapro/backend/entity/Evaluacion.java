@@ -38,6 +38,10 @@ public class Evaluacion {
 
     private LocalDateTime fechaCreacion = LocalDateTime.now();
 
+    // Versión del cuestionario para la caché y el ETag; solo la cambia EvaluacionRepository.incrementarVersionContenido
+    @Column(name = "version_contenido", insertable = false, updatable = false)
+    private Long versionContenido;
+
     @OneToMany(mappedBy = "evaluacion", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Pregunta> preguntas = new ArrayList<>();
     
@@ -6,6 +6,11 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_evaluacion_usuario_fecha", columnList = "fecha_realizacion, id"),
+        @Index(name = "idx_evaluacion_usuario_evaluacion_fecha", columnList = "evaluacion_id, fecha_realizacion, id"),
+        @Index(name = "idx_evaluacion_usuario_intento", columnList = "usuario_id, evaluacion_id, intentos")
+})
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class EvaluacionUsuario {
 
@@ -32,15 +37,46 @@ public class EvaluacionUsuario {
 
     private Boolean aprobado = false;
     
+    // Número de intento dentro de (usuario, evaluación): los intentos no se reemplazan, se agregan
     private Integer intentos = 1;
     
+    // Mejor intento de (usuario, evaluación), el que cuentan el progreso y los certificados.
+    // Lo mantiene IntentoEvaluacionService; el índice único parcial se crea en data.sql
+    private Boolean mejorIntento;
+    
     private LocalDateTime fechaInicio;
     private LocalDateTime fechaRealizacion = LocalDateTime.now();
     
+    // En la cola de revisión manual: intento no aprobado de una evaluación con preguntas de texto.
+    // Se marca al corregir y se limpia al aprobar, rechazar o calificar todas sus respuestas de texto
+    private Boolean pendienteRevision = false;
+    
     @PrePersist
     protected void onCreate() {
         fechaInicio = LocalDateTime.now();
         fechaRealizacion = LocalDateTime.now();
+        if (pendienteRevision == null) {
+            pendienteRevision = false;
+        }
+    }
+    
+    // Aprobado gana a no aprobado; luego el mayor porcentaje y, a igualdad, el intento más reciente
+    public boolean superaA(EvaluacionUsuario otro) {
+        boolean aprobadoEste = Boolean.TRUE.equals(aprobado);
+        boolean aprobadoOtro = Boolean.TRUE.equals(otro.getAprobado());
+        if (aprobadoEste != aprobadoOtro) {
+            return aprobadoEste;
+        }
+        int comparacion = Double.compare(porcentaje(), otro.porcentaje());
+        if (comparacion != 0) {
+            return comparacion > 0;
+        }
+        return intentos != null && otro.getIntentos() != null && intentos > otro.getIntentos();
+    }
+    
+    private double porcentaje() {
+        return puntajeObtenido != null && puntajeMaximo != null && puntajeMaximo > 0
+                ? puntajeObtenido * 100.0 / puntajeMaximo : 0;
     }
     
     public void calcularAprobacion() {
@@ -0,0 +1,56 @@
+package com.capacitapro.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox de cursos completados. La fila se escribe en la misma transacción que marca la inscripción
+ * como completada, así que ninguna finalización se pierde aunque la aplicación se reinicie antes de
+ * emitir el certificado. ProcesadorCursoCompletadoService la consume.
+ */
+@Entity
+@Table(name = "evento_curso_completado", indexes = {
+        @Index(name = "idx_evento_curso_completado_pendientes", columnList = "estado, proximo_intento")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EventoCursoCompletado {
+
+    public static final String PENDIENTE = "PENDIENTE";
+    public static final String EN_PROCESO = "EN_PROCESO";
+    public static final String PROCESADO = "PROCESADO";
+    public static final String FALLIDO = "FALLIDO";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "curso_id", nullable = false)
+    private Long cursoId;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Column(nullable = false, length = 20)
+    private String estado = PENDIENTE;
+
+    private Integer intentos = 0;
+
+    // Cuándo puede tomarse: ahora si está pendiente, fin del reintento o del plazo de procesamiento
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento = LocalDateTime.now();
+
+    @Column(name = "ultimo_error", length = 1000)
+    private String ultimoError;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion = LocalDateTime.now();
+
+    @Column(name = "fecha_procesado")
+    private LocalDateTime fechaProcesado;
+}
@@ -39,6 +39,12 @@ public class ModuloProgreso {
     @Max(value = 100, message = "El progreso no puede ser mayor a 100")
     private Integer porcentajeProgreso = 0;
 
+    // Submódulos iniciales del módulo completados sin huecos; null cuando debe recalcularse.
+    // Solo lo escribe ModuloProgresoRepository.guardarPrefijo: el flush de la entidad no debe pisar
+    // con un valor viejo el que otra transacción confirmó mientras se esperaba el bloqueo
+    @Column(name = "prefijo_completado", updatable = false)
+    private Integer prefijoCompletado;
+
     @PrePersist
     protected void onCreate() {
         if (fechaInicio == null) {
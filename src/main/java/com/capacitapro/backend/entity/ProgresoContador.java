@@ -0,0 +1,51 @@
+package com.capacitapro.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Contadores de progreso por inscripción (usuario, curso), mantenidos de forma incremental
+@Entity
+@Table(name = "progreso_contador")
+@IdClass(ProgresoContador.Clave.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProgresoContador {
+
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    @Id
+    @Column(name = "curso_id")
+    private Long cursoId;
+
+    private Integer totalElementos;
+    private Integer elementosCompletados;
+    private Integer totalModulos;
+    private Integer modulosCompletados;
+    private Integer totalEvaluaciones;
+    private Integer evaluacionesAprobadas;
+
+    private LocalDateTime fechaActualizacion;
+
+    public int getPorcentajeProgreso() {
+        if (totalElementos == null || totalElementos == 0 || elementosCompletados == null) {
+            return 0;
+        }
+        return Math.min((elementosCompletados * 100) / totalElementos, 100);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+        private Long usuarioId;
+        private Long cursoId;
+    }
+}
@@ -1,32 +1,67 @@
 package com.capacitapro.backend.event;
 
-import com.capacitapro.backend.entity.Usuario;
-import com.capacitapro.backend.repository.UsuarioRepository;
-import com.capacitapro.backend.service.CertificadoService;
-import lombok.RequiredArgsConstructor;
-import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
+import com.capacitapro.backend.service.CertificadoRenderService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// La emisión por curso completado la hace ProcesadorCursoCompletadoService desde el outbox
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class CertificadoEventListener {
 
-    private final CertificadoService certificadoService;
-    private final UsuarioRepository usuarioRepository;
+    private final CertificadoRenderService certificadoRenderService;
+    // Pool propio y acotado: una emisión masiva publica un evento por certificado
+    private final ThreadPoolExecutor executor;
+
+    public CertificadoEventListener(CertificadoRenderService certificadoRenderService,
+                                    @Value("${certificados.prerender.hilos:1}") int hilos,
+                                    @Value("${certificados.prerender.capacidad-cola:500}") int capacidadCola) {
+        this.certificadoRenderService = certificadoRenderService;
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), r -> {
+                    Thread t = new Thread(r, "prerender-certificado-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    // Calienta la caché de renderizado para que la primera descarga encuentre el PDF listo
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void prerenderizarCertificado(ProgresoActualizadoEvent event) {
+        if (event.getTipo() != ProgresoActualizadoEvent.Tipo.CERTIFICADO_EMITIDO) {
+            return;
+        }
+        Long certificadoId = event.getElementoId();
+        try {
+            executor.execute(() -> prerenderizar(certificadoId));
+        } catch (RejectedExecutionException e) {
+            // Cola llena: es solo un calentamiento, la descarga lo renderiza igual
+            log.debug("Prerenderizado del certificado {} descartado: cola llena", certificadoId);
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
+    }
 
-    @EventListener
-    @Async
-    public void handleCursoCompletado(CursoCompletadoEvent event) {
+    private void prerenderizar(Long certificadoId) {
         try {
-            Usuario usuario = usuarioRepository.findById(event.getUsuarioId())
-                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-            
-            certificadoService.generarCertificado(event.getCursoId(), usuario);
-            System.out.println("✅ Certificado generado automáticamente para usuario ID: " + event.getUsuarioId());
-            
+            certificadoRenderService.prerenderizar(certificadoId);
         } catch (Exception e) {
-            System.err.println("Error generando certificado automático: " + e.getMessage());
+            // La descarga lo volverá a intentar
+            log.warn("Error prerenderizando certificado {}: {}", certificadoId, e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
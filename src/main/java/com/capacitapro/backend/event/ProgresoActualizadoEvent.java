@@ -0,0 +1,24 @@
+package com.capacitapro.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Cambio de progreso de un usuario en un curso; se envía a los streams abiertos al confirmar la transacción
+@Data
+@AllArgsConstructor
+public class ProgresoActualizadoEvent {
+
+    public enum Tipo {
+        SUBMODULO_COMPLETADO,
+        MODULO_COMPLETADO,
+        PROGRESO_CURSO,
+        CERTIFICADO_EMITIDO
+    }
+
+    private Long usuarioId;
+    private Long cursoId;
+    private Tipo tipo;
+    // Id del submódulo, módulo o certificado según el tipo
+    private Long elementoId;
+    private Integer porcentajeProgreso;
+}
@@ -1,10 +1,20 @@
 package com.capacitapro.backend.repository;
 
+import com.capacitapro.backend.dto.CertificadoDescarga;
+import com.capacitapro.backend.dto.CertificadoResumen;
+import com.capacitapro.backend.dto.CursorFecha;
+import com.capacitapro.backend.dto.VerificacionCertificado;
 import com.capacitapro.backend.entity.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,11 +25,24 @@ public interface CertificadoRepository extends JpaRepository<Certificado, Long>
     
     Optional<Certificado> findByUsuarioAndCursoAndActivoTrue(Usuario usuario, Curso curso);
     
-    List<Certificado> findByUsuarioAndActivoTrueOrderByFechaGeneracionDesc(Usuario usuario);
+    @Query("SELECT new com.capacitapro.backend.dto.VerificacionCertificado(c.codigoVerificacion, u.nombre, cu.titulo, e.nombre, c.fechaGeneracion) " +
+           "FROM Certificado c JOIN c.usuario u JOIN c.curso cu JOIN cu.empresa e " +
+           "WHERE c.codigoVerificacion = :codigo AND c.activo = true")
+    Optional<VerificacionCertificado> findVerificacionByCodigo(@Param("codigo") String codigo);
     
-    List<Certificado> findByUsuario_EmpresaAndActivoTrueOrderByFechaGeneracionDesc(Empresa empresa);
+    @Query("SELECT new com.capacitapro.backend.dto.CertificadoDescarga(c.usuario.id, c.activo, c.pdfDigest, c.pdfVersionPlantilla) " +
+           "FROM Certificado c WHERE c.id = :id")
+    Optional<CertificadoDescarga> findDescargaById(@Param("id") Long id);
     
-    Optional<Certificado> findByCodigoVerificacionAndActivoTrue(String codigoVerificacion);
+    // Reemplaza un PDF solo si falta o es de una versión de plantilla anterior (los PDFs sin versión se
+    // conservan); transacción propia porque la descarga es de solo lectura
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "UPDATE certificado SET pdf_digest = :digest, pdf_tamano = :tamano, pdf_version_plantilla = :version " +
+                   "WHERE id = :id AND (pdf_digest IS NULL OR pdf_version_plantilla < :version)",
+           nativeQuery = true)
+    int guardarPdf(@Param("id") Long id, @Param("digest") String digest, @Param("tamano") long tamano,
+                   @Param("version") int version);
     
     @Query("SELECT COUNT(c) FROM Certificado c WHERE c.usuario.empresa.id = :empresaId AND c.activo = true")
     Long countActivosByEmpresaId(@Param("empresaId") Long empresaId);
@@ -27,8 +50,52 @@ public interface CertificadoRepository extends JpaRepository<Certificado, Long>
     @Query("SELECT COUNT(c) FROM Certificado c WHERE c.usuario.id = :usuarioId AND c.activo = true")
     Long countActivosByUsuarioId(@Param("usuarioId") Long usuarioId);
     
-    List<Certificado> findTop5ByOrderByFechaGeneracionDesc();
+    // Listados: proyecciones con paginación por clave sobre (fecha_generacion, id), de la más reciente a la más antigua.
+    // Los métodos *AntesDe devuelven las filas estrictamente anteriores al cursor.
     
-    @Query("SELECT c.id, c.codigoVerificacion, c.fechaGeneracion, c.activo, c.curso.id, c.curso.titulo, c.curso.descripcion FROM Certificado c WHERE c.usuario = :usuario AND c.activo = true ORDER BY c.fechaGeneracion DESC")
-    List<Object[]> findCertificadosSinPdfByUsuario(@Param("usuario") Usuario usuario);
+    String RESUMEN = "SELECT new com.capacitapro.backend.dto.CertificadoResumen(c.id, c.codigoVerificacion, c.fechaGeneracion, " +
+                     "c.activo, u.id, u.nombre, cu.id, cu.titulo) FROM Certificado c JOIN c.usuario u JOIN c.curso cu ";
+    String RESUMEN_CON_DESCRIPCION = "SELECT new com.capacitapro.backend.dto.CertificadoResumen(c.id, c.codigoVerificacion, c.fechaGeneracion, " +
+                     "c.activo, u.id, u.nombre, cu.id, cu.titulo, cu.descripcion) FROM Certificado c JOIN c.usuario u JOIN c.curso cu ";
+    String ANTES_DE = "(c.fechaGeneracion < :fecha OR (c.fechaGeneracion = :fecha AND c.id < :id)) ";
+    String ORDEN = "ORDER BY c.fechaGeneracion DESC, c.id DESC";
+    
+    @Query(RESUMEN + ORDEN)
+    List<CertificadoResumen> findResumen(Pageable pageable);
+    
+    @Query(RESUMEN + "WHERE " + ANTES_DE + ORDEN)
+    List<CertificadoResumen> findResumenAntesDe(@Param("fecha") LocalDateTime fecha, @Param("id") Long id, Pageable pageable);
+    
+    @Query(RESUMEN + "WHERE u.empresa.id = :empresaId AND c.activo = true " + ORDEN)
+    List<CertificadoResumen> findResumenByEmpresa(@Param("empresaId") Long empresaId, Pageable pageable);
+    
+    @Query(RESUMEN + "WHERE u.empresa.id = :empresaId AND c.activo = true AND " + ANTES_DE + ORDEN)
+    List<CertificadoResumen> findResumenByEmpresaAntesDe(@Param("empresaId") Long empresaId, @Param("fecha") LocalDateTime fecha,
+                                                         @Param("id") Long id, Pageable pageable);
+    
+    @Query(RESUMEN_CON_DESCRIPCION + "WHERE u.id = :usuarioId AND c.activo = true " + ORDEN)
+    List<CertificadoResumen> findResumenByUsuario(@Param("usuarioId") Long usuarioId, Pageable pageable);
+    
+    @Query(RESUMEN_CON_DESCRIPCION + "WHERE u.id = :usuarioId AND c.activo = true AND " + ANTES_DE + ORDEN)
+    List<CertificadoResumen> findResumenByUsuarioAntesDe(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDateTime fecha,
+                                                         @Param("id") Long id, Pageable pageable);
+    
+    // Todos los certificados, activos o no
+    default List<CertificadoResumen> listarResumen(CursorFecha cursor, int limite) {
+        return cursor == null
+                ? findResumen(PageRequest.of(0, limite))
+                : findResumenAntesDe(cursor.fecha(), cursor.id(), PageRequest.of(0, limite));
+    }
+    
+    default List<CertificadoResumen> listarResumenEmpresa(Long empresaId, CursorFecha cursor, int limite) {
+        return cursor == null
+                ? findResumenByEmpresa(empresaId, PageRequest.of(0, limite))
+                : findResumenByEmpresaAntesDe(empresaId, cursor.fecha(), cursor.id(), PageRequest.of(0, limite));
+    }
+    
+    default List<CertificadoResumen> listarResumenUsuario(Long usuarioId, CursorFecha cursor, int limite) {
+        return cursor == null
+                ? findResumenByUsuario(usuarioId, PageRequest.of(0, limite))
+                : findResumenByUsuarioAntesDe(usuarioId, cursor.fecha(), cursor.id(), PageRequest.of(0, limite));
+    }
 }
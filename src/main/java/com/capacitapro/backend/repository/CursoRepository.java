@@ -3,8 +3,10 @@ package com.capacitapro.backend.repository;
 import com.capacitapro.backend.entity.Curso;
 import com.capacitapro.backend.entity.Empresa;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -26,4 +28,13 @@ public interface CursoRepository extends JpaRepository<Curso, Long> {
     
     @Query("SELECT c FROM Curso c WHERE c.empresa.id = :empresaId")
     List<Curso> findByEmpresaId(@Param("empresaId") Long empresaId);
+    
+    // Une la transacción que hace el cambio, o abre una propia si se llama fuera de ella
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE curso SET version_contenido = COALESCE(version_contenido, 0) + 1 WHERE id = :id", nativeQuery = true)
+    int incrementarVersionContenido(@Param("id") Long id);
+    
+    @Query(value = "SELECT COALESCE(version_contenido, 0) FROM curso WHERE id = :id", nativeQuery = true)
+    Optional<Long> findVersionContenido(@Param("id") Long id);
 }
@@ -1,10 +1,15 @@
 package com.capacitapro.backend.repository;
 
 import com.capacitapro.backend.entity.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +25,10 @@ public interface CursoUsuarioRepository extends JpaRepository<CursoUsuario, Long
     @Query("SELECT cu FROM CursoUsuario cu WHERE cu.curso.empresa.id = :empresaId")
     List<CursoUsuario> findByEmpresaId(@Param("empresaId") Long empresaId);
     
+    @Query(value = "SELECT cu FROM CursoUsuario cu JOIN FETCH cu.usuario JOIN FETCH cu.curso WHERE cu.curso.empresa.id = :empresaId ORDER BY cu.id",
+           countQuery = "SELECT COUNT(cu) FROM CursoUsuario cu WHERE cu.curso.empresa.id = :empresaId")
+    Page<CursoUsuario> findPaginaByEmpresaId(@Param("empresaId") Long empresaId, Pageable pageable);
+    
     @Query("SELECT COUNT(cu) FROM CursoUsuario cu WHERE cu.usuario.id = :usuarioId AND cu.completado = true")
     Long countCompletadosByUsuarioId(@Param("usuarioId") Long usuarioId);
     
@@ -35,5 +44,22 @@ public interface CursoUsuarioRepository extends JpaRepository<CursoUsuario, Long
     
     List<CursoUsuario> findByCursoId(Long cursoId);
     
+    // Solo una transacción puede pasar la inscripción a completada; devuelve 1 si fue esta
+    @Modifying
+    @Query("UPDATE CursoUsuario cu SET cu.completado = true, cu.fechaCompletado = :fecha, cu.porcentajeProgreso = 100 " +
+           "WHERE cu.id = :id AND (cu.completado = false OR cu.completado IS NULL)")
+    int marcarCompletado(@Param("id") Long id, @Param("fecha") LocalDateTime fecha);
+    
     Optional<CursoUsuario> findByCursoIdAndUsuarioId(Long cursoId, Long usuarioId);
+    
+    // Une la transacción que hace el cambio, o abre una propia si se llama fuera de ella
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE curso_usuario SET version_progreso = COALESCE(version_progreso, 0) + 1 " +
+           "WHERE usuario_id = :usuarioId AND curso_id = :cursoId", nativeQuery = true)
+    int incrementarVersionProgreso(@Param("usuarioId") Long usuarioId, @Param("cursoId") Long cursoId);
+    
+    @Query(value = "SELECT COALESCE(MAX(version_progreso), 0) FROM curso_usuario " +
+           "WHERE usuario_id = :usuarioId AND curso_id = :cursoId", nativeQuery = true)
+    long findVersionProgreso(@Param("usuarioId") Long usuarioId, @Param("cursoId") Long cursoId);
 }
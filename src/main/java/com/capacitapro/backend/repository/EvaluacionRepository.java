@@ -3,9 +3,12 @@ package com.capacitapro.backend.repository;
 import com.capacitapro.backend.entity.Evaluacion;
 import com.capacitapro.backend.entity.Curso;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,4 +29,26 @@ public interface EvaluacionRepository extends JpaRepository<Evaluacion, Long> {
     List<Evaluacion> findActivasByCursoIdDetailed(@Param("cursoId") Long cursoId);
     
     List<Evaluacion> findByModuloIdAndActivoTrue(Long moduloId);
+    
+    @Query("SELECT e FROM Evaluacion e WHERE e.modulo.id IN :moduloIds AND e.activo = true ORDER BY e.id")
+    List<Evaluacion> findActivasByModuloIds(@Param("moduloIds") Collection<Long> moduloIds);
+    
+    // Nota mínima, curso y empresa de la evaluación, sin cargar la entidad
+    @Query("SELECT e.notaMinima, c.id, em.id FROM Evaluacion e LEFT JOIN e.curso c LEFT JOIN c.empresa em WHERE e.id = :id")
+    List<Object[]> findDatosClaveById(@Param("id") Long id);
+    
+    // Datos de la evaluación para el cuestionario del participante: id, título, descripción, curso, nombre del curso,
+    // nota mínima, activo, fecha de creación y empresa
+    @Query("SELECT e.id, e.titulo, e.descripcion, c.id, c.titulo, e.notaMinima, e.activo, e.fechaCreacion, em.id " +
+           "FROM Evaluacion e LEFT JOIN e.curso c LEFT JOIN c.empresa em WHERE e.id = :id")
+    List<Object[]> findEncabezadoCuestionarioById(@Param("id") Long id);
+    
+    // Une la transacción que edita las preguntas, o abre una propia si se llama fuera de ella
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE evaluacion SET version_contenido = COALESCE(version_contenido, 0) + 1 WHERE id = :id", nativeQuery = true)
+    int incrementarVersionContenido(@Param("id") Long id);
+    
+    @Query(value = "SELECT COALESCE(version_contenido, 0) FROM evaluacion WHERE id = :id", nativeQuery = true)
+    Optional<Long> findVersionContenido(@Param("id") Long id);
 }
@@ -1,10 +1,20 @@
 package com.capacitapro.backend.repository;
 
+import com.capacitapro.backend.dto.CursorFecha;
+import com.capacitapro.backend.dto.RevisionPendiente;
 import com.capacitapro.backend.entity.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,7 +22,28 @@ public interface EvaluacionUsuarioRepository extends JpaRepository<EvaluacionUsu
 
     Optional<EvaluacionUsuario> findTopByUsuarioAndEvaluacion_CursoAndAprobadoIsTrueOrderByFechaRealizacionDesc(Usuario usuario, Curso curso);
     
-    Optional<EvaluacionUsuario> findByUsuarioAndEvaluacion(Usuario usuario, Evaluacion evaluacion);
+    // Mejor intento de (usuario, evaluación): una lectura sobre el índice único parcial de mejor_intento
+    @Query("SELECT eu FROM EvaluacionUsuario eu WHERE eu.usuario = :usuario AND eu.evaluacion = :evaluacion AND eu.mejorIntento = true")
+    Optional<EvaluacionUsuario> findMejorIntento(@Param("usuario") Usuario usuario, @Param("evaluacion") Evaluacion evaluacion);
+    
+    // Serializa los intentos simultáneos de un mismo (usuario, evaluación) sobre la fila del mejor intento
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT eu FROM EvaluacionUsuario eu WHERE eu.usuario.id = :usuarioId AND eu.evaluacion.id = :evaluacionId AND eu.mejorIntento = true")
+    Optional<EvaluacionUsuario> findMejorIntentoParaActualizar(@Param("usuarioId") Long usuarioId, @Param("evaluacionId") Long evaluacionId);
+    
+    // Candado de transacción sobre (usuario, evaluación) que existe aunque todavía no haya intentos; se libera
+    // al confirmar. Los ids se reducen a int: una colisión entre pares distintos solo serializa de más
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(CAST(:usuarioId % 2147483648 AS int), CAST(:evaluacionId % 2147483648 AS int))",
+           nativeQuery = true)
+    Integer bloquearIntentos(@Param("usuarioId") Long usuarioId, @Param("evaluacionId") Long evaluacionId);
+    
+    @Query("SELECT COALESCE(MAX(eu.intentos), 0) FROM EvaluacionUsuario eu WHERE eu.usuario.id = :usuarioId AND eu.evaluacion.id = :evaluacionId")
+    int findUltimoIntento(@Param("usuarioId") Long usuarioId, @Param("evaluacionId") Long evaluacionId);
+    
+    // Historial completo de intentos de (usuario, evaluación), del primero al último
+    @Query("SELECT eu FROM EvaluacionUsuario eu WHERE eu.usuario.id = :usuarioId AND eu.evaluacion.id = :evaluacionId ORDER BY eu.intentos, eu.id")
+    List<EvaluacionUsuario> findHistorial(@Param("usuarioId") Long usuarioId, @Param("evaluacionId") Long evaluacionId);
     
     boolean existsByEvaluacionAndUsuario(Evaluacion evaluacion, Usuario usuario);
     
@@ -21,13 +52,14 @@ public interface EvaluacionUsuarioRepository extends JpaRepository<EvaluacionUsu
     @Query("SELECT eu FROM EvaluacionUsuario eu WHERE eu.usuario.id = :usuarioId AND eu.evaluacion.curso.id = :cursoId")
     List<EvaluacionUsuario> findByUsuarioIdAndCursoId(@Param("usuarioId") Long usuarioId, @Param("cursoId") Long cursoId);
     
-    @Query("SELECT COUNT(eu) FROM EvaluacionUsuario eu WHERE eu.usuario.id = :usuarioId AND eu.aprobado = true")
+    // Los conteos de aprobadas miran solo el mejor intento: con el historial, una evaluación aprobada dos veces cuenta una
+    @Query("SELECT COUNT(eu) FROM EvaluacionUsuario eu WHERE eu.usuario.id = :usuarioId AND eu.aprobado = true AND eu.mejorIntento = true")
     Long countAprobadasByUsuarioId(@Param("usuarioId") Long usuarioId);
     
-    @Query("SELECT COUNT(eu) FROM EvaluacionUsuario eu WHERE eu.usuario.id = :usuarioId AND eu.evaluacion.curso.id = :cursoId AND eu.aprobado = true")
+    @Query("SELECT COUNT(eu) FROM EvaluacionUsuario eu WHERE eu.usuario.id = :usuarioId AND eu.evaluacion.curso.id = :cursoId AND eu.aprobado = true AND eu.mejorIntento = true")
     Long countAprobadasByUsuarioAndCurso(@Param("usuarioId") Long usuarioId, @Param("cursoId") Long cursoId);
     
-    @Query("SELECT eu FROM EvaluacionUsuario eu WHERE eu.usuario.id = :usuarioId AND eu.evaluacion.curso.id = :cursoId AND eu.aprobado = true")
+    @Query("SELECT eu FROM EvaluacionUsuario eu WHERE eu.usuario.id = :usuarioId AND eu.evaluacion.curso.id = :cursoId AND eu.aprobado = true AND eu.mejorIntento = true")
     List<EvaluacionUsuario> findAprobadasByUsuarioAndCurso(@Param("usuarioId") Long usuarioId, @Param("cursoId") Long cursoId);
     
     List<EvaluacionUsuario> findByEvaluacion_Curso_Empresa_IdOrderByFechaRealizacionDesc(Long empresaId);
@@ -37,4 +69,33 @@ public interface EvaluacionUsuarioRepository extends JpaRepository<EvaluacionUsu
     List<EvaluacionUsuario> findByUsuarioOrderByFechaRealizacionDesc(Usuario usuario);
     
     List<EvaluacionUsuario> findByEvaluacionAndUsuario(Evaluacion evaluacion, Usuario usuario);
+    
+    @Query("SELECT DISTINCT eu.evaluacion.id FROM EvaluacionUsuario eu WHERE eu.usuario = :usuario AND eu.evaluacion.id IN :evaluacionIds AND eu.aprobado = true AND eu.mejorIntento = true")
+    List<Long> findEvaluacionIdsAprobadas(@Param("usuario") Usuario usuario, @Param("evaluacionIds") Collection<Long> evaluacionIds);
+    
+    // Devuelve pares [usuarioId, evaluacionId] de evaluaciones aprobadas para varios usuarios a la vez
+    @Query("SELECT DISTINCT eu.usuario.id, eu.evaluacion.id FROM EvaluacionUsuario eu WHERE eu.usuario.id IN :usuarioIds AND eu.evaluacion.id IN :evaluacionIds AND eu.aprobado = true AND eu.mejorIntento = true")
+    List<Object[]> findAprobadasByUsuarioIds(@Param("usuarioIds") Collection<Long> usuarioIds, @Param("evaluacionIds") Collection<Long> evaluacionIds);
+    
+    // Cola de revisión de la empresa, de la más antigua a la más reciente, paginada por clave sobre
+    // (fecha_realizacion, id). El índice parcial sobre los pendientes se crea en data.sql
+    
+    String REVISION = "SELECT new com.capacitapro.backend.dto.RevisionPendiente(eu.id, u.nombre, e.id, e.titulo, c.titulo, " +
+                      "eu.fechaRealizacion, eu.puntajeObtenido, eu.puntajeMaximo) " +
+                      "FROM EvaluacionUsuario eu JOIN eu.usuario u JOIN eu.evaluacion e JOIN e.curso c " +
+                      "WHERE eu.pendienteRevision = true AND c.empresa.id = :empresaId ";
+    String ORDEN_REVISION = "ORDER BY eu.fechaRealizacion, eu.id";
+    
+    @Query(REVISION + ORDEN_REVISION)
+    List<RevisionPendiente> findRevisionPendiente(@Param("empresaId") Long empresaId, Pageable pageable);
+    
+    @Query(REVISION + "AND (eu.fechaRealizacion > :fecha OR (eu.fechaRealizacion = :fecha AND eu.id > :id)) " + ORDEN_REVISION)
+    List<RevisionPendiente> findRevisionPendienteDespuesDe(@Param("empresaId") Long empresaId, @Param("fecha") LocalDateTime fecha,
+                                                          @Param("id") Long id, Pageable pageable);
+    
+    default List<RevisionPendiente> listarRevisionPendiente(Long empresaId, CursorFecha cursor, int limite) {
+        return cursor == null
+                ? findRevisionPendiente(empresaId, PageRequest.of(0, limite))
+                : findRevisionPendienteDespuesDe(empresaId, cursor.fecha(), cursor.id(), PageRequest.of(0, limite));
+    }
 }
@@ -0,0 +1,43 @@
+package com.capacitapro.backend.repository;
+
+import com.capacitapro.backend.entity.EventoCursoCompletado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface EventoCursoCompletadoRepository extends JpaRepository<EventoCursoCompletado, Long> {
+
+    // Toma hasta :limite eventos listos y los reserva hasta :plazo; los EN_PROCESO vencidos son de un
+    // procesador que se cayó y se vuelven a tomar. SKIP LOCKED evita que dos instancias tomen el mismo.
+    String SQL_RECLAMAR =
+            "UPDATE evento_curso_completado SET estado = 'EN_PROCESO', proximo_intento = :plazo " +
+            "WHERE id IN (SELECT id FROM evento_curso_completado " +
+            "             WHERE estado IN ('PENDIENTE', 'EN_PROCESO') AND proximo_intento <= :ahora " +
+            "             ORDER BY proximo_intento, id LIMIT :limite FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, curso_id, usuario_id, intentos";
+
+    long countByEstado(String estado);
+
+    @Modifying
+    @Query("UPDATE EventoCursoCompletado e SET e.estado = 'PROCESADO', e.fechaProcesado = :ahora, " +
+           "e.intentos = e.intentos + 1, e.ultimoError = null WHERE e.id = :id")
+    int marcarProcesado(@Param("id") Long id, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Query("UPDATE EventoCursoCompletado e SET e.estado = :estado, e.proximoIntento = :proximoIntento, " +
+           "e.intentos = e.intentos + 1, e.ultimoError = :error WHERE e.id = :id")
+    int registrarFallo(@Param("id") Long id, @Param("estado") String estado,
+                       @Param("proximoIntento") LocalDateTime proximoIntento, @Param("error") String error);
+
+    @Modifying
+    @Query("UPDATE EventoCursoCompletado e SET e.estado = 'PENDIENTE', e.intentos = 0, e.proximoIntento = :ahora " +
+           "WHERE e.estado = 'FALLIDO'")
+    int reintentarFallidos(@Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Query("DELETE FROM EventoCursoCompletado e WHERE e.estado = 'PROCESADO' AND e.fechaProcesado < :limite")
+    int eliminarProcesadosAntesDe(@Param("limite") LocalDateTime limite);
+}
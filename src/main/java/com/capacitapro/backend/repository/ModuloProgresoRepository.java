@@ -4,6 +4,7 @@ import com.capacitapro.backend.entity.ModuloProgreso;
 import com.capacitapro.backend.entity.Usuario;
 import com.capacitapro.backend.entity.Modulo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -27,4 +28,18 @@ public interface ModuloProgresoRepository extends JpaRepository<ModuloProgreso,
     List<ModuloProgreso> findByEmpresaId(@Param("empresaId") Long empresaId);
     
     void deleteByModulo(Modulo modulo);
+    
+    // Serializa las actualizaciones del prefijo completado de un mismo (usuario, módulo) y devuelve el valor
+    // confirmado: la entidad en memoria puede ser anterior a la escritura de quien tenía el bloqueo
+    @Query(value = "SELECT prefijo_completado FROM modulo_progreso WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Integer findPrefijoCompletadoParaActualizar(@Param("id") Long id);
+    
+    @Modifying
+    @Query(value = "UPDATE modulo_progreso SET prefijo_completado = :prefijo WHERE id = :id", nativeQuery = true)
+    int guardarPrefijo(@Param("id") Long id, @Param("prefijo") int prefijo);
+    
+    @Modifying
+    @Query("UPDATE ModuloProgreso mp SET mp.prefijoCompletado = NULL WHERE mp.modulo.id IN " +
+           "(SELECT m.id FROM Modulo m WHERE m.curso.id = :cursoId)")
+    int reiniciarPrefijosByCursoId(@Param("cursoId") Long cursoId);
 }
@@ -3,10 +3,27 @@ package com.capacitapro.backend.repository;
 import com.capacitapro.backend.entity.Pregunta;
 import com.capacitapro.backend.entity.Evaluacion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface PreguntaRepository extends JpaRepository<Pregunta, Long> {
     List<Pregunta> findByEvaluacionId(Long evaluacionId);
     List<Pregunta> findByEvaluacion(Evaluacion evaluacion);
+    
+    // Preguntas con sus respuestas en una sola consulta para compilar la clave de corrección
+    @Query("SELECT p.id, p.puntaje, p.tipo, r.id, r.esCorrecta " +
+           "FROM Pregunta p LEFT JOIN p.respuestas r WHERE p.evaluacion.id = :evaluacionId")
+    List<Object[]> findFilasClaveByEvaluacionId(@Param("evaluacionId") Long evaluacionId);
+    
+    // Pares [evaluacionId, enunciado] de las preguntas de texto de varias evaluaciones a la vez
+    @Query("SELECT p.evaluacion.id, p.enunciado FROM Pregunta p WHERE p.evaluacion.id IN :evaluacionIds AND p.tipo = 'texto' ORDER BY p.id")
+    List<Object[]> findEnunciadosTextoByEvaluacionIds(@Param("evaluacionIds") Collection<Long> evaluacionIds);
+    
+    // Preguntas y textos de respuesta del cuestionario del participante; no incluye esCorrecta
+    @Query("SELECT p.id, p.enunciado, p.puntaje, p.tipo, r.id, r.texto " +
+           "FROM Pregunta p LEFT JOIN p.respuestas r WHERE p.evaluacion.id = :evaluacionId ORDER BY p.id, r.id")
+    List<Object[]> findFilasCuestionarioByEvaluacionId(@Param("evaluacionId") Long evaluacionId);
 }
@@ -0,0 +1,36 @@
+package com.capacitapro.backend.repository;
+
+import com.capacitapro.backend.entity.ProgresoContador;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ProgresoContadorRepository extends JpaRepository<ProgresoContador, ProgresoContador.Clave> {
+    
+    @Modifying
+    @Query(value = "UPDATE progreso_contador SET " +
+            "elementos_completados = LEAST(elementos_completados + 1, total_elementos), " +
+            "modulos_completados = LEAST(modulos_completados + :modulos, total_modulos), " +
+            "fecha_actualizacion = now() " +
+            "WHERE usuario_id = :usuarioId AND curso_id = :cursoId", nativeQuery = true)
+    int incrementarElementoCompletado(@Param("usuarioId") Long usuarioId,
+                                      @Param("cursoId") Long cursoId,
+                                      @Param("modulos") int modulosCompletados);
+    
+    @Modifying
+    @Query(value = "INSERT INTO progreso_contador (usuario_id, curso_id, total_elementos, elementos_completados, " +
+            "total_modulos, modulos_completados, total_evaluaciones, evaluaciones_aprobadas, fecha_actualizacion) " +
+            "VALUES (:#{#c.usuarioId}, :#{#c.cursoId}, :#{#c.totalElementos}, :#{#c.elementosCompletados}, " +
+            ":#{#c.totalModulos}, :#{#c.modulosCompletados}, :#{#c.totalEvaluaciones}, :#{#c.evaluacionesAprobadas}, now()) " +
+            "ON CONFLICT (usuario_id, curso_id) DO UPDATE SET " +
+            "total_elementos = EXCLUDED.total_elementos, elementos_completados = EXCLUDED.elementos_completados, " +
+            "total_modulos = EXCLUDED.total_modulos, modulos_completados = EXCLUDED.modulos_completados, " +
+            "total_evaluaciones = EXCLUDED.total_evaluaciones, evaluaciones_aprobadas = EXCLUDED.evaluaciones_aprobadas, " +
+            "fecha_actualizacion = EXCLUDED.fecha_actualizacion", nativeQuery = true)
+    void guardar(@Param("c") ProgresoContador contador);
+    
+    @Modifying
+    @Query("DELETE FROM ProgresoContador c WHERE c.cursoId = :cursoId")
+    int deleteByCursoId(@Param("cursoId") Long cursoId);
+}
@@ -2,14 +2,58 @@ package com.capacitapro.backend.repository;
 
 import com.capacitapro.backend.entity.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface SubmoduloProgresoRepository extends JpaRepository<SubmoduloProgreso, Long> {
     
+    // Upsert sobre la restricción única (usuario_id, submodulo_id): el tiempo visto nunca retrocede
+    // y un submódulo completado no vuelve a quedar pendiente. También se usa en lote desde VideoProgresoServiceImpl.
+    String SQL_REGISTRAR_AVANCE =
+            "INSERT INTO submodulo_progreso (usuario_id, submodulo_id, tiempo_visto, duracion_total, porcentaje_progreso, " +
+            "completado, fecha_inicio, fecha_completado, ultima_actualizacion) " +
+            "VALUES (:usuarioId, :submoduloId, :tiempoVisto, :duracionTotal, :porcentaje, :completado, now(), " +
+            "CASE WHEN :completado THEN now() END, now()) " +
+            "ON CONFLICT (usuario_id, submodulo_id) DO UPDATE SET " +
+            "tiempo_visto = GREATEST(COALESCE(submodulo_progreso.tiempo_visto, 0), EXCLUDED.tiempo_visto), " +
+            "duracion_total = GREATEST(COALESCE(submodulo_progreso.duracion_total, 0), EXCLUDED.duracion_total), " +
+            "porcentaje_progreso = GREATEST(COALESCE(submodulo_progreso.porcentaje_progreso, 0), EXCLUDED.porcentaje_progreso), " +
+            "completado = COALESCE(submodulo_progreso.completado, false) OR EXCLUDED.completado, " +
+            "fecha_completado = COALESCE(submodulo_progreso.fecha_completado, EXCLUDED.fecha_completado), " +
+            "ultima_actualizacion = now()";
+    
+    @Modifying
+    @Query(value = SQL_REGISTRAR_AVANCE, nativeQuery = true)
+    int registrarAvance(@Param("usuarioId") Long usuarioId,
+                        @Param("submoduloId") Long submoduloId,
+                        @Param("tiempoVisto") int tiempoVisto,
+                        @Param("duracionTotal") int duracionTotal,
+                        @Param("porcentaje") int porcentaje,
+                        @Param("completado") boolean completado);
+    
+    // Afecta una fila solo si esta llamada dejó el submódulo completado (fila nueva o pendiente que pasa a completada)
+    String SQL_MARCAR_COMPLETADO =
+            "INSERT INTO submodulo_progreso (usuario_id, submodulo_id, tiempo_visto, duracion_total, porcentaje_progreso, " +
+            "completado, fecha_inicio, fecha_completado, ultima_actualizacion) " +
+            "VALUES (:usuarioId, :submoduloId, 0, 0, :porcentaje, true, now(), now(), now()) " +
+            "ON CONFLICT (usuario_id, submodulo_id) DO UPDATE SET " +
+            "completado = true, " +
+            "porcentaje_progreso = GREATEST(COALESCE(submodulo_progreso.porcentaje_progreso, 0), EXCLUDED.porcentaje_progreso), " +
+            "fecha_completado = COALESCE(submodulo_progreso.fecha_completado, now()), " +
+            "ultima_actualizacion = now() " +
+            "WHERE submodulo_progreso.completado IS NOT TRUE";
+    
+    @Modifying
+    @Query(value = SQL_MARCAR_COMPLETADO, nativeQuery = true)
+    int marcarCompletado(@Param("usuarioId") Long usuarioId,
+                         @Param("submoduloId") Long submoduloId,
+                         @Param("porcentaje") int porcentaje);
+    
     Optional<SubmoduloProgreso> findByUsuarioAndSubmodulo(Usuario usuario, Submodulo submodulo);
     
     List<SubmoduloProgreso> findAllByUsuarioAndSubmodulo(Usuario usuario, Submodulo submodulo);
@@ -26,6 +70,23 @@ public interface SubmoduloProgresoRepository extends JpaRepository<SubmoduloProg
     @Query("SELECT COUNT(sp) FROM SubmoduloProgreso sp WHERE sp.usuario = :usuario AND sp.submodulo.modulo = :modulo AND sp.completado = true")
     Long countCompletadosByUsuarioAndModulo(@Param("usuario") Usuario usuario, @Param("modulo") Modulo modulo);
     
+    // Devuelve pares [submoduloId, moduloId] de los submódulos completados por el usuario
+    @Query("SELECT sp.submodulo.id, sp.submodulo.modulo.id FROM SubmoduloProgreso sp WHERE sp.usuario = :usuario AND sp.submodulo.modulo.id IN :moduloIds AND sp.completado = true")
+    List<Object[]> findCompletadosByUsuarioAndModuloIds(@Param("usuario") Usuario usuario, @Param("moduloIds") Collection<Long> moduloIds);
+    
+    // Devuelve filas [usuarioId, moduloId, completados] para varios usuarios y módulos a la vez
+    @Query("SELECT sp.usuario.id, sp.submodulo.modulo.id, COUNT(DISTINCT sp.submodulo.id) FROM SubmoduloProgreso sp " +
+           "WHERE sp.usuario.id IN :usuarioIds AND sp.submodulo.modulo.id IN :moduloIds AND sp.completado = true " +
+           "GROUP BY sp.usuario.id, sp.submodulo.modulo.id")
+    List<Object[]> contarCompletadosPorUsuarioYModulo(@Param("usuarioIds") Collection<Long> usuarioIds, @Param("moduloIds") Collection<Long> moduloIds);
+    
+    @Query("SELECT sp.submodulo.id FROM SubmoduloProgreso sp WHERE sp.usuario.id = :usuarioId AND sp.submodulo.modulo.id = :moduloId AND sp.completado = true")
+    List<Long> findSubmoduloIdsCompletados(@Param("usuarioId") Long usuarioId, @Param("moduloId") Long moduloId);
+    
+    // Completados entre unos submódulos dados: para avanzar el prefijo sin leer el módulo entero
+    @Query("SELECT sp.submodulo.id FROM SubmoduloProgreso sp WHERE sp.usuario.id = :usuarioId AND sp.submodulo.id IN :submoduloIds AND sp.completado = true")
+    List<Long> findSubmoduloIdsCompletadosEntre(@Param("usuarioId") Long usuarioId, @Param("submoduloIds") Collection<Long> submoduloIds);
+    
     @Query("SELECT AVG(sp.porcentajeProgreso) FROM SubmoduloProgreso sp WHERE sp.usuario = :usuario AND sp.submodulo.modulo = :modulo")
     Double getProgresoPromedioByUsuarioAndModulo(@Param("usuario") Usuario usuario, @Param("modulo") Modulo modulo);
 }
\ No newline at end of file
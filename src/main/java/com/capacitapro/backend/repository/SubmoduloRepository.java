@@ -3,11 +3,17 @@ package com.capacitapro.backend.repository;
 import com.capacitapro.backend.entity.Submodulo;
 import com.capacitapro.backend.entity.Modulo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface SubmoduloRepository extends JpaRepository<Submodulo, Long> {
     List<Submodulo> findByModuloOrderByOrdenAsc(Modulo modulo);
     List<Submodulo> findByModuloIdOrderByOrdenAsc(Long moduloId);
     void deleteByModuloId(Long moduloId);
+    
+    @Query("SELECT s FROM Submodulo s WHERE s.modulo.id IN :moduloIds ORDER BY s.modulo.id, s.orden ASC")
+    List<Submodulo> findByModuloIdsOrderByOrden(@Param("moduloIds") Collection<Long> moduloIds);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.capacitapro.backend.service;
+
+import com.capacitapro.backend.entity.ModuloProgreso;
+import com.capacitapro.backend.entity.Submodulo;
+import com.capacitapro.backend.entity.Usuario;
+
+public interface AccesoSecuencialService {
+    
+    // Un submódulo es accesible si todos los anteriores de su módulo están completados
+    boolean puedeAcceder(Usuario usuario, Submodulo submodulo);
+    
+    // Avanza el prefijo completado tras completar un submódulo, dentro de la transacción que escribió el progreso
+    int registrarCompletado(Usuario usuario, ModuloProgreso progreso, Long submoduloId);
+    
+    // Recalcula el prefijo sobre todo el módulo; para registros sin prefijo o invalidados por un cambio de estructura
+    int actualizarPrefijo(Usuario usuario, ModuloProgreso progreso);
+}
@@ -0,0 +1,28 @@
+package com.capacitapro.backend.service;
+
+import com.capacitapro.backend.dto.PdfAlmacenado;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * Almacén de PDFs direccionado por contenido: cada archivo se identifica por su SHA-256,
+ * así que guardar dos veces el mismo contenido no lo duplica.
+ */
+public interface AlmacenPdfService {
+    
+    // Lee el flujo hasta el final sin cargarlo completo en memoria
+    PdfAlmacenado guardar(InputStream contenido);
+    
+    default PdfAlmacenado guardar(byte[] contenido) {
+        return guardar(new ByteArrayInputStream(contenido));
+    }
+    
+    Resource obtener(String digest);
+    
+    boolean existe(String digest);
+    
+    // Para PDFs que ya no referencia ninguna fila (reemplazados por una versión nueva de la plantilla)
+    void eliminar(String digest);
+}
@@ -0,0 +1,27 @@
+package com.capacitapro.backend.service;
+
+import com.capacitapro.backend.dto.ArchivoCertificado;
+import com.capacitapro.backend.dto.PdfAlmacenado;
+import com.capacitapro.backend.entity.Certificado;
+
+import java.util.Map;
+
+public interface CertificadoRenderService {
+    
+    // PDF del certificado con la plantilla vigente: el guardado si está al día; si falta o es de una versión
+    // anterior se renderiza al almacén y la fila pasa a referenciarlo
+    ArchivoCertificado obtenerPdf(Certificado certificado);
+    
+    // Genera el PDF en el almacén de PDFs sin tocar la fila; quien llama guarda el digest y getVersionPlantilla()
+    PdfAlmacenado almacenar(Certificado certificado);
+    
+    int getVersionPlantilla();
+    
+    // Si un PDF guardado con esa versión de plantilla se puede servir sin volver a generarlo
+    boolean vigente(Integer versionPlantilla);
+    
+    // Genera el PDF en segundo plano para que la primera descarga no tenga que esperar
+    void prerenderizar(Long certificadoId);
+    
+    Map<String, Object> estadisticas();
+}
@@ -1,16 +1,20 @@
 package com.capacitapro.backend.service;
 
+import com.capacitapro.backend.dto.ArchivoCertificado;
 import com.capacitapro.backend.dto.CertificadoDTO;
+import com.capacitapro.backend.dto.CursorFecha;
 import com.capacitapro.backend.entity.Usuario;
-import org.springframework.core.io.ByteArrayResource;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface CertificadoService {
-    List<CertificadoDTO> listarCertificadosUsuario(Usuario usuario);
-    List<CertificadoDTO> listarCertificadosEmpresa(Usuario admin);
+    // Paginados por clave: cursor null para la primera página
+    List<CertificadoDTO> listarCertificadosUsuario(Usuario usuario, CursorFecha cursor, int limite);
+    List<CertificadoDTO> listarCertificadosEmpresa(Usuario admin, CursorFecha cursor, int limite);
     CertificadoDTO generarCertificado(Long cursoId, Usuario usuario);
-    ByteArrayResource descargarCertificado(Long certificadoId, Usuario usuario);
-    CertificadoDTO verificarCertificado(String codigoVerificacion);
+    ArchivoCertificado descargarCertificado(Long certificadoId, Usuario usuario);
+    // Identificador del PDF que se descargaría, validando permisos; vacío si no se conoce sin migrar el archivo
+    Optional<String> identificadorDescarga(Long certificadoId, Usuario usuario);
     void revocarCertificado(Long certificadoId, Usuario admin);
 }
\ No newline at end of file
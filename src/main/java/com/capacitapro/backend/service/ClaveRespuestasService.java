@@ -0,0 +1,17 @@
+package com.capacitapro.backend.service;
+
+import com.capacitapro.backend.dto.ClaveRespuestas;
+
+import java.util.Map;
+
+public interface ClaveRespuestasService {
+    
+    // Clave de corrección de la evaluación desde la caché; si no está, se compila una sola vez
+    ClaveRespuestas obtener(Long evaluacionId);
+    
+    // Debe llamarse cada vez que se agregan, editan o eliminan preguntas o respuestas de la evaluación
+    void invalidar(Long evaluacionId);
+    
+    // Aciertos, fallos y tamaño de la caché
+    Map<String, Object> estadisticas();
+}
@@ -0,0 +1,18 @@
+package com.capacitapro.backend.service;
+
+import com.capacitapro.backend.dto.CuestionarioSerializado;
+
+import java.util.Map;
+
+public interface CuestionarioEvaluacionService {
+    
+    // JSON de la evaluación para el participante desde la caché; si no está, se arma y serializa una sola vez
+    CuestionarioSerializado obtener(Long evaluacionId);
+    
+    // Debe llamarse cada vez que se editan la evaluación, sus preguntas o sus respuestas, dentro de la misma
+    // transacción: la versión persistida se confirma junto con el cambio
+    void invalidar(Long evaluacionId);
+    
+    // Aciertos, fallos y tamaño de la caché
+    Map<String, Object> estadisticas();
+}
@@ -0,0 +1,17 @@
+package com.capacitapro.backend.service;
+
+import com.capacitapro.backend.entity.Usuario;
+
+import java.util.List;
+import java.util.Map;
+
+public interface EmisionMasivaService {
+    
+    // Lanza en segundo plano la emisión de certificados para todos los inscritos que completaron el curso
+    Map<String, Object> iniciar(Long cursoId, Usuario admin);
+    
+    Map<String, Object> estado(Long cursoId, Usuario admin);
+    
+    // Trabajos de los cursos de la empresa del administrador
+    List<Map<String, Object>> trabajos(Usuario admin);
+}
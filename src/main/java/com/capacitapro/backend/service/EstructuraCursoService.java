@@ -0,0 +1,17 @@
+package com.capacitapro.backend.service;
+
+import com.capacitapro.backend.dto.EstructuraCurso;
+
+import java.util.Map;
+
+public interface EstructuraCursoService {
+    
+    // Estructura del curso desde la caché; si no está, se construye una sola vez
+    EstructuraCurso obtener(Long cursoId);
+    
+    // Debe llamarse cada vez que se editan módulos, submódulos o evaluaciones del curso
+    void invalidar(Long cursoId);
+    
+    // Aciertos, fallos y tamaño de la caché
+    Map<String, Object> estadisticas();
+}
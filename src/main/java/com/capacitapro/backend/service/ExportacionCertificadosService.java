@@ -0,0 +1,13 @@
+package com.capacitapro.backend.service;
+
+import com.capacitapro.backend.entity.Usuario;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+public interface ExportacionCertificadosService {
+    
+    // Escribe un ZIP con los PDFs de los certificados activos de la empresa y un manifiesto CSV.
+    // Curso y fechas son filtros opcionales; las fechas incluyen ambos extremos.
+    void exportarZip(Usuario admin, Long cursoId, LocalDate desde, LocalDate hasta, OutputStream salida);
+}
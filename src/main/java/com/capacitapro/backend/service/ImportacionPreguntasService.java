@@ -0,0 +1,18 @@
+package com.capacitapro.backend.service;
+
+import com.capacitapro.backend.dto.PreguntaDTO;
+import com.capacitapro.backend.dto.ResultadoImportacion;
+import com.capacitapro.backend.entity.Usuario;
+
+import java.io.Reader;
+import java.util.List;
+
+public interface ImportacionPreguntasService {
+    
+    // Valida todo el banco y, solo si no hay errores, agrega las preguntas a la evaluación en una transacción
+    ResultadoImportacion importar(Long evaluacionId, List<PreguntaDTO> preguntas, Usuario usuario);
+    
+    // CSV con encabezado: enunciado, tipo, puntaje, respuesta_esperada, correctas (posiciones separadas por |)
+    // y una columna por opción (opcion_1, opcion_2, ...)
+    ResultadoImportacion importarCsv(Long evaluacionId, Reader csv, Usuario usuario);
+}
@@ -0,0 +1,12 @@
+package com.capacitapro.backend.service;
+
+import com.capacitapro.backend.entity.EvaluacionUsuario;
+
+public interface IntentoEvaluacionService {
+    
+    // Agrega un intento nuevo con el número siguiente y actualiza el mejor intento; nunca borra los anteriores
+    EvaluacionUsuario registrar(EvaluacionUsuario intento);
+    
+    // Guarda un intento ya existente cuya calificación cambió (revisión manual) y vuelve a elegir el mejor
+    EvaluacionUsuario actualizar(EvaluacionUsuario intento);
+}
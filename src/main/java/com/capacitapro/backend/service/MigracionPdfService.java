@@ -0,0 +1,20 @@
+package com.capacitapro.backend.service;
+
+import com.capacitapro.backend.dto.PdfAlmacenado;
+
+import java.util.Map;
+import java.util.Optional;
+
+public interface MigracionPdfService {
+    
+    // Mueve al almacén un lote de PDFs que todavía están en la columna archivo_pdf; devuelve cuántos movió
+    int migrarLote();
+    
+    // Migra en el momento el PDF de un certificado puntual (por ejemplo, al descargarlo)
+    Optional<PdfAlmacenado> migrarCertificado(Long certificadoId);
+    
+    // true cuando ya no quedan PDFs en la columna archivo_pdf (o la columna no existe)
+    boolean isTerminada();
+    
+    Map<String, Object> estado();
+}
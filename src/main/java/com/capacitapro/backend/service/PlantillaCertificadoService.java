@@ -0,0 +1,17 @@
+package com.capacitapro.backend.service;
+
+import com.capacitapro.backend.entity.Certificado;
+
+import java.io.OutputStream;
+import java.util.Map;
+
+public interface PlantillaCertificadoService {
+    
+    // Escribe el PDF del certificado usando la plantilla compilada de la empresa del curso
+    void renderizar(Certificado certificado, OutputStream salida);
+    
+    // Cambia cuando cambia el diseño; los PDFs guardados con una versión anterior se vuelven a generar al pedirlos
+    int getVersion();
+    
+    Map<String, Object> estadisticas();
+}
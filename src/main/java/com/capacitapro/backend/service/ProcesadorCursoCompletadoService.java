@@ -0,0 +1,14 @@
+package com.capacitapro.backend.service;
+
+import java.util.Map;
+
+public interface ProcesadorCursoCompletadoService {
+    
+    // Busca eventos listos sin esperar al próximo ciclo programado
+    void despertar();
+    
+    // Vuelve a poner en cola los eventos que agotaron sus reintentos; devuelve cuántos
+    int reintentarFallidos();
+    
+    Map<String, Object> estadisticas();
+}
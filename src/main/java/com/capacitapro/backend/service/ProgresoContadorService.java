@@ -0,0 +1,19 @@
+package com.capacitapro.backend.service;
+
+import com.capacitapro.backend.entity.ProgresoContador;
+import com.capacitapro.backend.entity.Usuario;
+
+public interface ProgresoContadorService {
+    
+    // Lectura por clave primaria; si la fila aún no existe se construye
+    ProgresoContador obtener(Long cursoId, Usuario usuario);
+    
+    // Suma un elemento completado (y opcionalmente un módulo) dentro de la transacción actual
+    void registrarSubmoduloCompletado(Long cursoId, Usuario usuario, boolean moduloCompletado);
+    
+    // Recalcula desde cero los contadores de una inscripción
+    ProgresoContador reconstruir(Long cursoId, Usuario usuario);
+    
+    // Recalcula los contadores de todas las inscripciones de un curso
+    int reconstruirCurso(Long cursoId);
+}
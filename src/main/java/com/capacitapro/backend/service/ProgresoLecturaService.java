@@ -0,0 +1,15 @@
+package com.capacitapro.backend.service;
+
+import com.capacitapro.backend.dto.ResumenProgreso;
+import com.capacitapro.backend.entity.Usuario;
+
+import java.util.Map;
+
+public interface ProgresoLecturaService {
+    
+    // Árbol de progreso del curso (módulos, submódulos y evaluaciones) con el progreso general
+    Map<String, Object> obtenerProgresoCurso(Long cursoId, Usuario usuario);
+    
+    // Solo los totales del progreso, usados para reconstruir los contadores por inscripción
+    ResumenProgreso obtenerResumen(Long cursoId, Usuario usuario);
+}
@@ -2,19 +2,21 @@ package com.capacitapro.backend.service;
 
 import com.capacitapro.backend.dto.ProgresoDTO;
 import com.capacitapro.backend.entity.Usuario;
-
-import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 public interface ProgresoService {
     
     ProgresoDTO obtenerProgresoCurso(Long cursoId, Usuario usuario);
     
-    List<ProgresoDTO> listarProgresoEmpresa(Usuario admin);
+    Page<ProgresoDTO> listarProgresoEmpresa(Usuario admin, Pageable pageable);
     
     void marcarModuloCompletado(Long moduloId, Usuario usuario);
     
     void actualizarProgresoCurso(Long cursoId, Usuario usuario);
     
+    void registrarResultadoEvaluacion(Long cursoId, Usuario usuario);
+    
     void debugProgresoCurso(Long cursoId, Usuario usuario);
     
     boolean puedeGenerarCertificado(Long cursoId, Usuario usuario);
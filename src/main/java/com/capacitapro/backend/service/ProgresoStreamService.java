@@ -0,0 +1,13 @@
+package com.capacitapro.backend.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+public interface ProgresoStreamService {
+    
+    // Abre un stream SSE con los cambios de progreso del usuario en el curso
+    SseEmitter suscribir(Long usuarioId, Long cursoId, Integer porcentajeInicial);
+    
+    Map<String, Object> estadisticas();
+}
@@ -0,0 +1,12 @@
+package com.capacitapro.backend.service;
+
+import java.util.Map;
+
+public interface RecalculoProgresoService {
+    
+    // Encola el recálculo del progreso del curso; dentro de una transacción se encola al hacer commit
+    void encolar(Long cursoId, Long usuarioId);
+    
+    // Profundidad de la cola, trabajos colapsados y latencias
+    Map<String, Object> estadisticas();
+}
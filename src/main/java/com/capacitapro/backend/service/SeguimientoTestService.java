@@ -0,0 +1,13 @@
+package com.capacitapro.backend.service;
+
+import com.capacitapro.backend.dto.CursorFecha;
+import com.capacitapro.backend.dto.FiltroSeguimiento;
+import com.capacitapro.backend.dto.SeguimientoTest;
+
+import java.util.List;
+
+public interface SeguimientoTestService {
+    
+    // Intentos de la empresa del más reciente al más antiguo, paginados por clave (cursor null para la primera página)
+    List<SeguimientoTest> listar(Long empresaId, FiltroSeguimiento filtro, CursorFecha cursor, int limite);
+}
@@ -0,0 +1,20 @@
+package com.capacitapro.backend.service;
+
+import com.capacitapro.backend.dto.VerificacionCertificado;
+
+import java.util.Map;
+import java.util.Optional;
+
+public interface VerificacionCertificadoService {
+    
+    // Datos públicos del certificado activo con ese código
+    Optional<VerificacionCertificado> verificar(String codigoVerificacion);
+    
+    // Registra un código recién emitido; llamar después del commit
+    void registrarEmitido(String codigoVerificacion);
+    
+    // Quita el código de la caché al confirmarse la transacción actual (o de inmediato si no hay)
+    void invalidar(String codigoVerificacion);
+    
+    Map<String, Object> estadisticas();
+}
@@ -0,0 +1,15 @@
+package com.capacitapro.backend.service;
+
+public interface VersionContenidoService {
+    
+    // Datos del curso, estructura o inscripciones; la versión cambia cuando se confirma la transacción actual
+    void cursoModificado(Long cursoId);
+    
+    void progresoModificado(Long usuarioId, Long cursoId);
+    
+    // ETag fuerte del detalle y las listas de un curso, distinto por empresa del usuario que consulta
+    String etagCurso(Long cursoId, Long empresaId);
+    
+    // ETag fuerte del progreso de un usuario; incluye la versión del curso porque la respuesta trae su estructura
+    String etagProgreso(Long usuarioId, Long cursoId);
+}
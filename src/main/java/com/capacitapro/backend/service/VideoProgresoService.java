@@ -0,0 +1,16 @@
+package com.capacitapro.backend.service;
+
+import com.capacitapro.backend.dto.EstadoVideoProgreso;
+
+import java.util.Map;
+
+public interface VideoProgresoService {
+    
+    // Registra un latido del reproductor; solo se escribe de inmediato si cruza el umbral de completado
+    EstadoVideoProgreso registrarLatido(Long usuarioId, Long submoduloId, int tiempoVisto, int duracionTotal);
+    
+    // Escribe en lote todo el progreso pendiente del buffer
+    int vaciar();
+    
+    Map<String, Object> estadisticas();
+}
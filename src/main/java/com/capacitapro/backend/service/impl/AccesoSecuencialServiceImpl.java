@@ -0,0 +1,127 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.EstructuraCurso;
+import com.capacitapro.backend.dto.EstructuraCurso.ModuloEstructura;
+import com.capacitapro.backend.dto.EstructuraCurso.SubmoduloEstructura;
+import com.capacitapro.backend.entity.Modulo;
+import com.capacitapro.backend.entity.ModuloProgreso;
+import com.capacitapro.backend.entity.Submodulo;
+import com.capacitapro.backend.entity.Usuario;
+import com.capacitapro.backend.repository.ModuloProgresoRepository;
+import com.capacitapro.backend.repository.SubmoduloProgresoRepository;
+import com.capacitapro.backend.service.AccesoSecuencialService;
+import com.capacitapro.backend.service.EstructuraCursoService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Control de acceso secuencial a submódulos. En lugar de consultar el progreso de cada
+ * submódulo anterior, se guarda en ModuloProgreso cuántos submódulos iniciales están
+ * completados sin huecos; un submódulo es accesible si su posición no supera ese prefijo.
+ * Al completar un submódulo el prefijo solo avanza si ese submódulo cerraba el primer hueco,
+ * y entonces se leen únicamente los siguientes; el módulo entero se relee solo sin prefijo guardado.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class AccesoSecuencialServiceImpl implements AccesoSecuencialService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccesoSecuencialServiceImpl.class);
+
+    private final EstructuraCursoService estructuraCursoService;
+    private final ModuloProgresoRepository moduloProgresoRepository;
+    private final SubmoduloProgresoRepository submoduloProgresoRepository;
+
+    @Override
+    public boolean puedeAcceder(Usuario usuario, Submodulo submodulo) {
+        Modulo modulo = submodulo.getModulo();
+        EstructuraCurso estructura = estructuraCursoService.obtener(modulo.getCurso().getId());
+        
+        int posicion = estructura.posicionSubmodulo(submodulo.getId());
+        if (posicion < 0) {
+            return false;
+        }
+        // El primer submódulo siempre está disponible
+        if (posicion == 0) {
+            return true;
+        }
+        
+        Optional<ModuloProgreso> progreso = moduloProgresoRepository.findByUsuarioAndModulo(usuario, modulo);
+        int prefijo;
+        if (progreso.isEmpty()) {
+            prefijo = calcularPrefijo(usuario, estructura.modulo(modulo.getId()).orElseThrow());
+        } else if (progreso.get().getPrefijoCompletado() == null) {
+            // Registro anterior a este campo o invalidado por un cambio en el curso
+            prefijo = actualizarPrefijo(usuario, progreso.get());
+        } else {
+            prefijo = progreso.get().getPrefijoCompletado();
+        }
+        
+        log.debug("Acceso secuencial: usuario {}, submódulo {} en posición {}, prefijo completado {}",
+                usuario.getId(), submodulo.getId(), posicion, prefijo);
+        return posicion <= prefijo;
+    }
+
+    @Override
+    public int registrarCompletado(Usuario usuario, ModuloProgreso progreso, Long submoduloId) {
+        // Bloquea la fila de progreso del módulo antes de leer los completados, para que dos escrituras
+        // concurrentes en el mismo módulo no dejen un prefijo calculado sobre datos viejos
+        Integer prefijo = moduloProgresoRepository.findPrefijoCompletadoParaActualizar(progreso.getId());
+        ModuloEstructura estructura = estructura(progreso);
+        if (prefijo == null || prefijo > estructura.submodulos().size()) {
+            return guardarPrefijo(progreso, calcularPrefijo(usuario, estructura));
+        }
+        
+        // Dentro del prefijo o después de un hueco: el prefijo no cambia
+        if (estructura.posicionSubmodulo(submoduloId) != prefijo) {
+            progreso.setPrefijoCompletado(prefijo);
+            return prefijo;
+        }
+        
+        // Cerró el primer hueco: se avanza sobre los siguientes que ya estuvieran completados
+        List<SubmoduloEstructura> siguientes = estructura.submodulos().subList(prefijo + 1, estructura.submodulos().size());
+        Set<Long> completados = siguientes.isEmpty() ? Set.of() : new HashSet<>(
+                submoduloProgresoRepository.findSubmoduloIdsCompletadosEntre(usuario.getId(),
+                        siguientes.stream().map(SubmoduloEstructura::id).toList()));
+        int nuevo = prefijo + 1;
+        for (SubmoduloEstructura siguiente : siguientes) {
+            if (!completados.contains(siguiente.id())) {
+                break;
+            }
+            nuevo++;
+        }
+        return guardarPrefijo(progreso, nuevo);
+    }
+
+    @Override
+    public int actualizarPrefijo(Usuario usuario, ModuloProgreso progreso) {
+        moduloProgresoRepository.findPrefijoCompletadoParaActualizar(progreso.getId());
+        return guardarPrefijo(progreso, calcularPrefijo(usuario, estructura(progreso)));
+    }
+
+    private ModuloEstructura estructura(ModuloProgreso progreso) {
+        Modulo modulo = progreso.getModulo();
+        return estructuraCursoService.obtener(modulo.getCurso().getId())
+                .modulo(modulo.getId())
+                .orElseThrow(() -> new RuntimeException("Módulo no encontrado o inactivo"));
+    }
+
+    private int calcularPrefijo(Usuario usuario, ModuloEstructura estructura) {
+        return estructura.prefijoCompletado(new HashSet<>(
+                submoduloProgresoRepository.findSubmoduloIdsCompletados(usuario.getId(), estructura.id())));
+    }
+
+    private int guardarPrefijo(ModuloProgreso progreso, int prefijo) {
+        progreso.setPrefijoCompletado(prefijo);
+        moduloProgresoRepository.guardarPrefijo(progreso.getId(), prefijo);
+        return prefijo;
+    }
+}
@@ -0,0 +1,104 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.PdfAlmacenado;
+import com.capacitapro.backend.service.AlmacenPdfService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Almacén de PDFs en el disco local. Los archivos quedan en {directorio}/ab/abcdef....pdf;
+ * se escriben primero en un temporal del mismo directorio y se mueven al nombre final,
+ * así una lectura nunca ve un archivo a medio escribir.
+ */
+@Service
+public class AlmacenPdfLocalServiceImpl implements AlmacenPdfService {
+
+    private static final Pattern DIGEST_VALIDO = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path raiz;
+
+    public AlmacenPdfLocalServiceImpl(@Value("${certificados.almacen.directorio:uploads/certificados}") String directorio) {
+        this.raiz = Paths.get(directorio).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public PdfAlmacenado guardar(InputStream contenido) {
+        Path temporal = null;
+        try {
+            Files.createDirectories(raiz);
+            temporal = Files.createTempFile(raiz, "pdf-", ".tmp");
+
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            long tamano;
+            try (InputStream entrada = new DigestInputStream(contenido, sha256)) {
+                tamano = Files.copy(entrada, temporal, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            String digest = HexFormat.of().formatHex(sha256.digest());
+            Path destino = ruta(digest);
+            if (Files.exists(destino)) {
+                Files.delete(temporal);
+            } else {
+                Files.createDirectories(destino.getParent());
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new PdfAlmacenado(digest, tamano);
+
+        } catch (IOException | NoSuchAlgorithmException e) {
+            borrarTemporal(temporal);
+            throw new RuntimeException("No se pudo guardar el PDF en el almacén", e);
+        }
+    }
+
+    @Override
+    public Resource obtener(String digest) {
+        Path archivo = ruta(digest);
+        if (!Files.isReadable(archivo)) {
+            throw new RuntimeException("PDF no encontrado en el almacén");
+        }
+        return new FileSystemResource(archivo);
+    }
+
+    @Override
+    public boolean existe(String digest) {
+        return Files.exists(ruta(digest));
+    }
+
+    @Override
+    public void eliminar(String digest) {
+        try {
+            Files.deleteIfExists(ruta(digest));
+        } catch (IOException e) {
+            throw new RuntimeException("No se pudo eliminar el PDF del almacén", e);
+        }
+    }
+
+    private Path ruta(String digest) {
+        if (digest == null || !DIGEST_VALIDO.matcher(digest).matches()) {
+            throw new IllegalArgumentException("Digest de PDF inválido");
+        }
+        return raiz.resolve(digest.substring(0, 2)).resolve(digest + ".pdf");
+    }
+
+    private void borrarTemporal(Path temporal) {
+        if (temporal == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temporal);
+        } catch (IOException ignored) {
+            // Un temporal huérfano no afecta al almacén
+        }
+    }
+}
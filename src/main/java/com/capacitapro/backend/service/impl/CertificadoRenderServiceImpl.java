@@ -0,0 +1,175 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.ArchivoCertificado;
+import com.capacitapro.backend.dto.CertificadoDescarga;
+import com.capacitapro.backend.dto.PdfAlmacenado;
+import com.capacitapro.backend.entity.Certificado;
+import com.capacitapro.backend.repository.CertificadoRepository;
+import com.capacitapro.backend.service.AlmacenPdfService;
+import com.capacitapro.backend.service.CertificadoRenderService;
+import com.capacitapro.backend.service.PlantillaCertificadoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renderizado diferido de certificados. Emitir un certificado solo guarda la fila; el PDF se genera
+ * en la primera descarga (o antes, en segundo plano) y se guarda en el almacén de PDFs con su digest
+ * y la versión de plantilla en la fila. El render es determinista, así que el digest identifica al
+ * certificado en esa versión. Al subir certificados.plantilla.version cada PDF se vuelve a generar en
+ * su siguiente descarga y el anterior se borra del almacén: queda un archivo por certificado.
+ */
+@Service
+public class CertificadoRenderServiceImpl implements CertificadoRenderService {
+
+    private static final Logger log = LoggerFactory.getLogger(CertificadoRenderServiceImpl.class);
+
+    private final CertificadoRepository certificadoRepository;
+    private final PlantillaCertificadoService plantillaCertificadoService;
+    private final AlmacenPdfService almacenPdfService;
+
+    // Un solo render a la vez por certificado en esta instancia
+    private final Map<Long, Object> rendersEnCurso = new ConcurrentHashMap<>();
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong renders = new AtomicLong();
+    private final AtomicLong reemplazados = new AtomicLong();
+    private final AtomicLong descartados = new AtomicLong();
+
+    public CertificadoRenderServiceImpl(CertificadoRepository certificadoRepository,
+                                        PlantillaCertificadoService plantillaCertificadoService,
+                                        AlmacenPdfService almacenPdfService) {
+        this.certificadoRepository = certificadoRepository;
+        this.plantillaCertificadoService = plantillaCertificadoService;
+        this.almacenPdfService = almacenPdfService;
+    }
+
+    @Override
+    public ArchivoCertificado obtenerPdf(Certificado certificado) {
+        Long id = certificado.getId();
+        Object candado = rendersEnCurso.computeIfAbsent(id, k -> new Object());
+        try {
+            synchronized (candado) {
+                // Otro hilo u otra instancia pudo guardarlo mientras se esperaba el candado
+                CertificadoDescarga actual = estado(id);
+                if (actual.pdfDigest() != null && vigente(actual.pdfVersionPlantilla())) {
+                    aciertos.incrementAndGet();
+                    return desdeAlmacen(certificado, actual.pdfDigest());
+                }
+
+                PdfAlmacenado pdf = almacenar(certificado);
+                if (certificadoRepository.guardarPdf(id, pdf.digest(), pdf.tamano(), getVersionPlantilla()) == 0) {
+                    // Otra instancia guardó antes esta versión (los mismos bytes) o una más nueva: se sirve la de la fila
+                    String ganador = estado(id).pdfDigest();
+                    if (ganador != null && !ganador.equals(pdf.digest())) {
+                        descartados.incrementAndGet();
+                        eliminarSinReferencias(pdf.digest());
+                        return desdeAlmacen(certificado, ganador);
+                    }
+                } else if (actual.pdfDigest() != null && !actual.pdfDigest().equals(pdf.digest())) {
+                    reemplazados.incrementAndGet();
+                    eliminarSinReferencias(actual.pdfDigest());
+                }
+                log.debug("Certificado {} renderizado al almacén con la plantilla v{} ({} bytes)",
+                        id, getVersionPlantilla(), pdf.tamano());
+                return new ArchivoCertificado(nombreArchivo(certificado), pdf.digest(), pdf.tamano(),
+                        almacenPdfService.obtener(pdf.digest()));
+            }
+        } finally {
+            rendersEnCurso.remove(id, candado);
+        }
+    }
+
+    @Override
+    public PdfAlmacenado almacenar(Certificado certificado) {
+        try {
+            Path temporal = Files.createTempFile("certificado-" + certificado.getId() + "-", ".pdf");
+            try {
+                try (OutputStream salida = Files.newOutputStream(temporal)) {
+                    plantillaCertificadoService.renderizar(certificado, salida);
+                }
+                renders.incrementAndGet();
+                try (InputStream entrada = Files.newInputStream(temporal)) {
+                    return almacenPdfService.guardar(entrada);
+                }
+            } finally {
+                Files.deleteIfExists(temporal);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("No se pudo generar el PDF del certificado", e);
+        }
+    }
+
+    @Override
+    public int getVersionPlantilla() {
+        return plantillaCertificadoService.getVersion();
+    }
+
+    @Override
+    public boolean vigente(Integer versionPlantilla) {
+        return versionPlantilla == null || versionPlantilla >= getVersionPlantilla();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void prerenderizar(Long certificadoId) {
+        certificadoRepository.findById(certificadoId)
+                .filter(c -> Boolean.TRUE.equals(c.getActivo())
+                        && (c.getPdfDigest() == null || !vigente(c.getPdfVersionPlantilla())))
+                .ifPresent(this::obtenerPdf);
+    }
+
+    @Override
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("aciertos", aciertos.get());
+        stats.put("renders", renders.get());
+        stats.put("reemplazados", reemplazados.get());
+        stats.put("descartados", descartados.get());
+        stats.put("versionPlantilla", getVersionPlantilla());
+        stats.put("plantillas", plantillaCertificadoService.estadisticas());
+        return stats;
+    }
+
+    // Lectura directa: dentro de una transacción ve lo que otra ya confirmó, no la entidad cargada antes
+    private CertificadoDescarga estado(Long id) {
+        return certificadoRepository.findDescargaById(id)
+                .orElseThrow(() -> new RuntimeException("Certificado no encontrado"));
+    }
+
+    // Cada PDF lleva el código de su certificado, así que un digest que la fila dejó de referenciar no lo usa nadie
+    private void eliminarSinReferencias(String digest) {
+        try {
+            almacenPdfService.eliminar(digest);
+        } catch (RuntimeException e) {
+            log.warn("No se pudo borrar el PDF {} del almacén: {}", digest, e.getMessage());
+        }
+    }
+
+    private ArchivoCertificado desdeAlmacen(Certificado certificado, String digest) {
+        Resource recurso = almacenPdfService.obtener(digest);
+        long tamano;
+        try {
+            tamano = recurso.contentLength();
+        } catch (IOException e) {
+            tamano = 0L;
+        }
+        return new ArchivoCertificado(nombreArchivo(certificado), digest, tamano, recurso);
+    }
+
+    private String nombreArchivo(Certificado certificado) {
+        return "certificado_" + certificado.getCodigoVerificacion() + ".pdf";
+    }
+}
@@ -1,19 +1,27 @@
 package com.capacitapro.backend.service.impl;
 
+import com.capacitapro.backend.dto.ArchivoCertificado;
 import com.capacitapro.backend.dto.CertificadoDTO;
+import com.capacitapro.backend.dto.CertificadoDescarga;
+import com.capacitapro.backend.dto.CertificadoResumen;
+import com.capacitapro.backend.dto.CursorFecha;
+import com.capacitapro.backend.dto.PdfAlmacenado;
 import com.capacitapro.backend.entity.*;
+import com.capacitapro.backend.event.ProgresoActualizadoEvent;
 import com.capacitapro.backend.repository.*;
+import com.capacitapro.backend.service.AlmacenPdfService;
+import com.capacitapro.backend.service.CertificadoRenderService;
 import com.capacitapro.backend.service.CertificadoService;
+import com.capacitapro.backend.service.MigracionPdfService;
 import com.capacitapro.backend.service.ProgresoService;
-import com.lowagie.text.*;
-import com.lowagie.text.pdf.PdfWriter;
+import com.capacitapro.backend.service.VerificacionCertificadoService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.awt.Color;
-import java.io.ByteArrayOutputStream;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
@@ -28,23 +36,30 @@ public class CertificadoServiceImpl implements CertificadoService {
     private final UsuarioRepository usuarioRepository;
     private final CertificadoRepository certificadoRepository;
     private final ProgresoService progresoService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AlmacenPdfService almacenPdfService;
+    private final MigracionPdfService migracionPdfService;
+    private final CertificadoRenderService certificadoRenderService;
+    private final VerificacionCertificadoService verificacionCertificadoService;
 
     @Override
     @Transactional(readOnly = true)
-    public List<CertificadoDTO> listarCertificadosUsuario(Usuario usuario) {
-        List<Certificado> certificados = certificadoRepository.findByUsuarioAndActivoTrueOrderByFechaGeneracionDesc(usuario);
-        return certificados.stream().map(this::mapToDTO).collect(Collectors.toList());
+    public List<CertificadoDTO> listarCertificadosUsuario(Usuario usuario, CursorFecha cursor, int limite) {
+        return certificadoRepository.listarResumenUsuario(usuario.getId(), cursor, limite).stream()
+                .map(this::mapToDTO)
+                .collect(Collectors.toList());
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<CertificadoDTO> listarCertificadosEmpresa(Usuario admin) {
+    public List<CertificadoDTO> listarCertificadosEmpresa(Usuario admin, CursorFecha cursor, int limite) {
         if (!"ADMIN".equals(admin.getRol())) {
             throw new RuntimeException("Solo los administradores pueden ver todos los certificados");
         }
         
-        List<Certificado> certificados = certificadoRepository.findByUsuario_EmpresaAndActivoTrueOrderByFechaGeneracionDesc(admin.getEmpresa());
-        return certificados.stream().map(this::mapToDTO).collect(Collectors.toList());
+        return certificadoRepository.listarResumenEmpresa(admin.getEmpresa().getId(), cursor, limite).stream()
+                .map(this::mapToDTO)
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -67,22 +82,23 @@ public class CertificadoServiceImpl implements CertificadoService {
             throw new RuntimeException("Debe completar el curso y aprobar todas las evaluaciones para generar el certificado");
         }
         
-        byte[] pdfBytes = generarCertificadoPdf(usuario, curso);
-        
+        // El PDF no se genera aquí: se renderiza en segundo plano tras el commit o en la primera descarga
         Certificado certificado = Certificado.builder()
                 .usuario(usuario)
                 .curso(curso)
-                .archivoPdf(pdfBytes)
                 .activo(true)
                 .build();
         
         certificado = certificadoRepository.save(certificado);
+        registrarCodigoAlConfirmar(certificado.getCodigoVerificacion());
+        eventPublisher.publishEvent(new ProgresoActualizadoEvent(usuario.getId(), cursoId,
+                ProgresoActualizadoEvent.Tipo.CERTIFICADO_EMITIDO, certificado.getId(), null));
         return mapToDTO(certificado);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public ByteArrayResource descargarCertificado(Long certificadoId, Usuario usuario) {
+    public ArchivoCertificado descargarCertificado(Long certificadoId, Usuario usuario) {
         Certificado certificado = certificadoRepository.findById(certificadoId)
                 .orElseThrow(() -> new RuntimeException("Certificado no encontrado"));
         
@@ -96,18 +112,46 @@ public class CertificadoServiceImpl implements CertificadoService {
             throw new RuntimeException("El certificado no está disponible");
         }
         
-        return new ByteArrayResource(certificado.getArchivoPdf());
+        String nombreArchivo = "certificado_" + certificado.getCodigoVerificacion() + ".pdf";
+        if (certificado.getPdfDigest() != null && certificadoRenderService.vigente(certificado.getPdfVersionPlantilla())) {
+            long tamano = certificado.getPdfTamano() != null ? certificado.getPdfTamano() : 0L;
+            return new ArchivoCertificado(nombreArchivo, certificado.getPdfDigest(), tamano,
+                    almacenPdfService.obtener(certificado.getPdfDigest()));
+        }
+        
+        // Certificado anterior al almacén que el job de migración todavía no alcanzó
+        Optional<PdfAlmacenado> migrado = certificado.getPdfDigest() == null
+                ? migracionPdfService.migrarCertificado(certificadoId)
+                : Optional.empty();
+        if (migrado.isPresent()) {
+            PdfAlmacenado pdf = migrado.get();
+            return new ArchivoCertificado(nombreArchivo, pdf.digest(), pdf.tamano(), almacenPdfService.obtener(pdf.digest()));
+        }
+        
+        return certificadoRenderService.obtenerPdf(certificado);
     }
-
+    
     @Override
     @Transactional(readOnly = true)
-    public CertificadoDTO verificarCertificado(String codigoVerificacion) {
-        Certificado certificado = certificadoRepository.findByCodigoVerificacionAndActivoTrue(codigoVerificacion)
-                .orElseThrow(() -> new RuntimeException("Certificado no encontrado o código inválido"));
+    public Optional<String> identificadorDescarga(Long certificadoId, Usuario usuario) {
+        CertificadoDescarga descarga = certificadoRepository.findDescargaById(certificadoId)
+                .orElseThrow(() -> new RuntimeException("Certificado no encontrado"));
         
-        return mapToDTO(certificado);
+        // Mismas validaciones que la descarga: una revalidación nunca responde 304 sin permisos
+        if (!descarga.usuarioId().equals(usuario.getId()) && !"ADMIN".equals(usuario.getRol())) {
+            throw new RuntimeException("No tiene permisos para descargar este certificado");
+        }
+        if (!Boolean.TRUE.equals(descarga.activo())) {
+            throw new RuntimeException("El certificado no está disponible");
+        }
+        
+        if (descarga.pdfDigest() != null && certificadoRenderService.vigente(descarga.pdfVersionPlantilla())) {
+            return Optional.of(descarga.pdfDigest());
+        }
+        // Sin digest al día todavía no se conocen los bytes (falta migrarlo o renderizarlo con la plantilla vigente)
+        return Optional.empty();
     }
-
+    
     @Override
     public void revocarCertificado(Long certificadoId, Usuario admin) {
         if (!"ADMIN".equals(admin.getRol())) {
@@ -123,81 +167,20 @@ public class CertificadoServiceImpl implements CertificadoService {
         
         certificado.setActivo(false);
         certificadoRepository.save(certificado);
+        verificacionCertificadoService.invalidar(certificado.getCodigoVerificacion());
     }
-
-    private byte[] generarCertificadoPdf(Usuario usuario, Curso curso) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            Document document = new Document(PageSize.A4.rotate()); // Horizontal
-            PdfWriter.getInstance(document, baos);
-            document.open();
-
-            // Fuentes
-            Font titleFont = new Font(Font.HELVETICA, 28, Font.BOLD, new Color(0, 51, 102));
-            Font subtitleFont = new Font(Font.HELVETICA, 18, Font.BOLD);
-            Font nameFont = new Font(Font.HELVETICA, 24, Font.BOLD, new Color(0, 102, 204));
-            Font courseFont = new Font(Font.HELVETICA, 20, Font.BOLD);
-            Font textFont = new Font(Font.HELVETICA, 14);
-            Font smallFont = new Font(Font.HELVETICA, 10, Font.ITALIC);
-
-            // Espaciado
-            document.add(new Paragraph(" "));
-            document.add(new Paragraph(" "));
-
-            // Título principal
-            Paragraph title = new Paragraph("CERTIFICADO DE FINALIZACIÓN", titleFont);
-            title.setAlignment(Element.ALIGN_CENTER);
-            document.add(title);
-
-            document.add(new Paragraph(" "));
-            document.add(new Paragraph(" "));
-
-            // Subtítulo
-            Paragraph subtitle = new Paragraph("Se certifica que", subtitleFont);
-            subtitle.setAlignment(Element.ALIGN_CENTER);
-            document.add(subtitle);
-
-            document.add(new Paragraph(" "));
-
-            // Nombre del usuario
-            Paragraph name = new Paragraph(usuario.getNombre().toUpperCase(), nameFont);
-            name.setAlignment(Element.ALIGN_CENTER);
-            document.add(name);
-
-            document.add(new Paragraph(" "));
-
-            // Texto del curso
-            Paragraph courseText = new Paragraph("ha completado satisfactoriamente el curso", textFont);
-            courseText.setAlignment(Element.ALIGN_CENTER);
-            document.add(courseText);
-
-            document.add(new Paragraph(" "));
-
-            // Nombre del curso
-            Paragraph courseName = new Paragraph(curso.getTitulo(), courseFont);
-            courseName.setAlignment(Element.ALIGN_CENTER);
-            document.add(courseName);
-
-            document.add(new Paragraph(" "));
-            document.add(new Paragraph(" "));
-
-            // Información adicional
-            Paragraph company = new Paragraph("Otorgado por: " + curso.getEmpresa().getNombre(), textFont);
-            company.setAlignment(Element.ALIGN_CENTER);
-            document.add(company);
-
-            document.add(new Paragraph(" "));
-
-            // Fecha
-            String fecha = java.time.LocalDate.now().format(DateTimeFormatter.ofPattern("dd 'de' MMMM 'de' yyyy"));
-            Paragraph dateText = new Paragraph("Fecha de emisión: " + fecha, textFont);
-            dateText.setAlignment(Element.ALIGN_CENTER);
-            document.add(dateText);
-
-            document.close();
-            return baos.toByteArray();
-
-        } catch (Exception e) {
-            throw new RuntimeException("Error al generar el certificado PDF: " + e.getMessage(), e);
+    
+    // El código entra al filtro de verificación solo cuando la fila ya es visible
+    private void registrarCodigoAlConfirmar(String codigoVerificacion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    verificacionCertificadoService.registrarEmitido(codigoVerificacion);
+                }
+            });
+        } else {
+            verificacionCertificadoService.registrarEmitido(codigoVerificacion);
         }
     }
 
@@ -213,4 +196,17 @@ public class CertificadoServiceImpl implements CertificadoService {
                 .activo(certificado.getActivo())
                 .build();
     }
-}
\ No newline at end of file
+
+    private CertificadoDTO mapToDTO(CertificadoResumen resumen) {
+        return CertificadoDTO.builder()
+                .id(resumen.id())
+                .usuarioId(resumen.usuarioId())
+                .nombreUsuario(resumen.nombreUsuario())
+                .cursoId(resumen.cursoId())
+                .nombreCurso(resumen.nombreCurso())
+                .fechaGeneracion(resumen.fechaGeneracion().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")))
+                .codigoVerificacion(resumen.codigoVerificacion())
+                .activo(resumen.activo())
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.ClaveRespuestas;
+import com.capacitapro.backend.repository.EvaluacionRepository;
+import com.capacitapro.backend.repository.PreguntaRepository;
+import com.capacitapro.backend.service.ClaveRespuestasService;
+import com.capacitapro.backend.util.LruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class ClaveRespuestasServiceImpl implements ClaveRespuestasService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaveRespuestasServiceImpl.class);
+
+    private final EvaluacionRepository evaluacionRepository;
+    private final PreguntaRepository preguntaRepository;
+    private final LruCache<Long, ClaveRespuestas> cache;
+
+    public ClaveRespuestasServiceImpl(EvaluacionRepository evaluacionRepository,
+                                      PreguntaRepository preguntaRepository,
+                                      @Value("${cache.clave-respuestas.capacidad:500}") int capacidad) {
+        this.evaluacionRepository = evaluacionRepository;
+        this.preguntaRepository = preguntaRepository;
+        this.cache = new LruCache<>("clave-respuestas", capacidad);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ClaveRespuestas obtener(Long evaluacionId) {
+        return cache.obtener(evaluacionId, this::compilar);
+    }
+
+    @Override
+    public void invalidar(Long evaluacionId) {
+        cache.invalidar(evaluacionId);
+        
+        // Una corrección concurrente podría volver a compilar las preguntas anteriores antes del commit
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidar(evaluacionId);
+                }
+            });
+        }
+    }
+
+    @Override
+    public Map<String, Object> estadisticas() {
+        return cache.estadisticas();
+    }
+
+    private ClaveRespuestas compilar(Long evaluacionId) {
+        List<Object[]> datos = evaluacionRepository.findDatosClaveById(evaluacionId);
+        if (datos.isEmpty()) {
+            throw new RuntimeException("Evaluación no encontrada con ID: " + evaluacionId);
+        }
+        Object[] evaluacion = datos.get(0);
+        
+        List<ClaveRespuestas.Fila> filas = preguntaRepository.findFilasClaveByEvaluacionId(evaluacionId).stream()
+                .map(f -> new ClaveRespuestas.Fila((Long) f[0], (Integer) f[1], (String) f[2], (Long) f[3], (Boolean) f[4]))
+                .toList();
+        
+        ClaveRespuestas clave = new ClaveRespuestas(evaluacionId, (Long) evaluacion[1], (Long) evaluacion[2],
+                (Integer) evaluacion[0], filas);
+        log.debug("Clave de respuestas de la evaluación {} compilada: {} preguntas", evaluacionId, clave.getCantidadPreguntas());
+        return clave;
+    }
+}
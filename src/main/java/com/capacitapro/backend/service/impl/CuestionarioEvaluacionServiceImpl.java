@@ -0,0 +1,126 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.CuestionarioSerializado;
+import com.capacitapro.backend.dto.EvaluacionDTO;
+import com.capacitapro.backend.dto.PreguntaDTO;
+import com.capacitapro.backend.dto.RespuestaDTO;
+import com.capacitapro.backend.repository.EvaluacionRepository;
+import com.capacitapro.backend.repository.PreguntaRepository;
+import com.capacitapro.backend.service.CuestionarioEvaluacionService;
+import com.capacitapro.backend.util.LruCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caché de los bytes JSON que recibe el participante al abrir una evaluación, por evaluación y versión.
+ * Se arma con dos consultas de columnas (sin cargar entidades ni colecciones lazy) y se serializa una vez;
+ * las respuestas se entregan sin esCorrecta y las preguntas sin respuestaEsperada. La versión es la
+ * columna evaluacion.version_contenido, así que todas las instancias entregan el mismo ETag; las
+ * entradas de versiones anteriores ya no se piden y salen por LRU.
+ */
+@Service
+public class CuestionarioEvaluacionServiceImpl implements CuestionarioEvaluacionService {
+
+    private static final Logger log = LoggerFactory.getLogger(CuestionarioEvaluacionServiceImpl.class);
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private final EvaluacionRepository evaluacionRepository;
+    private final PreguntaRepository preguntaRepository;
+    private final ObjectMapper objectMapper;
+    private final LruCache<Clave, CuestionarioSerializado> cache;
+
+    public CuestionarioEvaluacionServiceImpl(EvaluacionRepository evaluacionRepository,
+                                             PreguntaRepository preguntaRepository,
+                                             ObjectMapper objectMapper,
+                                             @Value("${cache.cuestionario.capacidad:500}") int capacidad) {
+        this.evaluacionRepository = evaluacionRepository;
+        this.preguntaRepository = preguntaRepository;
+        this.objectMapper = objectMapper;
+        this.cache = new LruCache<>("cuestionario", capacidad);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CuestionarioSerializado obtener(Long evaluacionId) {
+        // La versión se lee antes que las preguntas: como mucho se guardan datos más nuevos bajo la versión anterior
+        long version = evaluacionRepository.findVersionContenido(evaluacionId)
+                .orElseThrow(() -> new RuntimeException("Evaluación no encontrada"));
+        return cache.obtener(new Clave(evaluacionId, version), this::serializar);
+    }
+
+    @Override
+    public void invalidar(Long evaluacionId) {
+        evaluacionRepository.incrementarVersionContenido(evaluacionId);
+    }
+
+    @Override
+    public Map<String, Object> estadisticas() {
+        return cache.estadisticas();
+    }
+
+    private CuestionarioSerializado serializar(Clave clave) {
+        List<Object[]> encabezado = evaluacionRepository.findEncabezadoCuestionarioById(clave.evaluacionId());
+        if (encabezado.isEmpty()) {
+            throw new RuntimeException("Evaluación no encontrada");
+        }
+        Object[] e = encabezado.get(0);
+        LocalDateTime fechaCreacion = (LocalDateTime) e[7];
+
+        // Una fila por respuesta, ordenadas por pregunta; las preguntas sin respuestas llegan con r.id null
+        Map<Long, PreguntaDTO> preguntas = new LinkedHashMap<>();
+        for (Object[] f : preguntaRepository.findFilasCuestionarioByEvaluacionId(clave.evaluacionId())) {
+            Long preguntaId = (Long) f[0];
+            PreguntaDTO pregunta = preguntas.computeIfAbsent(preguntaId, id -> PreguntaDTO.builder()
+                    .id(id)
+                    .enunciado((String) f[1])
+                    .puntaje((Integer) f[2])
+                    .tipo(f[3] != null ? (String) f[3] : "multiple")
+                    .evaluacionId(clave.evaluacionId())
+                    .respuestas(new ArrayList<>())
+                    .build());
+            if (f[4] != null) {
+                pregunta.getRespuestas().add(RespuestaDTO.builder()
+                        .id((Long) f[4])
+                        .texto((String) f[5])
+                        .preguntaId(preguntaId)
+                        .build());
+            }
+        }
+
+        EvaluacionDTO dto = EvaluacionDTO.builder()
+                .id((Long) e[0])
+                .titulo((String) e[1])
+                .descripcion((String) e[2])
+                .cursoId((Long) e[3])
+                .nombreCurso((String) e[4])
+                .notaMinima((Integer) e[5])
+                .activo((Boolean) e[6])
+                .fechaCreacion(fechaCreacion != null ? fechaCreacion.format(FORMATO_FECHA) : null)
+                .preguntas(new ArrayList<>(preguntas.values()))
+                .build();
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(dto);
+            log.debug("Cuestionario de la evaluación {} serializado: {} preguntas, {} bytes",
+                    clave.evaluacionId(), preguntas.size(), json.length);
+            return new CuestionarioSerializado(clave.evaluacionId(), (Long) e[8], clave.version(), json);
+        } catch (JsonProcessingException ex) {
+            throw new RuntimeException("No se pudo serializar la evaluación " + clave.evaluacionId(), ex);
+        }
+    }
+
+    private record Clave(Long evaluacionId, long version) {
+    }
+}
@@ -5,6 +5,8 @@ import com.capacitapro.backend.repository.*;
 import com.capacitapro.backend.entity.CursoInstructor;
 import com.capacitapro.backend.repository.CursoInstructorRepository;
 import com.capacitapro.backend.service.CursoAdminService;
+import com.capacitapro.backend.service.EstructuraCursoService;
+import com.capacitapro.backend.service.VersionContenidoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,6 +28,8 @@ public class CursoAdminServiceImpl implements CursoAdminService {
     private final ModuloProgresoRepository moduloProgresoRepository;
     private final CursoUsuarioRepository cursoUsuarioRepository;
     private final CursoInstructorRepository cursoInstructorRepository;
+    private final EstructuraCursoService estructuraCursoService;
+    private final VersionContenidoService versionContenidoService;
 
     @Override
     public Map<String, Object> saveModulos(Long cursoId, List<Map<String, Object>> modulosData) {
@@ -104,6 +108,8 @@ public class CursoAdminServiceImpl implements CursoAdminService {
             }
         }
         
+        estructuraCursoService.invalidar(cursoId);
+        
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Módulos guardados exitosamente");
         return response;
@@ -154,6 +160,7 @@ public class CursoAdminServiceImpl implements CursoAdminService {
                 .build();
         
         cursoUsuarioRepository.save(cursoUsuario);
+        versionContenidoService.cursoModificado(cursoId);
         return "Curso asignado exitosamente";
     }
 
@@ -4,6 +4,7 @@ import com.capacitapro.backend.dto.*;
 import com.capacitapro.backend.entity.*;
 import com.capacitapro.backend.repository.*;
 import com.capacitapro.backend.service.CursoService;
+import com.capacitapro.backend.service.VersionContenidoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,6 +24,7 @@ public class CursoServiceImpl implements CursoService {
     private final EmpresaRepository empresaRepository;
     private final ModuloRepository moduloRepository;
     private final CursoUsuarioRepository cursoUsuarioRepository;
+    private final VersionContenidoService versionContenidoService;
 
     @Override
     @Transactional(readOnly = true)
@@ -88,6 +90,7 @@ public class CursoServiceImpl implements CursoService {
         curso.setDescripcion(cursoDTO.getDescripcion());
         curso.setEmpresa(empresa);
         curso = cursoRepository.save(curso);
+        versionContenidoService.cursoModificado(id);
         return mapToDTO(curso);
     }
 
@@ -96,6 +99,7 @@ public class CursoServiceImpl implements CursoService {
         Curso curso = obtenerCursoConPermisos(id, usuario);
         curso.setActivo(false);
         cursoRepository.save(curso);
+        versionContenidoService.cursoModificado(id);
     }
     
     @Override
@@ -7,6 +7,7 @@ import com.capacitapro.backend.entity.*;
 import com.capacitapro.backend.repository.*;
 import com.capacitapro.backend.service.CursoUsuarioService;
 import com.capacitapro.backend.service.ProgresoService;
+import com.capacitapro.backend.service.VersionContenidoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -22,6 +23,7 @@ public class CursoUsuarioServiceImpl implements CursoUsuarioService {
     private final UsuarioRepository usuarioRepository;
     private final CursoUsuarioRepository cursoUsuarioRepository;
     private final ProgresoService progresoService;
+    private final VersionContenidoService versionContenidoService;
 
     @Override
     public void asignarUsuariosACurso(AsignarCursoRequest request) {
@@ -38,6 +40,8 @@ public class CursoUsuarioServiceImpl implements CursoUsuarioService {
                     .build();
             cursoUsuarioRepository.save(cursoUsuario);
         }
+        // El detalle del curso muestra la cantidad de estudiantes
+        versionContenidoService.cursoModificado(curso.getId());
     }
 
     @Override
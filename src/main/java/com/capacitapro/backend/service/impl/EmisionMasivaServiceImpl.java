@@ -0,0 +1,356 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.PdfAlmacenado;
+import com.capacitapro.backend.entity.Certificado;
+import com.capacitapro.backend.entity.Curso;
+import com.capacitapro.backend.entity.Usuario;
+import com.capacitapro.backend.event.ProgresoActualizadoEvent;
+import com.capacitapro.backend.repository.CursoRepository;
+import com.capacitapro.backend.service.CertificadoRenderService;
+import com.capacitapro.backend.service.EmisionMasivaService;
+import com.capacitapro.backend.service.VerificacionCertificadoService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Emisión masiva de certificados para un curso. La elegibilidad se resuelve con una sola consulta
+ * agrupada (las mismas reglas que ProgresoService.puedeGenerarCertificado), las filas se insertan en
+ * lotes JDBC y los PDFs se renderizan en un pool acotado directo al almacén de PDFs, con el digest de
+ * cada lote guardado en una sola actualización por lotes. Si el pool está lleno, el hilo coordinador
+ * renderiza él mismo, así que nunca hay más trabajo en memoria que el de un lote.
+ */
+@Service
+public class EmisionMasivaServiceImpl implements EmisionMasivaService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmisionMasivaServiceImpl.class);
+
+    // Inscritos de la empresa del curso con todos los módulos activos completados y las evaluaciones
+    // aprobadas, que todavía no tienen un certificado activo
+    private static final String SQL_ELEGIBLES =
+            "WITH totales AS (" +
+            "  SELECT (SELECT COUNT(*) FROM modulo m WHERE m.curso_id = :cursoId AND m.activo = true) AS modulos," +
+            "         (SELECT COUNT(*) FROM evaluacion e WHERE e.curso_id = :cursoId AND e.activo = true) AS evaluaciones" +
+            "), modulos_completados AS (" +
+            "  SELECT mp.usuario_id, COUNT(*) AS completados FROM modulo_progreso mp " +
+            "  JOIN modulo m ON m.id = mp.modulo_id " +
+            "  WHERE m.curso_id = :cursoId AND mp.completado = true GROUP BY mp.usuario_id" +
+            "), evaluaciones_aprobadas AS (" +
+            "  SELECT eu.usuario_id, COUNT(*) AS aprobadas FROM evaluacion_usuario eu " +
+            "  JOIN evaluacion e ON e.id = eu.evaluacion_id " +
+            "  WHERE e.curso_id = :cursoId AND eu.aprobado = true AND eu.mejor_intento = true GROUP BY eu.usuario_id" +
+            ") " +
+            "SELECT cu.usuario_id FROM curso_usuario cu " +
+            "JOIN usuario u ON u.id = cu.usuario_id " +
+            "JOIN curso c ON c.id = cu.curso_id " +
+            "CROSS JOIN totales t " +
+            "LEFT JOIN modulos_completados mc ON mc.usuario_id = cu.usuario_id " +
+            "LEFT JOIN evaluaciones_aprobadas ea ON ea.usuario_id = cu.usuario_id " +
+            "WHERE cu.curso_id = :cursoId AND u.empresa_id = c.empresa_id " +
+            "AND t.modulos > 0 AND COALESCE(mc.completados, 0) = t.modulos " +
+            "AND (t.evaluaciones = 0 OR COALESCE(ea.aprobadas, 0) >= t.evaluaciones) " +
+            "AND NOT EXISTS (SELECT 1 FROM certificado ce WHERE ce.usuario_id = cu.usuario_id " +
+            "                AND ce.curso_id = :cursoId AND ce.activo = true) " +
+            "ORDER BY cu.usuario_id";
+
+    // No inserta si entretanto se emitió un certificado por otro camino
+    private static final String SQL_INSERTAR =
+            "INSERT INTO certificado (usuario_id, curso_id, fecha_generacion, codigo_verificacion, activo) " +
+            "SELECT :usuarioId, :cursoId, :fecha, :codigo, true " +
+            "WHERE NOT EXISTS (SELECT 1 FROM certificado WHERE usuario_id = :usuarioId AND curso_id = :cursoId AND activo = true)";
+
+    private static final String SQL_INSERTADOS =
+            "SELECT id, usuario_id FROM certificado WHERE codigo_verificacion IN (:codigos)";
+
+    private static final String SQL_USUARIOS =
+            "SELECT id, nombre FROM usuario WHERE id IN (:ids)";
+
+    private static final String SQL_GUARDAR_PDF =
+            "UPDATE certificado SET pdf_digest = :digest, pdf_tamano = :tamano, pdf_version_plantilla = :version " +
+            "WHERE id = :id AND pdf_digest IS NULL";
+
+    // Parte aleatoria del código de verificación: el resto (instante del lote) es predecible
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CursoRepository cursoRepository;
+    private final CertificadoRenderService certificadoRenderService;
+    private final VerificacionCertificadoService verificacionCertificadoService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int tamanoLote;
+
+    private final ExecutorService coordinador;
+    private final ThreadPoolExecutor renderizadores;
+    private final Map<Long, Trabajo> trabajos = new ConcurrentHashMap<>();
+
+    public EmisionMasivaServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    CursoRepository cursoRepository,
+                                    CertificadoRenderService certificadoRenderService,
+                                    VerificacionCertificadoService verificacionCertificadoService,
+                                    ApplicationEventPublisher eventPublisher,
+                                    @Value("${certificados.emision.hilos:4}") int hilos,
+                                    @Value("${certificados.emision.tamano-lote:200}") int tamanoLote) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cursoRepository = cursoRepository;
+        this.certificadoRenderService = certificadoRenderService;
+        this.verificacionCertificadoService = verificacionCertificadoService;
+        this.eventPublisher = eventPublisher;
+        this.tamanoLote = tamanoLote;
+
+        this.coordinador = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "emision-certificados");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger contador = new AtomicInteger();
+        this.renderizadores = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(hilos * 4), r -> {
+                    Thread t = new Thread(r, "render-certificados-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Override
+    public Map<String, Object> iniciar(Long cursoId, Usuario admin) {
+        if (!"ADMIN".equals(admin.getRol())) {
+            throw new RuntimeException("Solo los administradores pueden emitir certificados");
+        }
+        Curso curso = cursoRepository.findById(cursoId)
+                .orElseThrow(() -> new RuntimeException("Curso no encontrado"));
+        if (!curso.getEmpresa().getId().equals(admin.getEmpresa().getId())) {
+            throw new RuntimeException("No tiene acceso a este curso");
+        }
+
+        // Un solo trabajo en curso por curso; uno terminado se reemplaza
+        Trabajo nuevo = new Trabajo(curso);
+        Trabajo actual = trabajos.compute(cursoId, (id, t) -> t != null && !t.terminado() ? t : nuevo);
+        if (actual == nuevo) {
+            coordinador.execute(() -> ejecutar(nuevo));
+            log.info("Emisión masiva de certificados iniciada para el curso {} por {}", cursoId, admin.getCorreo());
+        }
+        return actual.estado();
+    }
+
+    @Override
+    public Map<String, Object> estado(Long cursoId, Usuario admin) {
+        Trabajo trabajo = trabajos.get(cursoId);
+        if (trabajo == null || !trabajo.esDeEmpresa(admin)) {
+            throw new RuntimeException("No hay emisión masiva para este curso");
+        }
+        return trabajo.estado();
+    }
+
+    @Override
+    public List<Map<String, Object>> trabajos(Usuario admin) {
+        return trabajos.values().stream()
+                .filter(t -> t.esDeEmpresa(admin))
+                .map(Trabajo::estado)
+                .toList();
+    }
+
+    @PreDestroy
+    public void detener() {
+        coordinador.shutdownNow();
+        renderizadores.shutdownNow();
+    }
+
+    private void ejecutar(Trabajo trabajo) {
+        Long cursoId = trabajo.curso.getId();
+        try {
+            List<Long> elegibles = jdbcTemplate.queryForList(SQL_ELEGIBLES,
+                    new MapSqlParameterSource("cursoId", cursoId), Long.class);
+            trabajo.elegibles.set(elegibles.size());
+
+            for (int desde = 0; desde < elegibles.size(); desde += tamanoLote) {
+                List<Long> lote = elegibles.subList(desde, Math.min(desde + tamanoLote, elegibles.size()));
+                List<Certificado> insertados = insertarLote(trabajo, lote);
+                insertados.forEach(c -> verificacionCertificadoService.registrarEmitido(c.getCodigoVerificacion()));
+                trabajo.insertados.addAndGet(insertados.size());
+                trabajo.omitidos.addAndGet(lote.size() - insertados.size());
+
+                Map<Certificado, Future<PdfAlmacenado>> renders = new LinkedHashMap<>();
+                for (Certificado certificado : insertados) {
+                    renders.put(certificado, renderizadores.submit(() -> renderizar(trabajo, certificado)));
+                }
+                // Se espera el lote antes de insertar el siguiente
+                Map<Long, PdfAlmacenado> almacenados = new LinkedHashMap<>();
+                for (Map.Entry<Certificado, Future<PdfAlmacenado>> render : renders.entrySet()) {
+                    PdfAlmacenado pdf = render.getValue().get();
+                    if (pdf != null) {
+                        almacenados.put(render.getKey().getId(), pdf);
+                    }
+                }
+                guardarDigests(almacenados);
+                insertados.forEach(c -> eventPublisher.publishEvent(new ProgresoActualizadoEvent(c.getUsuario().getId(),
+                        cursoId, ProgresoActualizadoEvent.Tipo.CERTIFICADO_EMITIDO, c.getId(), null)));
+            }
+            trabajo.finalizar("COMPLETADO");
+            log.info("Emisión masiva del curso {} terminada: {} certificados en {} ms",
+                    cursoId, trabajo.insertados.get(), trabajo.duracionMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            trabajo.finalizar("INTERRUMPIDO");
+        } catch (Exception e) {
+            trabajo.error = e.getMessage();
+            trabajo.finalizar("FALLIDO");
+            log.error("Error en la emisión masiva de certificados del curso {}", cursoId, e);
+        }
+    }
+
+    // Inserta el lote en una transacción y devuelve los certificados creados, listos para renderizar
+    private List<Certificado> insertarLote(Trabajo trabajo, List<Long> usuarioIds) {
+        Curso curso = trabajo.curso;
+        LocalDateTime fecha = LocalDateTime.now();
+        long marca = System.currentTimeMillis();
+
+        Map<String, Long> usuarioPorCodigo = new HashMap<>();
+        SqlParameterSource[] params = new SqlParameterSource[usuarioIds.size()];
+        for (int i = 0; i < usuarioIds.size(); i++) {
+            Long usuarioId = usuarioIds.get(i);
+            String codigo = "CERT-" + marca + "-" + Long.toString(ALEATORIO.nextLong() & Long.MAX_VALUE, 36).toUpperCase();
+            usuarioPorCodigo.put(codigo, usuarioId);
+            params[i] = new MapSqlParameterSource()
+                    .addValue("usuarioId", usuarioId)
+                    .addValue("cursoId", curso.getId())
+                    .addValue("fecha", fecha)
+                    .addValue("codigo", codigo);
+        }
+
+        List<Certificado> certificados = transactionTemplate.execute(status -> {
+            jdbcTemplate.batchUpdate(SQL_INSERTAR, params);
+
+            Map<Long, Long> idPorUsuario = new HashMap<>();
+            jdbcTemplate.query(SQL_INSERTADOS, new MapSqlParameterSource("codigos", usuarioPorCodigo.keySet()),
+                    rs -> {
+                        idPorUsuario.put(rs.getLong("usuario_id"), rs.getLong("id"));
+                    });
+            Map<Long, String> nombres = new HashMap<>();
+            if (!idPorUsuario.isEmpty()) {
+                jdbcTemplate.query(SQL_USUARIOS, new MapSqlParameterSource("ids", idPorUsuario.keySet()),
+                        rs -> {
+                            nombres.put(rs.getLong("id"), rs.getString("nombre"));
+                        });
+            }
+
+            List<Certificado> creados = new ArrayList<>(idPorUsuario.size());
+            usuarioPorCodigo.forEach((codigo, usuarioId) -> {
+                Long id = idPorUsuario.get(usuarioId);
+                if (id != null) {
+                    creados.add(Certificado.builder()
+                            .id(id)
+                            .usuario(Usuario.builder().id(usuarioId).nombre(nombres.get(usuarioId)).build())
+                            .curso(curso)
+                            .fechaGeneracion(fecha)
+                            .codigoVerificacion(codigo)
+                            .activo(true)
+                            .build());
+                }
+            });
+            return creados;
+        });
+        return certificados != null ? certificados : List.of();
+    }
+
+    private PdfAlmacenado renderizar(Trabajo trabajo, Certificado certificado) {
+        try {
+            PdfAlmacenado pdf = certificadoRenderService.almacenar(certificado);
+            trabajo.renderizados.incrementAndGet();
+            return pdf;
+        } catch (Exception e) {
+            // La fila ya existe: el PDF se generará en la primera descarga
+            trabajo.erroresRender.incrementAndGet();
+            log.warn("No se pudo renderizar el certificado {}: {}", certificado.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    // Los PDFs ya están en el almacén; las filas los referencian en una sola actualización por lotes
+    private void guardarDigests(Map<Long, PdfAlmacenado> almacenados) {
+        if (almacenados.isEmpty()) {
+            return;
+        }
+        int version = certificadoRenderService.getVersionPlantilla();
+        MapSqlParameterSource[] actualizaciones = almacenados.entrySet().stream()
+                .map(e -> new MapSqlParameterSource()
+                        .addValue("id", e.getKey())
+                        .addValue("digest", e.getValue().digest())
+                        .addValue("tamano", e.getValue().tamano())
+                        .addValue("version", version))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(SQL_GUARDAR_PDF, actualizaciones);
+    }
+
+    private static final class Trabajo {
+        final Curso curso;
+        final long inicio = System.currentTimeMillis();
+        final AtomicInteger elegibles = new AtomicInteger(-1);
+        final AtomicInteger insertados = new AtomicInteger();
+        final AtomicInteger omitidos = new AtomicInteger();
+        final AtomicInteger renderizados = new AtomicInteger();
+        final AtomicInteger erroresRender = new AtomicInteger();
+        final AtomicLong fin = new AtomicLong();
+        volatile String estado = "EN_CURSO";
+        volatile String error;
+
+        Trabajo(Curso curso) {
+            this.curso = curso;
+        }
+
+        boolean esDeEmpresa(Usuario usuario) {
+            return curso.getEmpresa().getId().equals(usuario.getEmpresa().getId());
+        }
+
+        boolean terminado() {
+            return fin.get() > 0;
+        }
+
+        void finalizar(String estadoFinal) {
+            estado = estadoFinal;
+            fin.set(System.currentTimeMillis());
+        }
+
+        long duracionMs() {
+            long hasta = terminado() ? fin.get() : System.currentTimeMillis();
+            return Math.max(hasta - inicio, 1);
+        }
+
+        Map<String, Object> estado() {
+            long duracion = duracionMs();
+            int procesados = renderizados.get() + erroresRender.get();
+
+            Map<String, Object> estado = new HashMap<>();
+            estado.put("cursoId", curso.getId());
+            estado.put("curso", curso.getTitulo());
+            estado.put("estado", this.estado);
+            estado.put("elegibles", elegibles.get());
+            estado.put("insertados", insertados.get());
+            estado.put("omitidos", omitidos.get());
+            estado.put("renderizados", renderizados.get());
+            estado.put("erroresRender", erroresRender.get());
+            estado.put("porcentaje", elegibles.get() > 0 ? procesados * 100 / elegibles.get() : (terminado() ? 100 : 0));
+            estado.put("duracionMs", duracion);
+            estado.put("certificadosPorSegundo", procesados * 1000.0 / duracion);
+            estado.put("error", error);
+            return estado;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.EstructuraCurso;
+import com.capacitapro.backend.dto.EstructuraCurso.EvaluacionEstructura;
+import com.capacitapro.backend.dto.EstructuraCurso.ModuloEstructura;
+import com.capacitapro.backend.dto.EstructuraCurso.SubmoduloEstructura;
+import com.capacitapro.backend.entity.Evaluacion;
+import com.capacitapro.backend.entity.Modulo;
+import com.capacitapro.backend.entity.Submodulo;
+import com.capacitapro.backend.repository.EvaluacionRepository;
+import com.capacitapro.backend.repository.ModuloProgresoRepository;
+import com.capacitapro.backend.repository.ModuloRepository;
+import com.capacitapro.backend.repository.ProgresoContadorRepository;
+import com.capacitapro.backend.repository.SubmoduloRepository;
+import com.capacitapro.backend.service.EstructuraCursoService;
+import com.capacitapro.backend.service.VersionContenidoService;
+import com.capacitapro.backend.util.LruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+public class EstructuraCursoServiceImpl implements EstructuraCursoService {
+
+    private static final Logger log = LoggerFactory.getLogger(EstructuraCursoServiceImpl.class);
+
+    private final ModuloRepository moduloRepository;
+    private final SubmoduloRepository submoduloRepository;
+    private final EvaluacionRepository evaluacionRepository;
+    private final ProgresoContadorRepository progresoContadorRepository;
+    private final ModuloProgresoRepository moduloProgresoRepository;
+    private final VersionContenidoService versionContenidoService;
+    private final LruCache<Long, EstructuraCurso> cache;
+
+    public EstructuraCursoServiceImpl(ModuloRepository moduloRepository,
+                                      SubmoduloRepository submoduloRepository,
+                                      EvaluacionRepository evaluacionRepository,
+                                      ProgresoContadorRepository progresoContadorRepository,
+                                      ModuloProgresoRepository moduloProgresoRepository,
+                                      VersionContenidoService versionContenidoService,
+                                      @Value("${cache.estructura-curso.capacidad:500}") int capacidad) {
+        this.moduloRepository = moduloRepository;
+        this.submoduloRepository = submoduloRepository;
+        this.evaluacionRepository = evaluacionRepository;
+        this.progresoContadorRepository = progresoContadorRepository;
+        this.moduloProgresoRepository = moduloProgresoRepository;
+        this.versionContenidoService = versionContenidoService;
+        this.cache = new LruCache<>("estructura-curso", capacidad);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public EstructuraCurso obtener(Long cursoId) {
+        return cache.obtener(cursoId, this::construir);
+    }
+
+    @Override
+    @Transactional
+    public void invalidar(Long cursoId) {
+        cache.invalidar(cursoId);
+        
+        // Los totales de los contadores dependen de la estructura; se reconstruyen en la próxima lectura
+        int contadores = progresoContadorRepository.deleteByCursoId(cursoId);
+        
+        // Igual con los prefijos de acceso secuencial: el orden de los submódulos pudo cambiar
+        moduloProgresoRepository.reiniciarPrefijosByCursoId(cursoId);
+        versionContenidoService.cursoModificado(cursoId);
+        
+        // Una lectura concurrente podría volver a cargar la estructura anterior antes del commit
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidar(cursoId);
+                }
+            });
+        }
+        
+        log.debug("Estructura del curso {} invalidada ({} contadores descartados)", cursoId, contadores);
+    }
+
+    @Override
+    public Map<String, Object> estadisticas() {
+        return cache.estadisticas();
+    }
+
+    private EstructuraCurso construir(Long cursoId) {
+        List<Modulo> modulos = moduloRepository.findActivosByCursoIdOrderByOrden(cursoId);
+        if (modulos.isEmpty()) {
+            return EstructuraCurso.vacia(cursoId);
+        }
+        
+        List<Long> moduloIds = modulos.stream().map(Modulo::getId).collect(Collectors.toList());
+        
+        Map<Long, List<SubmoduloEstructura>> submodulosPorModulo = new HashMap<>();
+        for (Submodulo s : submoduloRepository.findByModuloIdsOrderByOrden(moduloIds)) {
+            submodulosPorModulo.computeIfAbsent(s.getModulo().getId(), id -> new ArrayList<>())
+                    .add(new SubmoduloEstructura(s.getId(), s.getTitulo(), s.getTipo(), s.getContenido(), s.getOrden()));
+        }
+        
+        Map<Long, List<EvaluacionEstructura>> evaluacionesPorModulo = new HashMap<>();
+        for (Evaluacion e : evaluacionRepository.findActivasByModuloIds(moduloIds)) {
+            evaluacionesPorModulo.computeIfAbsent(e.getModulo().getId(), id -> new ArrayList<>())
+                    .add(aEstructura(e));
+        }
+        
+        List<EvaluacionEstructura> evaluacionesCurso = evaluacionRepository.findActivasByCursoIdDetailed(cursoId)
+                .stream()
+                .map(this::aEstructura)
+                .collect(Collectors.toList());
+        
+        List<ModuloEstructura> modulosEstructura = new ArrayList<>();
+        for (Modulo m : modulos) {
+            List<EvaluacionEstructura> evaluacionesModulo = evaluacionesPorModulo.getOrDefault(m.getId(), List.of());
+            
+            // Evaluaciones del módulo y del curso sin duplicados
+            Map<Long, EvaluacionEstructura> combinadas = new LinkedHashMap<>();
+            evaluacionesModulo.forEach(e -> combinadas.put(e.id(), e));
+            evaluacionesCurso.forEach(e -> combinadas.putIfAbsent(e.id(), e));
+            
+            modulosEstructura.add(new ModuloEstructura(
+                    m.getId(),
+                    m.getTitulo(),
+                    m.getContenido(),
+                    m.getOrden(),
+                    submodulosPorModulo.getOrDefault(m.getId(), List.of()),
+                    evaluacionesModulo,
+                    new ArrayList<>(combinadas.values())));
+        }
+        
+        log.debug("Estructura del curso {} construida: {} módulos", cursoId, modulosEstructura.size());
+        return new EstructuraCurso(cursoId, modulosEstructura, evaluacionesCurso);
+    }
+
+    private EvaluacionEstructura aEstructura(Evaluacion e) {
+        return new EvaluacionEstructura(e.getId(),
+                e.getModulo() != null ? e.getModulo().getId() : null,
+                e.getTitulo(), e.getDescripcion(), e.getNotaMinima());
+    }
+}
@@ -3,7 +3,11 @@ package com.capacitapro.backend.service.impl;
 import com.capacitapro.backend.dto.*;
 import com.capacitapro.backend.entity.*;
 import com.capacitapro.backend.repository.*;
+import com.capacitapro.backend.service.ClaveRespuestasService;
+import com.capacitapro.backend.service.CuestionarioEvaluacionService;
+import com.capacitapro.backend.service.EstructuraCursoService;
 import com.capacitapro.backend.service.EvaluacionService;
+import com.capacitapro.backend.service.IntentoEvaluacionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,7 +15,9 @@ import org.springframework.validation.annotation.Validated;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,6 +33,10 @@ public class EvaluacionServiceImpl implements EvaluacionService {
     private final EvaluacionUsuarioRepository evaluacionUsuarioRepo;
     private final UsuarioRepository usuarioRepo;
     private final CertificadoRepository certificadoRepo;
+    private final EstructuraCursoService estructuraCursoService;
+    private final ClaveRespuestasService claveRespuestasService;
+    private final CuestionarioEvaluacionService cuestionarioEvaluacionService;
+    private final IntentoEvaluacionService intentoEvaluacionService;
 
     @Override
     @Transactional(readOnly = true)
@@ -54,6 +64,7 @@ public class EvaluacionServiceImpl implements EvaluacionService {
                 .build();
         
         evaluacion = evaluacionRepo.save(evaluacion);
+        estructuraCursoService.invalidar(curso.getId());
         return mapToDTO(evaluacion);
     }
 
@@ -101,6 +112,9 @@ public class EvaluacionServiceImpl implements EvaluacionService {
                 }
             }
             
+            claveRespuestasService.invalidar(evaluacionId);
+            cuestionarioEvaluacionService.invalidar(evaluacionId);
+            
             PreguntaDTO result = mapPreguntaToDTO(preguntaRepo.findById(pregunta.getId()).orElseThrow());
             System.out.println("Pregunta completa guardada exitosamente");
             return result;
@@ -114,51 +128,47 @@ public class EvaluacionServiceImpl implements EvaluacionService {
 
     @Override
     public EvaluacionUsuario responderEvaluacion(Long evaluacionId, Usuario usuario, List<RespuestaUsuarioRequest> respuestasUsuario) {
-        Evaluacion evaluacion = evaluacionRepo.findById(evaluacionId)
-                .orElseThrow(() -> new RuntimeException("Evaluación no encontrada"));
+        // La clave compilada trae empresa, puntajes y respuestas correctas: corregir no hace consultas
+        ClaveRespuestas clave = claveRespuestasService.obtener(evaluacionId);
         
         // Verificar que el usuario tenga acceso al curso
-        if (!evaluacion.getCurso().getEmpresa().getId().equals(usuario.getEmpresa().getId())) {
+        if (!clave.getEmpresaId().equals(usuario.getEmpresa().getId())) {
             throw new RuntimeException("No tiene acceso a esta evaluación");
         }
         
+        Evaluacion evaluacion = evaluacionRepo.getReferenceById(evaluacionId);
+        
         // Verificar si ya respondió la evaluación
         if (evaluacionUsuarioRepo.existsByEvaluacionAndUsuario(evaluacion, usuario)) {
             throw new RuntimeException("Ya ha respondido esta evaluación");
         }
         
         // Validar que todas las preguntas fueron respondidas
-        List<Pregunta> preguntas = evaluacion.getPreguntas();
-        if (preguntas == null) {
-            preguntas = new java.util.ArrayList<>();
-        }
-        
-        if (respuestasUsuario.size() != preguntas.size()) {
+        if (respuestasUsuario.size() != clave.getCantidadPreguntas()) {
             throw new RuntimeException("Debe responder todas las preguntas");
         }
         
-        int puntajeObtenido = 0;
-        int puntajeMaximo = preguntas.stream().mapToInt(Pregunta::getPuntaje).sum();
-        
+        Map<Long, String> respuestas = new HashMap<>();
         for (RespuestaUsuarioRequest respuestaUsuario : respuestasUsuario) {
-            Respuesta respuesta = respuestaRepo.findById(respuestaUsuario.getRespuestaId())
-                    .orElseThrow(() -> new RuntimeException("Respuesta no encontrada"));
-            
-            if (respuesta.getEsCorrecta()) {
-                puntajeObtenido += respuesta.getPregunta().getPuntaje();
+            if (respuestaUsuario.getPreguntaId() == null || respuestaUsuario.getRespuestaId() == null) {
+                throw new RuntimeException("Cada respuesta debe indicar la pregunta y la opción elegida");
             }
+            respuestas.put(respuestaUsuario.getPreguntaId(), respuestaUsuario.getRespuestaId().toString());
         }
         
+        int puntajeObtenido = clave.calificar(respuestas);
+        int puntajeMaximo = clave.getPuntajeMaximo();
+        
         EvaluacionUsuario evaluacionUsuario = EvaluacionUsuario.builder()
                 .evaluacion(evaluacion)
                 .usuario(usuario)
                 .puntajeObtenido(puntajeObtenido)
                 .puntajeMaximo(puntajeMaximo)
-                .intentos(1)
+                .aprobado(clave.aprobado(puntajeObtenido))
+                .pendienteRevision(!clave.aprobado(puntajeObtenido) && clave.tieneAbiertas())
                 .build();
         
-        evaluacionUsuario.calcularAprobacion();
-        EvaluacionUsuario resultado = evaluacionUsuarioRepo.save(evaluacionUsuario);
+        EvaluacionUsuario resultado = intentoEvaluacionService.registrar(evaluacionUsuario);
         
         // Generar certificado si aprobó
         if (resultado.getAprobado()) {
@@ -180,6 +190,9 @@ public class EvaluacionServiceImpl implements EvaluacionService {
         Evaluacion evaluacion = obtenerEvaluacionConPermisos(id, usuario);
         evaluacion.setActivo(false);
         evaluacionRepo.save(evaluacion);
+        estructuraCursoService.invalidar(evaluacion.getCurso().getId());
+        claveRespuestasService.invalidar(id);
+        cuestionarioEvaluacionService.invalidar(id);
     }
     
     // Métodos sin validación para creación rápida
@@ -196,6 +209,7 @@ public class EvaluacionServiceImpl implements EvaluacionService {
                 .build();
         
         evaluacion = evaluacionRepo.save(evaluacion);
+        estructuraCursoService.invalidar(curso.getId());
         return mapToDTO(evaluacion);
     }
     
@@ -223,6 +237,8 @@ public class EvaluacionServiceImpl implements EvaluacionService {
             }
         }
         
+        claveRespuestasService.invalidar(evaluacionId);
+        cuestionarioEvaluacionService.invalidar(evaluacionId);
         return mapPreguntaToDTO(preguntaRepo.findById(pregunta.getId()).orElseThrow());
     }
     
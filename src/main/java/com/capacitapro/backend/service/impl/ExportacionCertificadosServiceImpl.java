@@ -0,0 +1,267 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.ArchivoCertificado;
+import com.capacitapro.backend.dto.PdfAlmacenado;
+import com.capacitapro.backend.entity.Certificado;
+import com.capacitapro.backend.entity.Curso;
+import com.capacitapro.backend.entity.Usuario;
+import com.capacitapro.backend.service.AlmacenPdfService;
+import com.capacitapro.backend.service.CertificadoRenderService;
+import com.capacitapro.backend.service.ExportacionCertificadosService;
+import com.capacitapro.backend.service.MigracionPdfService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exportación de certificados en un ZIP que se escribe directo a la respuesta.
+ * Las filas se leen con un cursor del servidor (fetch size dentro de una transacción de solo lectura),
+ * cada PDF se abre del almacén (si falta, se renderiza ahí como en la descarga) antes de abrir su entrada, y el manifiesto CSV se va
+ * escribiendo a un archivo temporal que se agrega al final. La memoria no depende de la cantidad de certificados.
+ */
+@Service
+public class ExportacionCertificadosServiceImpl implements ExportacionCertificadosService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportacionCertificadosServiceImpl.class);
+
+    private static final String SQL_CERTIFICADOS =
+            "SELECT c.id, c.codigo_verificacion, c.fecha_generacion, c.pdf_digest, c.pdf_tamano, c.pdf_version_plantilla, " +
+            "u.id AS usuario_id, u.nombre AS usuario_nombre, u.correo AS usuario_correo, " +
+            "cu.id AS curso_id, cu.titulo AS curso_titulo " +
+            "FROM certificado c " +
+            "JOIN usuario u ON u.id = c.usuario_id " +
+            "JOIN curso cu ON cu.id = c.curso_id " +
+            "WHERE u.empresa_id = :empresaId AND c.activo = true " +
+            "AND (CAST(:cursoId AS BIGINT) IS NULL OR c.curso_id = :cursoId) " +
+            "AND (CAST(:desde AS TIMESTAMP) IS NULL OR c.fecha_generacion >= :desde) " +
+            "AND (CAST(:hasta AS TIMESTAMP) IS NULL OR c.fecha_generacion < :hasta) " +
+            "ORDER BY c.curso_id, c.id";
+
+    private static final String MANIFIESTO = "manifiesto.csv";
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AlmacenPdfService almacenPdfService;
+    private final MigracionPdfService migracionPdfService;
+    private final CertificadoRenderService certificadoRenderService;
+
+    public ExportacionCertificadosServiceImpl(DataSource dataSource,
+                                              PlatformTransactionManager transactionManager,
+                                              AlmacenPdfService almacenPdfService,
+                                              MigracionPdfService migracionPdfService,
+                                              CertificadoRenderService certificadoRenderService,
+                                              @Value("${certificados.exportacion.fetch-size:500}") int fetchSize) {
+        // PostgreSQL solo usa cursor con fetch size y sin autocommit
+        JdbcTemplate cursor = new JdbcTemplate(dataSource);
+        cursor.setFetchSize(fetchSize);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(cursor);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.almacenPdfService = almacenPdfService;
+        this.migracionPdfService = migracionPdfService;
+        this.certificadoRenderService = certificadoRenderService;
+    }
+
+    @Override
+    public void exportarZip(Usuario admin, Long cursoId, LocalDate desde, LocalDate hasta, OutputStream salida) {
+        if (!"ADMIN".equals(admin.getRol())) {
+            throw new RuntimeException("Solo los administradores pueden exportar certificados");
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("empresaId", admin.getEmpresa().getId())
+                .addValue("cursoId", cursoId)
+                .addValue("desde", desde != null ? desde.atStartOfDay() : null)
+                .addValue("hasta", hasta != null ? hasta.plusDays(1).atStartOfDay() : null);
+
+        long inicio = System.currentTimeMillis();
+        Path manifiesto = null;
+        try {
+            manifiesto = Files.createTempFile("manifiesto-certificados-", ".csv");
+            ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(salida, 64 * 1024), StandardCharsets.UTF_8);
+            // Los PDFs ya vienen comprimidos: no vale la pena gastar CPU en comprimirlos más
+            zip.setLevel(Deflater.BEST_SPEED);
+
+            int exportados;
+            try (BufferedWriter csv = Files.newBufferedWriter(manifiesto, StandardCharsets.UTF_8)) {
+                csv.write('\uFEFF'); // BOM para que Excel lea bien los acentos
+                csv.write("codigo_verificacion,usuario,correo,curso,fecha_generacion,archivo,tamano_bytes,sha256,error");
+                csv.newLine();
+
+                Exportacion exportacion = new Exportacion(admin, zip, csv);
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.query(SQL_CERTIFICADOS, params, exportacion::agregar));
+                exportados = exportacion.exportados;
+            }
+
+            zip.putNextEntry(new ZipEntry(MANIFIESTO));
+            Files.copy(manifiesto, zip);
+            zip.closeEntry();
+            zip.finish();
+            zip.flush();
+
+            log.info("Exportación de certificados de la empresa {}: {} PDFs en {} ms",
+                    admin.getEmpresa().getId(), exportados, System.currentTimeMillis() - inicio);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error escribiendo la exportación de certificados", e);
+        } finally {
+            if (manifiesto != null) {
+                try {
+                    Files.deleteIfExists(manifiesto);
+                } catch (IOException e) {
+                    log.warn("No se pudo borrar el manifiesto temporal {}", manifiesto);
+                }
+            }
+        }
+    }
+
+    // Estado de una exportación en curso; recibe las filas del cursor de a una
+    private final class Exportacion {
+        private final Usuario admin;
+        private final ZipOutputStream zip;
+        private final BufferedWriter csv;
+        private int exportados = 0;
+
+        Exportacion(Usuario admin, ZipOutputStream zip, BufferedWriter csv) {
+            this.admin = admin;
+            this.zip = zip;
+            this.csv = csv;
+        }
+
+        void agregar(ResultSet rs) throws SQLException {
+            Long id = rs.getLong("id");
+            String codigo = rs.getString("codigo_verificacion");
+            LocalDateTime fecha = rs.getTimestamp("fecha_generacion").toLocalDateTime();
+            String digest = rs.getString("pdf_digest");
+            Integer versionPlantilla = (Integer) rs.getObject("pdf_version_plantilla");
+            String nombreUsuario = rs.getString("usuario_nombre");
+            String tituloCurso = rs.getString("curso_titulo");
+            String archivo = carpeta(tituloCurso, rs.getLong("curso_id")) + "/" + codigo + ".pdf";
+
+            long tamano = 0;
+            String error = null;
+            InputStream pdf = null;
+            // El PDF se abre (o se renderiza al almacén) antes de crear la entrada:
+            // si falla, el certificado se omite sin dejar una entrada a medias en el ZIP
+            try {
+                if (digest == null) {
+                    // Certificado anterior al almacén que la migración todavía no alcanzó
+                    digest = migracionPdfService.migrarCertificado(id).map(PdfAlmacenado::digest).orElse(null);
+                } else if (!certificadoRenderService.vigente(versionPlantilla)) {
+                    digest = null;
+                }
+                if (digest != null) {
+                    pdf = almacenPdfService.obtener(digest).getInputStream();
+                } else {
+                    // Mismo camino que la descarga: el render queda en el almacén y en la fila, con los mismos bytes
+                    Certificado certificado = Certificado.builder()
+                            .id(id)
+                            .usuario(Usuario.builder().id(rs.getLong("usuario_id")).nombre(nombreUsuario).build())
+                            .curso(Curso.builder().id(rs.getLong("curso_id")).titulo(tituloCurso).empresa(admin.getEmpresa()).build())
+                            .fechaGeneracion(fecha)
+                            .codigoVerificacion(codigo)
+                            .activo(true)
+                            .build();
+                    ArchivoCertificado renderizado = certificadoRenderService.obtenerPdf(certificado);
+                    digest = renderizado.getIdentificador();
+                    pdf = renderizado.getRecurso().getInputStream();
+                }
+            } catch (IOException | RuntimeException e) {
+                error = e.getMessage();
+                log.warn("Certificado {} omitido en la exportación: {}", id, e.getMessage());
+            }
+
+            try {
+                if (pdf != null) {
+                    try (InputStream contenido = pdf) {
+                        zip.putNextEntry(new ZipEntry(archivo));
+                        SalidaEntrada entrada = new SalidaEntrada(zip);
+                        contenido.transferTo(entrada);
+                        zip.closeEntry();
+                        tamano = entrada.escritos;
+                        exportados++;
+                    }
+                }
+            } catch (IOException e) {
+                // La respuesta ya no se puede escribir (p. ej. el cliente cortó la descarga)
+                throw new UncheckedIOException(e);
+            }
+
+            try {
+                csv.write(String.join(",",
+                        celda(codigo), celda(nombreUsuario), celda(rs.getString("usuario_correo")), celda(tituloCurso),
+                        celda(fecha.format(FORMATO_FECHA)), celda(error == null ? archivo : ""),
+                        String.valueOf(tamano), celda(digest), celda(error)));
+                csv.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Nombre de carpeta seguro para el ZIP; el id evita choques entre cursos con el mismo título
+    private static String carpeta(String titulo, long cursoId) {
+        String limpio = titulo == null ? "" : titulo.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+        if (limpio.length() > 80) {
+            limpio = limpio.substring(0, 80).trim();
+        }
+        return cursoId + (limpio.isEmpty() ? "" : " - " + limpio);
+    }
+
+    private static String celda(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.contains(",") || valor.contains("\"") || valor.contains("\n") || valor.contains("\r")) {
+            return "\"" + valor.replace("\"", "\"\"") + "\"";
+        }
+        return valor;
+    }
+
+    // Escribe en la entrada actual del ZIP contando bytes; cerrarla no cierra el ZIP
+    private static final class SalidaEntrada extends FilterOutputStream {
+        long escritos = 0;
+
+        SalidaEntrada(OutputStream zip) {
+            super(zip);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            escritos++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            escritos += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.PreguntaDTO;
+import com.capacitapro.backend.dto.RespuestaDTO;
+import com.capacitapro.backend.dto.ResultadoImportacion;
+import com.capacitapro.backend.dto.ResultadoImportacion.ErrorFila;
+import com.capacitapro.backend.entity.Evaluacion;
+import com.capacitapro.backend.entity.Usuario;
+import com.capacitapro.backend.repository.EvaluacionRepository;
+import com.capacitapro.backend.service.ClaveRespuestasService;
+import com.capacitapro.backend.service.CuestionarioEvaluacionService;
+import com.capacitapro.backend.service.ImportacionPreguntasService;
+import com.capacitapro.backend.util.LectorCsv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * Importación de bancos de preguntas. Primero se valida todo (mismas reglas que las entidades y que
+ * agregarPregunta) y se informan los errores por fila; si no hay ninguno, los ids de las preguntas se
+ * reservan de la secuencia en una sola consulta y preguntas y respuestas se insertan con lotes JDBC
+ * dentro de una única transacción.
+ */
+@Service
+public class ImportacionPreguntasServiceImpl implements ImportacionPreguntasService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacionPreguntasServiceImpl.class);
+
+    private static final String SQL_RESERVAR_IDS =
+            "SELECT nextval(pg_get_serial_sequence('pregunta', 'id')) FROM generate_series(1, :cantidad)";
+
+    private static final String SQL_INSERTAR_PREGUNTA =
+            "INSERT INTO pregunta (id, enunciado, puntaje, tipo, respuesta_esperada, evaluacion_id) " +
+            "VALUES (:id, :enunciado, :puntaje, :tipo, :respuestaEsperada, :evaluacionId)";
+
+    private static final String SQL_INSERTAR_RESPUESTA =
+            "INSERT INTO respuesta (texto, es_correcta, pregunta_id) VALUES (:texto, :esCorrecta, :preguntaId)";
+
+    private static final Set<String> TIPOS = Set.of("multiple", "texto");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EvaluacionRepository evaluacionRepository;
+    private final ClaveRespuestasService claveRespuestasService;
+    private final CuestionarioEvaluacionService cuestionarioEvaluacionService;
+    private final int tamanoLote;
+    private final int maxPreguntas;
+
+    public ImportacionPreguntasServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                           PlatformTransactionManager transactionManager,
+                                           EvaluacionRepository evaluacionRepository,
+                                           ClaveRespuestasService claveRespuestasService,
+                                           CuestionarioEvaluacionService cuestionarioEvaluacionService,
+                                           @Value("${evaluaciones.importacion.tamano-lote:500}") int tamanoLote,
+                                           @Value("${evaluaciones.importacion.max-preguntas:5000}") int maxPreguntas) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.evaluacionRepository = evaluacionRepository;
+        this.claveRespuestasService = claveRespuestasService;
+        this.cuestionarioEvaluacionService = cuestionarioEvaluacionService;
+        this.tamanoLote = tamanoLote;
+        this.maxPreguntas = maxPreguntas;
+    }
+
+    @Override
+    public ResultadoImportacion importar(Long evaluacionId, List<PreguntaDTO> preguntas, Usuario usuario) {
+        List<Integer> filas = new ArrayList<>();
+        for (int i = 1; i <= preguntas.size(); i++) {
+            filas.add(i);
+        }
+        return importar(evaluacionId, preguntas, filas, new ArrayList<>(), usuario);
+    }
+
+    @Override
+    public ResultadoImportacion importarCsv(Long evaluacionId, Reader csv, Usuario usuario) {
+        List<LectorCsv.Registro> registros;
+        try {
+            registros = new LectorCsv(csv).leerTodo();
+        } catch (IOException e) {
+            throw new RuntimeException("No se pudo leer el archivo CSV: " + e.getMessage(), e);
+        }
+        if (registros.isEmpty()) {
+            throw new RuntimeException("El archivo CSV está vacío");
+        }
+
+        // Columnas por nombre, sin importar mayúsculas ni el orden
+        Map<String, Integer> columnas = new HashMap<>();
+        List<Integer> columnasOpcion = new ArrayList<>();
+        List<String> encabezado = registros.get(0).campos();
+        for (int i = 0; i < encabezado.size(); i++) {
+            String nombre = encabezado.get(i).trim().toLowerCase(Locale.ROOT);
+            if (nombre.startsWith("opcion")) {
+                columnasOpcion.add(i);
+            } else {
+                columnas.put(nombre, i);
+            }
+        }
+        if (!columnas.containsKey("enunciado")) {
+            throw new RuntimeException("El CSV debe tener una columna 'enunciado'");
+        }
+
+        List<PreguntaDTO> preguntas = new ArrayList<>();
+        List<Integer> filas = new ArrayList<>();
+        List<ErrorFila> errores = new ArrayList<>();
+        for (LectorCsv.Registro registro : registros.subList(1, registros.size())) {
+            if (registro.vacio()) {
+                continue;
+            }
+            try {
+                preguntas.add(aPregunta(registro, columnas, columnasOpcion));
+                filas.add(registro.linea());
+            } catch (IllegalArgumentException e) {
+                errores.add(new ErrorFila(registro.linea(), e.getMessage()));
+            }
+        }
+        return importar(evaluacionId, preguntas, filas, errores, usuario);
+    }
+
+    private ResultadoImportacion importar(Long evaluacionId, List<PreguntaDTO> preguntas, List<Integer> filas,
+                                          List<ErrorFila> errores, Usuario usuario) {
+        long inicio = System.currentTimeMillis();
+        Evaluacion evaluacion = evaluacionRepository.findById(evaluacionId)
+                .orElseThrow(() -> new RuntimeException("Evaluación no encontrada"));
+
+        if (!"ADMIN".equals(usuario.getRol()) && !"INSTRUCTOR".equals(usuario.getRol())) {
+            throw new RuntimeException("No tienes permisos para importar preguntas");
+        }
+        if (!evaluacion.getCurso().getEmpresa().getId().equals(usuario.getEmpresa().getId())) {
+            throw new RuntimeException("No tiene acceso a esta evaluación");
+        }
+        if (preguntas.isEmpty() && errores.isEmpty()) {
+            throw new RuntimeException("No se recibieron preguntas");
+        }
+        if (preguntas.size() > maxPreguntas) {
+            throw new RuntimeException("Se pueden importar como máximo " + maxPreguntas + " preguntas por vez");
+        }
+
+        // Validar todo antes de escribir
+        Map<String, Integer> enunciados = new HashMap<>();
+        for (int i = 0; i < preguntas.size(); i++) {
+            validar(preguntas.get(i), filas.get(i), enunciados, errores);
+        }
+        if (!errores.isEmpty()) {
+            errores.sort(Comparator.comparingInt(ErrorFila::fila));
+            return new ResultadoImportacion(0, 0, errores, System.currentTimeMillis() - inicio);
+        }
+
+        Integer respuestas = transactionTemplate.execute(status -> insertar(evaluacionId, preguntas));
+        claveRespuestasService.invalidar(evaluacionId);
+        cuestionarioEvaluacionService.invalidar(evaluacionId);
+
+        long duracion = System.currentTimeMillis() - inicio;
+        log.info("Importadas {} preguntas y {} respuestas en la evaluación {} ({} ms)",
+                preguntas.size(), respuestas, evaluacionId, duracion);
+        return new ResultadoImportacion(preguntas.size(), respuestas != null ? respuestas : 0, List.of(), duracion);
+    }
+
+    // Normaliza la pregunta (tipo y puntaje por defecto) y agrega sus errores a la lista
+    private void validar(PreguntaDTO pregunta, int fila, Map<String, Integer> enunciados, List<ErrorFila> errores) {
+        if (pregunta == null) {
+            errores.add(new ErrorFila(fila, "Pregunta vacía"));
+            return;
+        }
+        String enunciado = pregunta.getEnunciado() != null ? pregunta.getEnunciado().trim() : "";
+        pregunta.setEnunciado(enunciado);
+        if (enunciado.isEmpty()) {
+            errores.add(new ErrorFila(fila, "El enunciado es obligatorio"));
+        } else if (enunciado.length() < 10 || enunciado.length() > 1000) {
+            errores.add(new ErrorFila(fila, "El enunciado debe tener entre 10 y 1000 caracteres"));
+        } else {
+            Integer anterior = enunciados.putIfAbsent(enunciado.toLowerCase(Locale.ROOT), fila);
+            if (anterior != null) {
+                errores.add(new ErrorFila(fila, "Enunciado repetido (fila " + anterior + ")"));
+            }
+        }
+
+        if (pregunta.getPuntaje() == null) {
+            pregunta.setPuntaje(1);
+        } else if (pregunta.getPuntaje() < 1 || pregunta.getPuntaje() > 10) {
+            errores.add(new ErrorFila(fila, "El puntaje debe estar entre 1 y 10"));
+        }
+
+        String tipo = pregunta.getTipo() == null || pregunta.getTipo().isBlank()
+                ? "multiple" : pregunta.getTipo().trim().toLowerCase(Locale.ROOT);
+        pregunta.setTipo(tipo);
+        if (!TIPOS.contains(tipo)) {
+            errores.add(new ErrorFila(fila, "Tipo de pregunta inválido: " + tipo + " (multiple o texto)"));
+        }
+
+        List<RespuestaDTO> respuestas = pregunta.getRespuestas() != null
+                ? pregunta.getRespuestas().stream().filter(Objects::nonNull).toList() : List.of();
+        pregunta.setRespuestas(respuestas);
+        int correctas = 0;
+        for (int i = 0; i < respuestas.size(); i++) {
+            RespuestaDTO respuesta = respuestas.get(i);
+            String texto = respuesta.getTexto() != null ? respuesta.getTexto().trim() : "";
+            respuesta.setTexto(texto);
+            if (texto.isEmpty() || texto.length() > 500) {
+                errores.add(new ErrorFila(fila, "La respuesta " + (i + 1) + " debe tener entre 1 y 500 caracteres"));
+            }
+            if (Boolean.TRUE.equals(respuesta.getEsCorrecta())) {
+                correctas++;
+            } else {
+                respuesta.setEsCorrecta(false);
+            }
+        }
+        if ("multiple".equals(tipo)) {
+            if (respuestas.isEmpty()) {
+                errores.add(new ErrorFila(fila, "La pregunta de opción múltiple necesita respuestas"));
+            } else if (correctas == 0) {
+                errores.add(new ErrorFila(fila, "La pregunta debe tener al menos una respuesta correcta"));
+            }
+        }
+    }
+
+    private int insertar(Long evaluacionId, List<PreguntaDTO> preguntas) {
+        List<Long> ids = jdbcTemplate.queryForList(SQL_RESERVAR_IDS,
+                new MapSqlParameterSource("cantidad", preguntas.size()), Long.class);
+
+        List<SqlParameterSource> filasPreguntas = new ArrayList<>();
+        List<SqlParameterSource> filasRespuestas = new ArrayList<>();
+        for (int i = 0; i < preguntas.size(); i++) {
+            PreguntaDTO pregunta = preguntas.get(i);
+            Long preguntaId = ids.get(i);
+            filasPreguntas.add(new MapSqlParameterSource()
+                    .addValue("id", preguntaId)
+                    .addValue("enunciado", pregunta.getEnunciado())
+                    .addValue("puntaje", pregunta.getPuntaje())
+                    .addValue("tipo", pregunta.getTipo())
+                    .addValue("respuestaEsperada", pregunta.getRespuestaEsperada())
+                    .addValue("evaluacionId", evaluacionId));
+            if (pregunta.getRespuestas() != null) {
+                for (RespuestaDTO respuesta : pregunta.getRespuestas()) {
+                    filasRespuestas.add(new MapSqlParameterSource()
+                            .addValue("texto", respuesta.getTexto())
+                            .addValue("esCorrecta", respuesta.getEsCorrecta())
+                            .addValue("preguntaId", preguntaId));
+                }
+            }
+        }
+
+        insertarEnLotes(SQL_INSERTAR_PREGUNTA, filasPreguntas);
+        insertarEnLotes(SQL_INSERTAR_RESPUESTA, filasRespuestas);
+        return filasRespuestas.size();
+    }
+
+    private void insertarEnLotes(String sql, List<SqlParameterSource> filas) {
+        for (int desde = 0; desde < filas.size(); desde += tamanoLote) {
+            List<SqlParameterSource> lote = filas.subList(desde, Math.min(desde + tamanoLote, filas.size()));
+            jdbcTemplate.batchUpdate(sql, lote.toArray(SqlParameterSource[]::new));
+        }
+    }
+
+    // Una fila del CSV: las opciones vacías se saltan y "correctas" lista posiciones de opción (1, 2, ...) separadas por |
+    private PreguntaDTO aPregunta(LectorCsv.Registro registro, Map<String, Integer> columnas, List<Integer> columnasOpcion) {
+        PreguntaDTO pregunta = new PreguntaDTO();
+        pregunta.setEnunciado(valor(registro, columnas, "enunciado"));
+        pregunta.setTipo(valor(registro, columnas, "tipo"));
+        pregunta.setRespuestaEsperada(valor(registro, columnas, "respuesta_esperada"));
+
+        String puntaje = valor(registro, columnas, "puntaje");
+        if (puntaje != null) {
+            try {
+                pregunta.setPuntaje(Integer.parseInt(puntaje));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Puntaje inválido: " + puntaje);
+            }
+        }
+
+        // Las posiciones se cuentan por columna de opción, aunque alguna venga vacía
+        Map<Integer, RespuestaDTO> opciones = new LinkedHashMap<>();
+        for (int i = 0; i < columnasOpcion.size(); i++) {
+            String texto = registro.campo(columnasOpcion.get(i));
+            if (texto != null && !texto.isBlank()) {
+                opciones.put(i + 1, RespuestaDTO.builder().texto(texto).esCorrecta(false).build());
+            }
+        }
+
+        String correctas = valor(registro, columnas, "correctas");
+        if (correctas != null) {
+            for (String posicion : correctas.split("\\|")) {
+                if (posicion.isBlank()) {
+                    continue;
+                }
+                RespuestaDTO correcta;
+                try {
+                    correcta = opciones.get(Integer.parseInt(posicion.trim()));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Posición de respuesta correcta inválida: " + posicion.trim());
+                }
+                if (correcta == null) {
+                    throw new IllegalArgumentException("La respuesta correcta " + posicion.trim() + " no existe entre las opciones");
+                }
+                correcta.setEsCorrecta(true);
+            }
+        }
+        List<RespuestaDTO> respuestas = new ArrayList<>(opciones.values());
+        pregunta.setRespuestas(respuestas);
+        return pregunta;
+    }
+
+    private String valor(LectorCsv.Registro registro, Map<String, Integer> columnas, String nombre) {
+        Integer indice = columnas.get(nombre);
+        String valor = indice != null ? registro.campo(indice) : null;
+        return valor == null || valor.isBlank() ? null : valor.trim();
+    }
+}
@@ -0,0 +1,77 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.entity.EvaluacionUsuario;
+import com.capacitapro.backend.repository.EvaluacionUsuarioRepository;
+import com.capacitapro.backend.service.IntentoEvaluacionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Historial de intentos de solo inserción. Cada (usuario, evaluación) tiene a lo sumo un intento marcado
+ * como mejor (índice único parcial), que es el que leen el progreso y los certificados.
+ * Como Hibernate ejecuta los INSERT antes que los UPDATE, la marca anterior se quita con un flush previo.
+ * Los envíos simultáneos del mismo usuario se ordenan con un advisory lock de la transacción: en el primer
+ * intento no hay fila que bloquear, y sin él dos envíos tomarían el mismo número y ambos serían el mejor.
+ */
+@Service
+@RequiredArgsConstructor
+public class IntentoEvaluacionServiceImpl implements IntentoEvaluacionService {
+
+    private final EvaluacionUsuarioRepository evaluacionUsuarioRepository;
+
+    @Override
+    @Transactional
+    public EvaluacionUsuario registrar(EvaluacionUsuario intento) {
+        Long usuarioId = intento.getUsuario().getId();
+        Long evaluacionId = intento.getEvaluacion().getId();
+        
+        evaluacionUsuarioRepository.bloquearIntentos(usuarioId, evaluacionId);
+        Optional<EvaluacionUsuario> mejor = evaluacionUsuarioRepository.findMejorIntentoParaActualizar(usuarioId, evaluacionId);
+        intento.setIntentos(evaluacionUsuarioRepository.findUltimoIntento(usuarioId, evaluacionId) + 1);
+        
+        if (mejor.isEmpty()) {
+            intento.setMejorIntento(true);
+        } else if (intento.superaA(mejor.get())) {
+            mejor.get().setMejorIntento(false);
+            evaluacionUsuarioRepository.saveAndFlush(mejor.get());
+            intento.setMejorIntento(true);
+        } else {
+            intento.setMejorIntento(false);
+        }
+        return evaluacionUsuarioRepository.save(intento);
+    }
+
+    @Override
+    @Transactional
+    public EvaluacionUsuario actualizar(EvaluacionUsuario intento) {
+        Long usuarioId = intento.getUsuario().getId();
+        Long evaluacionId = intento.getEvaluacion().getId();
+        evaluacionUsuarioRepository.bloquearIntentos(usuarioId, evaluacionId);
+        
+        EvaluacionUsuario guardado = evaluacionUsuarioRepository.saveAndFlush(intento);
+        
+        List<EvaluacionUsuario> historial = evaluacionUsuarioRepository.findHistorial(usuarioId, evaluacionId);
+        EvaluacionUsuario nuevoMejor = historial.get(0);
+        for (EvaluacionUsuario candidato : historial) {
+            if (candidato.superaA(nuevoMejor)) {
+                nuevoMejor = candidato;
+            }
+        }
+        
+        for (EvaluacionUsuario otro : historial) {
+            if (otro != nuevoMejor && Boolean.TRUE.equals(otro.getMejorIntento())) {
+                otro.setMejorIntento(false);
+                evaluacionUsuarioRepository.saveAndFlush(otro);
+            }
+        }
+        if (!Boolean.TRUE.equals(nuevoMejor.getMejorIntento())) {
+            nuevoMejor.setMejorIntento(true);
+            evaluacionUsuarioRepository.save(nuevoMejor);
+        }
+        return guardado;
+    }
+}
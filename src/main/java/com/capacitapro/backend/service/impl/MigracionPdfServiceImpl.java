@@ -0,0 +1,192 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.PdfAlmacenado;
+import com.capacitapro.backend.service.AlmacenPdfService;
+import com.capacitapro.backend.service.MigracionPdfService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Migra los PDFs de certificados desde la columna archivo_pdf al almacén de PDFs, en lotes.
+ * Cada PDF se copia al almacén leyendo el blob como flujo, y en la misma transacción del lote la fila
+ * recibe el digest y el tamaño y se vacía la columna. La entidad ya no mapea archivo_pdf, así que
+ * solo este job lee los blobs antiguos.
+ */
+@Service
+public class MigracionPdfServiceImpl implements MigracionPdfService {
+
+    private static final Logger log = LoggerFactory.getLogger(MigracionPdfServiceImpl.class);
+
+    private static final String SQL_TIPO_COLUMNA =
+            "SELECT data_type FROM information_schema.columns " +
+            "WHERE table_name = 'certificado' AND column_name = 'archivo_pdf'";
+
+    private static final String SQL_PENDIENTES =
+            "SELECT id, archivo_pdf FROM certificado " +
+            "WHERE pdf_digest IS NULL AND archivo_pdf IS NOT NULL ORDER BY id LIMIT :limite";
+
+    private static final String SQL_PENDIENTE_POR_ID =
+            "SELECT id, archivo_pdf FROM certificado " +
+            "WHERE pdf_digest IS NULL AND archivo_pdf IS NOT NULL AND id = :id";
+
+    // Con @Lob en PostgreSQL la columna es un large object (oid): hay que liberarlo antes de vaciarla
+    private static final String SQL_LIBERAR_LARGE_OBJECTS =
+            "SELECT lo_unlink(archivo_pdf) FROM certificado WHERE id IN (:ids) AND archivo_pdf IS NOT NULL";
+
+    private static final String SQL_MARCAR_MIGRADO =
+            "UPDATE certificado SET pdf_digest = :digest, pdf_tamano = :tamano, archivo_pdf = NULL WHERE id = :id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AlmacenPdfService almacenPdfService;
+    private final int tamanoLote;
+
+    // null: aún no se consultó; vacío: la columna no existe (base creada sin el blob)
+    private volatile Optional<String> tipoColumna;
+    private volatile boolean terminado = false;
+
+    private final AtomicLong migrados = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong bytesMigrados = new AtomicLong();
+    private final AtomicLong errores = new AtomicLong();
+
+    public MigracionPdfServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   AlmacenPdfService almacenPdfService,
+                                   @Value("${certificados.migracion.tamano-lote:50}") int tamanoLote) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Transacción propia: la migración puntual se llama desde descargas de solo lectura
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.almacenPdfService = almacenPdfService;
+        this.tamanoLote = tamanoLote;
+    }
+
+    // Avanza lote por lote hasta que no quedan PDFs en la tabla; después solo vuelve a mirar si se pide a mano
+    @Scheduled(initialDelayString = "${certificados.migracion.espera-inicial-ms:60000}",
+               fixedDelayString = "${certificados.migracion.intervalo-ms:300000}")
+    public void migrarPendientes() {
+        if (terminado) {
+            return;
+        }
+        try {
+            int movidos;
+            do {
+                movidos = migrarLote();
+            } while (movidos > 0);
+            terminado = true;
+            log.info("Migración de PDFs de certificados completa: {} archivos, {} bytes", migrados.get(), bytesMigrados.get());
+        } catch (RuntimeException e) {
+            errores.incrementAndGet();
+            log.error("Error migrando PDFs de certificados; se reintentará", e);
+        }
+    }
+
+    @Override
+    public int migrarLote() {
+        if (tipoColumna().isEmpty()) {
+            return 0;
+        }
+        Integer movidos = transactionTemplate.execute(status -> migrar(SQL_PENDIENTES,
+                new MapSqlParameterSource("limite", tamanoLote)).size());
+        lotes.incrementAndGet();
+        return movidos != null ? movidos : 0;
+    }
+
+    @Override
+    public Optional<PdfAlmacenado> migrarCertificado(Long certificadoId) {
+        // Terminada la migración ya no quedan PDFs en la columna: los certificados sin digest se renderizan
+        if (isTerminada()) {
+            return Optional.empty();
+        }
+        List<PdfAlmacenado> movidos = transactionTemplate.execute(status -> migrar(SQL_PENDIENTE_POR_ID,
+                new MapSqlParameterSource("id", certificadoId)));
+        return movidos == null || movidos.isEmpty() ? Optional.empty() : Optional.of(movidos.get(0));
+    }
+
+    @Override
+    public boolean isTerminada() {
+        return terminado || tipoColumna().isEmpty();
+    }
+
+    @Override
+    public Map<String, Object> estado() {
+        Map<String, Object> estado = new HashMap<>();
+        estado.put("terminado", terminado);
+        estado.put("migrados", migrados.get());
+        estado.put("bytesMigrados", bytesMigrados.get());
+        estado.put("lotes", lotes.get());
+        estado.put("errores", errores.get());
+        estado.put("tamanoLote", tamanoLote);
+        estado.put("tipoColumnaOrigen", tipoColumna().orElse("sin columna"));
+        return estado;
+    }
+
+    private List<PdfAlmacenado> migrar(String sqlPendientes, MapSqlParameterSource params) {
+        Map<Long, PdfAlmacenado> movidos = new LinkedHashMap<>();
+        jdbcTemplate.query(sqlPendientes, params, rs -> {
+            long id = rs.getLong("id");
+            try (InputStream contenido = leerBlob(rs)) {
+                movidos.put(id, almacenPdfService.guardar(contenido));
+            } catch (IOException e) {
+                throw new RuntimeException("No se pudo leer el PDF del certificado " + id, e);
+            }
+        });
+
+        if (movidos.isEmpty()) {
+            return List.of();
+        }
+
+        if (esLargeObject()) {
+            jdbcTemplate.queryForList(SQL_LIBERAR_LARGE_OBJECTS, new MapSqlParameterSource("ids", movidos.keySet()));
+        }
+
+        MapSqlParameterSource[] actualizaciones = movidos.entrySet().stream()
+                .map(e -> new MapSqlParameterSource()
+                        .addValue("id", e.getKey())
+                        .addValue("digest", e.getValue().digest())
+                        .addValue("tamano", e.getValue().tamano()))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(SQL_MARCAR_MIGRADO, actualizaciones);
+
+        migrados.addAndGet(movidos.size());
+        movidos.values().forEach(pdf -> bytesMigrados.addAndGet(pdf.tamano()));
+        log.debug("Lote de PDFs migrado al almacén: {} certificados", movidos.size());
+        return new ArrayList<>(movidos.values());
+    }
+
+    private InputStream leerBlob(ResultSet rs) throws SQLException {
+        return esLargeObject()
+                ? rs.getBlob("archivo_pdf").getBinaryStream()
+                : rs.getBinaryStream("archivo_pdf");
+    }
+
+    private boolean esLargeObject() {
+        return tipoColumna().map("oid"::equalsIgnoreCase).orElse(false);
+    }
+
+    private Optional<String> tipoColumna() {
+        Optional<String> tipo = tipoColumna;
+        if (tipo == null) {
+            List<String> tipos = jdbcTemplate.getJdbcTemplate().queryForList(SQL_TIPO_COLUMNA, String.class);
+            tipo = tipos.isEmpty() ? Optional.empty() : Optional.of(tipos.get(0));
+            tipoColumna = tipo;
+        }
+        return tipo;
+    }
+}
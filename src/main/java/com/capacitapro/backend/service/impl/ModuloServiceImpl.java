@@ -3,6 +3,7 @@ package com.capacitapro.backend.service.impl;
 import com.capacitapro.backend.dto.*;
 import com.capacitapro.backend.entity.*;
 import com.capacitapro.backend.repository.*;
+import com.capacitapro.backend.service.EstructuraCursoService;
 import com.capacitapro.backend.service.ModuloService;
 import com.capacitapro.backend.service.FileStorageService;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +24,7 @@ public class ModuloServiceImpl implements ModuloService {
     private final ModuloRepository moduloRepository;
     private final CursoRepository cursoRepository;
     private final FileStorageService fileStorageService;
+    private final EstructuraCursoService estructuraCursoService;
 
     @Override
     @Transactional(readOnly = true)
@@ -84,6 +86,7 @@ public class ModuloServiceImpl implements ModuloService {
         }
 
         modulo = moduloRepository.save(modulo);
+        estructuraCursoService.invalidar(curso.getId());
         return mapToDTO(modulo);
     }
 
@@ -103,6 +106,7 @@ public class ModuloServiceImpl implements ModuloService {
         modulo.setOrden(moduloDTO.getOrden());
 
         modulo = moduloRepository.save(modulo);
+        estructuraCursoService.invalidar(modulo.getCurso().getId());
         return mapToDTO(modulo);
     }
 
@@ -111,6 +115,7 @@ public class ModuloServiceImpl implements ModuloService {
         Modulo modulo = obtenerModuloConPermisos(id, usuario);
         modulo.setActivo(false);
         moduloRepository.save(modulo);
+        estructuraCursoService.invalidar(modulo.getCurso().getId());
     }
     
     @Override
@@ -0,0 +1,53 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.entity.Certificado;
+import com.capacitapro.backend.entity.Empresa;
+import com.capacitapro.backend.service.PlantillaCertificadoService;
+import com.capacitapro.backend.util.LruCache;
+import com.capacitapro.backend.util.PlantillaCertificado;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Plantillas de certificado compiladas por empresa. La clave incluye el nombre de la empresa,
+ * así que si cambia se compila una plantilla nueva y la anterior sale por LRU. La versión entra en el
+ * identificador del PDF: con la misma versión, un certificado se renderiza siempre igual.
+ */
+@Service
+public class PlantillaCertificadoServiceImpl implements PlantillaCertificadoService {
+
+    private final LruCache<ClavePlantilla, PlantillaCertificado> cache;
+    private final int version;
+
+    public PlantillaCertificadoServiceImpl(@Value("${certificados.plantilla.capacidad:100}") int capacidad,
+                                           @Value("${certificados.plantilla.version:2}") int version) {
+        this.cache = new LruCache<>("plantilla-certificado", capacidad);
+        this.version = version;
+    }
+
+    @Override
+    public void renderizar(Certificado certificado, OutputStream salida) {
+        Empresa empresa = certificado.getCurso().getEmpresa();
+        PlantillaCertificado plantilla = cache.obtener(new ClavePlantilla(empresa.getId(), empresa.getNombre()),
+                clave -> PlantillaCertificado.compilar(clave.nombre()));
+
+        plantilla.estampar(certificado.getUsuario().getNombre(), certificado.getCurso().getTitulo(),
+                certificado.getFechaGeneracion(), certificado.getCodigoVerificacion(), version, salida);
+    }
+
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public Map<String, Object> estadisticas() {
+        return cache.estadisticas();
+    }
+
+    private record ClavePlantilla(Long empresaId, String nombre) {
+    }
+}
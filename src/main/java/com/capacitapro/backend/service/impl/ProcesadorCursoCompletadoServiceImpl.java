@@ -0,0 +1,286 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.entity.EventoCursoCompletado;
+import com.capacitapro.backend.entity.Usuario;
+import com.capacitapro.backend.event.CursoCompletadoEvent;
+import com.capacitapro.backend.repository.EventoCursoCompletadoRepository;
+import com.capacitapro.backend.repository.UsuarioRepository;
+import com.capacitapro.backend.service.CertificadoService;
+import com.capacitapro.backend.service.ProcesadorCursoCompletadoService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Procesa el outbox de cursos completados (lo escribe ProgresoServiceImpl al completar la inscripción):
+ * emite el certificado de cada finalización.
+ * Los eventos se toman de la tabla solo cuando hay lugar en el pool, así que una ráfaga de
+ * finalizaciones espera en la base y no en memoria. Cada fallo se reintenta con espera exponencial
+ * hasta el máximo de intentos; después queda FALLIDO hasta que un administrador lo reintente.
+ */
+@Service
+public class ProcesadorCursoCompletadoServiceImpl implements ProcesadorCursoCompletadoService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcesadorCursoCompletadoServiceImpl.class);
+
+    private final EventoCursoCompletadoRepository eventoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final CertificadoService certificadoService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int hilos;
+    private final int capacidadCola;
+    private final int maxIntentos;
+    private final long esperaBaseMs;
+    private final long esperaMaximaMs;
+    private final long plazoProcesoMs;
+
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService sondeo;
+    private final AtomicBoolean sondeoPendiente = new AtomicBoolean();
+    private final AtomicInteger enVuelo = new AtomicInteger();
+
+    private final AtomicLong tomados = new AtomicLong();
+    private final AtomicLong procesados = new AtomicLong();
+    private final AtomicLong reintentos = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+    private final AtomicLong esperaTotalMs = new AtomicLong();
+    private final AtomicLong ejecucionTotalMs = new AtomicLong();
+    private final AtomicLong ejecucionMaximaMs = new AtomicLong();
+
+    public ProcesadorCursoCompletadoServiceImpl(EventoCursoCompletadoRepository eventoRepository,
+                                                UsuarioRepository usuarioRepository,
+                                                CertificadoService certificadoService,
+                                                NamedParameterJdbcTemplate jdbcTemplate,
+                                                PlatformTransactionManager transactionManager,
+                                                @Value("${completados.procesador.hilos:2}") int hilos,
+                                                @Value("${completados.procesador.capacidad-cola:50}") int capacidadCola,
+                                                @Value("${completados.procesador.max-intentos:6}") int maxIntentos,
+                                                @Value("${completados.procesador.espera-base-ms:5000}") long esperaBaseMs,
+                                                @Value("${completados.procesador.espera-maxima-ms:3600000}") long esperaMaximaMs,
+                                                @Value("${completados.procesador.plazo-proceso-ms:600000}") long plazoProcesoMs) {
+        this.eventoRepository = eventoRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.certificadoService = certificadoService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hilos = hilos;
+        this.capacidadCola = capacidadCola;
+        this.maxIntentos = maxIntentos;
+        this.esperaBaseMs = esperaBaseMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.plazoProcesoMs = plazoProcesoMs;
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), r -> {
+                    Thread t = new Thread(r, "curso-completado-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.sondeo = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "curso-completado-sondeo");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // El evento se publica en la misma transacción que escribe el outbox: al confirmarse ya se puede tomar
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCursoCompletado(CursoCompletadoEvent event) {
+        despertar();
+    }
+
+    // Retoma lo que quedó pendiente antes de un reinicio
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        despertar();
+    }
+
+    @Override
+    public void despertar() {
+        // Varias llamadas seguidas se colapsan en un solo sondeo
+        if (sondeoPendiente.compareAndSet(false, true)) {
+            try {
+                sondeo.execute(() -> {
+                    sondeoPendiente.set(false);
+                    sondear();
+                });
+            } catch (RejectedExecutionException e) {
+                sondeoPendiente.set(false);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${completados.procesador.intervalo-ms:10000}")
+    public void sondeoProgramado() {
+        despertar();
+    }
+
+    @Scheduled(fixedDelayString = "${completados.procesador.limpieza-ms:21600000}")
+    public void limpiar() {
+        Integer eliminados = transactionTemplate.execute(status ->
+                eventoRepository.eliminarProcesadosAntesDe(LocalDateTime.now().minusDays(30)));
+        if (eliminados != null && eliminados > 0) {
+            log.info("Outbox de cursos completados: {} eventos procesados eliminados", eliminados);
+        }
+    }
+
+    @Override
+    public int reintentarFallidos() {
+        Integer reactivados = transactionTemplate.execute(status -> eventoRepository.reintentarFallidos(LocalDateTime.now()));
+        despertar();
+        return reactivados != null ? reactivados : 0;
+    }
+
+    @Override
+    public Map<String, Object> estadisticas() {
+        long totalProcesados = procesados.get() + fallidos.get();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hilos", hilos);
+        stats.put("capacidadCola", capacidadCola);
+        stats.put("activos", executor.getActiveCount());
+        stats.put("enCola", executor.getQueue().size());
+        stats.put("pendientesEnTabla", eventoRepository.countByEstado(EventoCursoCompletado.PENDIENTE));
+        stats.put("fallidosEnTabla", eventoRepository.countByEstado(EventoCursoCompletado.FALLIDO));
+        stats.put("tomados", tomados.get());
+        stats.put("procesados", procesados.get());
+        stats.put("reintentos", reintentos.get());
+        stats.put("fallidos", fallidos.get());
+        stats.put("esperaPromedioMs", totalProcesados > 0 ? esperaTotalMs.get() / totalProcesados : 0);
+        stats.put("ejecucionPromedioMs", totalProcesados > 0 ? ejecucionTotalMs.get() / totalProcesados : 0);
+        stats.put("ejecucionMaximaMs", ejecucionMaximaMs.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        // Lo que no termine queda EN_PROCESO y se retoma al vencer el plazo
+        sondeo.shutdownNow();
+        executor.shutdown();
+        if (!executor.awaitTermination(20, TimeUnit.SECONDS)) {
+            log.warn("Eventos de curso completado sin terminar al detener: {}", enVuelo.get());
+            executor.shutdownNow();
+        }
+    }
+
+    private void sondear() {
+        try {
+            while (true) {
+                // Solo se toma lo que entra en el pool: el resto espera en la tabla
+                int libres = hilos + capacidadCola - enVuelo.get();
+                if (libres <= 0) {
+                    return;
+                }
+                List<Reclamado> reclamados = reclamar(libres);
+                if (reclamados.isEmpty()) {
+                    return;
+                }
+                for (Reclamado reclamado : reclamados) {
+                    enVuelo.incrementAndGet();
+                    executor.execute(() -> procesar(reclamado));
+                }
+                tomados.addAndGet(reclamados.size());
+                if (reclamados.size() < libres) {
+                    return;
+                }
+            }
+        } catch (RejectedExecutionException e) {
+            // Apagando: lo reservado se retoma al vencer el plazo
+        } catch (Exception e) {
+            log.error("Error tomando eventos de curso completado", e);
+        }
+    }
+
+    private List<Reclamado> reclamar(int limite) {
+        LocalDateTime ahora = LocalDateTime.now();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ahora", ahora)
+                .addValue("plazo", ahora.plus(plazoProcesoMs, ChronoUnit.MILLIS))
+                .addValue("limite", limite);
+        return transactionTemplate.execute(status -> jdbcTemplate.query(EventoCursoCompletadoRepository.SQL_RECLAMAR, params,
+                (rs, i) -> new Reclamado(rs.getLong("id"), rs.getLong("curso_id"), rs.getLong("usuario_id"),
+                        rs.getInt("intentos"), System.currentTimeMillis())));
+    }
+
+    private void procesar(Reclamado evento) {
+        long inicio = System.currentTimeMillis();
+        esperaTotalMs.addAndGet(inicio - evento.tomadoEn());
+        try {
+            Usuario usuario = usuarioRepository.findById(evento.usuarioId())
+                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+            // Idempotente: si el certificado ya existe lo devuelve sin crear otro
+            certificadoService.generarCertificado(evento.cursoId(), usuario);
+            transactionTemplate.executeWithoutResult(status ->
+                    eventoRepository.marcarProcesado(evento.id(), LocalDateTime.now()));
+            procesados.incrementAndGet();
+            log.info("Certificado emitido para usuario {} en curso {} (evento {})", evento.usuarioId(), evento.cursoId(), evento.id());
+        } catch (Exception e) {
+            registrarFallo(evento, e);
+        } finally {
+            long duracion = System.currentTimeMillis() - inicio;
+            ejecucionTotalMs.addAndGet(duracion);
+            ejecucionMaximaMs.accumulateAndGet(duracion, Math::max);
+            enVuelo.decrementAndGet();
+        }
+    }
+
+    private void registrarFallo(Reclamado evento, Exception e) {
+        int intento = evento.intentos() + 1;
+        boolean agotado = intento >= maxIntentos;
+        String mensaje = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        if (mensaje.length() > 1000) {
+            mensaje = mensaje.substring(0, 1000);
+        }
+        
+        // Espera exponencial con algo de azar para que los reintentos no lleguen todos juntos
+        long espera = Math.min(esperaMaximaMs, esperaBaseMs << Math.min(intento - 1, 20));
+        espera += ThreadLocalRandom.current().nextLong(espera / 4 + 1);
+        String estado = agotado ? EventoCursoCompletado.FALLIDO : EventoCursoCompletado.PENDIENTE;
+        LocalDateTime proximo = LocalDateTime.now().plus(espera, ChronoUnit.MILLIS);
+        String error = mensaje;
+        
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    eventoRepository.registrarFallo(evento.id(), estado, proximo, error));
+        } catch (Exception ex) {
+            // Queda EN_PROCESO y se vuelve a tomar al vencer el plazo
+            log.error("No se pudo registrar el fallo del evento {}", evento.id(), ex);
+        }
+        
+        if (agotado) {
+            fallidos.incrementAndGet();
+            log.error("Evento {} (usuario {}, curso {}) falló {} veces: {}", evento.id(), evento.usuarioId(),
+                    evento.cursoId(), intento, mensaje);
+        } else {
+            reintentos.incrementAndGet();
+            log.warn("Evento {} falló (intento {}), se reintentará en {} ms: {}", evento.id(), intento, espera, mensaje);
+        }
+    }
+
+    private record Reclamado(Long id, Long cursoId, Long usuarioId, int intentos, long tomadoEn) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.ResumenProgreso;
+import com.capacitapro.backend.entity.CursoUsuario;
+import com.capacitapro.backend.entity.ProgresoContador;
+import com.capacitapro.backend.entity.Usuario;
+import com.capacitapro.backend.repository.CursoUsuarioRepository;
+import com.capacitapro.backend.repository.ProgresoContadorRepository;
+import com.capacitapro.backend.service.ProgresoContadorService;
+import com.capacitapro.backend.service.ProgresoLecturaService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ProgresoContadorServiceImpl implements ProgresoContadorService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProgresoContadorServiceImpl.class);
+
+    private final ProgresoContadorRepository progresoContadorRepository;
+    private final CursoUsuarioRepository cursoUsuarioRepository;
+    private final ProgresoLecturaService progresoLecturaService;
+
+    @Override
+    public ProgresoContador obtener(Long cursoId, Usuario usuario) {
+        return progresoContadorRepository.findById(new ProgresoContador.Clave(usuario.getId(), cursoId))
+                .orElseGet(() -> reconstruir(cursoId, usuario));
+    }
+
+    @Override
+    public void registrarSubmoduloCompletado(Long cursoId, Usuario usuario, boolean moduloCompletado) {
+        int actualizadas = progresoContadorRepository.incrementarElementoCompletado(
+                usuario.getId(), cursoId, moduloCompletado ? 1 : 0);
+        
+        // Primera actividad de la inscripción: la reconstrucción ya incluye el submódulo recién guardado
+        if (actualizadas == 0) {
+            reconstruir(cursoId, usuario);
+        }
+    }
+
+    @Override
+    public ProgresoContador reconstruir(Long cursoId, Usuario usuario) {
+        ResumenProgreso resumen = progresoLecturaService.obtenerResumen(cursoId, usuario);
+        
+        ProgresoContador contador = ProgresoContador.builder()
+                .usuarioId(usuario.getId())
+                .cursoId(cursoId)
+                .totalElementos(resumen.getTotalElementos())
+                .elementosCompletados(resumen.getElementosCompletados())
+                .totalModulos(resumen.getTotalModulos())
+                .modulosCompletados(resumen.getModulosCompletados())
+                .totalEvaluaciones(resumen.getTotalEvaluaciones())
+                .evaluacionesAprobadas(resumen.getEvaluacionesAprobadas())
+                .fechaActualizacion(LocalDateTime.now())
+                .build();
+        
+        progresoContadorRepository.guardar(contador);
+        return contador;
+    }
+
+    @Override
+    public int reconstruirCurso(Long cursoId) {
+        List<CursoUsuario> inscripciones = cursoUsuarioRepository.findByCursoId(cursoId);
+        for (CursoUsuario cu : inscripciones) {
+            reconstruir(cursoId, cu.getUsuario());
+        }
+        log.info("Contadores de progreso reconstruidos para curso {}: {} inscripciones", cursoId, inscripciones.size());
+        return inscripciones.size();
+    }
+}
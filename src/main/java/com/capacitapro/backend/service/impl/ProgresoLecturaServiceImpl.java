@@ -0,0 +1,177 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.EstructuraCurso;
+import com.capacitapro.backend.dto.EstructuraCurso.EvaluacionEstructura;
+import com.capacitapro.backend.dto.EstructuraCurso.ModuloEstructura;
+import com.capacitapro.backend.dto.EstructuraCurso.SubmoduloEstructura;
+import com.capacitapro.backend.dto.ResumenProgreso;
+import com.capacitapro.backend.entity.*;
+import com.capacitapro.backend.repository.*;
+import com.capacitapro.backend.service.EstructuraCursoService;
+import com.capacitapro.backend.service.ProgresoLecturaService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Modelo de lectura del progreso de un curso.
+ * Toma la estructura del curso de la caché y carga todo el progreso del usuario en un número fijo
+ * de consultas, sin importar cuántos módulos o submódulos tenga el curso.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ProgresoLecturaServiceImpl implements ProgresoLecturaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProgresoLecturaServiceImpl.class);
+
+    private final EstructuraCursoService estructuraCursoService;
+    private final ModuloProgresoRepository moduloProgresoRepository;
+    private final SubmoduloProgresoRepository submoduloProgresoRepository;
+    private final EvaluacionUsuarioRepository evaluacionUsuarioRepository;
+
+    @Override
+    public Map<String, Object> obtenerProgresoCurso(Long cursoId, Usuario usuario) {
+        DatosCurso datos = cargar(cursoId, usuario);
+        
+        if (datos.estructura().isVacia()) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("cursoId", cursoId);
+            response.put("totalModulos", 0);
+            response.put("modulosCompletados", 0);
+            response.put("progresoGeneral", 0);
+            response.put("modulos", new ArrayList<>());
+            return response;
+        }
+        
+        // Armar la respuesta y el progreso general en una sola pasada
+        List<Map<String, Object>> modulosProgreso = new ArrayList<>();
+        int modulosCompletados = 0;
+        int totalElementosCurso = 0;
+        int elementosCompletadosCurso = 0;
+        
+        for (ModuloEstructura modulo : datos.estructura().getModulos()) {
+            List<SubmoduloEstructura> submodulos = modulo.submodulos();
+            ModuloProgreso progreso = datos.progresoPorModulo().get(modulo.id());
+            
+            Map<String, Object> moduloData = new HashMap<>();
+            moduloData.put("id", modulo.id());
+            moduloData.put("titulo", modulo.titulo() != null ? modulo.titulo() : "Módulo sin título");
+            moduloData.put("descripcion", modulo.contenido() != null ? modulo.contenido() : "");
+            moduloData.put("orden", modulo.orden() != null ? modulo.orden() : 0);
+            moduloData.put("completado", progreso != null && progreso.getCompletado() != null ? progreso.getCompletado() : false);
+            moduloData.put("porcentajeProgreso", progreso != null && progreso.getPorcentajeProgreso() != null ? progreso.getPorcentajeProgreso() : 0);
+            moduloData.put("fechaInicio", progreso != null ? progreso.getFechaInicio() : null);
+            moduloData.put("fechaCompletado", progreso != null ? progreso.getFechaCompletado() : null);
+            moduloData.put("totalSubmodulos", submodulos.size());
+            
+            List<Map<String, Object>> submodulosData = new ArrayList<>();
+            for (SubmoduloEstructura sub : submodulos) {
+                Map<String, Object> subData = new HashMap<>();
+                subData.put("id", sub.id());
+                subData.put("titulo", sub.titulo() != null ? sub.titulo() : "Sin título");
+                subData.put("tipo", sub.tipo() != null ? sub.tipo() : "TEXTO");
+                subData.put("contenido", sub.contenido() != null ? sub.contenido() : "");
+                subData.put("orden", sub.orden() != null ? sub.orden() : 0);
+                subData.put("completado", datos.submodulosCompletados().contains(sub.id()));
+                submodulosData.add(subData);
+            }
+            
+            // Las evaluaciones del módulo se muestran como submódulos; si no hay, se muestran las del curso
+            List<EvaluacionEstructura> evaluacionesVisibles = modulo.evaluaciones().isEmpty()
+                    ? datos.estructura().getEvaluacionesCurso() : modulo.evaluaciones();
+            for (int i = 0; i < evaluacionesVisibles.size(); i++) {
+                EvaluacionEstructura eval = evaluacionesVisibles.get(i);
+                Map<String, Object> evalData = new HashMap<>();
+                evalData.put("id", "eval_" + eval.id());
+                evalData.put("titulo", "Evaluación: " + eval.titulo());
+                evalData.put("tipo", "EVALUACION");
+                evalData.put("contenido", eval.id().toString());
+                evalData.put("orden", submodulos.size() + i + 1);
+                evalData.put("evaluacionId", eval.id());
+                evalData.put("descripcion", eval.descripcion());
+                evalData.put("notaMinima", eval.notaMinima());
+                evalData.put("completado", datos.evaluacionesAprobadas().contains(eval.id()));
+                submodulosData.add(evalData);
+            }
+            
+            moduloData.put("submodulos", submodulosData);
+            modulosProgreso.add(moduloData);
+            
+            int elementosModulo = modulo.totalElementos();
+            int elementosCompletadosModulo = datos.elementosCompletadosDe(modulo);
+            totalElementosCurso += elementosModulo;
+            elementosCompletadosCurso += elementosCompletadosModulo;
+            
+            if (elementosModulo > 0 && elementosCompletadosModulo >= elementosModulo) {
+                modulosCompletados++;
+            }
+        }
+        
+        int progresoGeneral = totalElementosCurso > 0 ? (elementosCompletadosCurso * 100) / totalElementosCurso : 0;
+        progresoGeneral = Math.min(progresoGeneral, 100);
+        
+        log.debug("Progreso curso {}: {}/{} elementos, {}/{} módulos", cursoId,
+                elementosCompletadosCurso, totalElementosCurso, modulosCompletados, datos.estructura().getModulos().size());
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("cursoId", cursoId);
+        response.put("totalModulos", datos.estructura().getModulos().size());
+        response.put("modulosCompletados", modulosCompletados);
+        response.put("progresoGeneral", progresoGeneral);
+        response.put("modulos", modulosProgreso);
+        return response;
+    }
+    
+    @Override
+    public ResumenProgreso obtenerResumen(Long cursoId, Usuario usuario) {
+        DatosCurso datos = cargar(cursoId, usuario);
+        return datos.estructura().resumir(datos.completadosPorModulo(), datos.evaluacionesAprobadas());
+    }
+    
+    private DatosCurso cargar(Long cursoId, Usuario usuario) {
+        EstructuraCurso estructura = estructuraCursoService.obtener(cursoId);
+        if (estructura.isVacia()) {
+            return new DatosCurso(estructura, Map.of(), Set.of(), Map.of(), Set.of());
+        }
+        
+        List<Long> moduloIds = estructura.moduloIds();
+        
+        // Progreso del usuario
+        Map<Long, ModuloProgreso> progresoPorModulo = new HashMap<>();
+        for (ModuloProgreso mp : moduloProgresoRepository.findByUsuarioAndModulo_Curso_Id(usuario, cursoId)) {
+            progresoPorModulo.putIfAbsent(mp.getModulo().getId(), mp);
+        }
+        
+        Set<Long> submodulosCompletados = new HashSet<>();
+        Map<Long, Long> completadosPorModulo = new HashMap<>();
+        for (Object[] fila : submoduloProgresoRepository.findCompletadosByUsuarioAndModuloIds(usuario, moduloIds)) {
+            submodulosCompletados.add((Long) fila[0]);
+            completadosPorModulo.merge((Long) fila[1], 1L, Long::sum);
+        }
+        
+        Set<Long> evaluacionesAprobadas = estructura.getEvaluacionIds().isEmpty()
+                ? Collections.emptySet()
+                : new HashSet<>(evaluacionUsuarioRepository.findEvaluacionIdsAprobadas(usuario, estructura.getEvaluacionIds()));
+        
+        return new DatosCurso(estructura, progresoPorModulo, submodulosCompletados, completadosPorModulo, evaluacionesAprobadas);
+    }
+    
+    // Estructura del curso (de la caché) y progreso del usuario ya cargados en memoria
+    private record DatosCurso(
+            EstructuraCurso estructura,
+            Map<Long, ModuloProgreso> progresoPorModulo,
+            Set<Long> submodulosCompletados,
+            Map<Long, Long> completadosPorModulo,
+            Set<Long> evaluacionesAprobadas) {
+        
+        int elementosCompletadosDe(ModuloEstructura modulo) {
+            return estructura.elementosCompletados(modulo,
+                    completadosPorModulo.getOrDefault(modulo.id(), 0L), evaluacionesAprobadas);
+        }
+    }
+}
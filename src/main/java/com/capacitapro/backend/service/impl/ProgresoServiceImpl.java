@@ -1,24 +1,37 @@
 package com.capacitapro.backend.service.impl;
 
+import com.capacitapro.backend.dto.EstructuraCurso;
 import com.capacitapro.backend.dto.ProgresoDTO;
+import com.capacitapro.backend.dto.ResumenProgreso;
 import com.capacitapro.backend.entity.*;
 import com.capacitapro.backend.event.CursoCompletadoEvent;
+import com.capacitapro.backend.event.ProgresoActualizadoEvent;
 import com.capacitapro.backend.repository.CursoRepository;
 import com.capacitapro.backend.repository.ModuloRepository;
 import com.capacitapro.backend.repository.ModuloProgresoRepository;
 import com.capacitapro.backend.repository.CursoUsuarioRepository;
 import com.capacitapro.backend.repository.EvaluacionRepository;
 import com.capacitapro.backend.repository.EvaluacionUsuarioRepository;
+import com.capacitapro.backend.repository.EventoCursoCompletadoRepository;
+import com.capacitapro.backend.repository.SubmoduloProgresoRepository;
+import com.capacitapro.backend.service.EstructuraCursoService;
+import com.capacitapro.backend.service.ProgresoContadorService;
 import com.capacitapro.backend.service.ProgresoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import com.capacitapro.backend.util.SecurityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,11 +50,12 @@ public class ProgresoServiceImpl implements ProgresoService {
     private final EvaluacionRepository evaluacionRepository;
     private final EvaluacionUsuarioRepository evaluacionUsuarioRepository;
     private final ApplicationEventPublisher eventPublisher;
-    private final com.capacitapro.backend.repository.SubmoduloRepository submoduloRepository;
-    private final com.capacitapro.backend.repository.SubmoduloProgresoRepository submoduloProgresoRepository;
+    private final ProgresoContadorService progresoContadorService;
+    private final SubmoduloProgresoRepository submoduloProgresoRepository;
+    private final EstructuraCursoService estructuraCursoService;
+    private final EventoCursoCompletadoRepository eventoCursoCompletadoRepository;
 
     @Override
-    @Transactional(readOnly = true)
     public ProgresoDTO obtenerProgresoCurso(Long cursoId, Usuario usuario) {
         Curso curso = cursoRepository.findById(cursoId)
                 .orElseThrow(() -> new RuntimeException("Curso no encontrado"));
@@ -53,58 +67,97 @@ public class ProgresoServiceImpl implements ProgresoService {
         CursoUsuario cursoUsuario = cursoUsuarioRepository.findByCursoAndUsuario(curso, usuario)
                 .orElse(null);
         
-        // USAR LA MISMA LÓGICA QUE EL PROGRESO GENERAL
-        ConteoProgreso conteo = contarElementosComoProgresoGeneral(cursoId, usuario);
-        
-        Integer porcentajeProgreso = conteo.totalElementos > 0 ? 
-            (int) ((conteo.elementosCompletados * 100) / conteo.totalElementos) : 0;
-        porcentajeProgreso = Math.min(porcentajeProgreso, 100);
+        // Contadores mantenidos incrementalmente (misma lógica que el progreso general)
+        ProgresoContador contador = progresoContadorService.obtener(cursoId, usuario);
+        Integer porcentajeProgreso = contador.getPorcentajeProgreso();
         
-        log.info("Obteniendo progreso curso - Usuario: {}, Progreso: {}%", 
-                SecurityUtils.sanitizeUsername(usuario.getNombre()), porcentajeProgreso);
-        System.out.println("Usuario: " + usuario.getNombre());
-        System.out.println("Curso: " + curso.getTitulo());
-        System.out.println("Total elementos: " + conteo.totalElementos);
-        System.out.println("Elementos completados: " + conteo.elementosCompletados);
-        System.out.println("Progreso calculado: " + porcentajeProgreso + "%");
-        System.out.println("Completado en BD: " + (cursoUsuario != null ? cursoUsuario.getCompletado() : false));
-        
-        // Para compatibilidad, calcular módulos y evaluaciones por separado
-        Long totalModulos = moduloRepository.countActivosByCursoId(cursoId);
-        Long modulosCompletados = moduloProgresoRepository.countCompletadosByUsuarioAndCurso(usuario.getId(), cursoId);
-        Long totalEvaluaciones = evaluacionRepository.countActivasByCursoId(cursoId);
-        Long evaluacionesAprobadas = evaluacionUsuarioRepository.countAprobadasByUsuarioAndCurso(usuario.getId(), cursoId);
+        log.debug("Obteniendo progreso curso - Usuario: {}, Progreso: {}% ({}/{} elementos)", 
+                SecurityUtils.sanitizeUsername(usuario.getNombre()), porcentajeProgreso,
+                contador.getElementosCompletados(), contador.getTotalElementos());
         
         return ProgresoDTO.builder()
                 .usuarioId(usuario.getId())
                 .nombreUsuario(usuario.getNombre())
                 .cursoId(cursoId)
                 .nombreCurso(curso.getTitulo())
-                .porcentajeProgreso(porcentajeProgreso) // USAR EL PROGRESO CORRECTO
+                .porcentajeProgreso(porcentajeProgreso)
                 .completado(cursoUsuario != null ? cursoUsuario.getCompletado() : false)
                 .fechaInicio(cursoUsuario != null && cursoUsuario.getFechaInicio() != null ? 
                     cursoUsuario.getFechaInicio().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) : null)
                 .fechaCompletado(cursoUsuario != null && cursoUsuario.getFechaCompletado() != null ? 
                     cursoUsuario.getFechaCompletado().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) : null)
-                .modulosCompletados(modulosCompletados.intValue())
-                .totalModulos(totalModulos.intValue())
-                .evaluacionesAprobadas(evaluacionesAprobadas.intValue())
-                .totalEvaluaciones(totalEvaluaciones.intValue())
+                .modulosCompletados(contador.getModulosCompletados())
+                .totalModulos(contador.getTotalModulos())
+                .evaluacionesAprobadas(contador.getEvaluacionesAprobadas())
+                .totalEvaluaciones(contador.getTotalEvaluaciones())
                 .build();
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ProgresoDTO> listarProgresoEmpresa(Usuario admin) {
+    public Page<ProgresoDTO> listarProgresoEmpresa(Usuario admin, Pageable pageable) {
         if (!"ADMIN".equals(admin.getRol())) {
             throw new RuntimeException("Solo los administradores pueden ver el progreso de la empresa");
         }
         
-        List<CursoUsuario> cursosUsuarios = cursoUsuarioRepository.findByCurso_Empresa(admin.getEmpresa());
+        Page<CursoUsuario> pagina = cursoUsuarioRepository.findPaginaByEmpresaId(admin.getEmpresa().getId(), pageable);
+        // Estructura de cada curso de la página (desde la caché)
+        Map<Long, EstructuraCurso> estructuras = new HashMap<>();
+        Set<Long> usuarioIds = new HashSet<>();
+        for (CursoUsuario cu : pagina) {
+            estructuras.computeIfAbsent(cu.getCurso().getId(), estructuraCursoService::obtener);
+            usuarioIds.add(cu.getUsuario().getId());
+        }
+        
+        Set<Long> moduloIds = new HashSet<>();
+        Set<Long> evaluacionIds = new HashSet<>();
+        for (EstructuraCurso estructura : estructuras.values()) {
+            moduloIds.addAll(estructura.moduloIds());
+            evaluacionIds.addAll(estructura.getEvaluacionIds());
+        }
+        
+        // Progreso de todos los usuarios de la página en dos consultas agrupadas
+        Map<Long, Map<Long, Long>> completadosPorUsuario = new HashMap<>();
+        if (!moduloIds.isEmpty()) {
+            for (Object[] fila : submoduloProgresoRepository.contarCompletadosPorUsuarioYModulo(usuarioIds, moduloIds)) {
+                completadosPorUsuario.computeIfAbsent((Long) fila[0], id -> new HashMap<>())
+                        .put((Long) fila[1], (Long) fila[2]);
+            }
+        }
+        
+        Map<Long, Set<Long>> aprobadasPorUsuario = new HashMap<>();
+        if (!evaluacionIds.isEmpty()) {
+            for (Object[] fila : evaluacionUsuarioRepository.findAprobadasByUsuarioIds(usuarioIds, evaluacionIds)) {
+                aprobadasPorUsuario.computeIfAbsent((Long) fila[0], id -> new HashSet<>()).add((Long) fila[1]);
+            }
+        }
         
-        return cursosUsuarios.stream()
-                .map(cu -> obtenerProgresoCurso(cu.getCurso().getId(), cu.getUsuario()))
-                .collect(Collectors.toList());
+        return pagina.map(cu -> {
+            Long usuarioId = cu.getUsuario().getId();
+            ResumenProgreso resumen = estructuras.get(cu.getCurso().getId()).resumir(
+                    completadosPorUsuario.getOrDefault(usuarioId, Map.of()),
+                    aprobadasPorUsuario.getOrDefault(usuarioId, Set.of()));
+            return aProgresoDTO(cu, resumen);
+        });
+    }
+    
+    private ProgresoDTO aProgresoDTO(CursoUsuario cu, ResumenProgreso resumen) {
+        return ProgresoDTO.builder()
+                .usuarioId(cu.getUsuario().getId())
+                .nombreUsuario(cu.getUsuario().getNombre())
+                .cursoId(cu.getCurso().getId())
+                .nombreCurso(cu.getCurso().getTitulo())
+                .porcentajeProgreso(resumen.getPorcentajeProgreso())
+                .completado(cu.getCompletado())
+                .fechaInicio(cu.getFechaInicio() != null ?
+                    cu.getFechaInicio().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) : null)
+                .fechaCompletado(cu.getFechaCompletado() != null ?
+                    cu.getFechaCompletado().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) : null)
+                .modulosCompletados(resumen.getModulosCompletados())
+                .totalModulos(resumen.getTotalModulos())
+                .evaluacionesAprobadas(resumen.getEvaluacionesAprobadas())
+                .totalEvaluaciones(resumen.getTotalEvaluaciones())
+                .build();
     }
 
     @Override
@@ -166,19 +219,19 @@ public class ProgresoServiceImpl implements ProgresoService {
             List<com.capacitapro.backend.entity.Evaluacion> evaluaciones = evaluacionRepository.findActivasByCursoIdDetailed(cursoId);
             System.out.println("  - Evaluaciones encontradas:");
             for (com.capacitapro.backend.entity.Evaluacion eval : evaluaciones) {
-                // Buscar TODOS los intentos de esta evaluación
-                List<com.capacitapro.backend.entity.EvaluacionUsuario> intentos = evaluacionUsuarioRepository.findByEvaluacionAndUsuario(eval, usuario);
-                boolean aprobada = intentos.stream().anyMatch(eu -> Boolean.TRUE.equals(eu.getAprobado()));
+                // El mejor intento decide si está aprobada; una sola lectura sobre el índice de mejor_intento
+                Optional<com.capacitapro.backend.entity.EvaluacionUsuario> mejor = evaluacionUsuarioRepository.findMejorIntento(usuario, eval);
+                boolean aprobada = mejor.map(eu -> Boolean.TRUE.equals(eu.getAprobado())).orElse(false);
                 
                 System.out.println("    * ID: " + eval.getId() + ", Título: " + eval.getTitulo() + ", Aprobada: " + aprobada);
                 System.out.println("      - Módulo: " + (eval.getModulo() != null ? eval.getModulo().getId() : "CURSO"));
-                System.out.println("      - Intentos: " + intentos.size());
                 
-                if (!intentos.isEmpty()) {
-                    for (com.capacitapro.backend.entity.EvaluacionUsuario eu : intentos) {
-                        System.out.println("        > Intento ID: " + eu.getId() + ", Puntaje: " + eu.getPuntajeObtenido() + "/" + eu.getPuntajeMaximo() + ", Aprobado: " + eu.getAprobado());
-                    }
+                if (mejor.isPresent()) {
+                    com.capacitapro.backend.entity.EvaluacionUsuario eu = mejor.get();
+                    System.out.println("      - Mejor intento: #" + eu.getIntentos() + " (ID " + eu.getId() + "), Puntaje: " + eu.getPuntajeObtenido() + "/" + eu.getPuntajeMaximo() + ", Aprobado: " + eu.getAprobado());
                     System.out.println("      - Nota mínima requerida: " + eval.getNotaMinima());
+                } else {
+                    System.out.println("      - Sin intentos");
                 }
             }
             
@@ -233,36 +286,46 @@ public class ProgresoServiceImpl implements ProgresoService {
             cursoUsuario.iniciarCurso();
         }
         
-        // USAR LA MISMA LÓGICA QUE EL PROGRESO GENERAL
-        // Contar submódulos y evaluaciones igual que ModuloProgresoController
-        ConteoProgreso conteo = contarElementosComoProgresoGeneral(cursoId, usuario);
-        
-        Integer porcentajeProgreso = conteo.totalElementos > 0 ? 
-            (int) ((conteo.elementosCompletados * 100) / conteo.totalElementos) : 0;
-        porcentajeProgreso = Math.min(porcentajeProgreso, 100);
+        // Lectura de los contadores ya actualizados en esta transacción
+        ProgresoContador contador = progresoContadorService.obtener(cursoId, usuario);
+        Integer porcentajeProgreso = contador.getPorcentajeProgreso();
         
         cursoUsuario.setPorcentajeProgreso(porcentajeProgreso);
         
         System.out.println("=== ACTUALIZANDO PROGRESO CURSO (ProgresoService) ===");
         System.out.println("Usuario: " + usuario.getNombre());
-        System.out.println("Total elementos: " + conteo.totalElementos);
-        System.out.println("Elementos completados: " + conteo.elementosCompletados);
+        System.out.println("Total elementos: " + contador.getTotalElementos());
+        System.out.println("Elementos completados: " + contador.getElementosCompletados());
         System.out.println("Progreso calculado: " + porcentajeProgreso + "%");
         
         // Marcar como completado si terminó todo
-        if (porcentajeProgreso >= 100 && !cursoUsuario.getCompletado()) {
-            cursoUsuario.completarCurso();
+        if (porcentajeProgreso >= 100 && !Boolean.TRUE.equals(cursoUsuario.getCompletado())) {
+            cursoUsuario = cursoUsuarioRepository.save(cursoUsuario);
             
-            System.out.println("✅ CURSO COMPLETADO AL 100% - Generando certificado automático");
-            System.out.println("Usuario: " + usuario.getNombre());
-            System.out.println("Curso ID: " + cursoId);
+            // Actualización condicional: si otra transacción ya lo completó, no se vuelve a publicar el evento
+            boolean completadoAhora = cursoUsuarioRepository.marcarCompletado(cursoUsuario.getId(), LocalDateTime.now()) == 1;
+            cursoUsuario.completarCurso();
             
-            // SIEMPRE publicar evento para generar certificado automáticamente
-            try {
+            if (completadoAhora) {
+                log.debug("Curso {} completado por el usuario {}: se registra la emisión del certificado",
+                        cursoId, usuario.getId());
+                
+                // El outbox se escribe en esta misma transacción: si no se confirma, no hay certificado;
+                // si se confirma, ProcesadorCursoCompletadoService lo emite aunque la aplicación se reinicie
+                LocalDateTime ahora = LocalDateTime.now();
+                eventoCursoCompletadoRepository.save(EventoCursoCompletado.builder()
+                        .cursoId(cursoId)
+                        .usuarioId(usuario.getId())
+                        .estado(EventoCursoCompletado.PENDIENTE)
+                        .intentos(0)
+                        .proximoIntento(ahora)
+                        .fechaCreacion(ahora)
+                        .build());
+                // Avisa al procesador al confirmar, para no esperar al próximo sondeo
                 eventPublisher.publishEvent(new CursoCompletadoEvent(cursoId, usuario.getId()));
-                System.out.println("✅ Evento de certificado publicado exitosamente");
-            } catch (Exception e) {
-                System.err.println("❌ Error publicando evento de certificado: " + e.getMessage());
+            } else {
+                log.debug("Curso {} del usuario {} completado por otra transacción: no se publica evento",
+                        cursoId, usuario.getId());
             }
         } else if (porcentajeProgreso >= 100) {
             System.out.println("⚠️ Curso ya estaba completado - no se publica evento");
@@ -271,6 +334,17 @@ public class ProgresoServiceImpl implements ProgresoService {
         }
         
         cursoUsuarioRepository.save(cursoUsuario);
+        
+        eventPublisher.publishEvent(new ProgresoActualizadoEvent(usuario.getId(), cursoId,
+                ProgresoActualizadoEvent.Tipo.PROGRESO_CURSO, null, porcentajeProgreso));
+    }
+
+    @Override
+    public void registrarResultadoEvaluacion(Long cursoId, Usuario usuario) {
+        // Aprobar (o rechazar) una evaluación afecta a todos los módulos del curso,
+        // así que se recalculan los contadores de la inscripción antes de actualizar el curso
+        progresoContadorService.reconstruir(cursoId, usuario);
+        actualizarProgresoCurso(cursoId, usuario);
     }
 
     @Override
@@ -312,80 +386,6 @@ public class ProgresoServiceImpl implements ProgresoService {
         }
     }
 
-    // Clase interna para el conteo de progreso
-    private static class ConteoProgreso {
-        long totalElementos;
-        long elementosCompletados;
-        
-        ConteoProgreso(long totalElementos, long elementosCompletados) {
-            this.totalElementos = totalElementos;
-            this.elementosCompletados = elementosCompletados;
-        }
-    }
-    
-    // Método que replica EXACTAMENTE la lógica del Progreso General
-    private ConteoProgreso contarElementosComoProgresoGeneral(Long cursoId, Usuario usuario) {
-        try {
-            List<Modulo> modulos = moduloRepository.findActivosByCursoIdOrderByOrden(cursoId);
-            
-            long totalElementosCurso = 0;
-            long elementosCompletadosCurso = 0;
-            
-            for (Modulo modulo : modulos) {
-                // Contar submódulos del módulo
-                List<com.capacitapro.backend.entity.Submodulo> submodulos = 
-                    submoduloRepository.findByModuloIdOrderByOrdenAsc(modulo.getId());
-                
-                // Contar evaluaciones del módulo
-                List<Evaluacion> evalsModulo = evaluacionRepository.findByModuloIdAndActivoTrue(modulo.getId());
-                
-                // Contar evaluaciones del curso
-                List<Evaluacion> evalsCurso = evaluacionRepository.findActivasByCursoId(cursoId);
-                
-                // Combinar evaluaciones evitando duplicados (IGUAL QUE PROGRESO GENERAL)
-                List<Evaluacion> todasEvals = new java.util.ArrayList<>(evalsModulo);
-                for (Evaluacion evalCurso : evalsCurso) {
-                    if (!todasEvals.stream().anyMatch(e -> e.getId().equals(evalCurso.getId()))) {
-                        todasEvals.add(evalCurso);
-                    }
-                }
-                
-                int elementosModulo = submodulos.size() + todasEvals.size();
-                totalElementosCurso += elementosModulo;
-                
-                System.out.println("DEBUG ProgresoService - Módulo " + modulo.getId() + ": " + 
-                    submodulos.size() + " submódulos + " + todasEvals.size() + " evaluaciones = " + elementosModulo);
-                
-                // Contar elementos completados
-                Long subsCompletados = submoduloProgresoRepository.countCompletadosByUsuarioAndModulo(usuario, modulo);
-                
-                long evalsAprobadas = todasEvals.stream()
-                        .filter(e -> evaluacionUsuarioRepository.findByUsuarioAndEvaluacion(usuario, e)
-                                .map(eu -> Boolean.TRUE.equals(eu.getAprobado()))
-                                .orElse(false))
-                        .count();
-                
-                int elementosCompletadosModulo = Math.min(
-                    subsCompletados.intValue() + (int) evalsAprobadas, 
-                    elementosModulo
-                );
-                elementosCompletadosCurso += elementosCompletadosModulo;
-                
-                System.out.println("  - Submódulos completados: " + subsCompletados);
-                System.out.println("  - Evaluaciones aprobadas: " + evalsAprobadas);
-                System.out.println("  - Total completados: " + elementosCompletadosModulo);
-            }
-            
-            System.out.println("TOTAL CURSO: " + elementosCompletadosCurso + "/" + totalElementosCurso);
-            return new ConteoProgreso(totalElementosCurso, elementosCompletadosCurso);
-            
-        } catch (Exception e) {
-            System.err.println("Error contando elementos: " + e.getMessage());
-            e.printStackTrace();
-            return new ConteoProgreso(0, 0);
-        }
-    }
-    
     private Integer calcularPorcentajeProgreso(Long modulosCompletados, Long totalModulos, Long evaluacionesAprobadas, Long totalEvaluaciones) {
         // USAR EL NUEVO MÉTODO QUE REPLICA EL PROGRESO GENERAL
         // Este método se mantiene para compatibilidad pero ya no se usa en actualizarProgresoCurso
@@ -0,0 +1,238 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.event.ProgresoActualizadoEvent;
+import com.capacitapro.backend.service.ProgresoStreamService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams SSE de progreso por (usuario, curso). Los emisores son asíncronos, así que un stream
+ * abierto no ocupa un hilo del servidor; solo se escribe cuando se confirma un cambio de progreso
+ * y en el latido periódico que mantiene viva la conexión a través de proxies.
+ * Las escrituras no se hacen en el hilo que confirmó el cambio: cada conexión tiene su cola acotada,
+ * que se vacía en hilos virtuales propios de este servicio, así un cliente lento solo se frena a sí mismo.
+ */
+@Service
+public class ProgresoStreamServiceImpl implements ProgresoStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProgresoStreamServiceImpl.class);
+
+    // Eventos sin enviar por conexión; un cliente que acumula más no está leyendo y se desconecta
+    private static final int MAX_PENDIENTES = 100;
+
+    private final long timeoutMs;
+    private final int maxPorUsuario;
+    private final Map<Clave, Set<Suscripcion>> suscriptores = new ConcurrentHashMap<>();
+    private final ExecutorService envios = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("progreso-sse-", 0).factory());
+
+    private final AtomicLong abiertos = new AtomicLong();
+    private final AtomicLong eventosEnviados = new AtomicLong();
+    private final AtomicLong desconexiones = new AtomicLong();
+    private final AtomicLong inactivos = new AtomicLong();
+    private final AtomicLong lentos = new AtomicLong();
+
+    public ProgresoStreamServiceImpl(@Value("${progreso.sse.timeout-ms:1800000}") long timeoutMs,
+                                     @Value("${progreso.sse.max-por-usuario:5}") int maxPorUsuario) {
+        this.timeoutMs = timeoutMs;
+        this.maxPorUsuario = maxPorUsuario;
+    }
+
+    @Override
+    public SseEmitter suscribir(Long usuarioId, Long cursoId, Integer porcentajeInicial) {
+        Clave clave = new Clave(usuarioId, cursoId);
+        // Sin vencimiento absoluto: la conexión se cierra por inactividad en el latido (timeoutMs sin eventos)
+        SseEmitter emitter = new SseEmitter(0L);
+        Suscripcion suscripcion = new Suscripcion(clave, emitter);
+
+        List<Suscripcion> sobrantes = new ArrayList<>();
+        suscriptores.compute(clave, (k, actuales) -> {
+            Set<Suscripcion> conjunto = actuales != null ? actuales : new CopyOnWriteArraySet<>();
+            // Pestañas viejas que no cerraron bien: se liberan las más antiguas
+            Iterator<Suscripcion> it = conjunto.iterator();
+            while (conjunto.size() - sobrantes.size() >= maxPorUsuario && it.hasNext()) {
+                sobrantes.add(it.next());
+            }
+            conjunto.removeAll(sobrantes);
+            conjunto.add(suscripcion);
+            return conjunto;
+        });
+        sobrantes.forEach(sobrante -> sobrante.emitter.complete());
+        desconexiones.addAndGet(sobrantes.size());
+        abiertos.incrementAndGet();
+
+        emitter.onCompletion(() -> quitar(suscripcion));
+        emitter.onTimeout(() -> {
+            emitter.complete();
+            quitar(suscripcion);
+        });
+        emitter.onError(e -> quitar(suscripcion));
+
+        Map<String, Object> inicial = new LinkedHashMap<>();
+        inicial.put("cursoId", cursoId);
+        inicial.put("porcentajeProgreso", porcentajeInicial);
+        suscripcion.encolar(SseEmitter.event().name("CONECTADO").data(inicial, MediaType.APPLICATION_JSON), false);
+        return emitter;
+    }
+
+    // Solo se notifica lo que llegó a confirmarse; fuera de una transacción se envía de inmediato
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alActualizarProgreso(ProgresoActualizadoEvent event) {
+        Clave clave = new Clave(event.getUsuarioId(), event.getCursoId());
+        Set<Suscripcion> conexiones = suscriptores.get(clave);
+        if (conexiones == null || conexiones.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("tipo", event.getTipo().name());
+        delta.put("cursoId", event.getCursoId());
+        if (event.getElementoId() != null) {
+            delta.put("elementoId", event.getElementoId());
+        }
+        if (event.getPorcentajeProgreso() != null) {
+            delta.put("porcentajeProgreso", event.getPorcentajeProgreso());
+        }
+
+        // Solo se encola: el envío corre fuera del hilo de la petición que confirmó la escritura
+        for (Suscripcion suscripcion : conexiones) {
+            suscripcion.encolar(SseEmitter.event().name(event.getTipo().name()).data(delta, MediaType.APPLICATION_JSON), true);
+        }
+    }
+
+    // Mantiene viva la conexión a través de proxies y cierra las que llevan timeoutMs sin eventos de progreso
+    @Scheduled(fixedDelayString = "${progreso.sse.latido-ms:25000}")
+    public void latido() {
+        long ahora = System.currentTimeMillis();
+        for (Set<Suscripcion> conexiones : suscriptores.values()) {
+            for (Suscripcion suscripcion : conexiones) {
+                if (ahora - suscripcion.ultimaActividad > timeoutMs) {
+                    // El navegador reconecta solo si la pestaña sigue abierta
+                    inactivos.incrementAndGet();
+                    suscripcion.emitter.complete();
+                    quitar(suscripcion);
+                } else {
+                    suscripcion.encolar(SseEmitter.event().comment("ping"), false);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        suscriptores.values().forEach(conexiones -> conexiones.forEach(suscripcion -> suscripcion.emitter.complete()));
+        suscriptores.clear();
+        envios.shutdownNow();
+    }
+
+    @Override
+    public Map<String, Object> estadisticas() {
+        int conexiones = suscriptores.values().stream().mapToInt(Set::size).sum();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("conexiones", conexiones);
+        stats.put("inscripcionesEscuchando", suscriptores.size());
+        stats.put("abiertos", abiertos.get());
+        stats.put("eventosEnviados", eventosEnviados.get());
+        stats.put("desconexiones", desconexiones.get());
+        stats.put("cerradosPorInactividad", inactivos.get());
+        stats.put("cerradosPorLentitud", lentos.get());
+        return stats;
+    }
+
+    private void quitar(Suscripcion suscripcion) {
+        suscriptores.computeIfPresent(suscripcion.clave, (k, conexiones) -> {
+            if (conexiones.remove(suscripcion)) {
+                desconexiones.incrementAndGet();
+            }
+            return conexiones.isEmpty() ? null : conexiones;
+        });
+    }
+
+    private record Clave(Long usuarioId, Long cursoId) {
+    }
+
+    private record Pendiente(SseEmitter.SseEventBuilder evento, boolean esProgreso) {
+    }
+
+    // Una conexión con su cola de eventos: como mucho un hilo la vacía a la vez, así el orden se conserva
+    private final class Suscripcion {
+        final Clave clave;
+        final SseEmitter emitter;
+        final Queue<Pendiente> pendientes = new ConcurrentLinkedQueue<>();
+        final AtomicInteger cantidadPendientes = new AtomicInteger();
+        final AtomicBoolean vaciando = new AtomicBoolean();
+        volatile long ultimaActividad = System.currentTimeMillis();
+
+        Suscripcion(Clave clave, SseEmitter emitter) {
+            this.clave = clave;
+            this.emitter = emitter;
+        }
+
+        void encolar(SseEmitter.SseEventBuilder evento, boolean esProgreso) {
+            if (cantidadPendientes.incrementAndGet() > MAX_PENDIENTES) {
+                lentos.incrementAndGet();
+                log.debug("Stream de progreso sin leer para usuario {} curso {}: se cierra", clave.usuarioId(), clave.cursoId());
+                emitter.complete();
+                quitar(this);
+                return;
+            }
+            if (esProgreso) {
+                ultimaActividad = System.currentTimeMillis();
+            }
+            pendientes.add(new Pendiente(evento, esProgreso));
+            programar();
+        }
+
+        private void programar() {
+            if (vaciando.compareAndSet(false, true)) {
+                try {
+                    envios.execute(this::vaciar);
+                } catch (RejectedExecutionException e) {
+                    // El servicio se está deteniendo
+                    vaciando.set(false);
+                }
+            }
+        }
+
+        private void vaciar() {
+            try {
+                Pendiente pendiente;
+                while ((pendiente = pendientes.poll()) != null) {
+                    cantidadPendientes.decrementAndGet();
+                    emitter.send(pendiente.evento());
+                    if (pendiente.esProgreso()) {
+                        eventosEnviados.incrementAndGet();
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado o emisor ya cerrado
+                log.debug("Stream de progreso cerrado para usuario {} curso {}: {}", clave.usuarioId(), clave.cursoId(), e.getMessage());
+                pendientes.clear();
+                emitter.completeWithError(e);
+                quitar(this);
+            } finally {
+                vaciando.set(false);
+                // Lo que llegó mientras se terminaba de vaciar
+                if (!pendientes.isEmpty()) {
+                    programar();
+                }
+            }
+        }
+    }
+}
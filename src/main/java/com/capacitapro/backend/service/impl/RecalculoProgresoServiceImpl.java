@@ -0,0 +1,220 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.entity.Usuario;
+import com.capacitapro.backend.repository.UsuarioRepository;
+import com.capacitapro.backend.service.ProgresoService;
+import com.capacitapro.backend.service.RecalculoProgresoService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cola de recálculo del progreso del curso por (usuario, curso).
+ * Las solicitudes repetidas para la misma inscripción se colapsan en un solo trabajo pendiente,
+ * y nunca se ejecutan dos trabajos de la misma inscripción a la vez. Un recálculo fallido se reintenta
+ * con espera exponencial: de él dependen la finalización del curso y el evento del certificado.
+ */
+@Service
+public class RecalculoProgresoServiceImpl implements RecalculoProgresoService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecalculoProgresoServiceImpl.class);
+
+    private final ProgresoService progresoService;
+    private final UsuarioRepository usuarioRepository;
+    private final ScheduledThreadPoolExecutor executor;
+    private final int maxReintentos;
+    private final long esperaBaseMs;
+    private final Map<Clave, Trabajo> trabajos = new ConcurrentHashMap<>();
+
+    private final AtomicLong encolados = new AtomicLong();
+    private final AtomicLong colapsados = new AtomicLong();
+    private final AtomicLong ejecutados = new AtomicLong();
+    private final AtomicLong errores = new AtomicLong();
+    private final AtomicLong reintentos = new AtomicLong();
+    private final AtomicLong rechazados = new AtomicLong();
+    private final AtomicLong esperaTotalMs = new AtomicLong();
+    private final AtomicLong esperaMaximaMs = new AtomicLong();
+    private final AtomicLong ejecucionTotalMs = new AtomicLong();
+
+    public RecalculoProgresoServiceImpl(ProgresoService progresoService,
+                                        UsuarioRepository usuarioRepository,
+                                        @Value("${progreso.recalculo.hilos:2}") int hilos,
+                                        @Value("${progreso.recalculo.max-reintentos:5}") int maxReintentos,
+                                        @Value("${progreso.recalculo.espera-base-ms:2000}") long esperaBaseMs) {
+        this.progresoService = progresoService;
+        this.usuarioRepository = usuarioRepository;
+        this.maxReintentos = maxReintentos;
+        this.esperaBaseMs = esperaBaseMs;
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(hilos, r -> {
+            Thread t = new Thread(r, "recalculo-progreso-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        // Al detener se terminan los trabajos listos, no los reintentos que todavía esperan su turno
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    @Override
+    public void encolar(Long cursoId, Long usuarioId) {
+        Clave clave = new Clave(usuarioId, cursoId);
+        
+        // El trabajo debe ver lo que escribió la transacción actual
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enviar(clave);
+                }
+            });
+        } else {
+            enviar(clave);
+        }
+    }
+
+    @Override
+    public Map<String, Object> estadisticas() {
+        long totalEjecutados = ejecutados.get();
+        
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("profundidad", trabajos.size());
+        stats.put("encolados", encolados.get());
+        stats.put("colapsados", colapsados.get());
+        stats.put("ejecutados", totalEjecutados);
+        stats.put("errores", errores.get());
+        stats.put("reintentos", reintentos.get());
+        stats.put("rechazados", rechazados.get());
+        stats.put("esperaPromedioMs", totalEjecutados > 0 ? esperaTotalMs.get() / totalEjecutados : 0);
+        stats.put("esperaMaximaMs", esperaMaximaMs.get());
+        stats.put("ejecucionPromedioMs", totalEjecutados > 0 ? ejecucionTotalMs.get() / totalEjecutados : 0);
+        return stats;
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        // Los trabajos ya encolados se terminan antes de cerrar
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Recálculos de progreso sin terminar al detener: {}", trabajos.size());
+            executor.shutdownNow();
+        }
+    }
+
+    private void enviar(Clave clave) {
+        encolados.incrementAndGet();
+        boolean[] nuevo = {false};
+        trabajos.compute(clave, (k, trabajo) -> {
+            if (trabajo == null) {
+                nuevo[0] = true;
+                return new Trabajo(System.currentTimeMillis());
+            }
+            if (trabajo.enEjecucion) {
+                // Lo que está corriendo puede no ver el último cambio: se repite al terminar
+                trabajo.repetir = true;
+            } else {
+                colapsados.incrementAndGet();
+            }
+            return trabajo;
+        });
+        
+        if (nuevo[0]) {
+            programar(clave, 0);
+        }
+    }
+
+    // Si el executor rechaza el trabajo (por ejemplo, al detener) la clave se libera: de lo contrario
+    // las solicitudes siguientes de esa inscripción se colapsarían en un trabajo que nunca corre
+    private void programar(Clave clave, long demoraMs) {
+        try {
+            executor.schedule(() -> ejecutar(clave), demoraMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            trabajos.remove(clave);
+            rechazados.incrementAndGet();
+            log.warn("Recálculo del curso {} para usuario {} rechazado: {}", clave.cursoId(), clave.usuarioId(), e.getMessage());
+        }
+    }
+
+    private void ejecutar(Clave clave) {
+        long inicio = System.currentTimeMillis();
+        Trabajo trabajo = trabajos.computeIfPresent(clave, (k, t) -> {
+            t.enEjecucion = true;
+            t.repetir = false;
+            return t;
+        });
+        if (trabajo == null) {
+            return;
+        }
+        
+        long espera = inicio - trabajo.encoladoEn;
+        esperaTotalMs.addAndGet(espera);
+        esperaMaximaMs.accumulateAndGet(espera, Math::max);
+        
+        boolean fallo = false;
+        try {
+            Usuario usuario = usuarioRepository.findById(clave.usuarioId())
+                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+            progresoService.actualizarProgresoCurso(clave.cursoId(), usuario);
+        } catch (Exception e) {
+            fallo = true;
+            errores.incrementAndGet();
+            log.error("Error recalculando progreso del curso {} para usuario {} (fallo {})",
+                    clave.cursoId(), clave.usuarioId(), trabajo.fallos + 1, e);
+        } finally {
+            ejecutados.incrementAndGet();
+            ejecucionTotalMs.addAndGet(System.currentTimeMillis() - inicio);
+            
+            boolean reintentar = fallo;
+            long[] demora = {-1};
+            trabajos.computeIfPresent(clave, (k, t) -> {
+                if (reintentar) {
+                    t.fallos++;
+                    if (t.fallos > maxReintentos) {
+                        log.error("Recálculo del curso {} para usuario {} abandonado tras {} intentos",
+                                clave.cursoId(), clave.usuarioId(), t.fallos);
+                        return null;
+                    }
+                    demora[0] = esperaBaseMs << Math.min(t.fallos - 1, 16);
+                } else if (t.repetir) {
+                    t.fallos = 0;
+                    demora[0] = 0;
+                } else {
+                    return null;
+                }
+                t.enEjecucion = false;
+                t.repetir = false;
+                t.encoladoEn = System.currentTimeMillis() + demora[0];
+                return t;
+            });
+            if (demora[0] > 0) {
+                reintentos.incrementAndGet();
+            }
+            if (demora[0] >= 0) {
+                programar(clave, demora[0]);
+            }
+        }
+    }
+
+    private record Clave(Long usuarioId, Long cursoId) {
+    }
+
+    private static final class Trabajo {
+        long encoladoEn;
+        boolean enEjecucion;
+        boolean repetir;
+        int fallos;
+
+        Trabajo(long encoladoEn) {
+            this.encoladoEn = encoladoEn;
+        }
+    }
+}
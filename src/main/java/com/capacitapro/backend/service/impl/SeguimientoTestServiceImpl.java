@@ -0,0 +1,95 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.CursorFecha;
+import com.capacitapro.backend.dto.FiltroSeguimiento;
+import com.capacitapro.backend.dto.SeguimientoTest;
+import com.capacitapro.backend.service.SeguimientoTestService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Seguimiento de tests en una sola consulta: intento, usuario, evaluación y curso unidos, y las respuestas
+ * de texto sin revisar contadas por intento con una subconsulta que solo se evalúa para las filas de la página.
+ * Los filtros se agregan al WHERE solo cuando vienen, para que el planificador use el índice que corresponde
+ * (fecha_realizacion, id) o (evaluacion_id, fecha_realizacion, id) y corte en el LIMIT.
+ */
+@Service
+@RequiredArgsConstructor
+public class SeguimientoTestServiceImpl implements SeguimientoTestService {
+
+    private static final String SQL_BASE =
+            "SELECT eu.id, u.nombre AS usuario_nombre, u.correo AS usuario_correo, c.titulo AS curso_titulo, " +
+            "e.titulo AS evaluacion_titulo, eu.puntaje_obtenido, eu.puntaje_maximo, eu.aprobado, " +
+            "eu.fecha_realizacion, eu.intentos, " +
+            "(SELECT COUNT(*) FROM respuesta_usuario_texto r " +
+            " WHERE r.evaluacion_usuario_id = eu.id AND r.revisada = false) AS respuestas_pendientes " +
+            "FROM evaluacion_usuario eu " +
+            "JOIN evaluacion e ON e.id = eu.evaluacion_id " +
+            "JOIN curso c ON c.id = e.curso_id " +
+            "JOIN usuario u ON u.id = eu.usuario_id " +
+            "WHERE c.empresa_id = :empresaId ";
+
+    private static final String SQL_ORDEN = "ORDER BY eu.fecha_realizacion DESC, eu.id DESC LIMIT :limite";
+
+    private static final RowMapper<SeguimientoTest> MAPPER = (rs, i) -> {
+        Timestamp fecha = rs.getTimestamp("fecha_realizacion");
+        return new SeguimientoTest(
+                rs.getLong("id"),
+                rs.getString("usuario_nombre"),
+                rs.getString("usuario_correo"),
+                rs.getString("curso_titulo"),
+                rs.getString("evaluacion_titulo"),
+                (Integer) rs.getObject("puntaje_obtenido"),
+                (Integer) rs.getObject("puntaje_maximo"),
+                (Boolean) rs.getObject("aprobado"),
+                fecha != null ? fecha.toLocalDateTime() : null,
+                (Integer) rs.getObject("intentos"),
+                rs.getLong("respuestas_pendientes"));
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<SeguimientoTest> listar(Long empresaId, FiltroSeguimiento filtro, CursorFecha cursor, int limite) {
+        StringBuilder sql = new StringBuilder(SQL_BASE);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("empresaId", empresaId)
+                .addValue("limite", limite);
+
+        if (filtro.cursoId() != null) {
+            sql.append("AND e.curso_id = :cursoId ");
+            params.addValue("cursoId", filtro.cursoId());
+        }
+        if (filtro.evaluacionId() != null) {
+            sql.append("AND eu.evaluacion_id = :evaluacionId ");
+            params.addValue("evaluacionId", filtro.evaluacionId());
+        }
+        if (filtro.desde() != null) {
+            sql.append("AND eu.fecha_realizacion >= :desde ");
+            params.addValue("desde", filtro.desde().atStartOfDay());
+        }
+        if (filtro.hasta() != null) {
+            sql.append("AND eu.fecha_realizacion < :hasta ");
+            params.addValue("hasta", filtro.hasta().plusDays(1).atStartOfDay());
+        }
+        if (filtro.aprobado() != null) {
+            sql.append("AND eu.aprobado = :aprobado ");
+            params.addValue("aprobado", filtro.aprobado());
+        }
+        // Filas estrictamente anteriores al cursor; la comparación de filas usa el índice tal cual
+        if (cursor != null) {
+            sql.append("AND (eu.fecha_realizacion, eu.id) < (:fecha, :id) ");
+            params.addValue("fecha", cursor.fecha());
+            params.addValue("id", cursor.id());
+        }
+        sql.append(SQL_ORDEN);
+
+        return jdbcTemplate.query(sql.toString(), params, MAPPER);
+    }
+}
@@ -0,0 +1,183 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.VerificacionCertificado;
+import com.capacitapro.backend.repository.CertificadoRepository;
+import com.capacitapro.backend.service.VerificacionCertificadoService;
+import com.capacitapro.backend.util.FiltroBloom;
+import com.capacitapro.backend.util.LruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.EmptySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Camino de lectura de la verificación pública de certificados.
+ * Un filtro de Bloom con todos los códigos emitidos descarta los códigos inválidos sin ir a la base;
+ * los válidos se leen con una proyección y se guardan en una caché LRU que se invalida al revocar.
+ * El filtro se reconstruye periódicamente desde la base. Los códigos nuevos se agregan después del
+ * commit: si se agregaran antes, una reconstrucción en curso podría no ver la fila todavía.
+ */
+@Service
+public class VerificacionCertificadoServiceImpl implements VerificacionCertificadoService {
+
+    private static final Logger log = LoggerFactory.getLogger(VerificacionCertificadoServiceImpl.class);
+
+    // Los revocados también quedan: el filtro no admite borrados y la consulta ya filtra por activo
+    private static final String SQL_CODIGOS = "SELECT codigo_verificacion FROM certificado WHERE codigo_verificacion IS NOT NULL";
+    private static final String SQL_CONTAR = "SELECT COUNT(*) FROM certificado";
+
+    // Mínimo de capacidad y margen de crecimiento sobre los certificados existentes
+    private static final long CAPACIDAD_MINIMA = 10_000;
+    private static final int FACTOR_CRECIMIENTO = 2;
+
+    private final CertificadoRepository certificadoRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final LruCache<String, VerificacionCertificado> cache;
+    private final double tasaFalsosPositivos;
+
+    private final Object candado = new Object();
+    private volatile FiltroBloom filtro;
+    private FiltroBloom enConstruccion;
+
+    private final AtomicLong rechazadosPorFiltro = new AtomicLong();
+    private final AtomicLong consultas = new AtomicLong();
+    private final AtomicLong noEncontrados = new AtomicLong();
+    private final AtomicLong reconstrucciones = new AtomicLong();
+
+    public VerificacionCertificadoServiceImpl(CertificadoRepository certificadoRepository,
+                                              NamedParameterJdbcTemplate jdbcTemplate,
+                                              @Value("${certificados.verificacion.capacidad:10000}") int capacidad,
+                                              @Value("${certificados.verificacion.tasa-falsos-positivos:0.001}") double tasaFalsosPositivos) {
+        this.certificadoRepository = certificadoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = new LruCache<>("verificacion-certificado", capacidad);
+        this.tasaFalsosPositivos = tasaFalsosPositivos;
+    }
+
+    @Override
+    public Optional<VerificacionCertificado> verificar(String codigoVerificacion) {
+        if (codigoVerificacion == null || codigoVerificacion.isBlank()) {
+            return Optional.empty();
+        }
+        String codigo = codigoVerificacion.trim();
+        
+        // Mientras el filtro no está cargado todas las consultas van a la base
+        FiltroBloom actual = filtro;
+        if (actual != null && !actual.puedeContener(codigo)) {
+            rechazadosPorFiltro.incrementAndGet();
+            return Optional.empty();
+        }
+        
+        VerificacionCertificado verificacion = cache.obtener(codigo, c -> {
+            consultas.incrementAndGet();
+            return certificadoRepository.findVerificacionByCodigo(c).orElse(null);
+        });
+        if (verificacion == null) {
+            noEncontrados.incrementAndGet();
+        }
+        return Optional.ofNullable(verificacion);
+    }
+
+    @Override
+    public void registrarEmitido(String codigoVerificacion) {
+        synchronized (candado) {
+            FiltroBloom actual = filtro;
+            if (actual != null) {
+                actual.agregar(codigoVerificacion);
+            }
+            if (enConstruccion != null) {
+                enConstruccion.agregar(codigoVerificacion);
+            }
+        }
+        
+        // Si se emitieron muchos más códigos de los previstos, la tasa de falsos positivos sube
+        FiltroBloom actual = filtro;
+        if (actual != null && actual.getElementos() > actual.getCapacidad()) {
+            reconstruirFiltro();
+        }
+    }
+
+    @Override
+    public void invalidar(String codigoVerificacion) {
+        cache.invalidar(codigoVerificacion);
+        // Una lectura concurrente anterior al commit pudo volver a cargarlo como activo
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidar(codigoVerificacion);
+                }
+            });
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarFiltro() {
+        reconstruirFiltro();
+    }
+
+    @Scheduled(fixedDelayString = "${certificados.verificacion.reconstruccion-ms:3600000}",
+               initialDelayString = "${certificados.verificacion.reconstruccion-ms:3600000}")
+    public void reconstruirFiltro() {
+        Long existentes = jdbcTemplate.queryForObject(SQL_CONTAR, EmptySqlParameterSource.INSTANCE, Long.class);
+        long capacidad = Math.max(CAPACIDAD_MINIMA, (existentes != null ? existentes : 0) * FACTOR_CRECIMIENTO);
+        
+        FiltroBloom nuevo;
+        synchronized (candado) {
+            if (enConstruccion != null) {
+                return;
+            }
+            nuevo = new FiltroBloom(capacidad, tasaFalsosPositivos);
+            // Desde aquí los códigos emitidos también van al filtro nuevo
+            enConstruccion = nuevo;
+        }
+        
+        try {
+            long inicio = System.currentTimeMillis();
+            jdbcTemplate.query(SQL_CODIGOS, EmptySqlParameterSource.INSTANCE, rs -> {
+                nuevo.agregar(rs.getString(1));
+            });
+            synchronized (candado) {
+                filtro = nuevo;
+                enConstruccion = null;
+            }
+            reconstrucciones.incrementAndGet();
+            log.info("Filtro de códigos de certificado cargado: {} códigos, {} bits, {} funciones en {} ms",
+                    nuevo.getElementos(), nuevo.getTotalBits(), nuevo.getFunciones(), System.currentTimeMillis() - inicio);
+        } catch (RuntimeException e) {
+            synchronized (candado) {
+                enConstruccion = null;
+            }
+            log.error("No se pudo cargar el filtro de códigos de certificado", e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> stats = new HashMap<>(cache.estadisticas());
+        FiltroBloom actual = filtro;
+        stats.put("filtroCargado", actual != null);
+        if (actual != null) {
+            stats.put("filtroCodigos", actual.getElementos());
+            stats.put("filtroCapacidad", actual.getCapacidad());
+            stats.put("filtroBits", actual.getTotalBits());
+        }
+        stats.put("rechazadosPorFiltro", rechazadosPorFiltro.get());
+        stats.put("consultasBase", consultas.get());
+        stats.put("noEncontrados", noEncontrados.get());
+        stats.put("reconstrucciones", reconstrucciones.get());
+        return stats;
+    }
+}
@@ -0,0 +1,54 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.event.ProgresoActualizadoEvent;
+import com.capacitapro.backend.repository.CursoRepository;
+import com.capacitapro.backend.repository.CursoUsuarioRepository;
+import com.capacitapro.backend.service.VersionContenidoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Versiones persistidas para los ETag de cursos y de progreso: curso.version_contenido y
+ * curso_usuario.version_progreso. Se incrementan dentro de la transacción que hace el cambio, así que
+ * la versión nueva se vuelve visible junto con los datos y todas las instancias entregan el mismo ETag.
+ */
+@Service
+@RequiredArgsConstructor
+public class VersionContenidoServiceImpl implements VersionContenidoService {
+
+    private final CursoRepository cursoRepository;
+    private final CursoUsuarioRepository cursoUsuarioRepository;
+
+    @Override
+    public void cursoModificado(Long cursoId) {
+        cursoRepository.incrementarVersionContenido(cursoId);
+    }
+
+    @Override
+    public void progresoModificado(Long usuarioId, Long cursoId) {
+        cursoUsuarioRepository.incrementarVersionProgreso(usuarioId, cursoId);
+    }
+
+    // Todo cambio de progreso que se anuncia a los streams también invalida el ETag, en la misma transacción
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void alActualizarProgreso(ProgresoActualizadoEvent event) {
+        cursoUsuarioRepository.incrementarVersionProgreso(event.getUsuarioId(), event.getCursoId());
+    }
+
+    @Override
+    public String etagCurso(Long cursoId, Long empresaId) {
+        String etag = "c" + versionCurso(cursoId);
+        return "\"" + (empresaId != null ? etag + "." + empresaId : etag) + "\"";
+    }
+
+    @Override
+    public String etagProgreso(Long usuarioId, Long cursoId) {
+        return "\"p" + versionCurso(cursoId) + "." + cursoUsuarioRepository.findVersionProgreso(usuarioId, cursoId) + "\"";
+    }
+
+    private long versionCurso(Long cursoId) {
+        return cursoRepository.findVersionContenido(cursoId).orElse(0L);
+    }
+}
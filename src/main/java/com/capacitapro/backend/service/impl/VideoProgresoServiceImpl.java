@@ -0,0 +1,268 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.EstadoVideoProgreso;
+import com.capacitapro.backend.repository.SubmoduloProgresoRepository;
+import com.capacitapro.backend.service.VideoProgresoService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffer en memoria para los latidos del reproductor de video.
+ * Por cada (usuario, submódulo) se guarda solo el mayor tiempo visto y se escribe en lotes JDBC
+ * cada pocos segundos. Cuando un latido cruza el umbral de completado se escribe de inmediato,
+ * porque ese cambio sí afecta al progreso del módulo y del curso.
+ */
+@Service
+public class VideoProgresoServiceImpl implements VideoProgresoService {
+
+    private static final Logger log = LoggerFactory.getLogger(VideoProgresoServiceImpl.class);
+
+    // Mismo umbral que SubmoduloProgreso.onUpdate
+    private static final int UMBRAL_COMPLETADO = 90;
+
+    // Entradas sin latidos durante este tiempo se descartan del buffer una vez escritas
+    private static final long INACTIVIDAD_MS = 10 * 60 * 1000L;
+
+    private static final String SQL_ESTADO_ACTUAL =
+            "SELECT sp.tiempo_visto, sp.completado FROM submodulo s " +
+            "LEFT JOIN submodulo_progreso sp ON sp.submodulo_id = s.id AND sp.usuario_id = :usuarioId " +
+            "WHERE s.id = :submoduloId";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final int tamanoLote;
+    private final Map<Clave, Entrada> entradas = new ConcurrentHashMap<>();
+
+    private final AtomicLong latidos = new AtomicLong();
+    private final AtomicLong filasEscritas = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong escriturasInmediatas = new AtomicLong();
+    private final AtomicLong errores = new AtomicLong();
+
+    public VideoProgresoServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                    @Value("${video.progreso.tamano-lote:500}") int tamanoLote) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tamanoLote = tamanoLote;
+    }
+
+    @Override
+    public EstadoVideoProgreso registrarLatido(Long usuarioId, Long submoduloId, int tiempoVisto, int duracionTotal) {
+        latidos.incrementAndGet();
+        Clave clave = new Clave(usuarioId, submoduloId);
+
+        while (true) {
+            Entrada entrada = entradas.get(clave);
+            if (entrada == null) {
+                // Primer latido de esta sesión: se parte del estado guardado
+                entradas.putIfAbsent(clave, leerEstadoActual(usuarioId, submoduloId));
+                continue;
+            }
+
+            Registro inmediato = null;
+            EstadoVideoProgreso estado;
+            synchronized (entrada) {
+                if (entrada.descartada) {
+                    continue;
+                }
+
+                int tiempoAnterior = entrada.tiempoVisto;
+                int duracionAnterior = entrada.duracionTotal;
+                entrada.tiempoVisto = Math.max(entrada.tiempoVisto, tiempoVisto);
+                if (duracionTotal > 0) {
+                    entrada.duracionTotal = duracionTotal;
+                }
+                entrada.ultimoLatido = System.currentTimeMillis();
+
+                boolean completadoAhora = !entrada.completado && entrada.porcentaje() >= UMBRAL_COMPLETADO;
+                if (completadoAhora) {
+                    entrada.completado = true;
+                    entrada.sucia = false;
+                    inmediato = entrada.registro(clave);
+                } else if (entrada.tiempoVisto != tiempoAnterior || entrada.duracionTotal != duracionAnterior) {
+                    entrada.sucia = true;
+                }
+
+                estado = EstadoVideoProgreso.builder()
+                        .submoduloId(submoduloId)
+                        .tiempoVisto(entrada.tiempoVisto)
+                        .duracionTotal(entrada.duracionTotal)
+                        .porcentajeProgreso(entrada.porcentaje())
+                        .completado(entrada.completado)
+                        .completadoAhora(completadoAhora)
+                        .build();
+            }
+
+            if (inmediato != null) {
+                try {
+                    // Otro camino (p. ej. marcar como visto) pudo completarlo antes: solo cuenta quien lo completa en la base
+                    estado.setCompletadoAhora(escribirCompletado(inmediato));
+                    escriturasInmediatas.incrementAndGet();
+                } catch (RuntimeException e) {
+                    // Se deshace el completado en memoria para que el próximo latido vuelva a intentarlo
+                    synchronized (entrada) {
+                        entrada.completado = false;
+                        entrada.sucia = true;
+                    }
+                    throw e;
+                }
+            }
+            return estado;
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${video.progreso.intervalo-vaciado-ms:5000}")
+    public synchronized int vaciar() {
+        long ahora = System.currentTimeMillis();
+        List<Registro> pendientes = new ArrayList<>();
+
+        for (Map.Entry<Clave, Entrada> item : entradas.entrySet()) {
+            Entrada entrada = item.getValue();
+            synchronized (entrada) {
+                if (entrada.sucia) {
+                    pendientes.add(entrada.registro(item.getKey()));
+                    entrada.sucia = false;
+                } else if (ahora - entrada.ultimoLatido > INACTIVIDAD_MS) {
+                    entrada.descartada = true;
+                    entradas.remove(item.getKey(), entrada);
+                }
+            }
+        }
+
+        if (pendientes.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            escribir(pendientes);
+        } catch (RuntimeException e) {
+            errores.incrementAndGet();
+            marcarPendientes(pendientes);
+            log.error("Error escribiendo {} registros de progreso de video; se reintentará", pendientes.size(), e);
+            return 0;
+        }
+
+        log.debug("Progreso de video escrito en lote: {} registros", pendientes.size());
+        return pendientes.size();
+    }
+
+    @PreDestroy
+    public void detener() {
+        int escritos = vaciar();
+        log.info("Buffer de progreso de video vaciado al detener la aplicación: {} registros", escritos);
+    }
+
+    @Override
+    public Map<String, Object> estadisticas() {
+        long pendientes = entradas.values().stream().filter(e -> e.sucia).count();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entradas", entradas.size());
+        stats.put("pendientes", pendientes);
+        stats.put("latidos", latidos.get());
+        stats.put("filasEscritas", filasEscritas.get());
+        stats.put("lotes", lotes.get());
+        stats.put("escriturasInmediatas", escriturasInmediatas.get());
+        stats.put("errores", errores.get());
+        return stats;
+    }
+
+    private Entrada leerEstadoActual(Long usuarioId, Long submoduloId) {
+        List<Entrada> filas = jdbcTemplate.query(SQL_ESTADO_ACTUAL, parametros(usuarioId, submoduloId), (rs, i) -> {
+            Entrada entrada = new Entrada();
+            entrada.tiempoVisto = rs.getInt("tiempo_visto");
+            entrada.completado = rs.getBoolean("completado");
+            return entrada;
+        });
+
+        if (filas.isEmpty()) {
+            throw new RuntimeException("Submódulo no encontrado");
+        }
+        Entrada entrada = filas.get(0);
+        entrada.ultimoLatido = System.currentTimeMillis();
+        return entrada;
+    }
+
+    private void escribir(List<Registro> registros) {
+        for (int desde = 0; desde < registros.size(); desde += tamanoLote) {
+            List<Registro> lote = registros.subList(desde, Math.min(desde + tamanoLote, registros.size()));
+            SqlParameterSource[] params = lote.stream()
+                    .map(this::parametros)
+                    .toArray(SqlParameterSource[]::new);
+            jdbcTemplate.batchUpdate(SubmoduloProgresoRepository.SQL_REGISTRAR_AVANCE, params);
+            lotes.incrementAndGet();
+        }
+        filasEscritas.addAndGet(registros.size());
+    }
+
+    // Guarda el avance y marca el completado; devuelve true si esta escritura fue la que lo completó
+    private boolean escribirCompletado(Registro registro) {
+        MapSqlParameterSource params = parametros(registro);
+        params.addValue("completado", false);
+        jdbcTemplate.update(SubmoduloProgresoRepository.SQL_REGISTRAR_AVANCE, params);
+        int filas = jdbcTemplate.update(SubmoduloProgresoRepository.SQL_MARCAR_COMPLETADO, params);
+        filasEscritas.incrementAndGet();
+        return filas == 1;
+    }
+
+    private MapSqlParameterSource parametros(Long usuarioId, Long submoduloId) {
+        return new MapSqlParameterSource()
+                .addValue("usuarioId", usuarioId)
+                .addValue("submoduloId", submoduloId);
+    }
+
+    private MapSqlParameterSource parametros(Registro r) {
+        return parametros(r.usuarioId(), r.submoduloId())
+                .addValue("tiempoVisto", r.tiempoVisto())
+                .addValue("duracionTotal", r.duracionTotal())
+                .addValue("porcentaje", r.porcentaje())
+                .addValue("completado", r.completado());
+    }
+
+    // Si la escritura falla, las entradas vuelven a quedar pendientes para el próximo vaciado
+    private void marcarPendientes(List<Registro> registros) {
+        for (Registro r : registros) {
+            Entrada entrada = entradas.get(new Clave(r.usuarioId(), r.submoduloId()));
+            if (entrada != null) {
+                synchronized (entrada) {
+                    entrada.sucia = true;
+                }
+            }
+        }
+    }
+
+    private record Clave(Long usuarioId, Long submoduloId) {
+    }
+
+    private record Registro(Long usuarioId, Long submoduloId, int tiempoVisto, int duracionTotal,
+                            int porcentaje, boolean completado) {
+    }
+
+    private static final class Entrada {
+        int tiempoVisto;
+        int duracionTotal;
+        boolean completado;
+        volatile boolean sucia;
+        boolean descartada;
+        long ultimoLatido;
+
+        int porcentaje() {
+            return duracionTotal > 0 ? Math.min((int) ((long) tiempoVisto * 100 / duracionTotal), 100) : 0;
+        }
+
+        Registro registro(Clave clave) {
+            return new Registro(clave.usuarioId(), clave.submoduloId(), tiempoVisto, duracionTotal,
+                    porcentaje(), completado);
+        }
+    }
+}
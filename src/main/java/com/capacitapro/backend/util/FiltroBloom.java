@@ -0,0 +1,91 @@
+package com.capacitapro.backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de cadenas. Si puedeContener devuelve false, la cadena nunca se agregó;
+ * si devuelve true, puede ser un falso positivo con la tasa indicada al crearlo.
+ * Se puede agregar y consultar desde varios hilos a la vez.
+ */
+public class FiltroBloom {
+
+    private final AtomicLongArray bits;
+    private final long totalBits;
+    private final int funciones;
+    private final long capacidad;
+    private final AtomicLong elementos = new AtomicLong();
+
+    public FiltroBloom(long capacidad, double tasaFalsosPositivos) {
+        if (capacidad <= 0 || tasaFalsosPositivos <= 0 || tasaFalsosPositivos >= 1) {
+            throw new IllegalArgumentException("Capacidad o tasa de falsos positivos inválida");
+        }
+        long m = (long) Math.ceil(-capacidad * Math.log(tasaFalsosPositivos) / (Math.log(2) * Math.log(2)));
+        int palabras = (int) Math.min((Math.max(m, 64) + 63) / 64, Integer.MAX_VALUE - 8);
+        this.bits = new AtomicLongArray(palabras);
+        this.totalBits = (long) palabras * 64;
+        this.funciones = Math.max(1, (int) Math.round((double) totalBits / capacidad * Math.log(2)));
+        this.capacidad = capacidad;
+    }
+
+    public void agregar(String valor) {
+        long h1 = hash(valor);
+        long h2 = mezclar(h1) | 1;
+        for (int i = 0; i < funciones; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % totalBits;
+            long mascara = 1L << bit;
+            bits.accumulateAndGet((int) (bit >>> 6), mascara, (a, b) -> a | b);
+        }
+        elementos.incrementAndGet();
+    }
+
+    public boolean puedeContener(String valor) {
+        long h1 = hash(valor);
+        long h2 = mezclar(h1) | 1;
+        for (int i = 0; i < funciones; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % totalBits;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Cantidad de agregados (con repetidos)
+    public long getElementos() {
+        return elementos.get();
+    }
+
+    public long getCapacidad() {
+        return capacidad;
+    }
+
+    public long getTotalBits() {
+        return totalBits;
+    }
+
+    public int getFunciones() {
+        return funciones;
+    }
+
+    // FNV-1a de 64 bits sobre los bytes UTF-8
+    private static long hash(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        return mezclar(h);
+    }
+
+    // Paso final de MurmurHash3 para repartir mejor los bits
+    private static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,114 @@
+package com.capacitapro.backend.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector CSV mínimo (RFC 4180): campos entre comillas con separadores, saltos de línea y comillas
+ * dobles escapadas. El separador es coma o punto y coma (Excel en español exporta con punto y coma)
+ * y se detecta en el encabezado. Cada registro recuerda la línea del archivo donde empieza.
+ */
+public final class LectorCsv {
+
+    public record Registro(int linea, List<String> campos) {
+
+        public String campo(int indice) {
+            return indice >= 0 && indice < campos.size() ? campos.get(indice) : null;
+        }
+
+        public boolean vacio() {
+            return campos.stream().allMatch(c -> c == null || c.isBlank());
+        }
+    }
+
+    private final Reader entrada;
+    private char separador;
+    private int linea = 1;
+    private int pendiente = -2; // -2: no hay carácter leído de más
+
+    public LectorCsv(Reader entrada) {
+        this.entrada = entrada;
+    }
+
+    // Lee todos los registros; el primero es el encabezado
+    public List<Registro> leerTodo() throws IOException {
+        List<Registro> registros = new ArrayList<>();
+        Registro registro;
+        while ((registro = siguiente()) != null) {
+            registros.add(registro);
+        }
+        return registros;
+    }
+
+    public Registro siguiente() throws IOException {
+        int c = leer();
+        if (c == -1) {
+            return null;
+        }
+        if (linea == 1 && c == '\uFEFF') { // BOM
+            c = leer();
+        }
+
+        int inicio = linea;
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        boolean detectar = separador == 0;
+
+        while (c != -1) {
+            if (entreComillas) {
+                if (c == '"') {
+                    int siguiente = leer();
+                    if (siguiente == '"') {
+                        campo.append('"');
+                    } else {
+                        entreComillas = false;
+                        c = siguiente;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        linea++;
+                    }
+                    campo.append((char) c);
+                }
+            } else if (c == '"' && campo.isEmpty()) {
+                entreComillas = true;
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    int siguiente = leer();
+                    if (siguiente != '\n') {
+                        pendiente = siguiente;
+                    }
+                }
+                linea++;
+                break;
+            } else if (detectar && (c == ',' || c == ';')) {
+                // El primer separador del encabezado decide el del archivo
+                separador = (char) c;
+                detectar = false;
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append((char) c);
+            }
+            c = leer();
+        }
+        campos.add(campo.toString());
+        return new Registro(inicio, campos);
+    }
+
+    private int leer() throws IOException {
+        if (pendiente != -2) {
+            int c = pendiente;
+            pendiente = -2;
+            return c;
+        }
+        return entrada.read();
+    }
+}
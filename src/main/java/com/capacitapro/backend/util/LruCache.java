@@ -0,0 +1,114 @@
+package com.capacitapro.backend.util;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caché en memoria acotada por cantidad de entradas, con desalojo LRU
+ * y contadores de aciertos, fallos y desalojos.
+ */
+public class LruCache<K, V> {
+
+    private final String nombre;
+    private final int capacidad;
+    private final LinkedHashMap<K, V> entradas;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+
+    // Se incrementa en cada invalidación para descartar cargas que empezaron antes
+    private long generacion = 0;
+
+    public LruCache(String nombre, int capacidad) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad de la caché debe ser positiva");
+        }
+        this.nombre = nombre;
+        this.capacidad = capacidad;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LruCache.this.capacidad) {
+                    desalojos.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized V get(K clave) {
+        V valor = entradas.get(clave);
+        if (valor != null) {
+            aciertos.incrementAndGet();
+        } else {
+            fallos.incrementAndGet();
+        }
+        return valor;
+    }
+
+    /**
+     * Devuelve el valor en caché o lo carga. La carga se hace fuera del lock,
+     * y no se guarda si hubo una invalidación mientras se cargaba.
+     */
+    public V obtener(K clave, Function<K, V> cargador) {
+        long generacionInicial;
+        synchronized (this) {
+            V valor = entradas.get(clave);
+            if (valor != null) {
+                aciertos.incrementAndGet();
+                return valor;
+            }
+            fallos.incrementAndGet();
+            generacionInicial = generacion;
+        }
+
+        V cargado = cargador.apply(clave);
+        if (cargado != null) {
+            synchronized (this) {
+                if (generacion == generacionInicial) {
+                    entradas.put(clave, cargado);
+                }
+            }
+        }
+        return cargado;
+    }
+
+    public synchronized void put(K clave, V valor) {
+        entradas.put(clave, valor);
+    }
+
+    public synchronized void invalidar(K clave) {
+        generacion++;
+        entradas.remove(clave);
+    }
+
+    public synchronized void limpiar() {
+        generacion++;
+        entradas.clear();
+    }
+
+    public synchronized int size() {
+        return entradas.size();
+    }
+
+    public Map<String, Object> estadisticas() {
+        long totalAciertos = aciertos.get();
+        long totalFallos = fallos.get();
+        long consultas = totalAciertos + totalFallos;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("nombre", nombre);
+        stats.put("capacidad", capacidad);
+        stats.put("entradas", size());
+        stats.put("aciertos", totalAciertos);
+        stats.put("fallos", totalFallos);
+        stats.put("desalojos", desalojos.get());
+        stats.put("tasaAciertos", consultas > 0 ? (double) totalAciertos / consultas : 0.0);
+        return stats;
+    }
+}
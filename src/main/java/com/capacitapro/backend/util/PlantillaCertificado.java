@@ -0,0 +1,158 @@
+package com.capacitapro.backend.util;
+
+import com.lowagie.text.*;
+import com.lowagie.text.pdf.*;
+
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.GregorianCalendar;
+import java.util.Map;
+
+/**
+ * Plantilla de certificado compilada para una empresa. El fondo con los textos fijos (título,
+ * frases y "Otorgado por") se genera una sola vez como PDF; cada certificado solo estampa encima
+ * el nombre, el curso, la fecha y el código de verificación con fuentes ya creadas.
+ * Es inmutable y puede usarse desde varios hilos a la vez.
+ *
+ * El render es determinista: las fechas del documento son la de emisión y el identificador del
+ * archivo sale del código y de la versión de plantilla, así que los mismos datos con la misma versión
+ * dan siempre los mismos bytes (y el mismo digest), en cualquier instancia.
+ */
+public final class PlantillaCertificado {
+
+    private static final Rectangle PAGINA = PageSize.A4.rotate(); // Horizontal
+    private static final float CENTRO = PAGINA.getWidth() / 2;
+    private static final float MARGEN = 72;
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd 'de' MMMM 'de' yyyy");
+
+    // Fuentes compartidas por todas las plantillas
+    private static final Font FUENTE_TITULO;
+    private static final Font FUENTE_SUBTITULO;
+    private static final Font FUENTE_NOMBRE;
+    private static final Font FUENTE_CURSO;
+    private static final Font FUENTE_TEXTO;
+    private static final Font FUENTE_CODIGO;
+
+    static {
+        try {
+            BaseFont normal = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.CP1252, BaseFont.NOT_EMBEDDED);
+            BaseFont negrita = BaseFont.createFont(BaseFont.HELVETICA_BOLD, BaseFont.CP1252, BaseFont.NOT_EMBEDDED);
+            BaseFont cursiva = BaseFont.createFont(BaseFont.HELVETICA_OBLIQUE, BaseFont.CP1252, BaseFont.NOT_EMBEDDED);
+            FUENTE_TITULO = new Font(negrita, 28, Font.NORMAL, new Color(0, 51, 102));
+            FUENTE_SUBTITULO = new Font(negrita, 18);
+            FUENTE_NOMBRE = new Font(negrita, 24, Font.NORMAL, new Color(0, 102, 204));
+            FUENTE_CURSO = new Font(negrita, 20);
+            FUENTE_TEXTO = new Font(normal, 14);
+            FUENTE_CODIGO = new Font(cursiva, 10);
+        } catch (DocumentException | IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Posiciones verticales (línea base) de cada texto
+    private static final float Y_TITULO = 470;
+    private static final float Y_SUBTITULO = 405;
+    private static final float Y_NOMBRE = 355;
+    private static final float Y_TEXTO_CURSO = 310;
+    private static final float Y_CURSO_SUPERIOR = 295;
+    private static final float Y_CURSO_INFERIOR = 220;
+    private static final float Y_EMPRESA = 185;
+    private static final float Y_FECHA = 150;
+    private static final float Y_CODIGO = 50;
+
+    private final String empresa;
+    private final byte[] fondo;
+
+    private PlantillaCertificado(String empresa, byte[] fondo) {
+        this.empresa = empresa;
+        this.fondo = fondo;
+    }
+
+    // Genera el fondo con los textos fijos de la empresa
+    public static PlantillaCertificado compilar(String empresa) {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            Document document = new Document(PAGINA);
+            PdfWriter writer = PdfWriter.getInstance(document, baos);
+            document.open();
+
+            PdfContentByte cb = writer.getDirectContent();
+            centrar(cb, "CERTIFICADO DE FINALIZACIÓN", FUENTE_TITULO, Y_TITULO);
+            centrar(cb, "Se certifica que", FUENTE_SUBTITULO, Y_SUBTITULO);
+            centrar(cb, "ha completado satisfactoriamente el curso", FUENTE_TEXTO, Y_TEXTO_CURSO);
+            centrar(cb, "Otorgado por: " + empresa, FUENTE_TEXTO, Y_EMPRESA);
+
+            document.close();
+            return new PlantillaCertificado(empresa, baos.toByteArray());
+        } catch (DocumentException | IOException e) {
+            throw new RuntimeException("Error al compilar la plantilla de certificado: " + e.getMessage(), e);
+        }
+    }
+
+    // Estampa los datos del certificado sobre el fondo y escribe el PDF resultante
+    public void estampar(String nombre, String curso, LocalDateTime emision, String codigoVerificacion,
+                         int version, OutputStream salida) {
+        PdfReader reader = null;
+        try {
+            reader = new PdfReader(fondo);
+            PdfStamper stamper = new PdfStamper(reader, salida);
+
+            // Sin esto PdfStamper escribe la hora actual y un identificador aleatorio en cada render
+            GregorianCalendar fechaDocumento = GregorianCalendar.from(emision.atZone(ZoneOffset.UTC));
+            stamper.setEnforcedModificationDate(fechaDocumento);
+            stamper.setInfoDictionary(Map.of("CreationDate", new PdfDate(fechaDocumento).toString()));
+            byte[] id = identificador(codigoVerificacion, version);
+            stamper.setOverrideFileId(PdfEncryption.createInfoId(id, id));
+
+            PdfContentByte cb = stamper.getOverContent(1);
+
+            centrar(cb, nombre.toUpperCase(), FUENTE_NOMBRE, Y_NOMBRE);
+
+            // El título del curso puede ocupar varias líneas
+            ColumnText columna = new ColumnText(cb);
+            columna.setSimpleColumn(new Phrase(curso, FUENTE_CURSO), MARGEN, Y_CURSO_INFERIOR,
+                    PAGINA.getWidth() - MARGEN, Y_CURSO_SUPERIOR, 24, Element.ALIGN_CENTER);
+            columna.go();
+
+            centrar(cb, "Fecha de emisión: " + emision.toLocalDate().format(FORMATO_FECHA), FUENTE_TEXTO, Y_FECHA);
+            centrar(cb, "Código de verificación: " + codigoVerificacion, FUENTE_CODIGO, Y_CODIGO);
+
+            stamper.close();
+        } catch (DocumentException | IOException e) {
+            throw new RuntimeException("Error al generar el certificado PDF: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
+        }
+    }
+
+    public String getEmpresa() {
+        return empresa;
+    }
+
+    public int getTamanoFondo() {
+        return fondo.length;
+    }
+
+    private static byte[] identificador(String codigoVerificacion, int version) {
+        try {
+            return MessageDigest.getInstance("MD5")
+                    .digest((codigoVerificacion + "/v" + version).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void centrar(PdfContentByte cb, String texto, Font fuente, float y) {
+        ColumnText.showTextAligned(cb, Element.ALIGN_CENTER, new Phrase(texto, fuente), CENTRO, y, 0);
+    }
+}
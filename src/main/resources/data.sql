@@ -1,4 +1,40 @@
 -- Insertar empresa por defecto si no existe
 INSERT INTO empresa (id, nombre, ruc, estado) 
 SELECT 1, 'Empresa Demo', '12345678901', true
-WHERE NOT EXISTS (SELECT 1 FROM empresa WHERE id = 1);
\ No newline at end of file
+WHERE NOT EXISTS (SELECT 1 FROM empresa WHERE id = 1);
+
+-- Cola de revisión manual: los intentos anteriores a la columna pendiente_revision entran si no están
+-- aprobados y su evaluación tiene preguntas de texto (el mismo criterio que se filtraba en memoria)
+UPDATE evaluacion_usuario eu
+SET pendiente_revision = (COALESCE(eu.aprobado, false) = false
+    AND EXISTS (SELECT 1 FROM pregunta p WHERE p.evaluacion_id = eu.evaluacion_id AND p.tipo = 'texto'))
+WHERE eu.pendiente_revision IS NULL;
+
+-- Índice parcial: solo los pendientes, en el orden en que se revisan
+CREATE INDEX IF NOT EXISTS idx_evaluacion_usuario_revision
+ON evaluacion_usuario (fecha_realizacion, id)
+WHERE pendiente_revision = true;
+
+-- Respuestas de texto sin revisar por intento (seguimiento de tests)
+CREATE INDEX IF NOT EXISTS idx_respuesta_usuario_texto_pendiente
+ON respuesta_usuario_texto (evaluacion_usuario_id)
+WHERE revisada = false;
+
+-- Historial de intentos: las filas anteriores a la columna mejor_intento se numeran por (usuario, evaluación)
+-- en orden de realización y se marca como mejor el aprobado de mayor porcentaje (a igualdad, el más reciente)
+UPDATE evaluacion_usuario eu
+SET intentos = n.numero,
+    mejor_intento = (n.orden_mejor = 1)
+FROM (SELECT id,
+             ROW_NUMBER() OVER (PARTITION BY usuario_id, evaluacion_id ORDER BY fecha_realizacion, id) AS numero,
+             ROW_NUMBER() OVER (PARTITION BY usuario_id, evaluacion_id
+                                ORDER BY COALESCE(aprobado, false) DESC,
+                                         CASE WHEN puntaje_maximo > 0 THEN puntaje_obtenido * 100.0 / puntaje_maximo ELSE 0 END DESC,
+                                         fecha_realizacion DESC, id DESC) AS orden_mejor
+      FROM evaluacion_usuario) n
+WHERE eu.id = n.id AND eu.mejor_intento IS NULL;
+
+-- A lo sumo un mejor intento por (usuario, evaluación): el progreso lo lee con una sola búsqueda en este índice
+CREATE UNIQUE INDEX IF NOT EXISTS idx_evaluacion_usuario_mejor
+ON evaluacion_usuario (usuario_id, evaluacion_id)
+WHERE mejor_intento = true;
@@ -0,0 +1,140 @@
+package com.capacitapro.backend.benchmark;
+
+import com.capacitapro.backend.util.PlantillaCertificado;
+import com.lowagie.text.*;
+import com.lowagie.text.pdf.PdfWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tiempo y memoria asignada por certificado: generación completa con párrafos (método anterior)
+ * contra la plantilla compilada que solo estampa los campos variables.
+ * Ejecutar con: mvn -Pbenchmark test-compile exec:java
+ * La columna gc.alloc.rate.norm del perfilador de GC da los bytes asignados por certificado.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CertificadoPdfBenchmark {
+
+    private static final String EMPRESA = "Transportes y Servicios del Sur S.A.C.";
+    private static final String NOMBRE = "María Fernanda Quispe Rojas";
+    private static final String CURSO = "Manejo defensivo y prevención de riesgos en la conducción de unidades de carga pesada";
+    private static final String CODIGO = "CERT-7F3A9C21";
+
+    private PlantillaCertificado plantilla;
+    private LocalDate fecha;
+    private LocalDateTime emision;
+    private ByteArrayOutputStream salida;
+
+    @Setup
+    public void preparar() {
+        plantilla = PlantillaCertificado.compilar(EMPRESA);
+        fecha = LocalDate.of(2024, 5, 18);
+        emision = fecha.atTime(10, 30);
+        salida = new ByteArrayOutputStream(16 * 1024);
+    }
+
+    @Benchmark
+    public int generacionCompleta() {
+        salida.reset();
+        generarPorParrafos(NOMBRE, CURSO, EMPRESA, fecha, salida);
+        return salida.size();
+    }
+
+    @Benchmark
+    public int plantillaCompilada() {
+        salida.reset();
+        plantilla.estampar(NOMBRE, CURSO, emision, CODIGO, 1, salida);
+        return salida.size();
+    }
+
+    // Copia del generarCertificadoPdf original, como referencia
+    private static void generarPorParrafos(String nombre, String curso, String empresa, LocalDate fecha,
+                                           ByteArrayOutputStream baos) {
+        try {
+            Document document = new Document(PageSize.A4.rotate());
+            PdfWriter.getInstance(document, baos);
+            document.open();
+
+            Font titleFont = new Font(Font.HELVETICA, 28, Font.BOLD, new Color(0, 51, 102));
+            Font subtitleFont = new Font(Font.HELVETICA, 18, Font.BOLD);
+            Font nameFont = new Font(Font.HELVETICA, 24, Font.BOLD, new Color(0, 102, 204));
+            Font courseFont = new Font(Font.HELVETICA, 20, Font.BOLD);
+            Font textFont = new Font(Font.HELVETICA, 14);
+            Font smallFont = new Font(Font.HELVETICA, 10, Font.ITALIC);
+
+            document.add(new Paragraph(" "));
+            document.add(new Paragraph(" "));
+
+            Paragraph title = new Paragraph("CERTIFICADO DE FINALIZACIÓN", titleFont);
+            title.setAlignment(Element.ALIGN_CENTER);
+            document.add(title);
+
+            document.add(new Paragraph(" "));
+            document.add(new Paragraph(" "));
+
+            Paragraph subtitle = new Paragraph("Se certifica que", subtitleFont);
+            subtitle.setAlignment(Element.ALIGN_CENTER);
+            document.add(subtitle);
+
+            document.add(new Paragraph(" "));
+
+            Paragraph name = new Paragraph(nombre.toUpperCase(), nameFont);
+            name.setAlignment(Element.ALIGN_CENTER);
+            document.add(name);
+
+            document.add(new Paragraph(" "));
+
+            Paragraph courseText = new Paragraph("ha completado satisfactoriamente el curso", textFont);
+            courseText.setAlignment(Element.ALIGN_CENTER);
+            document.add(courseText);
+
+            document.add(new Paragraph(" "));
+
+            Paragraph courseName = new Paragraph(curso, courseFont);
+            courseName.setAlignment(Element.ALIGN_CENTER);
+            document.add(courseName);
+
+            document.add(new Paragraph(" "));
+            document.add(new Paragraph(" "));
+
+            Paragraph company = new Paragraph("Otorgado por: " + empresa, textFont);
+            company.setAlignment(Element.ALIGN_CENTER);
+            document.add(company);
+
+            document.add(new Paragraph(" "));
+
+            String textoFecha = fecha.format(DateTimeFormatter.ofPattern("dd 'de' MMMM 'de' yyyy"));
+            Paragraph dateText = new Paragraph("Fecha de emisión: " + textoFecha, textFont);
+            dateText.setAlignment(Element.ALIGN_CENTER);
+            document.add(dateText);
+
+            document.close();
+        } catch (DocumentException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opciones = new OptionsBuilder()
+                .include(CertificadoPdfBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opciones).run();
+    }
+}
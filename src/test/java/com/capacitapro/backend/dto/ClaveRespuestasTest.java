@@ -0,0 +1,235 @@
+package com.capacitapro.backend.dto;
+
+import com.capacitapro.backend.entity.Pregunta;
+import com.capacitapro.backend.entity.Respuesta;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compara la clave compilada con la calificación original, que recorría las preguntas de la evaluación
+ * y buscaba cada respuesta elegida por id, sobre evaluaciones e intentos generados al azar.
+ * Única diferencia buscada: la original sumaba una respuesta correcta aunque fuera de otra pregunta.
+ */
+class ClaveRespuestasTest {
+
+    private static final int ITERACIONES = 500;
+
+    private long siguienteId;
+
+    @Test
+    void coincideConLaCalificacionPorRespuesta() {
+        Random random = new Random(20240601L);
+
+        for (int iteracion = 0; iteracion < ITERACIONES; iteracion++) {
+            List<Pregunta> preguntas = crearPreguntas(random, 1 + random.nextInt(8));
+            int notaMinima = random.nextInt(101);
+            ClaveRespuestas clave = compilar(preguntas, notaMinima);
+            Map<Long, Respuesta> respuestasPorId = indexar(preguntas);
+
+            for (int intento = 0; intento < 10; intento++) {
+                Map<String, Object> enviadas = responder(random, preguntas, respuestasPorId);
+
+                int esperado = calificacionOriginal(preguntas, respuestasPorId, enviadas);
+                int obtenido = clave.calificar(porPregunta(enviadas));
+                int maximo = preguntas.stream().mapToInt(Pregunta::getPuntaje).sum();
+
+                assertThat(obtenido).as("respuestas %s", enviadas).isEqualTo(esperado);
+                assertThat(clave.getPuntajeMaximo()).isEqualTo(maximo);
+                assertThat(clave.porcentaje(obtenido)).isEqualTo(maximo > 0 ? obtenido * 100 / maximo : 0);
+                assertThat(clave.aprobado(obtenido)).isEqualTo(aprobacionOriginal(esperado, maximo, notaMinima));
+            }
+        }
+    }
+
+    @Test
+    void respuestaCorrectaDeOtraPreguntaNoSuma() {
+        Pregunta primera = pregunta(1L, 5, "multiple", respuesta(10L, true), respuesta(11L, false));
+        Pregunta segunda = pregunta(2L, 5, "multiple", respuesta(20L, true), respuesta(21L, false));
+        List<Pregunta> preguntas = List.of(primera, segunda);
+        ClaveRespuestas clave = compilar(preguntas, 50);
+
+        // La correcta de la segunda enviada como respuesta de la primera
+        Map<String, Object> enviadas = Map.of("1", "20", "2", "21");
+        assertThat(clave.calificar(porPregunta(enviadas))).isZero();
+        // La calificación original sí la contaba
+        assertThat(calificacionOriginal(preguntas, indexar(preguntas), enviadas)).isEqualTo(5);
+    }
+
+    @Test
+    void valorNoNumericoNoSuma() {
+        ClaveRespuestas clave = compilar(List.of(pregunta(1L, 3, "multiple", respuesta(10L, true))), 70);
+
+        assertThat(clave.calificar(Map.of(1L, "diez"))).isZero();
+        assertThat(clave.calificar(Map.of(1L, ""))).isZero();
+        assertThat(clave.calificar(Map.of(1L, "10"))).isEqualTo(3);
+    }
+
+    @Test
+    void preguntaSinResponderNoSuma() {
+        ClaveRespuestas clave = compilar(List.of(
+                pregunta(1L, 2, "multiple", respuesta(10L, true)),
+                pregunta(2L, 2, "texto")), 50);
+
+        assertThat(clave.calificar(Map.of())).isZero();
+        assertThat(clave.calificar(Map.of(1L, "10"))).isEqualTo(2);
+        // Una respuesta a una pregunta que no es de la evaluación se ignora
+        assertThat(clave.calificar(Map.of(99L, "10"))).isZero();
+    }
+
+    @Test
+    void preguntaDeTextoRespondidaRecibeElPuntajeCompleto() {
+        ClaveRespuestas clave = compilar(List.of(
+                pregunta(1L, 4, "texto"),
+                pregunta(2L, 6, "multiple", respuesta(20L, true), respuesta(21L, false))), 60);
+
+        assertThat(clave.tieneAbiertas()).isTrue();
+        assertThat(clave.calificar(Map.of(1L, "Mi respuesta"))).isEqualTo(4);
+        // Presente pero vacía cuenta como respondida
+        assertThat(clave.calificar(Map.of(1L, ""))).isEqualTo(4);
+        assertThat(clave.aprobado(4)).isFalse();
+        assertThat(clave.aprobado(10)).isTrue();
+    }
+
+    @Test
+    void sinPuntajeMaximoNuncaApruebaNiDivide() {
+        ClaveRespuestas vacia = new ClaveRespuestas(1L, 1L, 1L, 0, List.of());
+
+        assertThat(vacia.getPuntajeMaximo()).isZero();
+        assertThat(vacia.getCantidadPreguntas()).isZero();
+        assertThat(vacia.calificar(Map.of(1L, "10"))).isZero();
+        assertThat(vacia.porcentaje(0)).isZero();
+        // Igual que EvaluacionUsuario.calcularAprobacion, que no aprueba sin puntaje máximo
+        assertThat(vacia.aprobado(0)).isFalse();
+    }
+
+    // Lógica anterior de EvaluacionController.responderEvaluacion
+    private static int calificacionOriginal(List<Pregunta> preguntas, Map<Long, Respuesta> respuestasPorId,
+                                            Map<String, Object> enviadas) {
+        int puntajeObtenido = 0;
+        for (Pregunta pregunta : preguntas) {
+            String preguntaIdStr = pregunta.getId().toString();
+            if (enviadas.containsKey(preguntaIdStr)) {
+                Object respuestaObj = enviadas.get(preguntaIdStr);
+                if ("texto".equals(pregunta.getTipo())) {
+                    puntajeObtenido += pregunta.getPuntaje();
+                } else {
+                    try {
+                        Long respuestaSeleccionadaId = Long.parseLong(respuestaObj.toString());
+                        Respuesta respuestaSeleccionada = respuestasPorId.get(respuestaSeleccionadaId);
+                        if (respuestaSeleccionada != null && respuestaSeleccionada.getEsCorrecta()) {
+                            puntajeObtenido += pregunta.getPuntaje();
+                        }
+                    } catch (NumberFormatException e) {
+                        // Sin puntos
+                    }
+                }
+            }
+        }
+        return puntajeObtenido;
+    }
+
+    private static boolean aprobacionOriginal(int puntajeObtenido, int puntajeMaximo, int notaMinima) {
+        int porcentaje = puntajeMaximo > 0 ? (puntajeObtenido * 100) / puntajeMaximo : 0;
+        return puntajeMaximo > 0 && porcentaje >= notaMinima;
+    }
+
+    // Intento al azar: correcta, incorrecta, inexistente, no numérica o sin responder.
+    // Las correctas de otra pregunta quedan fuera: ahí la original tenía el error
+    private static Map<String, Object> responder(Random random, List<Pregunta> preguntas, Map<Long, Respuesta> respuestasPorId) {
+        Map<String, Object> enviadas = new HashMap<>();
+        for (Pregunta pregunta : preguntas) {
+            String id = pregunta.getId().toString();
+            if ("texto".equals(pregunta.getTipo())) {
+                if (random.nextInt(4) > 0) {
+                    enviadas.put(id, "Respuesta libre " + random.nextInt(100));
+                }
+                continue;
+            }
+            switch (random.nextInt(6)) {
+                case 0 -> { }
+                case 1 -> enviadas.put(id, "opcion-" + random.nextInt(10));
+                case 2 -> enviadas.put(id, String.valueOf(1_000_000L + random.nextInt(1000)));
+                case 3 -> {
+                    // Incorrecta de otra pregunta: no suma en ninguna de las dos calificaciones
+                    List<Respuesta> ajenas = respuestasPorId.values().stream()
+                            .filter(r -> !r.getPregunta().getId().equals(pregunta.getId()))
+                            .filter(r -> !r.getEsCorrecta())
+                            .toList();
+                    if (!ajenas.isEmpty()) {
+                        enviadas.put(id, ajenas.get(random.nextInt(ajenas.size())).getId());
+                    }
+                }
+                default -> {
+                    List<Respuesta> propias = pregunta.getRespuestas();
+                    if (!propias.isEmpty()) {
+                        enviadas.put(id, propias.get(random.nextInt(propias.size())).getId());
+                    }
+                }
+            }
+        }
+        return enviadas;
+    }
+
+    private List<Pregunta> crearPreguntas(Random random, int cantidad) {
+        List<Pregunta> preguntas = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            boolean texto = random.nextInt(5) == 0;
+            Respuesta[] respuestas = new Respuesta[texto ? 0 : random.nextInt(5)];
+            for (int j = 0; j < respuestas.length; j++) {
+                respuestas[j] = respuesta(++siguienteId, random.nextInt(3) == 0);
+            }
+            preguntas.add(pregunta(++siguienteId, 1 + random.nextInt(10), texto ? "texto" : "multiple", respuestas));
+        }
+        // La clave ordena por id; la evaluación podía traerlas en cualquier orden
+        Collections.shuffle(preguntas, random);
+        return preguntas;
+    }
+
+    private static Pregunta pregunta(Long id, int puntaje, String tipo, Respuesta... respuestas) {
+        Pregunta pregunta = Pregunta.builder()
+                .id(id)
+                .enunciado("Pregunta " + id)
+                .puntaje(puntaje)
+                .tipo(tipo)
+                .respuestas(new ArrayList<>(List.of(respuestas)))
+                .build();
+        for (Respuesta respuesta : respuestas) {
+            respuesta.setPregunta(pregunta);
+        }
+        return pregunta;
+    }
+
+    private static Respuesta respuesta(Long id, boolean correcta) {
+        return Respuesta.builder().id(id).texto("Respuesta " + id).esCorrecta(correcta).build();
+    }
+
+    private static ClaveRespuestas compilar(List<Pregunta> preguntas, int notaMinima) {
+        List<ClaveRespuestas.Fila> filas = new ArrayList<>();
+        for (Pregunta pregunta : preguntas) {
+            if (pregunta.getRespuestas().isEmpty()) {
+                filas.add(new ClaveRespuestas.Fila(pregunta.getId(), pregunta.getPuntaje(), pregunta.getTipo(), null, null));
+            }
+            for (Respuesta respuesta : pregunta.getRespuestas()) {
+                filas.add(new ClaveRespuestas.Fila(pregunta.getId(), pregunta.getPuntaje(), pregunta.getTipo(),
+                        respuesta.getId(), respuesta.getEsCorrecta()));
+            }
+        }
+        return new ClaveRespuestas(1L, 1L, 1L, notaMinima, filas);
+    }
+
+    private static Map<Long, Respuesta> indexar(List<Pregunta> preguntas) {
+        Map<Long, Respuesta> porId = new HashMap<>();
+        preguntas.forEach(p -> p.getRespuestas().forEach(r -> porId.put(r.getId(), r)));
+        return porId;
+    }
+
+    // Misma conversión que EvaluacionController.respuestasPorPregunta
+    private static Map<Long, String> porPregunta(Map<String, Object> enviadas) {
+        Map<Long, String> respuestas = new HashMap<>();
+        enviadas.forEach((preguntaId, valor) -> respuestas.put(Long.parseLong(preguntaId), valor != null ? valor.toString() : ""));
+        return respuestas;
+    }
+}
@@ -0,0 +1,172 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.EstructuraCurso;
+import com.capacitapro.backend.dto.EstructuraCurso.ModuloEstructura;
+import com.capacitapro.backend.dto.EstructuraCurso.SubmoduloEstructura;
+import com.capacitapro.backend.entity.*;
+import com.capacitapro.backend.repository.ModuloProgresoRepository;
+import com.capacitapro.backend.repository.SubmoduloProgresoRepository;
+import com.capacitapro.backend.service.EstructuraCursoService;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Compara el acceso por prefijo completado con la verificación original, que revisaba uno por uno
+ * los submódulos anteriores, sobre módulos y secuencias de progreso generados al azar.
+ */
+class AccesoSecuencialServiceImplTest {
+
+    private static final int ITERACIONES = 300;
+
+    private final Usuario usuario = Usuario.builder().id(1L).nombre("Empleado").build();
+    private final Curso curso = Curso.builder().id(10L).titulo("Curso").build();
+    private final Modulo modulo = Modulo.builder().id(1L).titulo("Módulo").orden(1).curso(curso).build();
+    private final Modulo otroModulo = Modulo.builder().id(2L).titulo("Otro").orden(2).curso(curso).build();
+
+    private Set<Long> completados;
+    private ModuloProgreso progreso;
+    private SubmoduloProgresoRepository submoduloProgresoRepository;
+    private AccesoSecuencialServiceImpl service;
+
+    @Test
+    void coincideConLaVerificacionSubmoduloPorSubmodulo() {
+        Random random = new Random(20240518L);
+
+        for (int iteracion = 0; iteracion < ITERACIONES; iteracion++) {
+            List<Submodulo> submodulos = crearSubmodulos(random, random.nextInt(9));
+            Submodulo ajeno = Submodulo.builder().id(9_999L).titulo("Ajeno").orden(1).modulo(otroModulo).build();
+            preparar(submodulos, random.nextBoolean());
+
+            verificarTodos(submodulos, ajeno);
+
+            // Los videos pueden completarse en cualquier orden, así que se marcan submódulos al azar
+            for (int paso = 0; paso < submodulos.size() * 2; paso++) {
+                Long completado = submodulos.get(random.nextInt(submodulos.size())).getId();
+                completados.add(completado);
+                if (progreso == null) {
+                    progreso = ModuloProgreso.builder().id(50L).usuario(usuario).modulo(modulo).build();
+                }
+                service.registrarCompletado(usuario, progreso, completado);
+
+                // Un cambio en la estructura del curso descarta el prefijo guardado
+                if (random.nextInt(5) == 0) {
+                    progreso.setPrefijoCompletado(null);
+                }
+
+                verificarTodos(submodulos, ajeno);
+            }
+        }
+    }
+
+    @Test
+    void conPrefijoGuardadoSoloLeeLosSubmodulosSiguientes() {
+        List<Submodulo> submodulos = crearSubmodulos(new Random(7L), 5);
+        preparar(submodulos, true);
+        progreso.setPrefijoCompletado(1);
+        completados.add(submodulos.get(0).getId());
+        completados.add(submodulos.get(2).getId());
+        completados.add(submodulos.get(3).getId());
+
+        // Completar el cuarto deja el hueco en el segundo: no cambia ni consulta nada
+        assertThat(service.registrarCompletado(usuario, progreso, submodulos.get(3).getId())).isEqualTo(1);
+        verify(submoduloProgresoRepository, never()).findSubmoduloIdsCompletadosEntre(anyLong(), anyCollection());
+
+        // Completar el segundo cierra el hueco y avanza sobre el tercero y el cuarto
+        completados.add(submodulos.get(1).getId());
+        assertThat(service.registrarCompletado(usuario, progreso, submodulos.get(1).getId())).isEqualTo(4);
+        verify(submoduloProgresoRepository).findSubmoduloIdsCompletadosEntre(usuario.getId(),
+                List.of(submodulos.get(2).getId(), submodulos.get(3).getId(), submodulos.get(4).getId()));
+        verify(submoduloProgresoRepository, never()).findSubmoduloIdsCompletados(anyLong(), anyLong());
+    }
+
+    @Test
+    void prefijoSeDetieneEnElPrimerHueco() {
+        List<SubmoduloEstructura> submodulos = List.of(
+                new SubmoduloEstructura(7L, "A", "TEXTO", null, 1),
+                new SubmoduloEstructura(3L, "B", "TEXTO", null, 2),
+                new SubmoduloEstructura(5L, "C", "TEXTO", null, 3));
+        ModuloEstructura estructura = new ModuloEstructura(1L, "Módulo", null, 1, submodulos, List.of(), List.of());
+
+        assertThat(estructura.prefijoCompletado(Set.of())).isZero();
+        assertThat(estructura.prefijoCompletado(Set.of(7L, 5L))).isEqualTo(1);
+        assertThat(estructura.prefijoCompletado(Set.of(7L, 3L, 5L))).isEqualTo(3);
+    }
+
+    private void verificarTodos(List<Submodulo> submodulos, Submodulo ajeno) {
+        for (Submodulo submodulo : submodulos) {
+            assertThat(service.puedeAcceder(usuario, submodulo))
+                    .as("submódulo %d con completados %s", submodulo.getId(), completados)
+                    .isEqualTo(verificacionOriginal(submodulos, submodulo));
+        }
+        assertThat(service.puedeAcceder(usuario, ajeno)).isFalse();
+    }
+
+    // Lógica anterior: el primero siempre es accesible; el resto, si todos los anteriores están completados
+    private boolean verificacionOriginal(List<Submodulo> submodulos, Submodulo objetivo) {
+        int indice = submodulos.indexOf(objetivo);
+        if (indice == -1) {
+            return false;
+        }
+        for (int i = 0; i < indice; i++) {
+            if (!completados.contains(submodulos.get(i).getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void preparar(List<Submodulo> submodulos, boolean conProgresoInicial) {
+        completados = new HashSet<>();
+        progreso = conProgresoInicial
+                ? ModuloProgreso.builder().id(50L).usuario(usuario).modulo(modulo).build()
+                : null;
+
+        List<SubmoduloEstructura> estructuraSubmodulos = submodulos.stream()
+                .map(s -> new SubmoduloEstructura(s.getId(), s.getTitulo(), s.getTipo(), null, s.getOrden()))
+                .toList();
+        EstructuraCurso estructura = new EstructuraCurso(curso.getId(), List.of(
+                new ModuloEstructura(modulo.getId(), modulo.getTitulo(), null, 1, estructuraSubmodulos, List.of(), List.of()),
+                new ModuloEstructura(otroModulo.getId(), otroModulo.getTitulo(), null, 2, List.of(), List.of(), List.of())),
+                List.of());
+
+        EstructuraCursoService estructuraCursoService = mock(EstructuraCursoService.class);
+        ModuloProgresoRepository moduloProgresoRepository = mock(ModuloProgresoRepository.class);
+        submoduloProgresoRepository = mock(SubmoduloProgresoRepository.class);
+
+        when(estructuraCursoService.obtener(curso.getId())).thenReturn(estructura);
+        when(moduloProgresoRepository.findByUsuarioAndModulo(usuario, modulo))
+                .thenAnswer(inv -> Optional.ofNullable(progreso));
+        when(moduloProgresoRepository.findPrefijoCompletadoParaActualizar(anyLong()))
+                .thenAnswer(inv -> progreso.getPrefijoCompletado());
+        when(submoduloProgresoRepository.findSubmoduloIdsCompletados(usuario.getId(), modulo.getId()))
+                .thenAnswer(inv -> new ArrayList<>(completados));
+        when(submoduloProgresoRepository.findSubmoduloIdsCompletadosEntre(eq(usuario.getId()), anyCollection()))
+                .thenAnswer(inv -> {
+                    Collection<Long> ids = inv.getArgument(1);
+                    return ids.stream().filter(completados::contains).toList();
+                });
+
+        service = new AccesoSecuencialServiceImpl(estructuraCursoService, moduloProgresoRepository, submoduloProgresoRepository);
+    }
+
+    // Ids desordenados para que la posición no coincida con el id
+    private List<Submodulo> crearSubmodulos(Random random, int cantidad) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            ids.add(100L + i);
+        }
+        Collections.shuffle(ids, random);
+
+        List<Submodulo> submodulos = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            submodulos.add(Submodulo.builder().id(ids.get(i)).titulo("Sub " + (i + 1)).tipo("TEXTO")
+                    .orden(i + 1).modulo(modulo).build());
+        }
+        return submodulos;
+    }
+}
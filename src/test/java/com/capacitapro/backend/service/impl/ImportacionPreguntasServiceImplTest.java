@@ -0,0 +1,178 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.PreguntaDTO;
+import com.capacitapro.backend.dto.RespuestaDTO;
+import com.capacitapro.backend.dto.ResultadoImportacion;
+import com.capacitapro.backend.dto.ResultadoImportacion.ErrorFila;
+import com.capacitapro.backend.entity.Curso;
+import com.capacitapro.backend.entity.Empresa;
+import com.capacitapro.backend.entity.Evaluacion;
+import com.capacitapro.backend.entity.Usuario;
+import com.capacitapro.backend.repository.EvaluacionRepository;
+import com.capacitapro.backend.service.ClaveRespuestasService;
+import com.capacitapro.backend.service.CuestionarioEvaluacionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Validación de la importación de preguntas: los errores se informan con la línea del CSV (o la
+ * posición en la lista JSON) y, si hay alguno, no se escribe nada.
+ */
+class ImportacionPreguntasServiceImplTest {
+
+    private static final String ENCABEZADO = "enunciado,tipo,puntaje,opcion1,opcion2,opcion3,correctas\n";
+
+    private final Empresa empresa = Empresa.builder().id(1L).nombre("Empresa").build();
+    private final Usuario admin = Usuario.builder().id(1L).nombre("Admin").rol("ADMIN").empresa(empresa).build();
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private ClaveRespuestasService claveRespuestasService;
+    private CuestionarioEvaluacionService cuestionarioEvaluacionService;
+    private ImportacionPreguntasServiceImpl service;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class), eq(Long.class)))
+                .thenAnswer(inv -> {
+                    int cantidad = (Integer) ((SqlParameterSource) inv.getArgument(1)).getValue("cantidad");
+                    return LongStream.rangeClosed(100, 99 + cantidad).boxed().toList();
+                });
+
+        Curso curso = Curso.builder().id(10L).titulo("Curso").empresa(empresa).build();
+        Evaluacion evaluacion = Evaluacion.builder().id(5L).titulo("Evaluación").curso(curso).build();
+        EvaluacionRepository evaluacionRepository = mock(EvaluacionRepository.class);
+        when(evaluacionRepository.findById(5L)).thenReturn(Optional.of(evaluacion));
+
+        claveRespuestasService = mock(ClaveRespuestasService.class);
+        cuestionarioEvaluacionService = mock(CuestionarioEvaluacionService.class);
+        service = new ImportacionPreguntasServiceImpl(jdbcTemplate, mock(PlatformTransactionManager.class),
+                evaluacionRepository, claveRespuestasService, cuestionarioEvaluacionService, 2, 100);
+    }
+
+    @Test
+    void importaUnCsvValidoEnLotes() {
+        ResultadoImportacion resultado = importarCsv(ENCABEZADO +
+                "¿Cuál es la capital de Perú?,multiple,2,Lima,Quito,Bogotá,1\n" +
+                "\"Elija las opciones correctas, todas\",,,\"Sí, esta\",También,No,1|2\n" +
+                "Explique con sus palabras el tema,texto,5,,,,\n");
+
+        assertThat(resultado.errores()).isEmpty();
+        assertThat(resultado.preguntas()).isEqualTo(3);
+        assertThat(resultado.respuestas()).isEqualTo(6);
+        // Tamaño de lote 2: tres preguntas en dos lotes, seis respuestas en tres
+        verify(jdbcTemplate, times(5)).batchUpdate(anyString(), any(SqlParameterSource[].class));
+        verify(claveRespuestasService).invalidar(5L);
+        verify(cuestionarioEvaluacionService).invalidar(5L);
+    }
+
+    @Test
+    void errorSinRespuestaCorrectaConLaLineaDelCsv() {
+        ResultadoImportacion resultado = importarCsv(ENCABEZADO +
+                "¿Cuál es la capital de Perú?,multiple,2,Lima,Quito,,1\n" +
+                "¿Cuál es la capital de Chile?,multiple,2,Santiago,Lima,,\n");
+
+        assertThat(resultado.errores())
+                .containsExactly(new ErrorFila(3, "La pregunta debe tener al menos una respuesta correcta"));
+        assertThat(resultado.preguntas()).isZero();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(SqlParameterSource[].class));
+        verifyNoInteractions(claveRespuestasService);
+    }
+
+    @Test
+    void errorDePuntajeFueraDeRangoYNoNumerico() {
+        ResultadoImportacion resultado = importarCsv(ENCABEZADO +
+                "¿Cuál es la capital de Perú?,multiple,11,Lima,Quito,,1\n" +
+                "¿Cuál es la capital de Chile?,multiple,dos,Santiago,Lima,,1\n" +
+                "¿Cuál es la capital de Bolivia?,multiple,0,Sucre,Lima,,1\n");
+
+        assertThat(resultado.errores()).containsExactly(
+                new ErrorFila(2, "El puntaje debe estar entre 1 y 10"),
+                new ErrorFila(3, "Puntaje inválido: dos"),
+                new ErrorFila(4, "El puntaje debe estar entre 1 y 10"));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(SqlParameterSource[].class));
+    }
+
+    @Test
+    void lineasReportadasConSaltosInternosBomYLineasEnBlanco() {
+        ResultadoImportacion resultado = importarCsv("\uFEFF" + ENCABEZADO +
+                "\"Una pregunta\nen dos líneas válida\",multiple,1,A,B,,2\n" +
+                "\n" +
+                "Corta,multiple,1,A,B,,1\n" +
+                "¿Opción que no existe en la fila?,multiple,1,A,B,,3\n");
+
+        assertThat(resultado.errores()).containsExactly(
+                new ErrorFila(5, "El enunciado debe tener entre 10 y 1000 caracteres"),
+                new ErrorFila(6, "La respuesta correcta 3 no existe entre las opciones"));
+    }
+
+    @Test
+    void enunciadoRepetidoIndicaLaPrimeraFila() {
+        ResultadoImportacion resultado = importarCsv(ENCABEZADO +
+                "¿Cuál es la capital de Perú?,multiple,1,Lima,Quito,,1\n" +
+                "¿CUÁL ES LA CAPITAL DE PERÚ?,multiple,1,Lima,Quito,,1\n");
+
+        assertThat(resultado.errores()).containsExactly(new ErrorFila(3, "Enunciado repetido (fila 2)"));
+    }
+
+    @Test
+    void puntoYComaDeExcel() {
+        ResultadoImportacion resultado = importarCsv(
+                "Enunciado;Puntaje;Opcion1;Opcion2;Correctas\r\n" +
+                "¿Cuánto es 1,5 + 1,5?;3;3;2,5;1\r\n");
+
+        assertThat(resultado.errores()).isEmpty();
+        assertThat(resultado.preguntas()).isEqualTo(1);
+        assertThat(resultado.respuestas()).isEqualTo(2);
+    }
+
+    @Test
+    void listaJsonUsaLaPosicionComoFila() {
+        PreguntaDTO valida = pregunta("¿Cuál es la capital de Perú?", 2, respuesta("Lima", true));
+        PreguntaDTO sinCorrecta = pregunta("¿Cuál es la capital de Chile?", 2, respuesta("Lima", false));
+        PreguntaDTO malPuntaje = pregunta("¿Cuál es la capital de Bolivia?", 20, respuesta("Sucre", true));
+
+        ResultadoImportacion resultado = service.importar(5L, new ArrayList<>(List.of(valida, sinCorrecta, malPuntaje)), admin);
+
+        assertThat(resultado.errores()).containsExactly(
+                new ErrorFila(2, "La pregunta debe tener al menos una respuesta correcta"),
+                new ErrorFila(3, "El puntaje debe estar entre 1 y 10"));
+    }
+
+    @Test
+    void csvSinColumnaEnunciadoSeRechaza() {
+        assertThatThrownBy(() -> importarCsv("pregunta,puntaje\nAlgo,1\n"))
+                .hasMessageContaining("enunciado");
+    }
+
+    private ResultadoImportacion importarCsv(String contenido) {
+        return service.importarCsv(5L, new StringReader(contenido), admin);
+    }
+
+    private static PreguntaDTO pregunta(String enunciado, int puntaje, RespuestaDTO... respuestas) {
+        return PreguntaDTO.builder()
+                .enunciado(enunciado)
+                .puntaje(puntaje)
+                .tipo("multiple")
+                .respuestas(new ArrayList<>(List.of(respuestas)))
+                .build();
+    }
+
+    private static RespuestaDTO respuesta(String texto, boolean correcta) {
+        return RespuestaDTO.builder().texto(texto).esCorrecta(correcta).build();
+    }
+}
@@ -0,0 +1,146 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.entity.*;
+import com.capacitapro.backend.repository.*;
+import com.capacitapro.backend.service.VersionContenidoService;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProgresoLecturaServiceImplTest {
+
+    private ModuloRepository moduloRepository;
+    private SubmoduloRepository submoduloRepository;
+    private EvaluacionRepository evaluacionRepository;
+    private ModuloProgresoRepository moduloProgresoRepository;
+    private SubmoduloProgresoRepository submoduloProgresoRepository;
+    private EvaluacionUsuarioRepository evaluacionUsuarioRepository;
+    private ProgresoLecturaServiceImpl service;
+
+    private final Usuario usuario = Usuario.builder().id(1L).nombre("Empleado").build();
+
+    @Test
+    void cantidadDeConsultasNoDependeDelTamanoDelCurso() {
+        int consultasCursoPequeno = contarConsultas(1, 1);
+        int consultasCursoGrande = contarConsultas(15, 12);
+
+        assertThat(consultasCursoPequeno).isEqualTo(consultasCursoGrande);
+        // Estructura: módulos, submódulos, evaluaciones de módulo y del curso; progreso: módulos, submódulos y aprobadas
+        assertThat(consultasCursoGrande).isLessThanOrEqualTo(7);
+    }
+
+    @Test
+    void calculaProgresoGeneralConEvaluacionesDelCursoEnCadaModulo() {
+        prepararMocks();
+        Curso curso = Curso.builder().id(10L).titulo("Curso").build();
+        List<Modulo> modulos = crearModulos(curso, 2);
+        List<Submodulo> submodulos = crearSubmodulos(modulos, 2);
+        Evaluacion evalCurso = Evaluacion.builder().id(500L).titulo("Final").curso(curso).notaMinima(70).build();
+
+        when(moduloRepository.findActivosByCursoIdOrderByOrden(10L)).thenReturn(modulos);
+        when(submoduloRepository.findByModuloIdsOrderByOrden(anyCollection())).thenReturn(submodulos);
+        when(evaluacionRepository.findActivasByModuloIds(anyCollection())).thenReturn(List.of());
+        when(evaluacionRepository.findActivasByCursoIdDetailed(10L)).thenReturn(List.of(evalCurso));
+        when(moduloProgresoRepository.findByUsuarioAndModulo_Curso_Id(usuario, 10L)).thenReturn(List.of());
+        // Primer módulo completo en submódulos, segundo con uno solo
+        when(submoduloProgresoRepository.findCompletadosByUsuarioAndModuloIds(eq(usuario), anyCollection()))
+                .thenReturn(List.of(
+                        new Object[]{submodulos.get(0).getId(), modulos.get(0).getId()},
+                        new Object[]{submodulos.get(1).getId(), modulos.get(0).getId()},
+                        new Object[]{submodulos.get(2).getId(), modulos.get(1).getId()}));
+        when(evaluacionUsuarioRepository.findEvaluacionIdsAprobadas(eq(usuario), anyCollection())).thenReturn(List.of(500L));
+
+        Map<String, Object> response = service.obtenerProgresoCurso(10L, usuario);
+
+        // 2 módulos x (2 submódulos + 1 evaluación del curso) = 6 elementos, 5 completados
+        assertThat(response.get("progresoGeneral")).isEqualTo(83);
+        assertThat(response.get("modulosCompletados")).isEqualTo(1);
+        assertThat(response.get("totalModulos")).isEqualTo(2);
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> modulosData = (List<Map<String, Object>>) response.get("modulos");
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> items = (List<Map<String, Object>>) modulosData.get(1).get("submodulos");
+        assertThat(items).extracting(i -> i.get("completado")).containsExactly(true, false, true);
+        assertThat(items.get(2).get("id")).isEqualTo("eval_500");
+        assertThat(items.get(2).get("orden")).isEqualTo(3);
+    }
+
+    private int contarConsultas(int totalModulos, int submodulosPorModulo) {
+        prepararMocks();
+        Curso curso = Curso.builder().id(10L).titulo("Curso").build();
+        List<Modulo> modulos = crearModulos(curso, totalModulos);
+        List<Submodulo> submodulos = crearSubmodulos(modulos, submodulosPorModulo);
+
+        List<Evaluacion> evaluacionesModulo = new ArrayList<>();
+        List<ModuloProgreso> progresos = new ArrayList<>();
+        List<Object[]> completados = new ArrayList<>();
+        for (Modulo modulo : modulos) {
+            evaluacionesModulo.add(Evaluacion.builder()
+                    .id(1000L + modulo.getId()).titulo("Eval " + modulo.getId())
+                    .curso(curso).modulo(modulo).notaMinima(70).build());
+            progresos.add(ModuloProgreso.builder().id(modulo.getId()).usuario(usuario).modulo(modulo)
+                    .completado(false).porcentajeProgreso(0).build());
+        }
+        for (Submodulo sub : submodulos) {
+            completados.add(new Object[]{sub.getId(), sub.getModulo().getId()});
+        }
+
+        when(moduloRepository.findActivosByCursoIdOrderByOrden(10L)).thenReturn(modulos);
+        when(submoduloRepository.findByModuloIdsOrderByOrden(anyCollection())).thenReturn(submodulos);
+        when(evaluacionRepository.findActivasByModuloIds(anyCollection())).thenReturn(evaluacionesModulo);
+        when(evaluacionRepository.findActivasByCursoIdDetailed(10L)).thenReturn(evaluacionesModulo);
+        when(moduloProgresoRepository.findByUsuarioAndModulo_Curso_Id(usuario, 10L)).thenReturn(progresos);
+        when(submoduloProgresoRepository.findCompletadosByUsuarioAndModuloIds(eq(usuario), anyCollection())).thenReturn(completados);
+        when(evaluacionUsuarioRepository.findEvaluacionIdsAprobadas(eq(usuario), anyCollection())).thenReturn(List.of());
+
+        Map<String, Object> response = service.obtenerProgresoCurso(10L, usuario);
+        assertThat(response.get("totalModulos")).isEqualTo(totalModulos);
+
+        return Stream.of(moduloRepository, submoduloRepository, evaluacionRepository,
+                        moduloProgresoRepository, submoduloProgresoRepository, evaluacionUsuarioRepository)
+                .mapToInt(repo -> mockingDetails(repo).getInvocations().size())
+                .sum();
+    }
+
+    private void prepararMocks() {
+        moduloRepository = mock(ModuloRepository.class);
+        submoduloRepository = mock(SubmoduloRepository.class);
+        evaluacionRepository = mock(EvaluacionRepository.class);
+        moduloProgresoRepository = mock(ModuloProgresoRepository.class);
+        submoduloProgresoRepository = mock(SubmoduloProgresoRepository.class);
+        evaluacionUsuarioRepository = mock(EvaluacionUsuarioRepository.class);
+        EstructuraCursoServiceImpl estructuraCursoService = new EstructuraCursoServiceImpl(moduloRepository,
+                submoduloRepository, evaluacionRepository, mock(ProgresoContadorRepository.class), moduloProgresoRepository,
+                mock(VersionContenidoService.class), 10);
+        service = new ProgresoLecturaServiceImpl(estructuraCursoService,
+                moduloProgresoRepository, submoduloProgresoRepository, evaluacionUsuarioRepository);
+    }
+
+    private List<Modulo> crearModulos(Curso curso, int cantidad) {
+        List<Modulo> modulos = new ArrayList<>();
+        for (int i = 1; i <= cantidad; i++) {
+            modulos.add(Modulo.builder().id((long) i).titulo("Módulo " + i).orden(i).curso(curso).build());
+        }
+        return modulos;
+    }
+
+    private List<Submodulo> crearSubmodulos(List<Modulo> modulos, int porModulo) {
+        List<Submodulo> submodulos = new ArrayList<>();
+        long id = 100;
+        for (Modulo modulo : modulos) {
+            for (int i = 1; i <= porModulo; i++) {
+                submodulos.add(Submodulo.builder().id(id++).titulo("Sub " + i).tipo("TEXTO")
+                        .orden(i).modulo(modulo).build());
+            }
+        }
+        return submodulos;
+    }
+}
@@ -0,0 +1,163 @@
+package com.capacitapro.backend.service.impl;
+
+import com.capacitapro.backend.dto.VerificacionCertificado;
+import com.capacitapro.backend.repository.CertificadoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Verificación pública de certificados: ningún código emitido puede quedar fuera del filtro, tampoco
+ * los que se emiten mientras se reconstruye, y revocar un certificado saca su resultado de la caché.
+ */
+class VerificacionCertificadoServiceImplTest {
+
+    private final List<String> codigosEnBase = new ArrayList<>();
+    private CertificadoRepository certificadoRepository;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private VerificacionCertificadoServiceImpl service;
+
+    // Se ejecuta a mitad de la lectura de códigos de la reconstrucción
+    private Runnable durante = () -> { };
+
+    @BeforeEach
+    void preparar() throws Exception {
+        certificadoRepository = mock(CertificadoRepository.class);
+        jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        when(certificadoRepository.findVerificacionByCodigo(anyString()))
+                .thenAnswer(inv -> Optional.of(verificacion(inv.getArgument(0))));
+        when(jdbcTemplate.queryForObject(anyString(), any(SqlParameterSource.class), eq(Long.class)))
+                .thenAnswer(inv -> (long) codigosEnBase.size());
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(2);
+            ResultSet rs = mock(ResultSet.class);
+            List<String> leidos = List.copyOf(codigosEnBase);
+            for (int i = 0; i < leidos.size(); i++) {
+                when(rs.getString(1)).thenReturn(leidos.get(i));
+                handler.processRow(rs);
+                if (i == leidos.size() / 2) {
+                    durante.run();
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+
+        service = new VerificacionCertificadoServiceImpl(certificadoRepository, jdbcTemplate, 100, 0.001);
+    }
+
+    @AfterEach
+    void limpiar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void todosLosCodigosEmitidosPasanElFiltro() {
+        for (int i = 0; i < 500; i++) {
+            codigosEnBase.add("CERT-1700000000000-" + i);
+        }
+        service.cargarFiltro();
+
+        // Emitidos después de la carga
+        List<String> nuevos = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String codigo = "CERT-1800000000000-" + i;
+            nuevos.add(codigo);
+            codigosEnBase.add(codigo);
+            service.registrarEmitido(codigo);
+        }
+
+        for (String codigo : codigosEnBase) {
+            assertThat(service.verificar(codigo)).as(codigo).isPresent();
+        }
+        assertThat(nuevos).allMatch(c -> service.verificar(c).isPresent());
+    }
+
+    @Test
+    void codigosEmitidosDuranteLaReconstruccionNoSePierden() {
+        for (int i = 0; i < 200; i++) {
+            codigosEnBase.add("CERT-1700000000000-" + i);
+        }
+        service.cargarFiltro();
+
+        // La lectura de la reconstrucción ya pasó por donde quedaría la fila: solo la ve vía enConstruccion
+        List<String> emitidosEnMedio = new ArrayList<>();
+        durante = () -> {
+            for (int i = 0; i < 20; i++) {
+                String codigo = "CERT-1900000000000-" + i;
+                emitidosEnMedio.add(codigo);
+                service.registrarEmitido(codigo);
+            }
+        };
+        service.reconstruirFiltro();
+        durante = () -> { };
+
+        assertThat(emitidosEnMedio).hasSize(20).allMatch(c -> service.verificar(c).isPresent());
+        assertThat(service.estadisticas().get("reconstrucciones")).isEqualTo(2L);
+    }
+
+    @Test
+    void codigoDesconocidoSeRechazaSinConsultarLaBase() {
+        codigosEnBase.add("CERT-1700000000000-1");
+        service.cargarFiltro();
+
+        assertThat(service.verificar("CERT-0000000000000-NOEXISTE")).isEmpty();
+        verify(certificadoRepository, never()).findVerificacionByCodigo("CERT-0000000000000-NOEXISTE");
+    }
+
+    @Test
+    void revocarSacaElResultadoDeLaCache() {
+        String codigo = "CERT-1700000000000-7";
+        codigosEnBase.add(codigo);
+        service.cargarFiltro();
+
+        assertThat(service.verificar(codigo)).isPresent();
+        assertThat(service.verificar(codigo)).isPresent();
+        verify(certificadoRepository, times(1)).findVerificacionByCodigo(codigo);
+
+        when(certificadoRepository.findVerificacionByCodigo(codigo)).thenReturn(Optional.empty());
+        service.invalidar(codigo);
+
+        assertThat(service.verificar(codigo)).isEmpty();
+    }
+
+    @Test
+    void revocarInvalidaDeNuevoAlConfirmar() {
+        String codigo = "CERT-1700000000000-8";
+        codigosEnBase.add(codigo);
+        service.cargarFiltro();
+        assertThat(service.verificar(codigo)).isPresent();
+
+        TransactionSynchronizationManager.initSynchronization();
+        service.invalidar(codigo);
+
+        // Antes del commit otra lectura todavía ve la fila activa y la vuelve a cachear
+        assertThat(service.verificar(codigo)).isPresent();
+
+        when(certificadoRepository.findVerificacionByCodigo(codigo)).thenReturn(Optional.empty());
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        sincronizaciones.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(service.verificar(codigo)).isEmpty();
+    }
+
+    private static VerificacionCertificado verificacion(String codigo) {
+        return new VerificacionCertificado(codigo, "Empleado", "Curso", "Empresa", LocalDateTime.of(2024, 5, 18, 10, 0));
+    }
+}
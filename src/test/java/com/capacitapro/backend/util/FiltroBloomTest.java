@@ -0,0 +1,75 @@
+package com.capacitapro.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * El filtro nunca puede rechazar un código agregado (un falso negativo dejaría sin verificar un
+ * certificado válido) y su tasa de falsos positivos debe quedar cerca de la pedida.
+ */
+class FiltroBloomTest {
+
+    @Test
+    void todoLoAgregadoPuedeEstar() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.001);
+        List<String> codigos = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            codigos.add("CERT-" + (1_700_000_000_000L + i) + "-" + i % 9000);
+        }
+        codigos.forEach(filtro::agregar);
+
+        assertThat(codigos).allMatch(filtro::puedeContener);
+        assertThat(filtro.getElementos()).isEqualTo(10_000);
+    }
+
+    @Test
+    void tasaDeFalsosPositivosCercaDeLaPedida() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.agregar("emitido-" + i);
+        }
+
+        int falsosPositivos = 0;
+        int pruebas = 100_000;
+        for (int i = 0; i < pruebas; i++) {
+            if (filtro.puedeContener("inexistente-" + i)) {
+                falsosPositivos++;
+            }
+        }
+        // Con la capacidad llena la tasa esperada es 1 %; se deja margen para la variación
+        assertThat((double) falsosPositivos / pruebas).isLessThan(0.02);
+    }
+
+    @Test
+    void agregadosDesdeVariosHilosNoSePierden() throws InterruptedException {
+        FiltroBloom filtro = new FiltroBloom(40_000, 0.001);
+        List<String> codigos = new ArrayList<>();
+        for (int i = 0; i < 40_000; i++) {
+            codigos.add(UUID.randomUUID().toString());
+        }
+
+        List<Thread> hilos = new ArrayList<>();
+        for (int h = 0; h < 4; h++) {
+            List<String> parte = codigos.subList(h * 10_000, (h + 1) * 10_000);
+            hilos.add(Thread.ofPlatform().start(() -> parte.forEach(filtro::agregar)));
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+
+        assertThat(codigos).allMatch(filtro::puedeContener);
+    }
+
+    @Test
+    void rechazaParametrosInvalidos() {
+        assertThatThrownBy(() -> new FiltroBloom(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FiltroBloom(100, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FiltroBloom(100, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
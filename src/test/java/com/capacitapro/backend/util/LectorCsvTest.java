@@ -0,0 +1,91 @@
+package com.capacitapro.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lector CSV: comillas, separadores y saltos de línea dentro de campos, BOM, líneas en blanco,
+ * fin de línea Windows y las líneas que se informan en los errores de importación.
+ */
+class LectorCsvTest {
+
+    @Test
+    void camposSimplesConComa() throws IOException {
+        List<LectorCsv.Registro> registros = leer("enunciado,puntaje\nPregunta uno,2\nPregunta dos,3\n");
+
+        assertThat(registros).hasSize(3);
+        assertThat(registros.get(1).campos()).containsExactly("Pregunta uno", "2");
+        assertThat(registros.get(2).campos()).containsExactly("Pregunta dos", "3");
+    }
+
+    @Test
+    void detectaPuntoYComaEnElEncabezado() throws IOException {
+        List<LectorCsv.Registro> registros = leer("enunciado;opcion1\n¿Cuánto es 1,5 + 1,5?;3\n");
+
+        // La coma del contenido no separa cuando el archivo usa punto y coma
+        assertThat(registros.get(1).campos()).containsExactly("¿Cuánto es 1,5 + 1,5?", "3");
+    }
+
+    @Test
+    void camposEntreComillasConSeparadoresComillasYSaltos() throws IOException {
+        List<LectorCsv.Registro> registros = leer(
+                "enunciado,opcion1\n" +
+                "\"Uno, dos y tres\",\"Dijo \"\"hola\"\"\"\n" +
+                "\"Primera línea\nsegunda línea\",x\n");
+
+        assertThat(registros.get(1).campos()).containsExactly("Uno, dos y tres", "Dijo \"hola\"");
+        assertThat(registros.get(2).campos()).containsExactly("Primera línea\nsegunda línea", "x");
+    }
+
+    @Test
+    void ignoraElBomDelPrincipio() throws IOException {
+        List<LectorCsv.Registro> registros = leer("\uFEFFenunciado,puntaje\nTexto,1\n");
+
+        assertThat(registros.get(0).campos()).containsExactly("enunciado", "puntaje");
+    }
+
+    @Test
+    void lineasEnBlancoQuedanComoRegistrosVacios() throws IOException {
+        List<LectorCsv.Registro> registros = leer("enunciado,puntaje\n\nTexto,1\n,\n");
+
+        assertThat(registros).hasSize(4);
+        assertThat(registros.get(1).vacio()).isTrue();
+        assertThat(registros.get(2).vacio()).isFalse();
+        assertThat(registros.get(3).vacio()).isTrue();
+    }
+
+    @Test
+    void cadaRegistroRecuerdaSuLineaDeInicio() throws IOException {
+        List<LectorCsv.Registro> registros = leer(
+                "enunciado,opcion1\r\n" +
+                "\"Con\r\ndos saltos\ninternos\",a\r\n" +
+                "\r\n" +
+                "Última,b");
+
+        assertThat(registros).extracting(LectorCsv.Registro::linea).containsExactly(1, 2, 5, 6);
+        assertThat(registros.get(3).campos()).containsExactly("Última", "b");
+    }
+
+    @Test
+    void campoFueraDeRangoEsNull() throws IOException {
+        LectorCsv.Registro registro = leer("a,b,c\n1,2\n").get(1);
+
+        assertThat(registro.campo(1)).isEqualTo("2");
+        assertThat(registro.campo(2)).isNull();
+        assertThat(registro.campo(-1)).isNull();
+    }
+
+    @Test
+    void archivoVacioNoTieneRegistros() throws IOException {
+        assertThat(leer("")).isEmpty();
+    }
+
+    private static List<LectorCsv.Registro> leer(String contenido) throws IOException {
+        return new LectorCsv(new StringReader(contenido)).leerTodo();
+    }
+}
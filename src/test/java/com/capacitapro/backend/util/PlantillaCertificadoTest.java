@@ -0,0 +1,59 @@
+package com.capacitapro.backend.util;
+
+import com.lowagie.text.pdf.PdfDate;
+import com.lowagie.text.pdf.PdfReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * El render de un certificado es determinista: mismos datos y misma versión de plantilla dan los mismos
+ * bytes aunque la plantilla se compile en otro momento (otra instancia o tras un reinicio), y el digest
+ * cambia al subir la versión.
+ */
+class PlantillaCertificadoTest {
+
+    private static final LocalDateTime EMISION = LocalDateTime.of(2024, 5, 18, 10, 30, 15);
+
+    @Test
+    void mismosDatosYVersionDanLosMismosBytes() throws Exception {
+        byte[] primero = estampar(PlantillaCertificado.compilar("Empresa"), "CERT-1", 2);
+        Thread.sleep(1100); // Las fechas de PDF tienen resolución de segundos
+        byte[] segundo = estampar(PlantillaCertificado.compilar("Empresa"), "CERT-1", 2);
+
+        assertThat(segundo).isEqualTo(primero);
+    }
+
+    @Test
+    void otraVersionUOtroCodigoCambianElArchivo() {
+        PlantillaCertificado plantilla = PlantillaCertificado.compilar("Empresa");
+        byte[] base = estampar(plantilla, "CERT-1", 2);
+
+        assertThat(estampar(plantilla, "CERT-1", 3)).isNotEqualTo(base);
+        assertThat(estampar(plantilla, "CERT-2", 2)).isNotEqualTo(base);
+    }
+
+    @Test
+    void fechasDelDocumentoSonLaDeEmision() throws Exception {
+        PdfReader reader = new PdfReader(estampar(PlantillaCertificado.compilar("Empresa"), "CERT-1", 2));
+        try {
+            Calendar esperada = PdfDate.decode(new PdfDate(GregorianCalendar.from(EMISION.atZone(ZoneOffset.UTC))).toString());
+            assertThat(PdfDate.decode(reader.getInfo().get("ModDate")).getTimeInMillis()).isEqualTo(esperada.getTimeInMillis());
+            assertThat(PdfDate.decode(reader.getInfo().get("CreationDate")).getTimeInMillis()).isEqualTo(esperada.getTimeInMillis());
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static byte[] estampar(PlantillaCertificado plantilla, String codigo, int version) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        plantilla.estampar("María Quispe", "Manejo defensivo", EMISION, codigo, version, salida);
+        return salida.toByteArray();
+    }
+}